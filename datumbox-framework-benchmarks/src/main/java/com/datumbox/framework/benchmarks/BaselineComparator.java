@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the results of a benchmark run against a baseline. Both files must
+ * be in the CSV result format of JMH. The primary scores and the normalized
+ * allocation rates (gc.alloc.rate.norm) of the benchmarks which exist in both
+ * files are compared and every change larger than the threshold is reported.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class BaselineComparator {
+    
+    /**
+     * The default relative change which is reported.
+     */
+    public static final double DEFAULT_THRESHOLD = 0.2;
+    
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    
+    private static final String PARAM_PREFIX = "Param: ";
+    
+    /**
+     * Compares the results against the baseline and exits with a non-zero
+     * status if any regression is found.
+     * 
+     * @param args The paths of the baseline and of the results, optionally followed by the threshold.
+     */
+    public static void main(String[] args) {
+        if(args.length < 2) {
+            System.err.println("Usage: BaselineComparator <baseline.csv> <results.csv> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        
+        int regressions = compare(Paths.get(args[0]), Paths.get(args[1]), threshold, System.out);
+        if(regressions > 0) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Compares the results against the baseline and prints the changes which
+     * are larger than the threshold.
+     * 
+     * @param baseline
+     * @param results
+     * @param threshold
+     * @param out
+     * @return The number of regressions.
+     */
+    public static int compare(Path baseline, Path results, double threshold, PrintStream out) {
+        Map<String, Score> baselineScores = readScores(baseline);
+        Map<String, Score> currentScores = readScores(results);
+        
+        int regressions = 0;
+        int compared = 0;
+        for(Map.Entry<String, Score> e : currentScores.entrySet()) {
+            Score previous = baselineScores.get(e.getKey());
+            Score current = e.getValue();
+            if(previous == null || !previous.unit.equals(current.unit) || previous.value == 0.0) {
+                continue;
+            }
+            compared++;
+            
+            double change = (current.value - previous.value)/previous.value;
+            if(Math.abs(change) <= threshold) {
+                continue;
+            }
+            
+            boolean regression = current.higherIsBetter ? change < 0.0 : change > 0.0;
+            if(regression) {
+                regressions++;
+            }
+            out.printf("%s %s: %.3f -> %.3f %s (%+.1f%%)%n", regression?"REGRESSION ":"IMPROVEMENT", e.getKey(), previous.value, current.value, current.unit, 100.0*change);
+        }
+        out.printf("Compared %d scores against the baseline %s: %d regressions above %.0f%%.%n", compared, baseline, regressions, 100.0*threshold);
+        
+        return regressions;
+    }
+    
+    /**
+     * Reads the comparable scores of a JMH CSV result file, indexed by the
+     * benchmark, the mode and the parameters.
+     * 
+     * @param path
+     * @return 
+     */
+    private static Map<String, Score> readScores(Path path) {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             CSVParser parser = CSVFormat.RFC4180.withFirstRecordAsHeader().parse(reader)) {
+            for(CSVRecord row : parser) {
+                String benchmark = row.get("Benchmark");
+                int metricIndex = benchmark.indexOf(':');
+                boolean primary = metricIndex == -1;
+                if(!primary && !benchmark.endsWith(ALLOCATION_METRIC)) {
+                    continue;
+                }
+                
+                StringBuilder key = new StringBuilder(benchmark);
+                key.append(' ').append(row.get("Mode"));
+                for(String column : parser.getHeaderMap().keySet()) {
+                    if(column.startsWith(PARAM_PREFIX) && !row.get(column).isEmpty()) {
+                        key.append(' ').append(column.substring(PARAM_PREFIX.length())).append('=').append(row.get(column));
+                    }
+                }
+                
+                Score score = new Score();
+                score.value = Double.parseDouble(row.get("Score"));
+                score.unit = row.get("Unit");
+                score.higherIsBetter = primary && "thrpt".equals(row.get("Mode"));
+                scores.put(key.toString(), score);
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return scores;
+    }
+    
+    /**
+     * A score of a benchmark.
+     */
+    private static class Score {
+        private double value;
+        private String unit;
+        private boolean higherIsBetter;
+    }
+    
+}
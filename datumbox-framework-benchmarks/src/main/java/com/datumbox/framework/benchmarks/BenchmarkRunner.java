@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Runs the Benchmarks of the framework. It accepts the standard JMH command
+ * line options and it changes the following defaults: the GC profiler is
+ * enabled to report the allocation rates, the results are written in CSV format
+ * to benchmarks.csv and, when the baseline file exists, the results are compared
+ * against it with the BaselineComparator. The process exits with a non-zero
+ * status if a regression is found.
+ * 
+ * The baseline file and the threshold of the comparison can be changed with the
+ * benchmarks.baseline and benchmarks.threshold system properties.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class BenchmarkRunner {
+    
+    private static final String DEFAULT_RESULT = "benchmarks.csv";
+    
+    private static final String DEFAULT_BASELINE = "baseline.csv";
+    
+    /**
+     * Runs the Benchmarks.
+     * 
+     * @param args The JMH command line options.
+     * @throws RunnerException
+     * @throws IOException 
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        CommandLineOptions cmdOptions;
+        try {
+            cmdOptions = new CommandLineOptions(args);
+        }
+        catch (CommandLineOptionException ex) {
+            System.err.println("Error parsing command line: " + ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        
+        if(cmdOptions.shouldHelp()) {
+            cmdOptions.showHelp();
+            return;
+        }
+        
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(cmdOptions);
+        if(cmdOptions.getProfilers().isEmpty()) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        if(!cmdOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.CSV);
+        }
+        if(!cmdOptions.getResult().hasValue()) {
+            builder.result(DEFAULT_RESULT);
+        }
+        Runner runner = new Runner(builder.build());
+        
+        if(cmdOptions.shouldList()) {
+            runner.list();
+            return;
+        }
+        runner.run();
+        
+        Path baseline = Paths.get(System.getProperty("benchmarks.baseline", DEFAULT_BASELINE));
+        Path results = Paths.get(cmdOptions.getResult().orElse(DEFAULT_RESULT));
+        ResultFormatType format = cmdOptions.getResultFormat().orElse(ResultFormatType.CSV);
+        if(format == ResultFormatType.CSV && Files.exists(baseline) && Files.exists(results)) {
+            double threshold = Double.parseDouble(System.getProperty("benchmarks.threshold", String.valueOf(BaselineComparator.DEFAULT_THRESHOLD)));
+            int regressions = BaselineComparator.compare(baseline, results, threshold, System.out);
+            if(regressions > 0) {
+                System.exit(1);
+            }
+        }
+    }
+    
+}
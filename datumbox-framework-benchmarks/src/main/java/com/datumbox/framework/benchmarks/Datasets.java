@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks;
+
+import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.common.dataobjects.TypeInference;
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.common.dataobjects.Record;
+
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+/**
+ * Synthetic Datasets used by the Benchmarks. All the generators use the
+ * thread-local RandomGenerator, so the produced data depend only on its seed
+ * and on the requested sizes.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class Datasets {
+    
+    /**
+     * Classification Dataframe with numeric non-negative features. The class of
+     * every Record is an integer in [1, k], so it can also be used for ordinal
+     * regression.
+     * 
+     * @param n
+     * @param d
+     * @param k
+     * @param configuration
+     * @return 
+     */
+    public static Dataframe classification(int n, int d, int k, Configuration configuration) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        Dataframe data = new Dataframe(configuration);
+        for(int i=0;i<n;i++) {
+            int y = rnd.nextInt(k);
+            AssociativeArray x = new AssociativeArray();
+            for(int j=0;j<d;j++) {
+                double offset = (j%k==y)?1.0:0.0;
+                x.put(j, offset + rnd.nextDouble());
+            }
+            data.add(new Record(x, y+1));
+        }
+        return data;
+    }
+    
+    /**
+     * Regression Dataframe with a linear response and gaussian noise.
+     * 
+     * @param n
+     * @param d
+     * @param configuration
+     * @return 
+     */
+    public static Dataframe regression(int n, int d, Configuration configuration) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        Dataframe data = new Dataframe(configuration);
+        for(int i=0;i<n;i++) {
+            AssociativeArray x = new AssociativeArray();
+            double y = 2.0;
+            for(int j=0;j<d;j++) {
+                double value = rnd.nextDouble();
+                x.put(j, value);
+                y += (j+1)*value;
+            }
+            data.add(new Record(x, y + rnd.nextGaussian()));
+        }
+        return data;
+    }
+    
+    /**
+     * Dataframe with k gaussian clusters in d dimensions. The clusters are
+     * stored as the responses of the Records.
+     * 
+     * @param n
+     * @param d
+     * @param k
+     * @param configuration
+     * @return 
+     */
+    public static Dataframe gaussianClusters(int n, int d, int k, Configuration configuration) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        Dataframe data = new Dataframe(configuration);
+        for(int i=0;i<n;i++) {
+            int c = rnd.nextInt(k);
+            AssociativeArray x = new AssociativeArray();
+            for(int j=0;j<d;j++) {
+                x.put(j, 10.0*((c+j)%k) + rnd.nextGaussian());
+            }
+            data.add(new Record(x, "c"+c));
+        }
+        return data;
+    }
+    
+    /**
+     * Dataframe of word counts drawn from k topics. Every topic prefers a
+     * different part of the vocabulary.
+     * 
+     * @param n
+     * @param vocabularySize
+     * @param k
+     * @param configuration
+     * @return 
+     */
+    public static Dataframe wordCounts(int n, int vocabularySize, int k, Configuration configuration) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        Dataframe data = new Dataframe(configuration);
+        for(int i=0;i<n;i++) {
+            int c = rnd.nextInt(k);
+            AssociativeArray x = new AssociativeArray();
+            for(int j=0;j<vocabularySize;j++) {
+                int count = rnd.nextInt((j%k==c)?10:2);
+                x.put(j, (double)count);
+            }
+            data.add(new Record(x, "c"+c));
+        }
+        return data;
+    }
+    
+    /**
+     * Dataframe of documents drawn from k topics. Every Record stores the words
+     * of the document indexed by their position, which is the format produced
+     * by the UniqueWordSequenceExtractor.
+     * 
+     * @param n
+     * @param documentLength
+     * @param vocabularySize
+     * @param k
+     * @param configuration
+     * @return 
+     */
+    public static Dataframe documents(int n, int documentLength, int vocabularySize, int k, Configuration configuration) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        Dataframe data = new Dataframe(configuration);
+        int wordsPerTopic = Math.max(vocabularySize/k, 1);
+        for(int i=0;i<n;i++) {
+            int c = rnd.nextInt(k);
+            AssociativeArray x = new AssociativeArray();
+            for(int j=0;j<documentLength;j++) {
+                int wordId = rnd.nextBoolean()?c*wordsPerTopic+rnd.nextInt(wordsPerTopic):rnd.nextInt(vocabularySize);
+                x.put(j, "w"+wordId);
+            }
+            data.add(new Record(x, "c"+c));
+        }
+        return data;
+    }
+    
+    /**
+     * Text with the provided number of words separated by spaces and punctuation.
+     * 
+     * @param numberOfWords
+     * @param vocabularySize
+     * @return 
+     */
+    public static String text(int numberOfWords, int vocabularySize) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        StringBuilder sb = new StringBuilder();
+        for(int i=0;i<numberOfWords;i++) {
+            sb.append("word").append(rnd.nextInt(vocabularySize));
+            sb.append(rnd.nextInt(12)==0?". ":" ");
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * The columns of the CSV files produced by csv().
+     * 
+     * @return 
+     */
+    public static LinkedHashMap<String, TypeInference.DataType> csvHeaderDataTypes() {
+        LinkedHashMap<String, TypeInference.DataType> headerDataTypes = new LinkedHashMap<>();
+        headerDataTypes.put("c1", TypeInference.DataType.NUMERICAL);
+        headerDataTypes.put("c2", TypeInference.DataType.NUMERICAL);
+        headerDataTypes.put("c3", TypeInference.DataType.CATEGORICAL);
+        headerDataTypes.put("c4", TypeInference.DataType.BOOLEAN);
+        headerDataTypes.put("c5", TypeInference.DataType.ORDINAL);
+        headerDataTypes.put("y", TypeInference.DataType.CATEGORICAL);
+        return headerDataTypes;
+    }
+    
+    /**
+     * CSV file with a header and the provided number of rows. The columns are
+     * described by csvHeaderDataTypes().
+     * 
+     * @param rows
+     * @return 
+     */
+    public static String csv(int rows) {
+        Random rnd = RandomGenerator.getThreadLocalRandom();
+        StringBuilder sb = new StringBuilder();
+        sb.append("c1,c2,c3,c4,c5,y\r\n");
+        for(int i=0;i<rows;i++) {
+            sb.append(rnd.nextGaussian()).append(',');
+            sb.append(rnd.nextInt(1000)).append(',');
+            sb.append("\"category ").append(rnd.nextInt(20)).append("\",");
+            sb.append(rnd.nextBoolean()).append(',');
+            sb.append(rnd.nextInt(5)).append(',');
+            sb.append('y').append(rnd.nextInt(3)).append("\r\n");
+        }
+        return sb.toString();
+    }
+    
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.abstracts;
+
+import com.datumbox.framework.common.ConfigurableFactory;
+import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The abstract class for all the Benchmarks of the framework. It sets the
+ * default JMH options which can be overridden by the subclasses or from the
+ * command line.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2G"})
+public abstract class AbstractBenchmark {
+    
+    /**
+     * The seed of the RandomGenerator.
+     */
+    public static final long RANDOM_SEED = 42L;
+    
+    /**
+     * Resets the seed of the RandomGenerator. It must be called by the setup
+     * methods of the subclasses before generating any data, so that the synthetic
+     * datasets are identical across runs and versions.
+     */
+    protected void resetSeed() {
+        RandomGenerator.setGlobalSeed(RANDOM_SEED);
+        RandomGenerator.getThreadLocalRandom().setSeed(RANDOM_SEED);
+    }
+    
+    /**
+     * Builds a configuration object. The storage engine can be selected with
+     * the storageEngine system property; by default the configuration of the
+     * classpath is used.
+     * 
+     * @return 
+     */
+    protected Configuration getConfiguration() {
+        return getConfiguration(System.getProperty("storageEngine"));
+    }
+    
+    /**
+     * Builds a configuration object which uses the provided storage engine.
+     * 
+     * @param storageEngine
+     * @return 
+     */
+    protected Configuration getConfiguration(String storageEngine) {
+        if(storageEngine == null) {
+            return Configuration.getConfiguration();
+        }
+        else {
+            Properties p = new Properties();
+            if("InMemory".equals(storageEngine)) {
+                p.setProperty("configuration.storageConfiguration", "com.datumbox.framework.storage.inmemory.InMemoryConfiguration");
+            }
+            else if("MapDB".equals(storageEngine)) {
+                p.setProperty("configuration.storageConfiguration", "com.datumbox.framework.storage.mapdb.MapDBConfiguration");
+            }
+            else if("MMap".equals(storageEngine)) {
+                p.setProperty("configuration.storageConfiguration", "com.datumbox.framework.storage.mmap.MMapConfiguration");
+            }
+            else {
+                throw new IllegalArgumentException("Unsupported option.");
+            }
+            return ConfigurableFactory.getConfiguration(Configuration.class, p);
+        }
+    }
+    
+}
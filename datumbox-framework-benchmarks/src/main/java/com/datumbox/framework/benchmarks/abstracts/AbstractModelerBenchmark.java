@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.abstracts;
+
+import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractModeler;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Base class for the Benchmarks of the modelers. The subclasses declare the
+ * benchmarked algorithms and data sizes as JMH parameters and they delegate the
+ * training and the prediction to the helper methods of this class. The training
+ * and test Dataframes are generated once per trial and a trained modeler is kept
+ * for the prediction benchmarks.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public abstract class AbstractModelerBenchmark extends AbstractBenchmark {
+    
+    /**
+     * The configuration of the trial.
+     */
+    protected Configuration configuration;
+    
+    /**
+     * The data used for training.
+     */
+    protected Dataframe trainingData;
+    
+    /**
+     * The data used for prediction.
+     */
+    protected Dataframe testData;
+    
+    /**
+     * A trained modeler used by the prediction benchmarks.
+     */
+    protected AbstractModeler<?, ?> modeler;
+    
+    /**
+     * Generates the training and test data and trains the modeler of the
+     * algorithm.
+     * 
+     * @param algorithm
+     * @param size 
+     */
+    protected void setUp(String algorithm, int size) {
+        resetSeed();
+        configuration = getConfiguration();
+        trainingData = generateData(size);
+        testData = generateData(size);
+        modeler = fitModeler(algorithm);
+    }
+    
+    /**
+     * Closes the modeler and the data of the trial.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        modeler.close();
+        trainingData.close();
+        testData.close();
+    }
+    
+    /**
+     * Trains a new modeler of the algorithm on the training data. The caller
+     * is responsible for closing it.
+     * 
+     * @param algorithm
+     * @return 
+     */
+    protected AbstractModeler<?, ?> fitModeler(String algorithm) {
+        AbstractModeler<?, ?> m = MLBuilder.create(getTrainingParameters(algorithm), configuration);
+        m.fit(trainingData);
+        return m;
+    }
+    
+    /**
+     * Trains and closes a new modeler of the algorithm.
+     * 
+     * @param algorithm
+     * @return 
+     */
+    protected Object fitAndClose(String algorithm) {
+        AbstractModeler<?, ?> m = fitModeler(algorithm);
+        Object modelParameters = m.getModelParameters();
+        m.close();
+        return modelParameters;
+    }
+    
+    /**
+     * Estimates the predictions of the test data with the trained modeler.
+     * 
+     * @return 
+     */
+    protected Dataframe predictTestData() {
+        modeler.predict(testData);
+        return testData;
+    }
+    
+    /**
+     * Generates a Dataframe with the provided number of Records.
+     * 
+     * @param size
+     * @return 
+     */
+    protected abstract Dataframe generateData(int size);
+    
+    /**
+     * Returns the training parameters of the algorithm.
+     * 
+     * @param algorithm
+     * @return 
+     */
+    protected abstract AbstractTrainer.AbstractTrainingParameters getTrainingParameters(String algorithm);
+    
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.common.dataobjects;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractBenchmark;
+import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.dataobjects.TypeInference;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+
+/**
+ * Benchmarks the parsing of CSV files into Dataframes. The files are kept in
+ * memory so that only the parsing, the type conversions and the storage of the
+ * Records are measured.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class DataframeBenchmark extends AbstractBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int size;
+    
+    private Configuration configuration;
+    
+    private LinkedHashMap<String, TypeInference.DataType> headerDataTypes;
+    
+    private String csv;
+    
+    /**
+     * Generates the CSV file.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        resetSeed();
+        configuration = getConfiguration();
+        headerDataTypes = Datasets.csvHeaderDataTypes();
+        csv = Datasets.csv(size);
+    }
+    
+    /**
+     * Benchmarks the Dataframe.Builder.parseCSVFile() method.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public int parseCSVFile() {
+        try (Dataframe data = Dataframe.Builder.parseCSVFile(new StringReader(csv), "y", headerDataTypes, ',', '"', "\r\n", null, null, configuration)) {
+            return data.size();
+        }
+    }
+    
+}
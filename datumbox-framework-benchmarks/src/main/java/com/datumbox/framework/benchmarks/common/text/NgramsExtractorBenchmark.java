@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.common.text;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractBenchmark;
+import com.datumbox.framework.core.common.text.extractors.NgramsExtractor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the extraction of the keyword combinations of texts.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NgramsExtractorBenchmark extends AbstractBenchmark {
+    
+    private static final int VOCABULARY_SIZE = 500;
+    
+    @Param({"100", "1000", "10000"})
+    public int size;
+    
+    @Param({"1", "3"})
+    public int maxCombinations;
+    
+    private NgramsExtractor extractor;
+    
+    private String text;
+    
+    /**
+     * Generates the text and initializes the extractor.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        resetSeed();
+        text = Datasets.text(size, VOCABULARY_SIZE);
+        
+        NgramsExtractor.Parameters p = new NgramsExtractor.Parameters();
+        p.setMaxCombinations(maxCombinations);
+        extractor = new NgramsExtractor(p);
+    }
+    
+    /**
+     * Benchmarks the NgramsExtractor.extract() method.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Map<String, Double> extract() {
+        return extractor.extract(text);
+    }
+    
+}
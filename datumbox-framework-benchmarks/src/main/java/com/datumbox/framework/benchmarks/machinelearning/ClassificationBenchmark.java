@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.machinelearning;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractModelerBenchmark;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.machinelearning.classification.*;
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import com.datumbox.framework.core.machinelearning.ensemblelearning.Adaboost;
+import com.datumbox.framework.core.machinelearning.ensemblelearning.BootstrapAggregating;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the training and the prediction of the classifiers.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class ClassificationBenchmark extends AbstractModelerBenchmark {
+    
+    private static final int FEATURES = 20;
+    private static final int CLASSES = 3;
+    
+    @Param({"MultinomialNaiveBayes", "BernoulliNaiveBayes", "BinarizedNaiveBayes", "MaximumEntropy", "SoftMaxRegression", "OrdinalRegression", "SupportVectorMachine", "Adaboost", "BootstrapAggregating"})
+    public String algorithm;
+    
+    @Param({"1000", "10000"})
+    public int size;
+    
+    /**
+     * Generates the data and trains the classifier used for prediction.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUp(algorithm, size);
+    }
+    
+    /**
+     * Benchmarks the training of the classifier.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Object fit() {
+        return fitAndClose(algorithm);
+    }
+    
+    /**
+     * Benchmarks the prediction of the classifier.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Dataframe predict() {
+        return predictTestData();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected Dataframe generateData(int size) {
+        return Datasets.classification(size, FEATURES, CLASSES, configuration);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected AbstractTrainer.AbstractTrainingParameters getTrainingParameters(String algorithm) {
+        switch(algorithm) {
+            case "MultinomialNaiveBayes":
+                MultinomialNaiveBayes.TrainingParameters mnbParams = new MultinomialNaiveBayes.TrainingParameters();
+                mnbParams.setMultiProbabilityWeighted(true);
+                return mnbParams;
+            case "BernoulliNaiveBayes":
+                return new BernoulliNaiveBayes.TrainingParameters();
+            case "BinarizedNaiveBayes":
+                return new BinarizedNaiveBayes.TrainingParameters();
+            case "MaximumEntropy":
+                MaximumEntropy.TrainingParameters meParams = new MaximumEntropy.TrainingParameters();
+                meParams.setTotalIterations(10);
+                return meParams;
+            case "SoftMaxRegression":
+                SoftMaxRegression.TrainingParameters smParams = new SoftMaxRegression.TrainingParameters();
+                smParams.setTotalIterations(50);
+                smParams.setL2(0.001);
+                return smParams;
+            case "OrdinalRegression":
+                OrdinalRegression.TrainingParameters orParams = new OrdinalRegression.TrainingParameters();
+                orParams.setTotalIterations(50);
+                orParams.setL2(0.001);
+                return orParams;
+            case "SupportVectorMachine":
+                return new SupportVectorMachine.TrainingParameters();
+            case "Adaboost":
+                Adaboost.TrainingParameters abParams = new Adaboost.TrainingParameters();
+                abParams.setMaxWeakClassifiers(5);
+                abParams.setWeakClassifierTrainingParameters(new MultinomialNaiveBayes.TrainingParameters());
+                return abParams;
+            case "BootstrapAggregating":
+                BootstrapAggregating.TrainingParameters baParams = new BootstrapAggregating.TrainingParameters();
+                baParams.setMaxWeakClassifiers(5);
+                baParams.setWeakClassifierTrainingParameters(new MultinomialNaiveBayes.TrainingParameters());
+                return baParams;
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm.");
+        }
+    }
+    
+}
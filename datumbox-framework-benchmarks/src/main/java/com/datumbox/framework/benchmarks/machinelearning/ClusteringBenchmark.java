@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.machinelearning;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractModelerBenchmark;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.machinelearning.clustering.GaussianDPMM;
+import com.datumbox.framework.core.machinelearning.clustering.HierarchicalAgglomerative;
+import com.datumbox.framework.core.machinelearning.clustering.Kmeans;
+import com.datumbox.framework.core.machinelearning.clustering.MultinomialDPMM;
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.OpenMapRealVector;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the training and the prediction of the clusterers. The sizes are
+ * smaller than the ones of the supervised algorithms because the Hierarchical
+ * Agglomerative clustering stores all the pairwise distances.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class ClusteringBenchmark extends AbstractModelerBenchmark {
+    
+    private static final int FEATURES = 5;
+    private static final int CLUSTERS = 3;
+    
+    @Param({"Kmeans", "HierarchicalAgglomerative", "GaussianDPMM", "MultinomialDPMM"})
+    public String algorithm;
+    
+    @Param({"200", "1000"})
+    public int size;
+    
+    /**
+     * Generates the data and trains the clusterer used for prediction.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUp(algorithm, size);
+    }
+    
+    /**
+     * Benchmarks the training of the clusterer.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Object fit() {
+        return fitAndClose(algorithm);
+    }
+    
+    /**
+     * Benchmarks the prediction of the clusterer.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Dataframe predict() {
+        return predictTestData();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected Dataframe generateData(int size) {
+        if("MultinomialDPMM".equals(algorithm)) {
+            return Datasets.wordCounts(size, 4*FEATURES, CLUSTERS, configuration);
+        }
+        return Datasets.gaussianClusters(size, FEATURES, CLUSTERS, configuration);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected AbstractTrainer.AbstractTrainingParameters getTrainingParameters(String algorithm) {
+        switch(algorithm) {
+            case "Kmeans":
+                Kmeans.TrainingParameters kmParams = new Kmeans.TrainingParameters();
+                kmParams.setK(CLUSTERS);
+                kmParams.setMaxIterations(200);
+                kmParams.setInitializationMethod(Kmeans.TrainingParameters.Initialization.FORGY);
+                kmParams.setDistanceMethod(Kmeans.TrainingParameters.Distance.EUCLIDIAN);
+                return kmParams;
+            case "HierarchicalAgglomerative":
+                HierarchicalAgglomerative.TrainingParameters haParams = new HierarchicalAgglomerative.TrainingParameters();
+                haParams.setDistanceMethod(HierarchicalAgglomerative.TrainingParameters.Distance.EUCLIDIAN);
+                haParams.setLinkageMethod(HierarchicalAgglomerative.TrainingParameters.Linkage.COMPLETE);
+                haParams.setMinClustersThreshold(CLUSTERS);
+                haParams.setMaxDistanceThreshold(Double.MAX_VALUE);
+                return haParams;
+            case "GaussianDPMM":
+                GaussianDPMM.TrainingParameters gParams = new GaussianDPMM.TrainingParameters();
+                gParams.setAlpha(0.01);
+                gParams.setMaxIterations(20);
+                gParams.setInitializationMethod(GaussianDPMM.TrainingParameters.Initialization.ONE_CLUSTER_PER_RECORD);
+                gParams.setKappa0(0);
+                gParams.setNu0(1);
+                gParams.setMu0(new OpenMapRealVector(FEATURES));
+                gParams.setPsi0(MatrixUtils.createRealIdentityMatrix(FEATURES));
+                return gParams;
+            case "MultinomialDPMM":
+                MultinomialDPMM.TrainingParameters mParams = new MultinomialDPMM.TrainingParameters();
+                mParams.setAlpha(0.01);
+                mParams.setMaxIterations(20);
+                mParams.setInitializationMethod(MultinomialDPMM.TrainingParameters.Initialization.ONE_CLUSTER_PER_RECORD);
+                mParams.setAlphaWords(1);
+                return mParams;
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm.");
+        }
+    }
+    
+}
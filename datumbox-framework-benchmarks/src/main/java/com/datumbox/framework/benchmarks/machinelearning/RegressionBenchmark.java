@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.machinelearning;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractModelerBenchmark;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import com.datumbox.framework.core.machinelearning.regression.MatrixLinearRegression;
+import com.datumbox.framework.core.machinelearning.regression.NLMS;
+import com.datumbox.framework.core.machinelearning.regression.StepwiseRegression;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the training and the prediction of the regressors.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class RegressionBenchmark extends AbstractModelerBenchmark {
+    
+    private static final int FEATURES = 10;
+    
+    @Param({"MatrixLinearRegression", "NLMS", "StepwiseRegression"})
+    public String algorithm;
+    
+    @Param({"1000", "10000"})
+    public int size;
+    
+    /**
+     * Generates the data and trains the regressor used for prediction.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUp(algorithm, size);
+    }
+    
+    /**
+     * Benchmarks the training of the regressor.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Object fit() {
+        return fitAndClose(algorithm);
+    }
+    
+    /**
+     * Benchmarks the prediction of the regressor.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Dataframe predict() {
+        return predictTestData();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected Dataframe generateData(int size) {
+        return Datasets.regression(size, FEATURES, configuration);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected AbstractTrainer.AbstractTrainingParameters getTrainingParameters(String algorithm) {
+        switch(algorithm) {
+            case "MatrixLinearRegression":
+                return new MatrixLinearRegression.TrainingParameters();
+            case "NLMS":
+                NLMS.TrainingParameters nlmsParams = new NLMS.TrainingParameters();
+                nlmsParams.setTotalIterations(50);
+                nlmsParams.setLearningRate(0.01);
+                return nlmsParams;
+            case "StepwiseRegression":
+                StepwiseRegression.TrainingParameters swParams = new StepwiseRegression.TrainingParameters();
+                swParams.setAout(0.05);
+                swParams.setRegressionTrainingParameters(new MatrixLinearRegression.TrainingParameters());
+                return swParams;
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm.");
+        }
+    }
+    
+}
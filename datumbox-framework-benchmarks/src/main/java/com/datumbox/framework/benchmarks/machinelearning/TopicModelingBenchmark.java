@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.machinelearning;
+
+import com.datumbox.framework.benchmarks.Datasets;
+import com.datumbox.framework.benchmarks.abstracts.AbstractModelerBenchmark;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import com.datumbox.framework.core.machinelearning.topicmodeling.LatentDirichletAllocation;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks the training and the prediction of the topic models. The size is
+ * the number of documents.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class TopicModelingBenchmark extends AbstractModelerBenchmark {
+    
+    private static final int DOCUMENT_LENGTH = 50;
+    private static final int VOCABULARY_SIZE = 1000;
+    private static final int TOPICS = 10;
+    
+    @Param({"LatentDirichletAllocation", "SparseLatentDirichletAllocation"})
+    public String algorithm;
+    
+    @Param({"100", "1000"})
+    public int size;
+    
+    /**
+     * Generates the documents and trains the topic model used for prediction.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        setUp(algorithm, size);
+    }
+    
+    /**
+     * Benchmarks the training of the topic model.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Object fit() {
+        return fitAndClose(algorithm);
+    }
+    
+    /**
+     * Benchmarks the prediction of the topic model.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public Dataframe predict() {
+        return predictTestData();
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected Dataframe generateData(int size) {
+        return Datasets.documents(size, DOCUMENT_LENGTH, VOCABULARY_SIZE, TOPICS, configuration);
+    }
+    
+    /** {@inheritDoc} */
+    @Override
+    protected AbstractTrainer.AbstractTrainingParameters getTrainingParameters(String algorithm) {
+        switch(algorithm) {
+            case "LatentDirichletAllocation":
+                LatentDirichletAllocation.TrainingParameters ldaParams = new LatentDirichletAllocation.TrainingParameters();
+                ldaParams.setMaxIterations(10);
+                ldaParams.setAlpha(0.01);
+                ldaParams.setBeta(0.01);
+                ldaParams.setK(TOPICS);
+                return ldaParams;
+            case "SparseLatentDirichletAllocation":
+                LatentDirichletAllocation.TrainingParameters sparseLdaParams = new LatentDirichletAllocation.TrainingParameters();
+                sparseLdaParams.setMaxIterations(10);
+                sparseLdaParams.setAlpha(0.01);
+                sparseLdaParams.setBeta(0.01);
+                sparseLdaParams.setK(TOPICS);
+                sparseLdaParams.setSampler(LatentDirichletAllocation.TrainingParameters.Sampler.SPARSE);
+                return sparseLdaParams;
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm.");
+        }
+    }
+    
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.benchmarks.storage;
+
+import com.datumbox.framework.benchmarks.abstracts.AbstractBenchmark;
+import com.datumbox.framework.common.storage.interfaces.StorageEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Benchmarks the StorageEngine implementations. Each benchmark stores or reads
+ * the provided number of entries in a BigMap or as a single serialized object.
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class StorageEngineBenchmark extends AbstractBenchmark {
+    
+    @Param({"InMemory", "MapDB", "MMap"})
+    public String storageEngine;
+    
+    @Param({"1000", "100000"})
+    public int size;
+    
+    private StorageEngine engine;
+    
+    private Map<Integer, Double> readMap;
+    
+    private HashMap<Integer, Double> object;
+    
+    /**
+     * Opens the storage engine and stores the data which are read by the benchmarks.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        resetSeed();
+        engine = getConfiguration(storageEngine).getStorageConfiguration().createStorageEngine("StorageEngineBenchmark");
+        
+        object = new HashMap<>();
+        for(int i=0;i<size;i++) {
+            object.put(i, (double)i);
+        }
+        engine.saveObject("object", object);
+        
+        readMap = engine.getBigMap("readMap", Integer.class, Double.class, StorageEngine.MapType.HASHMAP, StorageEngine.StorageHint.IN_DISK, false, false);
+        readMap.putAll(object);
+    }
+    
+    /**
+     * Deletes the storage.
+     * 
+     * @throws Exception 
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        engine.clear();
+        engine.close();
+    }
+    
+    /**
+     * Benchmarks the writes on a new BigMap.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public int bigMapPut() {
+        Map<Integer, Double> map = engine.getBigMap("writeMap", Integer.class, Double.class, StorageEngine.MapType.HASHMAP, StorageEngine.StorageHint.IN_DISK, false, true);
+        for(int i=0;i<size;i++) {
+            map.put(i, (double)i);
+        }
+        int s = map.size();
+        engine.dropBigMap("writeMap", map);
+        return s;
+    }
+    
+    /**
+     * Benchmarks the reads on an existing BigMap.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public double bigMapGet() {
+        double sum = 0.0;
+        for(int i=0;i<size;i++) {
+            sum += readMap.get(i);
+        }
+        return sum;
+    }
+    
+    /**
+     * Benchmarks the serialization of an object.
+     */
+    @Benchmark
+    public void saveObject() {
+        engine.saveObject("savedObject", object);
+    }
+    
+    /**
+     * Benchmarks the deserialization of an object.
+     * 
+     * @return 
+     */
+    @Benchmark
+    public HashMap loadObject() {
+        return engine.loadObject("object", HashMap.class);
+    }
+    
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.concurrency;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The PerThreadAccumulator gives every thread its own buffer, so that parallel
+ * tasks can accumulate partial results without locking. Once the parallel
+ * execution is over, the caller merges the buffers returned by buffers().
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ * @param <T>
+ */
+public class PerThreadAccumulator<T> {
+
+    private final Supplier<T> initializer;
+
+    private final Map<Thread, T> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * Public constructor which receives the initializer of the buffers.
+     *
+     * @param initializer
+     */
+    public PerThreadAccumulator(Supplier<T> initializer) {
+        this.initializer = initializer;
+    }
+
+    /**
+     * Returns the buffer of the current thread. The buffer is created on the
+     * first call of each thread.
+     *
+     * @return
+     */
+    public T get() {
+        return buffers.computeIfAbsent(Thread.currentThread(), t -> initializer.get());
+    }
+
+    /**
+     * Returns the buffers of all the threads. It should be called after all the
+     * parallel tasks are completed.
+     *
+     * @return
+     */
+    public Collection<T> buffers() {
+        return buffers.values();
+    }
+
+}
@@ -29,7 +29,10 @@ public class ThreadMethods {
     /**
      * Takes the items of the stream in a throttled way and provides them to the 
      * consumer. It uses as many threads as the available processors and it does
-     * not start more tasks than 2 times the previous number.
+     * not start more tasks than 2 times the previous number. The tasks are 
+     * executed on the shared pool of the ThreadPoolRegistry. If the method is
+     * called from a thread of the same pool, the items are consumed on the 
+     * current thread to avoid deadlocking the pool.
      * 
      * @param <T>
      * @param stream
@@ -41,21 +44,24 @@ public class ThreadMethods {
             int maxThreads = concurrencyConfiguration.getMaxNumberOfThreadsPerTask();
             int maxTasks = 2*maxThreads; 
 
-            ExecutorService executorService = Executors.newFixedThreadPool(maxThreads);
+            ExecutorService executorService = ThreadPoolRegistry.getExecutorService(concurrencyConfiguration);
+            if(ThreadPoolRegistry.isWorkerOf(executorService)) {
+                //we are already running in the pool; waiting for tasks queued behind the current one could block all its threads
+                stream.sequential().forEach(consumer);
+                return;
+            }
+            
             ThrottledExecutor executor = new ThrottledExecutor(executorService, maxTasks);
 
-            stream.sequential().forEach(i -> {
-                executor.execute(() -> {
-                    consumer.accept(i);
-                });
-            });
-
-            executorService.shutdown();
             try {
-                executorService.awaitTermination(Integer.MAX_VALUE, TimeUnit.SECONDS);
-            } 
-            catch (InterruptedException ex) {
-                throw new RuntimeException(ex);
+                stream.sequential().forEach(i -> {
+                    executor.execute(() -> {
+                        consumer.accept(i);
+                    });
+                });
+            }
+            finally {
+                executor.awaitCompletion();
             }
         }
         else {
@@ -65,8 +71,8 @@ public class ThreadMethods {
     }
     
     /**
-     * Alternative to parallelStreams() which executes a callable in a separate
-     * pool.
+     * Alternative to parallelStreams() which executes a callable in a shared
+     * pool of the ThreadPoolRegistry.
      * 
      * @param <T>
      * @param callable 
@@ -76,12 +82,19 @@ public class ThreadMethods {
      */
     public static <T> T forkJoinExecution(Callable<T> callable, ConcurrencyConfiguration concurrencyConfiguration, boolean parallelStream) {
         if(parallelStream && concurrencyConfiguration.isParallelized()) {
+            ForkJoinPool pool = ThreadPoolRegistry.getForkJoinPool(concurrencyConfiguration);
+            if(isWorkerOf(pool)) {
+                //we are already running in the pool; the stream will be executed by the current pool
+                try {
+                    return callable.call();
+                } 
+                catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+            
             try {
-                ForkJoinPool pool = new ForkJoinPool(concurrencyConfiguration.getMaxNumberOfThreadsPerTask());
-                
-                T results = pool.submit(callable).get();
-                pool.shutdown();
-                return results;
+                return pool.submit(callable).get();
             } 
             catch (InterruptedException | ExecutionException ex) {
                 throw new RuntimeException(ex);
@@ -98,8 +111,8 @@ public class ThreadMethods {
     }
     
     /**
-     * Alternative to parallelStreams() which executes a runnable in a separate
-     * pool.
+     * Alternative to parallelStreams() which executes a runnable in a shared
+     * pool of the ThreadPoolRegistry.
      * 
      * @param runnable 
      * @param concurrencyConfiguration
@@ -107,10 +120,15 @@ public class ThreadMethods {
      */
     public static void forkJoinExecution(Runnable runnable, ConcurrencyConfiguration concurrencyConfiguration, boolean parallelStream) {
         if(parallelStream && concurrencyConfiguration.isParallelized()) {
+            ForkJoinPool pool = ThreadPoolRegistry.getForkJoinPool(concurrencyConfiguration);
+            if(isWorkerOf(pool)) {
+                //we are already running in the pool; the stream will be executed by the current pool
+                runnable.run();
+                return;
+            }
+            
             try {
-                ForkJoinPool pool = new ForkJoinPool(concurrencyConfiguration.getMaxNumberOfThreadsPerTask());
                 pool.submit(runnable).get();
-                pool.shutdown();
             } 
             catch (InterruptedException | ExecutionException ex) {
                 throw new RuntimeException(ex);
@@ -120,4 +138,17 @@ public class ThreadMethods {
             runnable.run();
         }
     }
+    
+    /**
+     * Checks whether the current thread is a worker of the provided pool. 
+     * Blocking a worker on a task submitted to its own pool can starve it, so
+     * nested executions run directly on the current thread.
+     * 
+     * @param pool
+     * @return 
+     */
+    private static boolean isWorkerOf(ForkJoinPool pool) {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)thread).getPool() == pool;
+    }
 }
@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.concurrency;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ThreadPoolRegistry keeps long-lived thread pools which are shared by all
+ * the tasks of the framework. The pools are keyed by the concurrency level of the
+ * ConcurrencyConfiguration and they are created lazily on first use. Idle threads
+ * are released after a keep-alive period, so unused pools do not hold resources.
+ * All the pools are shut down automatically when the JVM exits.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class ThreadPoolRegistry {
+
+    /**
+     * The number of seconds that idle threads are kept alive.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    private static final Map<Integer, ForkJoinPool> forkJoinPools = new ConcurrentHashMap<>();
+
+    private static final Map<Integer, ExecutorService> executorServices = new ConcurrentHashMap<>();
+
+    private static final AtomicLong poolRequests = new AtomicLong(0L);
+
+    private static final AtomicLong poolsCreated = new AtomicLong(0L);
+
+    private static final AtomicInteger poolCounter = new AtomicInteger(0);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ThreadPoolRegistry::shutdownAll, "datumbox-pool-shutdown"));
+    }
+
+    /**
+     * Private constructor. The class only has static methods.
+     */
+    private ThreadPoolRegistry() {
+
+    }
+
+    /**
+     * Returns the shared ForkJoinPool which matches the provided configuration.
+     * The pool is used to execute parallel streams.
+     *
+     * @param concurrencyConfiguration
+     * @return
+     */
+    public static ForkJoinPool getForkJoinPool(ConcurrencyConfiguration concurrencyConfiguration) {
+        poolRequests.incrementAndGet();
+        return forkJoinPools.computeIfAbsent(getKey(concurrencyConfiguration), parallelism -> {
+            poolsCreated.incrementAndGet();
+            String prefix = "datumbox-fj-" + poolCounter.incrementAndGet() + "-worker-";
+            ForkJoinPool.ForkJoinWorkerThreadFactory factory = pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName(prefix + thread.getPoolIndex());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return new ForkJoinPool(parallelism, factory, null, false);
+        });
+    }
+
+    /**
+     * Returns the shared fixed-size ExecutorService which matches the provided
+     * configuration. The pool is used to execute throttled tasks.
+     *
+     * @param concurrencyConfiguration
+     * @return
+     */
+    public static ExecutorService getExecutorService(ConcurrencyConfiguration concurrencyConfiguration) {
+        poolRequests.incrementAndGet();
+        return executorServices.computeIfAbsent(getKey(concurrencyConfiguration), maxThreads -> {
+            poolsCreated.incrementAndGet();
+            String prefix = "datumbox-pool-" + poolCounter.incrementAndGet() + "-thread-";
+            AtomicInteger threadCounter = new AtomicInteger(0);
+            ThreadFactory factory = new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new PoolThread(this, r, prefix + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), factory);
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        });
+    }
+
+    /**
+     * Checks whether the current thread is a worker of the provided ExecutorService
+     * of the registry. A worker which blocks until the tasks that it submitted to 
+     * its own pool are completed can deadlock the pool, so nested executions 
+     * should run directly on the current thread.
+     *
+     * @param executorService
+     * @return
+     */
+    public static boolean isWorkerOf(ExecutorService executorService) {
+        Thread thread = Thread.currentThread();
+        return thread instanceof PoolThread && executorService instanceof ThreadPoolExecutor 
+                && ((PoolThread)thread).factory == ((ThreadPoolExecutor)executorService).getThreadFactory();
+    }
+
+    /**
+     * Returns the number of times a pool was requested from the registry.
+     *
+     * @return
+     */
+    public static long getPoolRequests() {
+        return poolRequests.get();
+    }
+
+    /**
+     * Returns the number of pools that were created by the registry.
+     *
+     * @return
+     */
+    public static long getPoolsCreated() {
+        return poolsCreated.get();
+    }
+
+    /**
+     * Returns the number of requests that were served by an existing pool.
+     *
+     * @return
+     */
+    public static long getPoolReuses() {
+        return poolRequests.get() - poolsCreated.get();
+    }
+
+    /**
+     * Returns the number of pools that are currently registered.
+     *
+     * @return
+     */
+    public static int getActivePools() {
+        return forkJoinPools.size() + executorServices.size();
+    }
+
+    /**
+     * Shuts down and removes the pools that match the provided configuration.
+     * Running tasks are allowed to complete. Subsequent requests will create
+     * new pools.
+     *
+     * @param concurrencyConfiguration
+     */
+    public static void shutdown(ConcurrencyConfiguration concurrencyConfiguration) {
+        Integer key = getKey(concurrencyConfiguration);
+
+        ForkJoinPool forkJoinPool = forkJoinPools.remove(key);
+        if(forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+
+        ExecutorService executorService = executorServices.remove(key);
+        if(executorService != null) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Shuts down and removes all the registered pools.
+     */
+    public static void shutdownAll() {
+        for(Integer key : forkJoinPools.keySet()) {
+            ForkJoinPool pool = forkJoinPools.remove(key);
+            if(pool != null) {
+                pool.shutdown();
+            }
+        }
+        for(Integer key : executorServices.keySet()) {
+            ExecutorService pool = executorServices.remove(key);
+            if(pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Estimates the key of the pool from the configuration.
+     *
+     * @param concurrencyConfiguration
+     * @return
+     */
+    private static Integer getKey(ConcurrencyConfiguration concurrencyConfiguration) {
+        return Math.max(1, concurrencyConfiguration.getMaxNumberOfThreadsPerTask());
+    }
+
+    /**
+     * The threads of the ExecutorServices keep a reference to the factory that
+     * created them, which identifies the pool that they belong to.
+     */
+    private static class PoolThread extends Thread {
+
+        private final ThreadFactory factory;
+
+        /**
+         * @param factory
+         * @param target
+         * @param name
+         */
+        private PoolThread(ThreadFactory factory, Runnable target, String name) {
+            super(target, name);
+            this.factory = factory;
+        }
+    }
+}
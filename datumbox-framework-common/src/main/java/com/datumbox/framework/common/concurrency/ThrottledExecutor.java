@@ -32,6 +32,8 @@ public class ThrottledExecutor implements Executor {
     
     private final Semaphore semaphore;
     
+    private final int maxConcurrentTasks;
+    
     /**
      * This Executor will block the main thread (when execute() is called) if the 
      * number of submitted and unfinished tasks reaches the provided limit. This
@@ -43,6 +45,22 @@ public class ThrottledExecutor implements Executor {
     public ThrottledExecutor(Executor executor, int maxConcurrentTasks) {
         this.wrappedExecutor = executor;
         this.semaphore = new Semaphore(maxConcurrentTasks);
+        this.maxConcurrentTasks = maxConcurrentTasks;
+    }
+    
+    /**
+     * Blocks the calling thread until all the tasks submitted through this 
+     * Executor are completed. Unlike shutting down the wrapped executor, this 
+     * method allows the underlying pool to be reused by other tasks.
+     */
+    public void awaitCompletion() {
+        try {
+            semaphore.acquire(maxConcurrentTasks);
+        } 
+        catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+        semaphore.release(maxConcurrentTasks);
     }
     
     /** {@inheritDoc} */
@@ -15,16 +15,28 @@
  */
 package com.datumbox.framework.common.dataobjects;
 
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
+import com.datumbox.framework.common.storage.serializers.Codec;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.*;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * Data structure which stores internally a Map<Object, Object>. The class provides
- * a number of methods to access and modify the internal map.
+ * a number of methods to access and modify the internal map. Numeric feature
+ * vectors can be stored in a NumericMap, which is preserved by the copy methods.
  * 
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
 public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Object>> {
     private static final long serialVersionUID = 1L;
+
+    static {
+        BinarySerializer.registerCodec(AssociativeArray.class, new BinaryCodec());
+    }
     
     /**
      * Copies the provided AssociativeArray and builds a new which is unmodifiable.
@@ -33,6 +45,9 @@ public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Objec
      * @return 
      */
     public static AssociativeArray copy2Unmodifiable(AssociativeArray original) {
+        if(original.internalData instanceof NumericMap) {
+            return new AssociativeArray(((NumericMap) original.internalData).unmodifiableCopy());
+        }
         Map<Object, Object> internalData = new LinkedHashMap<>();
         internalData.putAll(original.internalData);
         internalData = Collections.unmodifiableMap(internalData);
@@ -44,14 +59,28 @@ public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Objec
      * but it does not copy its values. This means that if the original AssociativeArray
      * gets modified, the data of the new object will be modified too. This method 
      * is not as safe as copy2Unmodifiable() but it should be preferred when speed
-     * is crucial.
+     * is crucial. The numeric arrays are always copied.
      * 
      * @param original
      * @return 
      */
     public static AssociativeArray convert2Unmodifiable(AssociativeArray original) {
+        if(original.internalData instanceof NumericMap) {
+            return new AssociativeArray(((NumericMap) original.internalData).unmodifiableCopy());
+        }
         return new AssociativeArray(Collections.unmodifiableMap(original.internalData));
     }
+
+    /**
+     * Copies the provided AssociativeArray to a new one which is backed by a
+     * NumericMap. All the values must be numeric or boolean.
+     *
+     * @param original
+     * @return
+     */
+    public static AssociativeArray copy2Numeric(AssociativeArray original) {
+        return new AssociativeArray(new NumericMap(original.internalData));
+    }
     
     /**
      * Default constructor which initializes the internal data with a LinkedHashMap.
@@ -71,6 +100,9 @@ public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Objec
     
     /** {@inheritDoc} */
     public AssociativeArray copy() {
+        if(internalData instanceof NumericMap) {
+            return new AssociativeArray(((NumericMap) internalData).copy());
+        }
         AssociativeArray copy = new AssociativeArray();
         copy.internalData.putAll(this.internalData);
         return copy;
@@ -138,6 +170,36 @@ public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Objec
         } 
     }
     
+    /**
+     * Returns the internal NumericMap if the object is backed by one, or null
+     * otherwise. The algorithms can use it to read the values without boxing.
+     *
+     * @return
+     */
+    public final NumericMap getNumericData() {
+        return (internalData instanceof NumericMap) ? (NumericMap) internalData : null;
+    }
+
+    /**
+     * Performs the action for every key with a non-null value. The values are
+     * converted to double and they must be numeric or boolean or else an exception
+     * is thrown. If the object is backed by a NumericMap the values are not boxed.
+     *
+     * @param action
+     */
+    public final void forEachDouble(ObjDoubleConsumer<Object> action) {
+        if(internalData instanceof NumericMap) {
+            ((NumericMap) internalData).forEachDouble(action);
+            return;
+        }
+        for(Map.Entry<Object, Object> entry : internalData.entrySet()) {
+            Double value = TypeInference.toDouble(entry.getValue());
+            if(value != null) {
+                action.accept(entry.getKey(), value);
+            }
+        }
+    }
+    
     /**
      * Removes a particular key from the internal map and returns the value 
      * associated with that key if present in the map.
@@ -267,4 +329,57 @@ public class AssociativeArray extends AbstractDataStructureMap<Map<Object, Objec
     public String toString() {
         return internalData.toString();
     }
+
+    /**
+     * Codec which writes the entries of the internal data inline, when the
+     * internal data is one of the maps used by the framework.
+     */
+    private static class BinaryCodec implements Codec<AssociativeArray> {
+        private static final byte LINKED_HASH_MAP = 0;
+        private static final byte HASH_MAP = 1;
+        private static final byte UNMODIFIABLE_MAP = 2;
+        private static final byte OTHER_MAP = 3;
+
+        private static final Class<?> UNMODIFIABLE_MAP_CLASS = Collections.unmodifiableMap(new HashMap<>()).getClass();
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(AssociativeArray obj, ObjectOutput out) throws IOException {
+            Class<?> klass = obj.internalData.getClass();
+            if(klass == LinkedHashMap.class) {
+                out.writeByte(LINKED_HASH_MAP);
+            }
+            else if(klass == HashMap.class) {
+                out.writeByte(HASH_MAP);
+            }
+            else if(klass == UNMODIFIABLE_MAP_CLASS) {
+                out.writeByte(UNMODIFIABLE_MAP);
+            }
+            else {
+                out.writeByte(OTHER_MAP);
+                out.writeObject(obj.internalData);
+                return;
+            }
+            BinarySerializer.writeEntries(obj.internalData.entrySet(), out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @SuppressWarnings("unchecked")
+        public AssociativeArray read(ObjectInput in) throws IOException, ClassNotFoundException {
+            byte type = in.readByte();
+            switch(type) {
+                case LINKED_HASH_MAP:
+                    return new AssociativeArray(BinarySerializer.readEntries(new LinkedHashMap<>(), in));
+                case HASH_MAP:
+                    return new AssociativeArray(BinarySerializer.readEntries(new HashMap<>(), in));
+                case UNMODIFIABLE_MAP:
+                    return new AssociativeArray(Collections.unmodifiableMap(BinarySerializer.readEntries(new LinkedHashMap<>(), in)));
+                case OTHER_MAP:
+                    return new AssociativeArray((Map<Object, Object>) in.readObject());
+                default:
+                    throw new IOException("Unknown map type " + type + ".");
+            }
+        }
+    }
 }
@@ -16,6 +16,12 @@
 package com.datumbox.framework.common.dataobjects;
 
 import com.datumbox.framework.common.interfaces.Copyable;
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
+import com.datumbox.framework.common.storage.serializers.Codec;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -31,6 +37,10 @@ import java.util.List;
  */
 public class FlatDataList extends AbstractDataStructureList<List<Object>> implements Iterable<Object>, Copyable<FlatDataList> {
     private static final long serialVersionUID = 1L;
+
+    static {
+        BinarySerializer.registerCodec(FlatDataList.class, new BinaryCodec());
+    }
     
     /**
      * Default constructor which initializes the internal data with an ArrayList.
@@ -163,4 +173,42 @@ public class FlatDataList extends AbstractDataStructureList<List<Object>> implem
     public int hashCode() {
         return internalData.hashCode();
     }
-}
\ No newline at end of file
+
+    /**
+     * Codec which writes the values of the internal data inline, when the
+     * internal data is an ArrayList.
+     */
+    private static class BinaryCodec implements Codec<FlatDataList> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(FlatDataList obj, ObjectOutput out) throws IOException {
+            if(obj.internalData.getClass() == ArrayList.class) {
+                out.writeBoolean(true);
+                out.writeInt(obj.internalData.size());
+                for(Object value : obj.internalData) {
+                    BinarySerializer.writeValue(value, out);
+                }
+            }
+            else {
+                out.writeBoolean(false);
+                out.writeObject(obj.internalData);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @SuppressWarnings("unchecked")
+        public FlatDataList read(ObjectInput in) throws IOException, ClassNotFoundException {
+            if(in.readBoolean()) {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for(int i=0;i<size;i++) {
+                    list.add(BinarySerializer.readValue(in));
+                }
+                return new FlatDataList(list);
+            }
+            return new FlatDataList((List<Object>) in.readObject());
+        }
+    }
+}
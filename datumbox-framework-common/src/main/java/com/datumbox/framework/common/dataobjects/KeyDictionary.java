@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.dataobjects;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The KeyDictionary interns the keys of the NumericMaps to consecutive int ids.
+ * The ids are assigned in the order that the keys are first seen. All the
+ * NumericMaps share the same dictionary, which they reference strongly, while
+ * the dictionary itself is only weakly referenced. Thus the keys are released
+ * once none of the maps is reachable and the next map starts a new dictionary.
+ * The ids are not stable across JVMs and they are never serialized.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+final class KeyDictionary {
+
+    /**
+     * The dictionary of the NumericMaps. It is weakly referenced so that it is
+     * collected together with the last map which uses it.
+     */
+    private static WeakReference<KeyDictionary> shared = new WeakReference<>(null);
+
+    /**
+     * Maps the keys to their ids.
+     */
+    private final ConcurrentHashMap<Object, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * The keys indexed by their ids. The array is replaced when it grows.
+     */
+    private volatile Object[] keys = new Object[1024];
+
+    private KeyDictionary() {
+
+    }
+
+    /**
+     * Returns the shared dictionary, creating a new one if the previous was collected.
+     *
+     * @return
+     */
+    static synchronized KeyDictionary getShared() {
+        KeyDictionary dictionary = shared.get();
+        if(dictionary == null) {
+            dictionary = new KeyDictionary();
+            shared = new WeakReference<>(dictionary);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Returns the id of the key, assigning a new one if the key is not interned.
+     *
+     * @param key
+     * @return
+     */
+    int intern(Object key) {
+        Integer id = ids.get(key);
+        if(id != null) {
+            return id;
+        }
+        return internNew(key);
+    }
+
+    /**
+     * Returns the id of the key or -1 if the key is not interned.
+     *
+     * @param key
+     * @return
+     */
+    int lookup(Object key) {
+        Integer id = ids.get(key);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the key with the specific id.
+     *
+     * @param id
+     * @return
+     */
+    Object getKey(int id) {
+        return keys[id];
+    }
+
+    private synchronized int internNew(Object key) {
+        Integer id = ids.get(key);
+        if(id != null) {
+            return id;
+        }
+
+        int newId = ids.size();
+        Object[] currentKeys = keys;
+        if(newId == currentKeys.length) {
+            currentKeys = Arrays.copyOf(currentKeys, newId*2);
+            keys = currentKeys;
+        }
+        currentKeys[newId] = key; //the key is stored before the id is published
+        ids.put(key, newId);
+        return newId;
+    }
+
+}
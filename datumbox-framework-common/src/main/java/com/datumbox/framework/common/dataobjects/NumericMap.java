@@ -0,0 +1,439 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.dataobjects;
+
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
+import com.datumbox.framework.common.storage.serializers.Codec;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * The NumericMap is a Map which stores only numeric values. The keys are interned
+ * in an int dictionary which is shared by all the NumericMaps and released with
+ * the last of them, and the values are stored unboxed in a double[], sorted by
+ * the ids of their keys. It can be wrapped
+ * by an AssociativeArray to store numeric feature vectors with a fraction of the
+ * memory of a LinkedHashMap, and the algorithms read its values without boxing by
+ * using the forEachDouble() and the positional accessors.
+ *
+ * The values are returned as Doubles. The booleans are stored as 1.0 and 0.0 and
+ * putting null or other non-numeric values throws an exception. The entries are iterated in the order that their keys were first
+ * interned, which for tabular data is the order of the columns. The map is not
+ * thread-safe, with the exception of the unmodifiable instances.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class NumericMap extends AbstractMap<Object, Object> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static {
+        BinarySerializer.registerCodec(NumericMap.class, new BinaryCodec());
+    }
+
+    private static final int[] EMPTY_IDS = new int[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    /**
+     * The shared dictionary of the keys. It is referenced by every map so that it
+     * is not collected while any of them is reachable. It is local to the JVM so
+     * it is never serialized.
+     */
+    private transient KeyDictionary dictionary;
+
+    /**
+     * The ids of the keys in ascending order. The ids are local to the JVM so the
+     * field is never serialized.
+     */
+    private transient int[] keyIds;
+
+    private transient double[] values;
+
+    private transient int size;
+
+    private transient boolean unmodifiable;
+
+    private transient Set<Map.Entry<Object, Object>> entrySet;
+
+    /**
+     * Default constructor which creates an empty map.
+     */
+    public NumericMap() {
+        this(KeyDictionary.getShared(), EMPTY_IDS, EMPTY_VALUES, 0, false);
+    }
+
+    /**
+     * Constructor which creates a map with the contents of the provided map.
+     *
+     * @param m
+     */
+    public NumericMap(Map<?, ?> m) {
+        this(KeyDictionary.getShared(), new int[m.size()], new double[m.size()], 0, false);
+        putAll(m);
+    }
+
+    private NumericMap(KeyDictionary dictionary, int[] keyIds, double[] values, int size, boolean unmodifiable) {
+        this.dictionary = dictionary;
+        this.keyIds = keyIds;
+        this.values = values;
+        this.size = size;
+        this.unmodifiable = unmodifiable;
+    }
+
+    /**
+     * Returns a modifiable copy of the map.
+     *
+     * @return
+     */
+    public NumericMap copy() {
+        return new NumericMap(dictionary, Arrays.copyOf(keyIds, size), Arrays.copyOf(values, size), size, false);
+    }
+
+    /**
+     * Returns an unmodifiable copy of the map. The unmodifiable maps are returned
+     * as they are, since they can be shared safely.
+     *
+     * @return
+     */
+    public NumericMap unmodifiableCopy() {
+        if(unmodifiable) {
+            return this;
+        }
+        return new NumericMap(dictionary, Arrays.copyOf(keyIds, size), Arrays.copyOf(values, size), size, true);
+    }
+
+    /**
+     * Returns whether the map is unmodifiable.
+     *
+     * @return
+     */
+    public boolean isUnmodifiable() {
+        return unmodifiable;
+    }
+
+    /**
+     * Returns the key which is stored in the specific position.
+     *
+     * @param index
+     * @return
+     */
+    public Object keyAt(int index) {
+        checkIndex(index);
+        return dictionary.getKey(keyIds[index]);
+    }
+
+    /**
+     * Returns the dictionary id of the key which is stored in the specific position.
+     * The ids are ascending, so two maps can be merged in linear time.
+     *
+     * @param index
+     * @return
+     */
+    public int keyIdAt(int index) {
+        checkIndex(index);
+        return keyIds[index];
+    }
+
+    /**
+     * Returns the value which is stored in the specific position.
+     *
+     * @param index
+     * @return
+     */
+    public double valueAt(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Returns the value of the key or the defaultValue if the key is not in the map.
+     *
+     * @param key
+     * @param defaultValue
+     * @return
+     */
+    public double getDouble(Object key, double defaultValue) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * Associates the key with the value and returns whether the key was already
+     * in the map.
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public boolean putDouble(Object key, double value) {
+        checkModifiable();
+        int id = dictionary.intern(key);
+        int index = Arrays.binarySearch(keyIds, 0, size, id);
+        if(index >= 0) {
+            values[index] = value;
+            return true;
+        }
+
+        index = -(index + 1);
+        if(size == keyIds.length) {
+            int capacity = Math.max(4, size + (size >> 1));
+            keyIds = Arrays.copyOf(keyIds, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        System.arraycopy(keyIds, index, keyIds, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        keyIds[index] = id;
+        values[index] = value;
+        size++;
+        return false;
+    }
+
+    /**
+     * Performs the action for every key and value of the map, without boxing the values.
+     *
+     * @param action
+     */
+    public void forEachDouble(ObjDoubleConsumer<Object> action) {
+        for(int i=0;i<size;i++) {
+            action.accept(dictionary.getKey(keyIds[i]), values[i]);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object put(Object key, Object value) {
+        double v = toPrimitive(value);
+        int index = indexOf(key);
+        Object previous = index >= 0 ? values[index] : null;
+        putDouble(key, v);
+        return previous;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object remove(Object key) {
+        checkModifiable();
+        int index = indexOf(key);
+        if(index < 0) {
+            return null;
+        }
+        Object previous = values[index];
+        removeAt(index);
+        return previous;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        checkModifiable();
+        size = 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<Object, Object>>() {
+                @Override
+                public Iterator<Map.Entry<Object, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private int indexOf(Object key) {
+        int id = dictionary.lookup(key);
+        return id >= 0 ? Arrays.binarySearch(keyIds, 0, size, id) : -1;
+    }
+
+    private void removeAt(int index) {
+        System.arraycopy(keyIds, index + 1, keyIds, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void checkModifiable() {
+        if(unmodifiable) {
+            throw new UnsupportedOperationException("The map is unmodifiable.");
+        }
+    }
+
+    private static double toPrimitive(Object value) {
+        if(value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        else if(value instanceof Boolean) {
+            return ((Boolean) value)?1.0:0.0;
+        }
+        throw new IllegalArgumentException("The NumericMap supports only numeric and boolean values.");
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        write(this, out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        dictionary = KeyDictionary.getShared();
+        keyIds = EMPTY_IDS;
+        values = EMPTY_VALUES;
+        read(this, in);
+    }
+
+    /**
+     * Writes the keys and the values of the map. The ids are not written because
+     * they are local to the JVM.
+     *
+     * @param map
+     * @param out
+     * @throws IOException
+     */
+    private static void write(NumericMap map, ObjectOutput out) throws IOException {
+        out.writeBoolean(map.unmodifiable);
+        out.writeInt(map.size);
+        for(int i=0;i<map.size;i++) {
+            BinarySerializer.writeValue(map.dictionary.getKey(map.keyIds[i]), out);
+            out.writeDouble(map.values[i]);
+        }
+    }
+
+    private static NumericMap read(NumericMap map, ObjectInput in) throws IOException, ClassNotFoundException {
+        boolean unmodifiable = in.readBoolean();
+        int size = in.readInt();
+        map.keyIds = new int[size];
+        map.values = new double[size];
+        for(int i=0;i<size;i++) {
+            Object key = BinarySerializer.readValue(in);
+            map.putDouble(key, in.readDouble());
+        }
+        map.unmodifiable = unmodifiable;
+        return map;
+    }
+
+    /**
+     * Iterator over the entries of the map which supports the removal and the
+     * update of the values.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<Object, Object>> {
+        private int cursor = 0;
+        private int last = -1;
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map.Entry<Object, Object> next() {
+            if(cursor >= size) {
+                throw new NoSuchElementException();
+            }
+            last = cursor++;
+            return new Entry(last);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove() {
+            if(last < 0) {
+                throw new IllegalStateException();
+            }
+            checkModifiable();
+            removeAt(last);
+            cursor = last;
+            last = -1;
+        }
+    }
+
+    /**
+     * Entry of the map which writes its updates through to the map.
+     */
+    private class Entry extends AbstractMap.SimpleEntry<Object, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        private Entry(int index) {
+            super(dictionary.getKey(keyIds[index]), values[index]);
+            this.index = index;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object setValue(Object value) {
+            checkModifiable();
+            double v = toPrimitive(value);
+            values[index] = v;
+            return super.setValue(v);
+        }
+    }
+
+    /**
+     * Codec which writes the keys and the values of the map without the class
+     * descriptors of the Java serialization.
+     */
+    private static class BinaryCodec implements Codec<NumericMap> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(NumericMap obj, ObjectOutput out) throws IOException {
+            NumericMap.write(obj, out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public NumericMap read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return NumericMap.read(new NumericMap(), in);
+        }
+    }
+
+}
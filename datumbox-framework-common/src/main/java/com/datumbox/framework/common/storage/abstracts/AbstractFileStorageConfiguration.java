@@ -15,7 +15,9 @@
  */
 package com.datumbox.framework.common.storage.abstracts;
 
+import com.datumbox.framework.common.storage.interfaces.Serializer;
 import com.datumbox.framework.common.storage.interfaces.StorageConfiguration;
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
 
 import java.io.File;
 
@@ -31,6 +33,11 @@ public abstract class AbstractFileStorageConfiguration implements StorageConfigu
      */
     protected String directory = null;
 
+    /**
+     * The serializer of the objects.
+     */
+    protected Serializer serializer = new BinarySerializer();
+
     /** {@inheritDoc} */
     @Override
     public String getStorageNameSeparator() {
@@ -55,4 +62,19 @@ public abstract class AbstractFileStorageConfiguration implements StorageConfigu
         this.directory = directory;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public Serializer getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Setter for the serializer of the objects.
+     *
+     * @param serializer
+     */
+    public void setSerializer(Serializer serializer) {
+        this.serializer = serializer;
+    }
+
 }
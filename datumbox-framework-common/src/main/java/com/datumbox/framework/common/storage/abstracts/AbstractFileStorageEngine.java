@@ -19,6 +19,7 @@ import com.datumbox.framework.common.storage.interfaces.StorageConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 
@@ -65,6 +66,32 @@ public abstract class AbstractFileStorageEngine<SC extends AbstractFileStorageCo
         return Paths.get(getDirectory() + File.separator + storageName);
     }
 
+    /**
+     * Serializes the object and streams it directly to the file.
+     *
+     * @param obj
+     * @param path
+     * @throws IOException
+     */
+    protected void serializeToFile(Object obj, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            serializer.serialize(obj, channel);
+        }
+    }
+
+    /**
+     * Deserializes the object which is streamed from the file.
+     *
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    protected Object deserializeFromFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return serializer.deserialize(channel);
+        }
+    }
+
     /**
      * Deletes the file or directory recursively if it exists.
      *
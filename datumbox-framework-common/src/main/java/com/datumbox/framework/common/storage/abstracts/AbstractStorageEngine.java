@@ -16,6 +16,7 @@
 package com.datumbox.framework.common.storage.abstracts;
 
 import com.datumbox.framework.common.storage.interfaces.BigMap;
+import com.datumbox.framework.common.storage.interfaces.Serializer;
 import com.datumbox.framework.common.storage.interfaces.StorageConfiguration;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.common.utilities.ReflectionMethods;
@@ -45,6 +46,11 @@ public abstract class AbstractStorageEngine<SC extends StorageConfiguration> imp
     protected String storageName;
     protected final SC storageConfiguration;
 
+    /**
+     * The Serializer which is used to persist the objects.
+     */
+    protected final Serializer serializer;
+
     /**
      * Logger for all Storage Engines.
      */
@@ -63,6 +69,7 @@ public abstract class AbstractStorageEngine<SC extends StorageConfiguration> imp
     protected AbstractStorageEngine(String storageName, SC storageConfiguration) {
         this.storageName = storageName;
         this.storageConfiguration = storageConfiguration;
+        this.serializer = storageConfiguration.getSerializer();
 
         hook = new Thread(() -> {
             AbstractStorageEngine.this.hook = null;
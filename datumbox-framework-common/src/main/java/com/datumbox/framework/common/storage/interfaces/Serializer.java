@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.storage.interfaces;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The Serializer interface is implemented by the classes which convert objects
+ * to bytes and back. The storage engines use them to persist objects. The objects
+ * are streamed directly to the channels without being buffered in memory.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public interface Serializer {
+
+    /**
+     * Writes the object to the channel. The channel is not closed.
+     *
+     * @param obj
+     * @param channel
+     */
+    public void serialize(Object obj, WritableByteChannel channel);
+
+    /**
+     * Reads an object from the channel. The channel is not closed.
+     *
+     * @param channel
+     * @return
+     */
+    public Object deserialize(ReadableByteChannel channel);
+
+}
@@ -42,4 +42,11 @@ public interface StorageConfiguration extends Configurable {
      */
     public StorageEngine createStorageEngine(String storageName);
     
+    /**
+     * Returns the Serializer which is used by the storage engines to persist the objects.
+     * 
+     * @return 
+     */
+    public Serializer getSerializer();
+    
 }
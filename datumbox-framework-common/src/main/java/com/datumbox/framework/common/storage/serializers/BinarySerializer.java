@@ -0,0 +1,579 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.storage.serializers;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * The BinarySerializer extends the Java serialization with compact Codecs. Every
+ * object which has a Codec registered for its exact class is written by the Codec
+ * instead of the default mechanism. The Codecs write the boxed primitives as raw
+ * values with a one-byte type tag, which avoids the class descriptors and the
+ * handle table entries of the Java serialization. All other objects, including
+ * the ones referenced by the Codecs, are written with the standard mechanism.
+ *
+ * Codecs for the common Maps and Lists of java.util are registered by default.
+ * Other classes can register their Codecs in their static initializers; the class
+ * of every encoded object is initialized before it is decoded.
+ *
+ * The encoded objects are resolved only after they are fully decoded, so a
+ * reference to an object from within its own encoding can't be restored. Before
+ * encoding an object, the serializer verifies that the object can't be reached
+ * from the objects that it references; the objects which belong to a cycle, or
+ * which reference objects that the serializer can't inspect, are written with the
+ * standard mechanism which supports cyclic graphs.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class BinarySerializer extends JavaSerializer {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INTEGER = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_TRUE = 4;
+    private static final byte TAG_FALSE = 5;
+    private static final byte TAG_SHORT = 6;
+    private static final byte TAG_BYTE = 7;
+    private static final byte TAG_FLOAT = 8;
+    private static final byte TAG_CHARACTER = 9;
+    private static final byte TAG_OBJECT = 10;
+    private static final byte TAG_END = 11;
+
+    /**
+     * The registered Codecs indexed by the exact class that they encode.
+     */
+    private static final Map<Class<?>, Codec<?>> CODECS = new ConcurrentHashMap<>();
+
+    static {
+        CODECS.put(HashMap.class, new MapCodec(HashMap::new));
+        CODECS.put(LinkedHashMap.class, new MapCodec(LinkedHashMap::new));
+        CODECS.put(ConcurrentHashMap.class, new MapCodec(ConcurrentHashMap::new));
+        CODECS.put(TreeMap.class, new SortedMapCodec(TreeMap::new));
+        CODECS.put(ConcurrentSkipListMap.class, new SortedMapCodec(ConcurrentSkipListMap::new));
+        CODECS.put(ArrayList.class, new ListCodec(ArrayList::new));
+    }
+
+    /**
+     * Registers the Codec of a class. The Codec is used only for objects of the
+     * exact class and not for its subclasses.
+     *
+     * @param <T>
+     * @param klass
+     * @param codec
+     */
+    public static <T> void registerCodec(Class<T> klass, Codec<? super T> codec) {
+        CODECS.put(klass, codec);
+    }
+
+    /**
+     * Writes a value with a type tag. Boxed primitives are written as raw values
+     * and all other objects are written with writeObject().
+     *
+     * @param value
+     * @param out
+     * @throws IOException
+     */
+    public static void writeValue(Object value, ObjectOutput out) throws IOException {
+        if(value == null) {
+            out.writeByte(TAG_NULL);
+        }
+        else if(value instanceof Integer) {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt((Integer) value);
+        }
+        else if(value instanceof Double) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) value);
+        }
+        else if(value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) value);
+        }
+        else if(value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+        }
+        else if(value instanceof Short) {
+            out.writeByte(TAG_SHORT);
+            out.writeShort((Short) value);
+        }
+        else if(value instanceof Byte) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte((Byte) value);
+        }
+        else if(value instanceof Float) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat((Float) value);
+        }
+        else if(value instanceof Character) {
+            out.writeByte(TAG_CHARACTER);
+            out.writeChar((Character) value);
+        }
+        else {
+            out.writeByte(TAG_OBJECT);
+            out.writeObject(value);
+        }
+    }
+
+    /**
+     * Reads a value which was written by writeValue().
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static Object readValue(ObjectInput in) throws IOException, ClassNotFoundException {
+        return readValue(in.readByte(), in);
+    }
+
+    /**
+     * Writes the entries of a Map followed by an end marker. The entries are
+     * iterated once, so the method can be used on concurrent maps.
+     *
+     * @param entries
+     * @param out
+     * @throws IOException
+     */
+    public static void writeEntries(Iterable<? extends Map.Entry<?, ?>> entries, ObjectOutput out) throws IOException {
+        for(Map.Entry<?, ?> e : entries) {
+            writeValue(e.getKey(), out);
+            writeValue(e.getValue(), out);
+        }
+        out.writeByte(TAG_END);
+    }
+
+    /**
+     * Reads the entries which were written by writeEntries() and puts them in the map.
+     *
+     * @param <M>
+     * @param map
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public static <M extends Map<Object, Object>> M readEntries(M map, ObjectInput in) throws IOException, ClassNotFoundException {
+        byte tag;
+        while((tag = in.readByte()) != TAG_END) {
+            Object key = readValue(tag, in);
+            map.put(key, readValue(in));
+        }
+        return map;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ObjectOutputStream createOutputStream(OutputStream out) throws IOException {
+        return new CodecObjectOutputStream(out);
+    }
+
+    private static Object readValue(byte tag, ObjectInput in) throws IOException, ClassNotFoundException {
+        switch(tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_INTEGER:
+                return in.readInt();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_CHARACTER:
+                return in.readChar();
+            case TAG_OBJECT:
+                return in.readObject();
+            default:
+                throw new StreamCorruptedException("Unknown value tag " + tag + ".");
+        }
+    }
+
+    /**
+     * Returns the Codec of the class. The class is initialized first, so that
+     * the Codecs registered by its static initializer are available.
+     *
+     * @param klass
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @SuppressWarnings("unchecked")
+    private static Codec<Object> getCodec(Class<?> klass) throws IOException, ClassNotFoundException {
+        Codec<?> codec = CODECS.get(klass);
+        if(codec == null) {
+            Class.forName(klass.getName(), true, klass.getClassLoader());
+            codec = CODECS.get(klass);
+            if(codec == null) {
+                throw new InvalidClassException(klass.getName(), "No Codec is registered for the class.");
+            }
+        }
+        return (Codec<Object>) codec;
+    }
+
+    /**
+     * ObjectOutputStream which replaces the objects that have a registered
+     * Codec with an Envelope, unless they belong to a cycle.
+     */
+    private static class CodecObjectOutputStream extends ObjectOutputStream {
+
+        /**
+         * Marks the scanned objects whose subgraph can't reference them back.
+         */
+        private final Map<Object, Boolean> acyclic = new IdentityHashMap<>();
+
+        /**
+         * The depth of the objects on the path of the current scan.
+         */
+        private final Map<Object, Integer> path = new IdentityHashMap<>();
+
+        CodecObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Object replaceObject(Object obj) throws IOException {
+            if(obj != null && !(obj instanceof Envelope)) {
+                Codec<?> codec = CODECS.get(obj.getClass());
+                if(codec != null) {
+                    scan(obj, 0);
+                    if(acyclic.containsKey(obj)) {
+                        return new Envelope(obj, codec);
+                    }
+                }
+            }
+            return obj;
+        }
+
+        /**
+         * Depth-first search on the objects which are referenced by the provided
+         * object. It returns the lowest depth of the current path which is
+         * referenced by the subgraph of the object, NOT_REACHABLE if the path is
+         * not referenced or OPAQUE if the subgraph contains objects that can't be
+         * inspected. The objects which are not referenced by their subgraph are
+         * marked as acyclic, so they are not scanned again.
+         *
+         * @param obj
+         * @param depth
+         * @return
+         * @throws IOException
+         */
+        private int scan(Object obj, int depth) throws IOException {
+            if(isLeaf(obj) || acyclic.containsKey(obj)) {
+                return NOT_REACHABLE;
+            }
+            Integer pathDepth = path.get(obj);
+            if(pathDepth != null) {
+                return pathDepth;
+            }
+
+            List<Object> references = getReferences(obj);
+            if(references == null) {
+                return OPAQUE;
+            }
+
+            path.put(obj, depth);
+            int lowest = NOT_REACHABLE;
+            try {
+                for(Object reference : references) {
+                    int reached = scan(reference, depth + 1);
+                    if(reached == OPAQUE) {
+                        return OPAQUE;
+                    }
+                    lowest = Math.min(lowest, reached);
+                }
+            }
+            finally {
+                path.remove(obj);
+            }
+
+            if(lowest > depth) {
+                acyclic.put(obj, Boolean.TRUE);
+                return NOT_REACHABLE;
+            }
+            return lowest == depth ? NOT_REACHABLE : lowest; //the cycles which close on this object don't affect its ancestors
+        }
+    }
+
+    private static final int NOT_REACHABLE = Integer.MAX_VALUE;
+
+    private static final int OPAQUE = -1;
+
+    /**
+     * Returns whether the object can't reference other objects.
+     *
+     * @param obj
+     * @return
+     */
+    private static boolean isLeaf(Object obj) {
+        if(obj == null || obj instanceof Enum) {
+            return true; //the enums are serialized by name
+        }
+        Class<?> klass = obj.getClass();
+        if(klass.isArray()) {
+            return klass.getComponentType().isPrimitive();
+        }
+        boolean immutable = obj instanceof String || obj instanceof Number || obj instanceof Boolean || obj instanceof Character || obj instanceof Class;
+        return immutable && klass.getName().startsWith("java."); //the subclasses of the applications are inspected
+
+    }
+
+    /**
+     * Returns the objects which are referenced by the provided object, or null
+     * if they are unknown. The references of the objects with a Codec are the
+     * ones that the Codec passes to writeObject().
+     *
+     * @param obj
+     * @return
+     * @throws IOException
+     */
+    private static List<Object> getReferences(Object obj) throws IOException {
+        if(obj instanceof Object[]) {
+            return Arrays.asList((Object[]) obj);
+        }
+        Codec<Object> codec;
+        try {
+            codec = getCodec(obj.getClass());
+        }
+        catch(InvalidClassException | ClassNotFoundException ex) {
+            return null;
+        }
+        ReferenceCollector collector = new ReferenceCollector();
+        codec.write(obj, collector);
+        return collector.references;
+    }
+
+    /**
+     * The Envelope writes the wrapped object with its Codec and it is replaced
+     * by the decoded object during deserialization. It must not be used directly.
+     */
+    static final class Envelope implements Externalizable {
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+
+        private Codec<Object> codec;
+
+        /**
+         * Public no-args constructor required by the Externalizable.
+         */
+        public Envelope() {
+
+        }
+
+        @SuppressWarnings("unchecked")
+        private Envelope(Object value, Codec<?> codec) {
+            this.value = value;
+            this.codec = (Codec<Object>) codec;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeObject(value.getClass());
+            codec.write(value, out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            codec = getCodec((Class<?>) in.readObject());
+            value = codec.read(in);
+        }
+
+        /**
+         * Replaces the Envelope with the decoded object.
+         *
+         * @return
+         */
+        private Object readResolve() {
+            return value;
+        }
+    }
+
+    /**
+     * ObjectOutput which only collects the objects that are passed to writeObject().
+     */
+    private static class ReferenceCollector implements ObjectOutput {
+        private final List<Object> references = new ArrayList<>();
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeObject(Object obj) {
+            references.add(obj);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(int b) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(byte[] b) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(byte[] b, int off, int len) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeBoolean(boolean v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeByte(int v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeShort(int v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeChar(int v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeInt(int v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeLong(long v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeFloat(float v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeDouble(double v) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeBytes(String s) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeChars(String s) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void writeUTF(String s) {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void flush() {}
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {}
+    }
+
+    /**
+     * Codec for unsorted maps.
+     */
+    private static class MapCodec implements Codec<Map<Object, Object>> {
+        private final Supplier<Map<Object, Object>> factory;
+
+        private MapCodec(Supplier<Map<Object, Object>> factory) {
+            this.factory = factory;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(Map<Object, Object> map, ObjectOutput out) throws IOException {
+            writeEntries(map.entrySet(), out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Map<Object, Object> read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return readEntries(factory.get(), in);
+        }
+    }
+
+    /**
+     * Codec for sorted maps. The comparator is written with the standard mechanism.
+     */
+    private static class SortedMapCodec implements Codec<SortedMap<Object, Object>> {
+        private final Function<Comparator<Object>, SortedMap<Object, Object>> factory;
+
+        private SortedMapCodec(Function<Comparator<Object>, SortedMap<Object, Object>> factory) {
+            this.factory = factory;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(SortedMap<Object, Object> map, ObjectOutput out) throws IOException {
+            out.writeObject(map.comparator());
+            writeEntries(map.entrySet(), out);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        @SuppressWarnings("unchecked")
+        public SortedMap<Object, Object> read(ObjectInput in) throws IOException, ClassNotFoundException {
+            Comparator<Object> comparator = (Comparator<Object>) in.readObject();
+            return readEntries(factory.apply(comparator), in);
+        }
+    }
+
+    /**
+     * Codec for lists.
+     */
+    private static class ListCodec implements Codec<List<Object>> {
+        private final IntFunction<List<Object>> factory;
+
+        private ListCodec(IntFunction<List<Object>> factory) {
+            this.factory = factory;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(List<Object> list, ObjectOutput out) throws IOException {
+            out.writeInt(list.size());
+            for(Object value : list) {
+                writeValue(value, out);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List<Object> read(ObjectInput in) throws IOException, ClassNotFoundException {
+            int size = in.readInt();
+            List<Object> list = factory.apply(size);
+            for(int i=0;i<size;i++) {
+                list.add(readValue(in));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.storage.serializers;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * A Codec writes the objects of a specific class in a compact binary form. The
+ * Codecs are registered on the BinarySerializer.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ * @param <T>
+ */
+public interface Codec<T> {
+
+    /**
+     * Writes the object to the output.
+     *
+     * @param obj
+     * @param out
+     * @throws IOException
+     */
+    public void write(T obj, ObjectOutput out) throws IOException;
+
+    /**
+     * Reads an object from the input.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    public T read(ObjectInput in) throws IOException, ClassNotFoundException;
+
+}
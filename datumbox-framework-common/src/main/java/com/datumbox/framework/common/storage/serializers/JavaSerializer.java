@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.storage.serializers;
+
+import com.datumbox.framework.common.storage.interfaces.Serializer;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The JavaSerializer uses the standard Java serialization.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class JavaSerializer implements Serializer {
+
+    /**
+     * The size of the buffers of the streams.
+     */
+    protected static final int BUFFER_SIZE = 8*1024;
+
+    /** {@inheritDoc} */
+    @Override
+    public void serialize(Object obj, WritableByteChannel channel) {
+        try {
+            ObjectOutputStream oos = createOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            oos.writeObject(obj);
+            oos.flush(); //the stream is not closed to keep the channel open
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object deserialize(ReadableByteChannel channel) {
+        try {
+            ObjectInputStream ois = createInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            return ois.readObject();
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (ClassNotFoundException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Creates the ObjectOutputStream which writes the objects.
+     *
+     * @param out
+     * @return
+     * @throws IOException
+     */
+    protected ObjectOutputStream createOutputStream(OutputStream out) throws IOException {
+        return new ObjectOutputStream(out);
+    }
+
+    /**
+     * Creates the ObjectInputStream which reads the objects.
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    protected ObjectInputStream createInputStream(InputStream in) throws IOException {
+        return new ObjectInputStream(in);
+    }
+
+}
@@ -0,0 +1,369 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.common.dataobjects;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.*;
+
+import java.util.Arrays;
+
+/**
+ * The CSRRealMatrix class is a sparse RealMatrix implementation which uses the
+ * Compressed Sparse Row layout. The non-zero values of every row are stored in
+ * consecutive positions of primitive arrays along with their sorted column indexes.
+ * The structure of the matrix is fixed after construction: existing entries can be
+ * modified but new non-zero entries can not be added. The class provides bulk
+ * implementations of the operate, multiply and transpose methods which iterate
+ * only the non-zero values.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CSRRealMatrix extends AbstractRealMatrix implements SparseRealMatrix {
+
+    /**
+     * The number of rows of the matrix.
+     */
+    private final int rowDimension;
+
+    /**
+     * The number of columns of the matrix.
+     */
+    private final int columnDimension;
+
+    /**
+     * The position in the columnIndexes and values arrays where every row starts.
+     * It has rowDimension+1 elements and the last one is the number of non-zeros.
+     */
+    private final int[] rowPointers;
+
+    /**
+     * The column indexes of the non-zero values, sorted within every row.
+     */
+    private final int[] columnIndexes;
+
+    /**
+     * The non-zero values.
+     */
+    private final double[] values;
+
+    /**
+     * Public constructor which receives the CSR arrays. The arrays are used
+     * directly without copying them.
+     *
+     * @param rowDimension
+     * @param columnDimension
+     * @param rowPointers
+     * @param columnIndexes
+     * @param values
+     * @throws NotStrictlyPositiveException
+     */
+    public CSRRealMatrix(int rowDimension, int columnDimension, int[] rowPointers, int[] columnIndexes, double[] values) throws NotStrictlyPositiveException {
+        super(rowDimension, columnDimension);
+        if(rowPointers.length != rowDimension+1) {
+            throw new DimensionMismatchException(rowPointers.length, rowDimension+1);
+        }
+        if(columnIndexes.length != values.length) {
+            throw new DimensionMismatchException(columnIndexes.length, values.length);
+        }
+
+        this.rowDimension = rowDimension;
+        this.columnDimension = columnDimension;
+        this.rowPointers = rowPointers;
+        this.columnIndexes = columnIndexes;
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of non-zero values stored in the matrix.
+     *
+     * @return
+     */
+    public int getNumberOfNonZeros() {
+        return rowPointers[rowDimension];
+    }
+
+    /**
+     * Creates a new dense matrix. The CSR layout does not support adding new
+     * non-zero values, so the matrices which are filled cell by cell are dense.
+     *
+     * @param rowDimension
+     * @param columnDimension
+     * @return
+     * @throws NotStrictlyPositiveException
+     */
+    @Override
+    public RealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        return DenseRealMatrix.newInstance(rowDimension, columnDimension);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowDimension() {
+        return rowDimension;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnDimension() {
+        return columnDimension;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CSRRealMatrix copy() {
+        return new CSRRealMatrix(rowDimension, columnDimension, rowPointers.clone(), columnIndexes.clone(), values.clone());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getEntry(int row, int column) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        int pos = position(row, column);
+        return (pos >= 0)?values[pos]:0.0;
+    }
+
+    /**
+     * Sets the value of an entry. Only the existing non-zero entries can be
+     * modified; setting a zero value to a missing entry is a no-op.
+     *
+     * @param row
+     * @param column
+     * @param value
+     * @throws OutOfRangeException
+     * @throws MathUnsupportedOperationException
+     */
+    @Override
+    public void setEntry(int row, int column, double value) throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        int pos = position(row, column);
+        if(pos >= 0) {
+            values[pos] = value;
+        }
+        else if(value != 0.0) {
+            throw new MathUnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Adds an increment to an entry. Only the existing non-zero entries can be
+     * modified.
+     *
+     * @param row
+     * @param column
+     * @param increment
+     * @throws OutOfRangeException
+     * @throws MathUnsupportedOperationException
+     */
+    @Override
+    public void addToEntry(int row, int column, double increment) throws OutOfRangeException, MathUnsupportedOperationException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        int pos = position(row, column);
+        if(pos >= 0) {
+            values[pos] += increment;
+        }
+        else if(increment != 0.0) {
+            throw new MathUnsupportedOperationException();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void multiplyEntry(int row, int column, double factor) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        int pos = position(row, column);
+        if(pos >= 0) {
+            values[pos] *= factor;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] getRow(int row) throws OutOfRangeException {
+        MatrixUtils.checkRowIndex(this, row);
+        double[] out = new double[columnDimension];
+        for(int k=rowPointers[row];k<rowPointers[row+1];k++) {
+            out[columnIndexes[k]] = values[k];
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[][] getData() {
+        double[][] out = new double[rowDimension][];
+        for(int i=0;i<rowDimension;i++) {
+            out[i] = getRow(i);
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] operate(double[] v) throws DimensionMismatchException {
+        if(v.length != columnDimension) {
+            throw new DimensionMismatchException(v.length, columnDimension);
+        }
+        double[] out = new double[rowDimension];
+        for(int i=0;i<rowDimension;i++) {
+            double sum = 0.0;
+            for(int k=rowPointers[i];k<rowPointers[i+1];k++) {
+                sum += values[k] * v[columnIndexes[k]];
+            }
+            out[i] = sum;
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector operate(RealVector v) throws DimensionMismatchException {
+        return new ArrayRealVector(operate(v.toArray()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] preMultiply(double[] v) throws DimensionMismatchException {
+        if(v.length != rowDimension) {
+            throw new DimensionMismatchException(v.length, rowDimension);
+        }
+        double[] out = new double[columnDimension];
+        for(int i=0;i<rowDimension;i++) {
+            double vi = v[i];
+            if(vi != 0.0) {
+                addScaledRow(i, vi, out);
+            }
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector preMultiply(RealVector v) throws DimensionMismatchException {
+        return new ArrayRealVector(preMultiply(v.toArray()), false);
+    }
+
+    /**
+     * Returns the transpose of the matrix in CSR layout. The transpose is built
+     * with a counting sort over the column indexes in O(nnz) time.
+     *
+     * @return
+     */
+    @Override
+    public CSRRealMatrix transpose() {
+        int nnz = getNumberOfNonZeros();
+        int[] tRowPointers = new int[columnDimension+1];
+        int[] tColumnIndexes = new int[nnz];
+        double[] tValues = new double[nnz];
+
+        for(int k=0;k<nnz;k++) {
+            tRowPointers[columnIndexes[k]+1]++;
+        }
+        for(int j=0;j<columnDimension;j++) {
+            tRowPointers[j+1] += tRowPointers[j];
+        }
+
+        int[] next = Arrays.copyOf(tRowPointers, columnDimension);
+        for(int i=0;i<rowDimension;i++) {
+            for(int k=rowPointers[i];k<rowPointers[i+1];k++) {
+                int pos = next[columnIndexes[k]]++;
+                tColumnIndexes[pos] = i;
+                tValues[pos] = values[k];
+            }
+        }
+
+        return new CSRRealMatrix(columnDimension, rowDimension, tRowPointers, tColumnIndexes, tValues);
+    }
+
+    /**
+     * Multiplies the matrix with another one. The result is dense. When the
+     * argument is a CSRRealMatrix, every output row is accumulated from the
+     * non-zero rows of the argument, which is efficient for Gram matrices of the
+     * form XᵀX.
+     *
+     * @param m
+     * @return
+     * @throws DimensionMismatchException
+     */
+    @Override
+    public RealMatrix multiply(RealMatrix m) throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(this, m);
+
+        int p = m.getColumnDimension();
+        DenseRealMatrix out = DenseRealMatrix.newInstance(rowDimension, p);
+        double[] outRow = new double[p];
+
+        if(m instanceof CSRRealMatrix) {
+            CSRRealMatrix sm = (CSRRealMatrix) m;
+            for(int i=0;i<rowDimension;i++) {
+                Arrays.fill(outRow, 0.0);
+                for(int k=rowPointers[i];k<rowPointers[i+1];k++) {
+                    sm.addScaledRow(columnIndexes[k], values[k], outRow);
+                }
+                out.setRow(i, outRow);
+            }
+        }
+        else {
+            double[][] md = m.getData();
+            for(int i=0;i<rowDimension;i++) {
+                Arrays.fill(outRow, 0.0);
+                for(int k=rowPointers[i];k<rowPointers[i+1];k++) {
+                    double a = values[k];
+                    double[] mRow = md[columnIndexes[k]];
+                    for(int j=0;j<p;j++) {
+                        outRow[j] += a * mRow[j];
+                    }
+                }
+                out.setRow(i, outRow);
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Adds to the target array the values of a row multiplied by a scalar.
+     *
+     * @param row
+     * @param scalar
+     * @param target
+     */
+    void addScaledRow(int row, double scalar, double[] target) {
+        for(int k=rowPointers[row];k<rowPointers[row+1];k++) {
+            target[columnIndexes[k]] += scalar * values[k];
+        }
+    }
+
+    /**
+     * Returns the position of the entry in the values array or a negative number
+     * if the entry is zero.
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    private int position(int row, int column) {
+        int from = rowPointers[row];
+        int to = rowPointers[row+1];
+        if(from == to) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(columnIndexes, from, to, column);
+        return (pos >= 0)?pos:-1;
+    }
+}
@@ -246,6 +246,116 @@ public class Dataframe implements Collection<Record>, Copyable<Dataframe>, Savab
         }
     }
 
+    /**
+     * A read-through Map of Records which exposes a list of Records of another
+     * Map with new consecutive ids. The same Record can be included multiple
+     * times. The Records are not copied; replacing a Record stores the new
+     * Record on the local Map and leaves the original Map untouched. Adding and
+     * removing Records is not supported.
+     */
+    private static class ViewRecords extends AbstractMap<Integer, Record> {
+        private final Map<Integer, Record> parentRecords;
+        private final int[] ids;
+        private final Map<Integer, Record> localRecords;
+        private final boolean[] replaced;
+
+        /**
+         * @param parentRecords
+         * @param ids
+         * @param localRecords
+         */
+        private ViewRecords(Map<Integer, Record> parentRecords, int[] ids, Map<Integer, Record> localRecords) {
+            this.parentRecords = parentRecords;
+            this.ids = ids;
+            this.localRecords = localRecords;
+            replaced = new boolean[ids.length];
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && (Integer)key>=0 && (Integer)key<ids.length;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Record get(Object key) {
+            if(!containsKey(key)) {
+                return null;
+            }
+            int id = (Integer)key;
+            return replaced[id]?localRecords.get(id):parentRecords.get(ids[id]);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Record put(Integer key, Record r) {
+            if(!containsKey(key)) {
+                throw new UnsupportedOperationException("Records can't be added on a view.");
+            }
+            Record previous = get(key);
+            localRecords.put(key, r);
+            replaced[key] = true;
+            return previous;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Set<Map.Entry<Integer, Record>> entrySet() {
+            return new AbstractSet<Map.Entry<Integer, Record>>() {
+                /** {@inheritDoc} */
+                @Override
+                public Iterator<Map.Entry<Integer, Record>> iterator() {
+                    return new Iterator<Map.Entry<Integer, Record>>() {
+                        private int next = 0;
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public boolean hasNext() {
+                            return next<ids.length;
+                        }
+
+                        /** {@inheritDoc} */
+                        @Override
+                        public Map.Entry<Integer, Record> next() {
+                            if(!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Integer id = next++;
+                            return new AbstractMap.SimpleImmutableEntry<>(id, get(id));
+                        }
+                    };
+                }
+
+                /** {@inheritDoc} */
+                @Override
+                public int size() {
+                    return ids.length;
+                }
+            };
+        }
+
+        /**
+         * Copies all the Records of the view in the local Map and returns it.
+         *
+         * @return
+         */
+        private Map<Integer, Record> materialize() {
+            for(int id=0;id<ids.length;id++) {
+                if(!replaced[id]) {
+                    localRecords.put(id, parentRecords.get(ids[id]));
+                }
+            }
+            return localRecords;
+        }
+    }
+
     /**
      * Contains all the data of the dataframe.
      */
@@ -324,6 +434,11 @@ public class Dataframe implements Collection<Record>, Copyable<Dataframe>, Savab
      * @param storageName
      */
     public void save(String storageName) {
+        if(data.records instanceof ViewRecords) {
+            //views are stored as normal Dataframes
+            data.records = ((ViewRecords)data.records).materialize();
+        }
+
         //store the objects on storage
         storageEngine.saveObject("data", data);
 
@@ -743,6 +858,34 @@ public class Dataframe implements Collection<Record>, Copyable<Dataframe>, Savab
         return d;
     }
 
+    /**
+     * It generates and returns a view of a subset of this Dataframe. Contrary to
+     * getSubset(), the Records are not copied; they are read from this Dataframe
+     * when they are accessed, so the view must be closed before this Dataframe.
+     * The ids can contain duplicates, which is useful for sampling with
+     * replacement. The Records of the view have as ids their positions in the
+     * idsCollection. Replacing a Record of the view does not modify this
+     * Dataframe, while adding or removing Records is not supported.
+     *
+     * @param idsCollection
+     * @return
+     */
+    public Dataframe getView(FlatDataList idsCollection) {
+        int[] ids = new int[idsCollection.size()];
+        int i = 0;
+        for(Object id : idsCollection) {
+            ids[i++] = (Integer)id;
+        }
+
+        Dataframe d = new Dataframe(configuration);
+        d.data.atomicNextAvailableRecordId.set(ids.length);
+        d.data.records = new ViewRecords(data.records, ids, d.data.records);
+
+        //the meta data are estimated only from the Records of the view, as in getSubset()
+        d.recalculateMeta();
+        return d;
+    }
+
     /**
      * It forces the recalculation of Meta data using the Records of the dataset.
      */
@@ -856,7 +999,8 @@ public class Dataframe implements Collection<Record>, Copyable<Dataframe>, Savab
 
     /**
      * Sets the record in a particular position in the dataset, WITHOUT updating
-     * the internal meta-info and returns the previous value (null if not existed).
+     * the internal meta-info. The previous value is not returned, so the storage
+     * engines which keep the records serialized do not need to read it back.
      * This method is similar to set() and it allows quick updates
      * on the dataset. Nevertheless it is not advised to use this method because
      * unless you explicitly call the recalculateMeta() method, the meta data
@@ -865,13 +1009,13 @@ public class Dataframe implements Collection<Record>, Copyable<Dataframe>, Savab
      *
      * @param rId
      * @param r
-     * @return
      */
-    public Record _unsafe_set(Integer rId, Record r) {
+    public void _unsafe_set(Integer rId, Record r) {
         //move ahead the next id
         data.atomicNextAvailableRecordId.updateAndGet(x -> (x<rId)?Math.max(x+1,rId+1):x);
 
-        return data.records.put(rId, r);
+        //putAll does not return the previous value, so it is not deserialized
+        data.records.putAll(Collections.singletonMap(rId, r));
     }
 
     /**
@@ -16,36 +16,30 @@
 package com.datumbox.framework.core.common.dataobjects;
 
 import com.datumbox.framework.common.dataobjects.TypeInference;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine;
-import com.datumbox.framework.common.utilities.RandomGenerator;
+import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.OpenMapRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
+import java.util.Arrays;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The DataframeMatrix class is responsible for converting a Dataframe object to a
  Matrix representation. Some of the methods on framework require working with
  matrices and this class provides the tools to achieve the necessary conversions.
+ * The X matrix is stored in primitive arrays: sparse datasets use the Compressed
+ * Sparse Row layout while dense datasets use a row-major dense matrix which moves
+ * off-heap when it does not fit in memory.
  * 
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
 public class DataframeMatrix {
 
     /**
-     * We create a single storage engine for all DataframeMatrix and MapRealMatrix objects. It is necessary to define it static
-     * and package protected to make it accessible to other classes such as the MapRealMatrix. This is because
-     * some methods of the RealMatrix require generating new object without passing the configuration file. The engine
-     * is created only once to avoid hurting performance. Thus the storageEngine is initialized once in a thread-safe manner.
+     * The maximum ratio of non-zero cells for which the sparse layout is used.
      */
-    static StorageEngine storageEngine;
-
-    /**
-     * Keeps record how many usages were made on the storageEngine to avoid conflicting names.
-     */
-    static final AtomicInteger storageId = new AtomicInteger();
+    private static final double MAX_SPARSE_DENSITY = 0.3;
     
     private final RealMatrix X;
     private final RealVector Y;
@@ -83,23 +77,6 @@ public class DataframeMatrix {
         this.Y = Y;
         this.X = X;
     }
-
-    /**
-     * Initializes the static storage engine if it's not already set.
-     *
-     * @param dataset
-     */
-    private static void setStorageEngine(Dataframe dataset) {
-        //create a single storage engine for all the MapRealMatrixes
-        if (storageEngine == null) {
-            synchronized(DataframeMatrix.class) {
-                if (storageEngine == null) {
-                    String storageName = "mdf" + RandomGenerator.getThreadLocalRandomUnseeded().nextLong();
-                    storageEngine = dataset.configuration.getStorageConfiguration().createStorageEngine(storageName);
-                }
-            }
-        }
-    }
     
     /**
      * Method used to generate a training Dataframe to a DataframeMatrix and extracts its contents
@@ -117,66 +94,38 @@ public class DataframeMatrix {
         if(!featureIdsReference.isEmpty()) {
             throw new IllegalArgumentException("The featureIdsReference map should be empty.");
         }
-
-        setStorageEngine(dataset);
-        
-        
-        int n = dataset.size();
-        int d = dataset.xColumnSize();
-        
-        if(addConstantColumn) {
-            ++d;
-        }
-
-        DataframeMatrix m = new DataframeMatrix(new MapRealMatrix(n, d), new MapRealVector(n));
-        
-        if(dataset.isEmpty()) {
-            return m;
-        }
-        
-        boolean extractY=(dataset.getYDataType()== TypeInference.DataType.NUMERICAL);
         
         int featureId=0; 
         if(addConstantColumn) {
-            for(int row=0;row<n;++row) {
-                m.X.setEntry(row, featureId, 1.0); //put the constant in evey row
-            }
             featureIdsReference.put(Dataframe.COLUMN_NAME_CONSTANT, featureId);
             ++featureId; 
         }
         
-        int rowId = 0;
-        for(Map.Entry<Integer, Record> e : dataset.entries()) {
-            Integer rId = e.getKey();
-            Record r = e.getValue();
-            if(recordIdsReference != null) {
-                recordIdsReference.put(rId, rowId);
-            }
-            
-            if(extractY) {
-                m.Y.setEntry(rowId, TypeInference.toDouble(r.getY()));
+        //first pass: assign the column ids and count the non-zero cells
+        long nnz = 0;
+        for(Record r : dataset) {
+            if(addConstantColumn) {
+                ++nnz;
             }
-            
-            
             for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
                 Object feature = entry.getKey();
-                Integer knownFeatureId = featureIdsReference.get(feature);
-                if(knownFeatureId==null) {
+                if(!featureIdsReference.containsKey(feature)) {
                     featureIdsReference.put(feature, featureId);
-                    knownFeatureId = featureId;
-                    
                     ++featureId;
                 }
-                
-                Double value = TypeInference.toDouble(entry.getValue());
-                if(value != null) {
-                    m.X.setEntry(rowId, knownFeatureId, value);
-                }//else the X matrix maintains the 0.0 default value
+                if(isNonZero(entry.getValue())) {
+                    ++nnz;
+                }
             }
-            ++rowId;
         }
         
-        return m;
+        int d = dataset.xColumnSize();
+        if(addConstantColumn) {
+            ++d;
+        }
+        
+        //second pass: copy the data in the matrix
+        return build(dataset, d, nnz, addConstantColumn, recordIdsReference, featureIdsReference);
     }
     
     /**
@@ -193,24 +142,67 @@ public class DataframeMatrix {
         if(featureIdsReference.isEmpty()) {
             throw new IllegalArgumentException("The featureIdsReference map should not be empty.");
         }
-
-        setStorageEngine(newData);
         
-        int n = newData.size();
-        int d = featureIdsReference.size();
-
-        DataframeMatrix m = new DataframeMatrix(new MapRealMatrix(n, d), new MapRealVector(n));
+        boolean addConstantColumn = featureIdsReference.containsKey(Dataframe.COLUMN_NAME_CONSTANT);
         
-        if(newData.isEmpty()) {
-            return m;
+        //first pass: count the non-zero cells of the known features
+        long nnz = 0;
+        for(Record r : newData) {
+            if(addConstantColumn) {
+                ++nnz;
+            }
+            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                if(isNonZero(entry.getValue()) && featureIdsReference.containsKey(entry.getKey())) {
+                    ++nnz;
+                }
+            }
         }
         
-        boolean extractY=(newData.getYDataType()==TypeInference.DataType.NUMERICAL);
+        //second pass: copy the data in the matrix
+        return build(newData, featureIdsReference.size(), nnz, addConstantColumn, recordIdsReference, featureIdsReference);
+    }
+    
+    /**
+     * Builds the DataframeMatrix by selecting the sparse or the dense layout
+     * depending on the density of the data. The featureIdsReference map must
+     * contain all the features that should be copied.
+     * 
+     * @param dataset
+     * @param d
+     * @param nnz
+     * @param addConstantColumn
+     * @param recordIdsReference
+     * @param featureIdsReference
+     * @return 
+     */
+    private static DataframeMatrix build(Dataframe dataset, int d, long nnz, boolean addConstantColumn, Map<Integer, Integer> recordIdsReference, Map<Object, Integer> featureIdsReference) {
+        int n = dataset.size();
         
-        boolean addConstantColumn = featureIdsReference.containsKey(Dataframe.COLUMN_NAME_CONSTANT);
+        double[] y = new double[n];
+        boolean extractY=(!dataset.isEmpty() && dataset.getYDataType()==TypeInference.DataType.NUMERICAL);
+        
+        boolean sparse = nnz <= Integer.MAX_VALUE - 8 && nnz < MAX_SPARSE_DENSITY*n*d;
+        
+        int[] rowPointers = null;
+        int[] columnIndexes = null;
+        double[] values = null;
+        int[] rowColumns = null;
+        double[] rowValues = null;
+        DenseRealMatrix dense = null;
+        if(sparse) {
+            rowPointers = new int[n+1];
+            columnIndexes = new int[(int)nnz];
+            values = new double[(int)nnz];
+            rowColumns = new int[d];
+            rowValues = new double[d];
+        }
+        else {
+            dense = DenseRealMatrix.newInstance(n, d);
+        }
         
         int rowId = 0;
-        for(Map.Entry<Integer, Record> e : newData.entries()) {
+        int pos = 0;
+        for(Map.Entry<Integer, Record> e : dataset.entries()) {
             Integer rId = e.getKey();
             Record r = e.getValue();
             if(recordIdsReference != null) {
@@ -218,26 +210,103 @@ public class DataframeMatrix {
             }
             
             if(extractY) {
-                m.Y.setEntry(rowId, TypeInference.toDouble(r.getY()));
+                y[rowId] = TypeInference.toDouble(r.getY());
             }
             
-            if(addConstantColumn) {
-                m.X.setEntry(rowId, 0, 1.0); //add the constant column
+            if(sparse) {
+                //the values of the row are collected in scratch arrays and sorted by column
+                int rowNnz = 0;
+                if(addConstantColumn) {
+                    rowColumns[rowNnz++] = 0; //add the constant column
+                }
+                for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                    Double value = TypeInference.toDouble(entry.getValue());
+                    if(value!=null && value!=0.0) {
+                        Integer featureId = featureIdsReference.get(entry.getKey());
+                        if(featureId!=null) {//if the feature exists
+                            rowValues[featureId] = value;
+                            rowColumns[rowNnz++] = featureId;
+                        }
+                    }//else the X matrix maintains the 0.0 default value
+                }
+                if(addConstantColumn) {
+                    rowValues[0] = 1.0;
+                }
+                Arrays.sort(rowColumns, 0, rowNnz);
+                for(int k=0;k<rowNnz;k++) {
+                    columnIndexes[pos] = rowColumns[k];
+                    values[pos] = rowValues[rowColumns[k]];
+                    ++pos;
+                }
+                rowPointers[rowId+1] = pos;
             }
-            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
-                Object feature = entry.getKey();
-                Double value = TypeInference.toDouble(entry.getValue());
-                if(value!=null) {
-                    Integer featureId = featureIdsReference.get(feature);
-                    if(featureId!=null) {//if the feature exists
-                        m.X.setEntry(rowId, featureId, value);
-                    }
-                }//else the X matrix maintains the 0.0 default value
+            else {
+                if(addConstantColumn) {
+                    dense.setEntry(rowId, 0, 1.0); //add the constant column
+                }
+                for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                    Double value = TypeInference.toDouble(entry.getValue());
+                    if(value!=null) {
+                        Integer featureId = featureIdsReference.get(entry.getKey());
+                        if(featureId!=null) {//if the feature exists
+                            dense.setEntry(rowId, featureId, value);
+                        }
+                    }//else the X matrix maintains the 0.0 default value
+                }
             }
             ++rowId;
         }
         
-        return m;
+        RealMatrix X = sparse?new CSRRealMatrix(n, d, rowPointers, columnIndexes, values):dense;
+        return new DataframeMatrix(X, new ArrayRealVector(y, false));
+    }
+    
+    /**
+     * Checks whether the value of a cell is not null and not zero.
+     * 
+     * @param value
+     * @return 
+     */
+    private static boolean isNonZero(Object value) {
+        Double v = TypeInference.toDouble(value);
+        return v!=null && v!=0.0;
+    }
+    
+    /**
+     * Parses a single Record and stores the column ids and the values of its 
+     * non-zero features in the provided arrays by using an already existing 
+     * mapping between feature names and column ids. The arrays must have at 
+     * least r.getX().size()+1 elements. The features which are not included in
+     * the mapping are ignored. It returns the number of non-zero elements.
+     * 
+     * @param r
+     * @param featureIdsReference
+     * @param indices
+     * @param values
+     * @return 
+     */
+    public static int parseRecord(Record r, Map<Object, Integer> featureIdsReference, int[] indices, double[] values) {
+        int length = 0;
+        
+        Integer constantId = featureIdsReference.get(Dataframe.COLUMN_NAME_CONSTANT);
+        if(constantId!=null) {
+            indices[length] = constantId;  //add the constant column
+            values[length] = 1.0;
+            length++;
+        }
+        for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+            Double value = TypeInference.toDouble(entry.getValue());
+            if(value!=null && value!=0.0) {
+                Integer featureId = featureIdsReference.get(entry.getKey());
+                if(featureId!=null) {//if the feature exists
+                    indices[length] = featureId;
+                    values[length] = value;
+                    length++;
+                }
+            }
+        }
+        
+        return length;
     }
     
     /**
@@ -255,8 +324,7 @@ public class DataframeMatrix {
         
         int d = featureIdsReference.size();
 
-        //create an Map-backed vector only if we have available info about configuration.
-        RealVector v = (storageEngine != null)?new MapRealVector(d):new OpenMapRealVector(d);
+        RealVector v = new OpenMapRealVector(d);
         
         boolean addConstantColumn = featureIdsReference.containsKey(Dataframe.COLUMN_NAME_CONSTANT);
         
@@ -0,0 +1,431 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.common.dataobjects;
+
+import org.apache.commons.math3.exception.DimensionMismatchException;
+import org.apache.commons.math3.exception.NotStrictlyPositiveException;
+import org.apache.commons.math3.exception.OutOfRangeException;
+import org.apache.commons.math3.linear.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The DenseRealMatrix class is a RealMatrix implementation which stores the data
+ * in row-major order. The data are kept either in a primitive array on the heap or
+ * in memory-mapped temporary files outside of the heap. The off-heap storage is
+ * used for matrices that do not fit in the available memory. The class provides
+ * bulk implementations of the operate, multiply and transpose methods which access
+ * the storage directly instead of going cell by cell.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class DenseRealMatrix extends AbstractRealMatrix {
+
+    /**
+     * Every off-heap segment holds 2^27 doubles (1GB).
+     */
+    private static final int SEGMENT_SHIFT = 27;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * The maximum number of elements that fit in a Java array.
+     */
+    private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The number of rows of the matrix.
+     */
+    private final int rowDimension;
+
+    /**
+     * The number of columns of the matrix.
+     */
+    private final int columnDimension;
+
+    /**
+     * The on-heap storage; null if the matrix is stored off-heap.
+     */
+    private final double[] data;
+
+    /**
+     * The off-heap storage; null if the matrix is stored on-heap.
+     */
+    private final DoubleBuffer[] segments;
+
+    /**
+     * Public constructor which creates an on-heap matrix of zeros.
+     *
+     * @param rowDimension
+     * @param columnDimension
+     * @throws NotStrictlyPositiveException
+     */
+    public DenseRealMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        this(rowDimension, columnDimension, false);
+    }
+
+    /**
+     * Public constructor which creates a matrix of zeros either on-heap or off-heap.
+     *
+     * @param rowDimension
+     * @param columnDimension
+     * @param offHeap
+     * @throws NotStrictlyPositiveException
+     */
+    public DenseRealMatrix(int rowDimension, int columnDimension, boolean offHeap) throws NotStrictlyPositiveException {
+        super(rowDimension, columnDimension);
+
+        this.rowDimension = rowDimension;
+        this.columnDimension = columnDimension;
+
+        long size = (long)rowDimension * columnDimension;
+        if(offHeap || size > MAX_ARRAY_SIZE) {
+            data = null;
+            segments = mapSegments(size);
+        }
+        else {
+            data = new double[(int)size];
+            segments = null;
+        }
+    }
+
+    /**
+     * Creates a new matrix of zeros. The matrix is stored off-heap if its size
+     * exceeds the half of the memory that is currently available to the JVM.
+     *
+     * @param rowDimension
+     * @param columnDimension
+     * @return
+     */
+    public static DenseRealMatrix newInstance(int rowDimension, int columnDimension) {
+        long bytes = (long)rowDimension * columnDimension * Double.BYTES;
+        Runtime runtime = Runtime.getRuntime();
+        long availableMemory = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return new DenseRealMatrix(rowDimension, columnDimension, bytes > availableMemory/2);
+    }
+
+    /**
+     * Returns whether the data of the matrix are stored off-heap.
+     *
+     * @return
+     */
+    public boolean isOffHeap() {
+        return data == null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DenseRealMatrix createMatrix(int rowDimension, int columnDimension) throws NotStrictlyPositiveException {
+        return newInstance(rowDimension, columnDimension);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRowDimension() {
+        return rowDimension;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnDimension() {
+        return columnDimension;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DenseRealMatrix copy() {
+        DenseRealMatrix copy = new DenseRealMatrix(rowDimension, columnDimension, isOffHeap());
+        if(data != null) {
+            System.arraycopy(data, 0, copy.data, 0, data.length);
+        }
+        else {
+            for(int s=0;s<segments.length;s++) {
+                DoubleBuffer source = segments[s].duplicate();
+                source.rewind();
+                DoubleBuffer target = copy.segments[s].duplicate();
+                target.rewind();
+                target.put(source);
+            }
+        }
+        return copy;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getEntry(int row, int column) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        return get(index(row, column));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setEntry(int row, int column, double value) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        set(index(row, column), value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addToEntry(int row, int column, double increment) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        long i = index(row, column);
+        set(i, get(i) + increment);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void multiplyEntry(int row, int column, double factor) throws OutOfRangeException {
+        MatrixUtils.checkMatrixIndex(this, row, column);
+        long i = index(row, column);
+        set(i, get(i) * factor);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] getRow(int row) throws OutOfRangeException {
+        MatrixUtils.checkRowIndex(this, row);
+        double[] out = new double[columnDimension];
+        long offset = index(row, 0);
+        for(int j=0;j<columnDimension;j++) {
+            out[j] = get(offset + j);
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[][] getData() {
+        double[][] out = new double[rowDimension][];
+        for(int i=0;i<rowDimension;i++) {
+            out[i] = getRow(i);
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] operate(double[] v) throws DimensionMismatchException {
+        if(v.length != columnDimension) {
+            throw new DimensionMismatchException(v.length, columnDimension);
+        }
+        double[] out = new double[rowDimension];
+        for(int i=0;i<rowDimension;i++) {
+            long offset = index(i, 0);
+            double sum = 0.0;
+            for(int j=0;j<columnDimension;j++) {
+                sum += get(offset + j) * v[j];
+            }
+            out[i] = sum;
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector operate(RealVector v) throws DimensionMismatchException {
+        return new ArrayRealVector(operate(v.toArray()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double[] preMultiply(double[] v) throws DimensionMismatchException {
+        if(v.length != rowDimension) {
+            throw new DimensionMismatchException(v.length, rowDimension);
+        }
+        double[] out = new double[columnDimension];
+        for(int i=0;i<rowDimension;i++) {
+            double vi = v[i];
+            if(vi == 0.0) {
+                continue;
+            }
+            long offset = index(i, 0);
+            for(int j=0;j<columnDimension;j++) {
+                out[j] += vi * get(offset + j);
+            }
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public RealVector preMultiply(RealVector v) throws DimensionMismatchException {
+        return new ArrayRealVector(preMultiply(v.toArray()), false);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DenseRealMatrix transpose() {
+        DenseRealMatrix out = createMatrix(columnDimension, rowDimension);
+        for(int i=0;i<rowDimension;i++) {
+            long offset = index(i, 0);
+            for(int j=0;j<columnDimension;j++) {
+                out.set(out.index(j, i), get(offset + j));
+            }
+        }
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DenseRealMatrix multiply(RealMatrix m) throws DimensionMismatchException {
+        MatrixUtils.checkMultiplicationCompatible(this, m);
+
+        int p = m.getColumnDimension();
+        DenseRealMatrix out = createMatrix(rowDimension, p);
+        double[] outRow = new double[p];
+
+        if(m instanceof CSRRealMatrix) {
+            CSRRealMatrix sm = (CSRRealMatrix) m;
+            for(int i=0;i<rowDimension;i++) {
+                java.util.Arrays.fill(outRow, 0.0);
+                long offset = index(i, 0);
+                for(int k=0;k<columnDimension;k++) {
+                    double a = get(offset + k);
+                    if(a != 0.0) {
+                        sm.addScaledRow(k, a, outRow);
+                    }
+                }
+                out.setRow(i, outRow);
+            }
+        }
+        else {
+            DenseRealMatrix dm = (m instanceof DenseRealMatrix)?(DenseRealMatrix) m:null;
+            double[][] md = (dm == null)?m.getData():null;
+            for(int i=0;i<rowDimension;i++) {
+                java.util.Arrays.fill(outRow, 0.0);
+                long offset = index(i, 0);
+                for(int k=0;k<columnDimension;k++) {
+                    double a = get(offset + k);
+                    if(a == 0.0) {
+                        continue;
+                    }
+                    if(dm != null) {
+                        long mOffset = dm.index(k, 0);
+                        for(int j=0;j<p;j++) {
+                            outRow[j] += a * dm.get(mOffset + j);
+                        }
+                    }
+                    else {
+                        double[] mRow = md[k];
+                        for(int j=0;j<p;j++) {
+                            outRow[j] += a * mRow[j];
+                        }
+                    }
+                }
+                out.setRow(i, outRow);
+            }
+        }
+
+        return out;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setRow(int row, double[] array) throws OutOfRangeException {
+        MatrixUtils.checkRowIndex(this, row);
+        if(array.length != columnDimension) {
+            throw new MatrixDimensionMismatchException(1, array.length, 1, columnDimension);
+        }
+        long offset = index(row, 0);
+        if(data != null) {
+            System.arraycopy(array, 0, data, (int)offset, columnDimension);
+        }
+        else {
+            for(int j=0;j<columnDimension;j++) {
+                set(offset + j, array[j]);
+            }
+        }
+    }
+
+    /**
+     * Estimates the position of the cell in the storage.
+     *
+     * @param row
+     * @param column
+     * @return
+     */
+    long index(int row, int column) {
+        return (long)row * columnDimension + column;
+    }
+
+    /**
+     * Reads the value of a position in the storage.
+     *
+     * @param i
+     * @return
+     */
+    double get(long i) {
+        if(data != null) {
+            return data[(int)i];
+        }
+        return segments[(int)(i >>> SEGMENT_SHIFT)].get((int)(i & SEGMENT_MASK));
+    }
+
+    /**
+     * Writes a value in a position of the storage.
+     *
+     * @param i
+     * @param value
+     */
+    void set(long i, double value) {
+        if(data != null) {
+            data[(int)i] = value;
+        }
+        else {
+            segments[(int)(i >>> SEGMENT_SHIFT)].put((int)(i & SEGMENT_MASK), value);
+        }
+    }
+
+    /**
+     * Maps a temporary file in memory and splits it in segments. The file is
+     * deleted right after the mapping; the memory is released once the buffers
+     * are garbage collected.
+     *
+     * @param size
+     * @return
+     */
+    private static DoubleBuffer[] mapSegments(long size) {
+        int numberOfSegments = (int)((size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        DoubleBuffer[] segments = new DoubleBuffer[numberOfSegments];
+        try {
+            Path file = Files.createTempFile("drm", ".tmp");
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw"); FileChannel channel = raf.getChannel()) {
+                raf.setLength(size * Double.BYTES);
+                for(int s=0;s<numberOfSegments;s++) {
+                    long start = (long)s << SEGMENT_SHIFT;
+                    long length = Math.min(size - start, 1L << SEGMENT_SHIFT);
+                    segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start * Double.BYTES, length * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                }
+            }
+            finally {
+                if(!file.toFile().delete()) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return segments;
+    }
+}
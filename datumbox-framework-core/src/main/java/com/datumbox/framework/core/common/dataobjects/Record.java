@@ -16,8 +16,17 @@
 package com.datumbox.framework.core.common.dataobjects;
 
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.common.dataobjects.NumericMap;
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
+import com.datumbox.framework.common.storage.serializers.Codec;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -40,6 +49,10 @@ import java.util.Objects;
  */
 public class Record implements Serializable {
     private static final long serialVersionUID = 1L;
+
+    static {
+        BinarySerializer.registerCodec(Record.class, new BinaryCodec());
+    }
     
     /** 
      * The X vector of the Record 
@@ -85,15 +98,24 @@ public class Record implements Serializable {
      * @param yPredictedProbabilities 
      */
     public Record(AssociativeArray x, Object y, Object yPredicted, AssociativeArray yPredictedProbabilities) {
-        this.x = AssociativeArray.copy2Unmodifiable(x);
+        this(AssociativeArray.copy2Unmodifiable(x), y, yPredicted, (yPredictedProbabilities != null)?AssociativeArray.copy2Unmodifiable(yPredictedProbabilities):null, false);
+    }
+    
+    /**
+     * Private constructor which uses the provided unmodifiable arrays without
+     * copying them. The last argument only distinguishes it from the public one.
+     * 
+     * @param x
+     * @param y
+     * @param yPredicted
+     * @param yPredictedProbabilities
+     * @param unused 
+     */
+    private Record(AssociativeArray x, Object y, Object yPredicted, AssociativeArray yPredictedProbabilities, boolean unused) {
+        this.x = x;
         this.y = y;
         this.yPredicted = yPredicted;
-        if (yPredictedProbabilities != null) {
-            this.yPredictedProbabilities = AssociativeArray.copy2Unmodifiable(yPredictedProbabilities);
-        }
-        else {
-            this.yPredictedProbabilities = null;
-        }
+        this.yPredictedProbabilities = yPredictedProbabilities;
     }
     
     /**
@@ -196,4 +218,45 @@ public class Record implements Serializable {
         return sb.toString();
     }
     
+    /**
+     * Codec which writes the x and the predicted probabilities inline, avoiding
+     * copying the data when the Record is decoded.
+     */
+    private static class BinaryCodec implements Codec<Record> {
+
+        /** {@inheritDoc} */
+        @Override
+        public void write(Record r, ObjectOutput out) throws IOException {
+            NumericMap numericX = r.x.getNumericData();
+            out.writeBoolean(numericX != null);
+            if(numericX != null) {
+                out.writeObject(numericX);
+            }
+            else {
+                BinarySerializer.writeEntries(r.x.entrySet(), out);
+            }
+            BinarySerializer.writeValue(r.y, out);
+            BinarySerializer.writeValue(r.yPredicted, out);
+            out.writeBoolean(r.yPredictedProbabilities != null);
+            if(r.yPredictedProbabilities != null) {
+                BinarySerializer.writeEntries(r.yPredictedProbabilities.entrySet(), out);
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Record read(ObjectInput in) throws IOException, ClassNotFoundException {
+            AssociativeArray x = in.readBoolean()?new AssociativeArray(((NumericMap) in.readObject()).unmodifiableCopy()):readUnmodifiable(in);
+            Object y = BinarySerializer.readValue(in);
+            Object yPredicted = BinarySerializer.readValue(in);
+            AssociativeArray yPredictedProbabilities = in.readBoolean()?readUnmodifiable(in):null;
+            return new Record(x, y, yPredicted, yPredictedProbabilities, false);
+        }
+
+        private AssociativeArray readUnmodifiable(ObjectInput in) throws IOException, ClassNotFoundException {
+            Map<Object, Object> data = BinarySerializer.readEntries(new LinkedHashMap<>(), in);
+            return new AssociativeArray(Collections.unmodifiableMap(data));
+        }
+    }
+    
 }
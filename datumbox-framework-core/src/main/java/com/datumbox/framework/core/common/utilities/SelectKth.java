@@ -151,4 +151,66 @@ public class SelectKth {
         
         return buffer[k-1];
     }
+
+    /**
+     * Selects the kth smallest element of a primitive array in linear expected
+     * time. The array is partially reordered: after the call the kth smallest 
+     * element is on position k-1, the smaller elements are before it and the
+     * larger ones after it. The elements are partitioned in three ways, so the
+     * arrays with many equal values are handled in linear time, and the range is
+     * sorted if the partitions fail to shrink it after a logarithmic number of passes.
+     * 
+     * @param elements
+     * @param k
+     * @return 
+     */
+    public static double smallest(double[] elements, int k) {
+        if (k <= 0 || k > elements.length) {
+            throw new IllegalArgumentException("The k must be between 1 and the number of elements.");
+        }
+        
+        int target = k - 1;
+        int left = 0;
+        int right = elements.length - 1;
+        int remainingPasses = 2 * (Integer.SIZE - Integer.numberOfLeadingZeros(elements.length));
+        while (left < right) {
+            if (remainingPasses-- == 0) {
+                Arrays.sort(elements, left, right + 1);
+                break;
+            }
+            
+            //--- partition in [left, lt) smaller, [lt, gt] equal and (gt, right] larger than the pivot
+            double pivotValue = elements[(left + right) >>> 1];
+            int lt = left;
+            int gt = right;
+            int l = left;
+            while (l <= gt) {
+                double value = elements[l];
+                if (value < pivotValue) {
+                    elements[l++] = elements[lt];
+                    elements[lt++] = value;
+                }
+                else if (value > pivotValue) {
+                    elements[l] = elements[gt];
+                    elements[gt--] = value;
+                }
+                else {
+                    l++;
+                }
+            }
+            //---
+            
+            if (target < lt) {
+                right = lt - 1;
+            } 
+            else if (target > gt) {
+                left = gt + 1;
+            } 
+            else {
+                break;
+            }
+        }
+        
+        return elements[target];
+    }
 }
@@ -17,26 +17,27 @@ package com.datumbox.framework.core.machinelearning.classification;
 
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.PerThreadAccumulator;
 import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.common.dataobjects.TypeInference;
-import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.WeightMatrix;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
+import com.datumbox.framework.core.mathematics.optimization.LBFGS;
+import com.datumbox.framework.core.mathematics.regularization.L2Regularizer;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
 
 
 /**
@@ -56,8 +57,7 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
     public static class ModelParameters extends AbstractClassifier.AbstractModelParameters {
         private static final long serialVersionUID = 1L;
         
-        @BigMap(keyClass=List.class, valueClass=Double.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_MEMORY, concurrent=true)
-        private Map<List<Object>, Double> lambdas; //the lambda parameters of the model
+        private WeightMatrix lambdas; //the lambda parameters of the model
         
         /** 
          * @param storageEngine
@@ -72,7 +72,7 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
          * 
          * @return 
          */
-        public Map<List<Object>, Double> getLambdas() {
+        public WeightMatrix getLambdas() {
             return lambdas;
         }
         
@@ -81,7 +81,7 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
          * 
          * @param lambdas 
          */
-        protected void setLambdas(Map<List<Object>, Double> lambdas) {
+        protected void setLambdas(WeightMatrix lambdas) {
             this.lambdas = lambdas;
         }
         
@@ -91,8 +91,30 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
     public static class TrainingParameters extends AbstractClassifier.AbstractTrainingParameters { 
         private static final long serialVersionUID = 1L;
         
+        /**
+         * The optimization algorithm which estimates the lambdas.
+         */
+        public enum Optimizer {
+            /**
+             * Improved Iterative Scaling.
+             */
+            IIS,
+            
+            /**
+             * Limited-memory BFGS on the log-likelihood of the training data. It
+             * converges in far fewer passes over the data than the IIS. On 
+             * separable data the likelihood has no maximum and the lambdas grow
+             * until the iterations are exhausted, unless L2 regularization is used.
+             */
+            LBFGS;
+        }
+        
         private int totalIterations=100; 
         
+        private Optimizer optimizer = Optimizer.IIS;
+        
+        private double l2=0.0;
+        
         /**
          * Getter for the total iterations of the training process.
          * 
@@ -110,6 +132,44 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
         public void setTotalIterations(int totalIterations) {
             this.totalIterations = totalIterations;
         }
+        
+        /**
+         * Getter for the optimization algorithm.
+         * 
+         * @return 
+         */
+        public Optimizer getOptimizer() {
+            return optimizer;
+        }
+        
+        /**
+         * Setter for the optimization algorithm. The IIS is used by default and 
+         * the total iterations limit the iterations of both algorithms.
+         * 
+         * @param optimizer 
+         */
+        public void setOptimizer(Optimizer optimizer) {
+            this.optimizer = optimizer;
+        }
+
+        /**
+         * Getter for the value of L2 regularization.
+         *
+         * @return
+         */
+        public double getL2() {
+            return l2;
+        }
+
+        /**
+         * Setter for the value of the L2 regularization. It is used only by the
+         * LBFGS optimizer.
+         *
+         * @param l2
+         */
+        public void setL2(double l2) {
+            this.l2 = l2;
+        }
 
     }
 
@@ -134,6 +194,10 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
         streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
     
+    private static final int LBFGS_MEMORY = 10;
+    
+    private static final double LBFGS_TOLERANCE = 1e-6;
+    
     private boolean parallelized = true;
     
     /**
@@ -163,11 +227,13 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
     /** {@inheritDoc} */
     @Override
     public Prediction _predictRecord(Record r) {
-        Set<Object> classesSet = knowledgeBase.getModelParameters().getClasses();
+        WeightMatrix lambdas = knowledgeBase.getModelParameters().getLambdas();
+        
+        double[] scores = calculateClassScores(r.getX(), lambdas);
         
         AssociativeArray predictionScores = new AssociativeArray();
-        for(Object theClass : classesSet) {
-            predictionScores.put(theClass, calculateClassScore(r.getX(), theClass));
+        for(int classId=0;classId<scores.length;classId++) {
+            predictionScores.put(lambdas.getClassById(classId), scores[classId]);
         }
         
         Object predictedClass=getSelectedClassFromClassScores(predictionScores);
@@ -176,6 +242,17 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
         
         return new Prediction(predictedClass, predictionScores);
     }
+
+    /**
+     * Compiles the trained model to a CompiledLinearClassifier which predicts
+     * primitive feature vectors without allocations.
+     *
+     * @return
+     */
+    public CompiledLinearClassifier compile() {
+        WeightMatrix lambdas = knowledgeBase.getModelParameters().getLambdas();
+        return CompiledLinearClassifier.compile(lambdas, null, CompiledLinearClassifier.FeatureValues.BINARIZED);
+    }
     
     /** {@inheritDoc} */
     @Override
@@ -184,7 +261,6 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
         int n = trainingData.size();
         
         
-        Map<List<Object>, Double> lambdas = modelParameters.getLambdas();
         Set<Object> classesSet = modelParameters.getClasses();
         double Cmax = 0.0; //max number of activated features in the dataset. Required from the IIS algorithm
         
@@ -205,211 +281,245 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
             
         }
         
-        //create a temporary map for the observed probabilities in training set
-        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
-        Map<List<Object>, Double> tmp_EpFj_observed = storageEngine.getBigMap("tmp_EpFj_observed", (Class<List<Object>>)(Class<?>)List.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
-        
-        //Loop through all the classes to ensure that the feature-class combination is initialized for ALL the classes
+        //Initialize the lambdas for ALL the feature-class combinations.
         //The math REQUIRE us to have scores for all classes to make the probabilities comparable.
-        streamExecutor.forEach(StreamMethods.stream(trainingData.getXDataTypes().keySet().stream(), isParallelized()), feature -> {
-            for(Object theClass : classesSet) {
-                List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-                tmp_EpFj_observed.put(featureClassTuple, 0.0);
-                lambdas.put(featureClassTuple, 0.0);
-            }
-        });
+        WeightMatrix lambdas = new WeightMatrix(trainingData.getXDataTypes().keySet(), classesSet);
+        modelParameters.setLambdas(lambdas);
         
-    
-        double increment = 1.0/n; //this is done for speed reasons. We don't want to repeat the same division over and over
+        //the observed probabilities in training set use the same indexes as the lambdas
+        double[] EpFj_observed = new double[lambdas.size()];
         
-        //then we calculate the observed probabilities in training set
+        //then we calculate the observed probabilities in training set; every thread counts the occurrences in its own array
+        PerThreadAccumulator<double[]> observedCounts = new PerThreadAccumulator<>(() -> new double[EpFj_observed.length]);
         streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> {
-            Object theClass = r.getY();
+            double[] counts = observedCounts.get();
+            int classId = lambdas.getClassId(r.getY());
             //store the occurrances of the features
             for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
                 Double occurrences=TypeInference.toDouble(entry.getValue());
                 if (occurrences!=null && occurrences>0.0) {
-                    Object feature = entry.getKey();
-
-                    //find the class of this particular example
-                    List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-                    synchronized(tmp_EpFj_observed) {
-                        tmp_EpFj_observed.put(featureClassTuple, tmp_EpFj_observed.get(featureClassTuple) + increment);
+                    int featureId = lambdas.getFeatureId(entry.getKey());
+                    if(featureId < 0) {
+                        continue;
                     }
+                    
+                    //find the class of this particular example
+                    counts[lambdas.index(featureId, classId)] += 1.0;
                 }
             }
             
         });
+        for(double[] counts : observedCounts.buffers()) {
+            for(int i=0;i<counts.length;i++) {
+                EpFj_observed[i] += counts[i]/n;
+            }
+        }
         
-        
-        //IIS algorithm
-        IIS(trainingData, tmp_EpFj_observed, Cmax);
-        
-        
-        //Drop the temporary Collection
-        storageEngine.dropBigMap("tmp_EpFj_observed", tmp_EpFj_observed);
+        if(knowledgeBase.getTrainingParameters().getOptimizer() == TrainingParameters.Optimizer.LBFGS) {
+            LBFGS(trainingData, EpFj_observed);
+        }
+        else {
+            //IIS algorithm
+            IIS(trainingData, EpFj_observed, Cmax);
+        }
     }
     
-    private void IIS(Dataframe trainingData, Map<List<Object>, Double> EpFj_observed, double Cmax) {
+    private void IIS(Dataframe trainingData, double[] EpFj_observed, double Cmax) {
         
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
 
         int totalIterations = knowledgeBase.getTrainingParameters().getTotalIterations();
-        Set<Object> classesSet = modelParameters.getClasses();
-        Map<List<Object>, Double> lambdas = modelParameters.getLambdas();
+        WeightMatrix lambdas = modelParameters.getLambdas();
+        double[] weights = lambdas.getWeights();
         
-        int n = trainingData.size();
-        
-        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
         for(int iteration=0;iteration<totalIterations;++iteration) {
             
             logger.debug("Iteration {}", iteration);
             
-            Map<List<Object>, Double> tmp_EpFj_model = storageEngine.getBigMap("tmp_EpFj_model", (Class<List<Object>>)(Class<?>)List.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, false, true);
-            
-            //calculate the model probabilities
-            streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> { //slow parallel loop
-                
-                //build a map with the scores of the record for each class
-                AssociativeArray classScores = new AssociativeArray();
-                AssociativeArray xData = r.getX();
-                for(Object theClass : classesSet) {
-                    double score = calculateClassScore(xData, theClass);
-                    classScores.put(theClass, score);
-                }
-                
-                Descriptives.normalizeExp(classScores);
-                
-                
-                //It is the average probability across all documents for a specific characteristic
-                for(Map.Entry<Object, Object> entry : classScores.entrySet()) {
-                    Object theClass = entry.getKey();
-                    Double score = TypeInference.toDouble(entry.getValue());
-
-                    double probabilityFraction = score/n;
-                    
-                    synchronized(tmp_EpFj_model) {
-                        for(Map.Entry<Object, Object> entry2 : r.getX().entrySet()) {
-                            Double occurrences=TypeInference.toDouble(entry2.getValue());
-
-                            if(occurrences==null || occurrences==0.0) {
-                                continue;
-                            }
-                            Object feature = entry2.getKey();
-                            List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-
-                            tmp_EpFj_model.put(featureClassTuple, tmp_EpFj_model.getOrDefault(featureClassTuple, 0.0) + probabilityFraction);           
-                        }
-                    }
-                }
-                //classScores=null;
-                
-            });
+            double[] EpFj_model = new double[lambdas.size()];
+            modelExpectations(trainingData, lambdas, EpFj_model);
             
-            AtomicBoolean infiniteValuesDetected = new AtomicBoolean(false);
             //Now we have the model probabilities. We will use it to estimate the Deltas and finally update the lamdas
-            streamExecutor.forEach(StreamMethods.stream(tmp_EpFj_model.entrySet().stream(), isParallelized()), featureClassCounts -> {
-                List<Object> tp = featureClassCounts.getKey();
-                
-                Double EpFj_observed_value = EpFj_observed.get(tp);
-                Double EpFj_model_value = featureClassCounts.getValue();    
-                
-                
-                if(Math.abs(EpFj_observed_value-EpFj_model_value)<=1e-8) {
-                    //if those two are equal or both zero then do nothing.
-                    //The two are equal so no change on weights is required.
-                }
-                else if(EpFj_observed_value==0.0) {
-                    //The feature did not appear at all in the dataset for this class
-                    //
-                    //Intuitive Meaning: this feature obviously appears in SOME of the classes
-                    //Those that do not include the keyword are less likely to be
-                    //the correct class for this observation.
-                    //
-                    //Mathematical view: a 0 value on observed with non-zero value on
-                    //the model suggests that the division between them is zero
-                    //and thus when we take the logarithm it, the delta will become
-                    //minus infinite. This will cause the weight to go to -inf.
-                    //Thus if the feature appears, the probability of assigning it
-                    //to this class will be 0 and the class will not be selected
-                    //despite the value of the other features.
-                    //
-                    //Implementation/Programming view: if we indeed assign -inf
-                    //all the other values will become insignificant. This means
-                    //that a small noise (the occurrence of this feature in this class)
-                    //can lead to discaring the correct class. Instead of assigning
-                    //-inf or -Double.MAX_VALUE we will treat this more cleverly.
-                    //We will originally store -Infinite here and once we calculate
-                    //all the values we will replace this infinite with the smallest 
-                    //non-negative infinite weight in the dataset. This is something
-                    //similar to the plus1 smoothing.
-                    
-                    lambdas.put(tp, Double.NEGATIVE_INFINITY);
-                    infiniteValuesDetected.set(true);
-                }
-                else if(EpFj_model_value==0.0) {
-                    //the model did not assign any positive probability for this feature in this class
-                    //even if in real data it has a positive probability. This 
-                    //should really never happen but we treat this case anyway.
-                    //
-                    //Mathematical view: a 0 on the denominator and a positive
-                    //value on numerator will cause the logarithm to go to +inf.
-                    //Logarithm will still produce a +inf and thus the lambda weight
-                    //will become positive infinity. This effect is caused only
-                    //because we choose to construct the model this way. It is
-                    //not logical to happen.
-                    //
-                    //Implementation/Programming view: Assigning +inf is completely
-                    //wrong. Instead we will again mark it as +inf and revise its
-                    //value later on by updating it with the highest non-infite
-                    //weight.
-                    
-                    
-                    lambdas.put(tp, Double.POSITIVE_INFINITY);
-                    infiniteValuesDetected.set(true);
-                }
-                else {
-                    //the formula below can't produce a +inf or -inf value
-                    double deltaJ = Math.log(EpFj_observed_value/EpFj_model_value)/Cmax;
-                    double newValue = lambdas.get(tp) + deltaJ;
-                    lambdas.put(tp, newValue); //update lamdas by delta
-                }
-            });
+            updateLambdas(weights, EpFj_observed, EpFj_model, Cmax);
+        }
+        
+    }
+    
+    private void LBFGS(Dataframe trainingData, double[] EpFj_observed) {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        
+        int totalIterations = knowledgeBase.getTrainingParameters().getTotalIterations();
+        double l2 = knowledgeBase.getTrainingParameters().getL2();
+        WeightMatrix lambdas = modelParameters.getLambdas();
+        double[] weights = lambdas.getWeights();
+        
+        //the penalized negative log-likelihood is minimized; its gradient is the difference of the model and the observed expectations plus the L2 term
+        LBFGS.DifferentiableFunction negativeLogLikelihood = (point, gradient) -> {
+            System.arraycopy(point, 0, weights, 0, weights.length);
             
+            Arrays.fill(gradient, 0.0);
+            double error = modelExpectations(trainingData, lambdas, gradient) + L2Regularizer.estimatePenalty(l2, point);
+            for(int i=0;i<gradient.length;i++) {
+                gradient[i] += l2*point[i] - EpFj_observed[i];
+            }
             
-            if(infiniteValuesDetected.get()) {
+            logger.debug("Negative log-likelihood {}", error);
+            return error;
+        };
+        
+        double[] point = weights.clone();
+        new LBFGS(LBFGS_MEMORY, totalIterations, LBFGS_TOLERANCE).minimize(negativeLogLikelihood, point);
+        System.arraycopy(point, 0, weights, 0, weights.length);
+    }
+    
+    /**
+     * Estimates the expectations of all the feature-class combinations under the 
+     * current lambdas and adds them to the provided array. Every thread accumulates
+     * the probabilities of its records in its own array and the arrays are summed
+     * at the end of the pass. It returns the average negative log-likelihood of 
+     * the training data.
+     * 
+     * @param trainingData
+     * @param lambdas
+     * @param EpFj_model
+     * @return 
+     */
+    private double modelExpectations(Dataframe trainingData, WeightMatrix lambdas, double[] EpFj_model) {
+        int c = lambdas.getNumberOfClasses();
+        int n = trainingData.size();
+        
+        PerThreadAccumulator<double[]> expectations = new PerThreadAccumulator<>(() -> new double[EpFj_model.length]);
+        DoubleAdder logLikelihood = new DoubleAdder();
+        
+        //calculate the model probabilities
+        streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> { //slow parallel loop
             
+            //build the scores of the record for each class
+            AssociativeArray xData = r.getX();
+            double[] classProbabilities = calculateClassScores(xData, lambdas);
+            double yScore = classProbabilities[lambdas.getClassId(r.getY())];
+            double logPartition = normalizeExp(classProbabilities);
+            logLikelihood.add(yScore - logPartition);
             
-                Double minimumNonInfiniteLambdaWeight = streamExecutor.min(StreamMethods.stream(lambdas.values().stream(), isParallelized()).filter(v -> Double.isFinite(v)), Double::compare).get();
-                Double maximumNonInfiniteLambdaWeight = streamExecutor.max(StreamMethods.stream(lambdas.values().stream(), isParallelized()).filter(v -> Double.isFinite(v)), Double::compare).get();
+            //It is the average probability across all documents for a specific characteristic
+            double[] expectation = expectations.get();
+            for(Map.Entry<Object, Object> entry : xData.entrySet()) {
+                Double occurrences=TypeInference.toDouble(entry.getValue());
+                if(occurrences==null || occurrences==0.0) {
+                    continue;
+                }
+                int featureId = lambdas.getFeatureId(entry.getKey());
+                if(featureId < 0) {
+                    continue;
+                }
                 
-                streamExecutor.forEach(StreamMethods.stream(lambdas.entrySet().stream(), isParallelized()), e -> {
-                    List<Object> featureClass = e.getKey();
-                    Double value = e.getValue();
-                    
-                    if(Double.isInfinite(value)) {
-                        if(value<0.0) { //value==Double.NEGATIVE_INFINITY
-                            lambdas.put(featureClass, minimumNonInfiniteLambdaWeight);
-                        }
-                        else { //value==Double.POSITIVE_INFINITY
-                            lambdas.put(featureClass, maximumNonInfiniteLambdaWeight);
-                        }
-                    }
-                });
+                int offset = lambdas.index(featureId, 0);
+                for(int classId=0;classId<c;classId++) {
+                    expectation[offset+classId] += classProbabilities[classId];
+                }
             }
             
-            
-            
-            //Drop the temporary Collection
-            storageEngine.dropBigMap("tmp_EpFj_model", tmp_EpFj_model);
+        });
+        
+        for(double[] expectation : expectations.buffers()) {
+            for(int i=0;i<expectation.length;i++) {
+                EpFj_model[i] += expectation[i]/n;
+            }
         }
         
+        return -logLikelihood.sum()/n;
     }
     
-    private Double calculateClassScore(AssociativeArray x, Object theClass) {
-        double score = 0;
+    private void updateLambdas(double[] weights, double[] EpFj_observed, double[] EpFj_model, double Cmax) {
+        boolean infiniteValuesDetected = false;
+        for(int i=0;i<weights.length;i++) {
+            double EpFj_observed_value = EpFj_observed[i];
+            double EpFj_model_value = EpFj_model[i];
+            
+            if(Math.abs(EpFj_observed_value-EpFj_model_value)<=1e-8) {
+                //if those two are equal or both zero then do nothing.
+                //The two are equal so no change on weights is required.
+            }
+            else if(EpFj_observed_value==0.0) {
+                //The feature did not appear at all in the dataset for this class
+                //
+                //Intuitive Meaning: this feature obviously appears in SOME of the classes
+                //Those that do not include the keyword are less likely to be
+                //the correct class for this observation.
+                //
+                //Mathematical view: a 0 value on observed with non-zero value on
+                //the model suggests that the division between them is zero
+                //and thus when we take the logarithm it, the delta will become
+                //minus infinite. This will cause the weight to go to -inf.
+                //Thus if the feature appears, the probability of assigning it
+                //to this class will be 0 and the class will not be selected
+                //despite the value of the other features.
+                //
+                //Implementation/Programming view: if we indeed assign -inf
+                //all the other values will become insignificant. This means
+                //that a small noise (the occurrence of this feature in this class)
+                //can lead to discaring the correct class. Instead of assigning
+                //-inf or -Double.MAX_VALUE we will treat this more cleverly.
+                //We will originally store -Infinite here and once we calculate
+                //all the values we will replace this infinite with the smallest 
+                //non-negative infinite weight in the dataset. This is something
+                //similar to the plus1 smoothing.
+                
+                weights[i] = Double.NEGATIVE_INFINITY;
+                infiniteValuesDetected = true;
+            }
+            else if(EpFj_model_value==0.0) {
+                //the model did not assign any positive probability for this feature in this class
+                //even if in real data it has a positive probability. This 
+                //should really never happen but we treat this case anyway.
+                //
+                //Mathematical view: a 0 on the denominator and a positive
+                //value on numerator will cause the logarithm to go to +inf.
+                //Logarithm will still produce a +inf and thus the lambda weight
+                //will become positive infinity. This effect is caused only
+                //because we choose to construct the model this way. It is
+                //not logical to happen.
+                //
+                //Implementation/Programming view: Assigning +inf is completely
+                //wrong. Instead we will again mark it as +inf and revise its
+                //value later on by updating it with the highest non-infite
+                //weight.
+                
+                weights[i] = Double.POSITIVE_INFINITY;
+                infiniteValuesDetected = true;
+            }
+            else {
+                //the formula below can't produce a +inf or -inf value
+                double deltaJ = Math.log(EpFj_observed_value/EpFj_model_value)/Cmax;
+                weights[i] += deltaJ; //update lamdas by delta
+            }
+        }
         
-        Map<List<Object>, Double> lambdas = knowledgeBase.getModelParameters().getLambdas();
+        if(infiniteValuesDetected) {
+            double minimumNonInfiniteLambdaWeight = Double.POSITIVE_INFINITY;
+            double maximumNonInfiniteLambdaWeight = Double.NEGATIVE_INFINITY;
+            for(double w : weights) {
+                if(Double.isFinite(w)) {
+                    minimumNonInfiniteLambdaWeight = Math.min(minimumNonInfiniteLambdaWeight, w);
+                    maximumNonInfiniteLambdaWeight = Math.max(maximumNonInfiniteLambdaWeight, w);
+                }
+            }
+            
+            for(int i=0;i<weights.length;i++) {
+                if(weights[i] == Double.NEGATIVE_INFINITY) {
+                    weights[i] = minimumNonInfiniteLambdaWeight;
+                }
+                else if(weights[i] == Double.POSITIVE_INFINITY) {
+                    weights[i] = maximumNonInfiniteLambdaWeight;
+                }
+            }
+        }
+    }
+    
+    private double[] calculateClassScores(AssociativeArray x, WeightMatrix lambdas) {
+        int c = lambdas.getNumberOfClasses();
+        double[] scores = new double[c];
+        double[] weights = lambdas.getWeights();
         
         for(Map.Entry<Object, Object> entry : x.entrySet()) {
             Double value = TypeInference.toDouble(entry.getValue());
@@ -418,16 +528,40 @@ public class MaximumEntropy extends AbstractClassifier<MaximumEntropy.ModelParam
             }
             //note that we will not use the value any more. MaxEntropy classifier is binarized.
             
-            Object feature = entry.getKey();
-            List<Object> featureClassTuple = Arrays.asList(feature, theClass);
+            int featureId = lambdas.getFeatureId(entry.getKey());
+            if(featureId < 0) { //ensure that the feature is in the dictionary
+                continue;
+            }
             
-            Double lambdaWeight = lambdas.get(featureClassTuple);
-            if(lambdaWeight!=null) {//ensure that the feature is in the dictionary
-                score+=lambdaWeight;
+            int offset = lambdas.index(featureId, 0);
+            for(int classId=0;classId<c;classId++) {
+                scores[classId] += weights[offset+classId];
+            }
+        }
+        
+        return scores;
+    }
+    
+    private double normalizeExp(double[] scores) {
+        //Prevents numeric underflow by subtracting the max.
+        double max = Double.NEGATIVE_INFINITY;
+        for(double score : scores) {
+            max = Math.max(max, score);
+        }
+        
+        double sum = 0.0;
+        for(int i=0;i<scores.length;i++) {
+            scores[i] = Math.exp(scores[i]-max);
+            sum += scores[i];
+        }
+        
+        if(sum!=0.0) {
+            for(int i=0;i<scores.length;i++) {
+                scores[i] /= sum;
             }
         }
         
-        return score;
+        return max + Math.log(sum); //the log of the normalizing constant
     }
 
 }
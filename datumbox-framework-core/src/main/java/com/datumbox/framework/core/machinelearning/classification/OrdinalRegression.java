@@ -28,11 +28,14 @@ import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledOrdinalClassifier;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.mathematics.regularization.L2Regularizer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -237,6 +240,34 @@ public class OrdinalRegression extends AbstractClassifier<OrdinalRegression.Mode
 
         return new Prediction(predictedClass, predictionProbabilities);
     }
+
+    /**
+     * Compiles the trained model to a CompiledOrdinalClassifier which predicts
+     * primitive feature vectors without allocations.
+     *
+     * @return
+     */
+    public CompiledOrdinalClassifier compile() {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        Map<Object, Double> weights = modelParameters.getWeights();
+        Map<Object, Double> thitas = modelParameters.getThitas();
+
+        Map<Object, Integer> featureIds = new HashMap<>();
+        double[] compiledWeights = new double[weights.size()];
+        for(Map.Entry<Object, Double> entry : weights.entrySet()) {
+            int featureId = featureIds.size();
+            featureIds.put(entry.getKey(), featureId);
+            compiledWeights[featureId] = entry.getValue();
+        }
+
+        List<Object> classes = new ArrayList<>(modelParameters.getClasses()); //the classes are stored in ascending order
+        double[] compiledThitas = new double[classes.size()];
+        for(int classId=0;classId<compiledThitas.length;classId++) {
+            compiledThitas[classId] = thitas.get(classes.get(classId));
+        }
+
+        return new CompiledOrdinalClassifier(featureIds, classes, compiledWeights, compiledThitas);
+    }
     
     /** {@inheritDoc} */
     @Override
@@ -17,28 +17,30 @@ package com.datumbox.framework.core.machinelearning.classification;
 
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.PerThreadAccumulator;
 import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
-import com.datumbox.framework.common.dataobjects.TypeInference;
-import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.WeightMatrix;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
+import com.datumbox.framework.core.mathematics.optimization.LearningRateSchedule;
+import com.datumbox.framework.core.mathematics.optimization.MiniBatchSampler;
 import com.datumbox.framework.core.mathematics.regularization.ElasticNetRegularizer;
 import com.datumbox.framework.core.mathematics.regularization.L1Regularizer;
 import com.datumbox.framework.core.mathematics.regularization.L2Regularizer;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Stream;
 
 
 /**
@@ -59,8 +61,7 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
     public static class ModelParameters extends AbstractClassifier.AbstractModelParameters {
         private static final long serialVersionUID = 1L;
 
-        @BigMap(keyClass=List.class, valueClass=Double.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_MEMORY, concurrent=true)
-        private Map<List<Object>, Double> thitas; //the thita parameters of the model
+        private WeightMatrix thitas; //the thita parameters of the model
         
         /** 
          * @param storageEngine
@@ -75,7 +76,7 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
          * 
          * @return 
          */
-        public Map<List<Object>, Double> getThitas() {
+        public WeightMatrix getThitas() {
             return thitas;
         }
         
@@ -84,7 +85,7 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
          * 
          * @param thitas 
          */
-        protected void setThitas(Map<List<Object>, Double> thitas) {
+        protected void setThitas(WeightMatrix thitas) {
             this.thitas = thitas;
         }
     } 
@@ -97,6 +98,10 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
         private double learningRate=0.1;
         private double l1=0.0;
         private double l2=0.0;
+        private int batchSize=0;
+        private boolean shuffle=true;
+        private LearningRateSchedule learningRateSchedule=LearningRateSchedule.BOLD_DRIVER;
+        private double learningRateDecay=0.01;
         
         /**
          * Getter for the total iterations of the training process.
@@ -171,6 +176,83 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
             this.l2 = l2;
         }
 
+        /**
+         * Getter for the number of Records used on every update.
+         *
+         * @return
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * Setter for the number of Records used on every update. If it is 0 or
+         * larger than the size of the training data, the full batch gradient
+         * descent is used. Otherwise every iteration is a pass over the data
+         * in mini-batches, which updates the weights after every mini-batch.
+         *
+         * @param batchSize
+         */
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Getter for whether the Records are shuffled before every pass of the
+         * mini-batch training.
+         *
+         * @return
+         */
+        public boolean isShuffle() {
+            return shuffle;
+        }
+
+        /**
+         * Setter for whether the Records are shuffled before every pass of the
+         * mini-batch training.
+         *
+         * @param shuffle
+         */
+        public void setShuffle(boolean shuffle) {
+            this.shuffle = shuffle;
+        }
+
+        /**
+         * Getter for the schedule of the learning rate.
+         *
+         * @return
+         */
+        public LearningRateSchedule getLearningRateSchedule() {
+            return learningRateSchedule;
+        }
+
+        /**
+         * Setter for the schedule of the learning rate.
+         *
+         * @param learningRateSchedule
+         */
+        public void setLearningRateSchedule(LearningRateSchedule learningRateSchedule) {
+            this.learningRateSchedule = learningRateSchedule;
+        }
+
+        /**
+         * Getter for the decay of the INVERSE_SCALING learning rate schedule.
+         *
+         * @return
+         */
+        public double getLearningRateDecay() {
+            return learningRateDecay;
+        }
+
+        /**
+         * Setter for the decay of the INVERSE_SCALING learning rate schedule.
+         *
+         * @param learningRateDecay
+         */
+        public void setLearningRateDecay(double learningRateDecay) {
+            this.learningRateDecay = learningRateDecay;
+        }
+
     }
 
 
@@ -223,14 +305,13 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
     /** {@inheritDoc} */
     @Override
     public Prediction _predictRecord(Record r) {
-        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        WeightMatrix thitas = knowledgeBase.getModelParameters().getThitas();
         
-        Set<Object> classesSet = modelParameters.getClasses();
-        Map<List<Object>, Double> thitas = modelParameters.getThitas();
+        double[] scores = calculateClassScores(r.getX(), thitas);
         
         AssociativeArray predictionScores = new AssociativeArray();
-        for(Object theClass : classesSet) {
-            predictionScores.put(theClass, calculateClassScore(r.getX(), theClass, thitas));
+        for(int classId=0;classId<scores.length;classId++) {
+            predictionScores.put(thitas.getClassById(classId), scores[classId]);
         }
 
         Object predictedClass=getSelectedClassFromClassScores(predictionScores);
@@ -239,6 +320,17 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
         
         return new Prediction(predictedClass, predictionScores);
     }
+
+    /**
+     * Compiles the trained model to a CompiledLinearClassifier which predicts
+     * primitive feature vectors without allocations.
+     *
+     * @return
+     */
+    public CompiledLinearClassifier compile() {
+        WeightMatrix thitas = knowledgeBase.getModelParameters().getThitas();
+        return CompiledLinearClassifier.compile(thitas, Dataframe.COLUMN_NAME_CONSTANT, CompiledLinearClassifier.FeatureValues.RAW);
+    }
     
     /** {@inheritDoc} */
     @Override
@@ -246,8 +338,6 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         
-        
-        Map<List<Object>, Double> thitas = modelParameters.getThitas();
         Set<Object> classesSet = modelParameters.getClasses();
         
         //first we need to find all the classes
@@ -258,32 +348,54 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
         }
         
         //we initialize the thitas to zero for all features and all classes compinations
-        for(Object theClass : classesSet) {
-            thitas.put(Arrays.asList(Dataframe.COLUMN_NAME_CONSTANT, theClass), 0.0);
-        }
+        List<Object> features = new ArrayList<>(trainingData.getXDataTypes().size()+1);
+        features.add(Dataframe.COLUMN_NAME_CONSTANT);
+        features.addAll(trainingData.getXDataTypes().keySet());
         
-        streamExecutor.forEach(StreamMethods.stream(trainingData.getXDataTypes().keySet().stream(), isParallelized()), feature -> {
-            for(Object theClass : classesSet) {
-                thitas.putIfAbsent(Arrays.asList(feature, theClass), 0.0);
-            }
-        });
+        WeightMatrix thitas = new WeightMatrix(features, classesSet);
+        modelParameters.setThitas(thitas);
         
         
+        int batchSize = trainingParameters.getBatchSize();
+        if(batchSize > 0 && batchSize < trainingData.size()) {
+            miniBatchTraining(trainingData, batchSize);
+        }
+        else {
+            batchTraining(trainingData);
+        }
+    }
+    
+    private void batchTraining(Dataframe trainingData) {
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        WeightMatrix thitas = knowledgeBase.getModelParameters().getThitas();
+        LearningRateSchedule schedule = trainingParameters.getLearningRateSchedule();
+        
         double minError = Double.POSITIVE_INFINITY;
         
         double learningRate = trainingParameters.getLearningRate();
         int totalIterations = trainingParameters.getTotalIterations();
-        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
+        
+        //the bold driver may reject an update, so only then the update is applied on a separate matrix which is reused across iterations
+        WeightMatrix newThitas = (schedule == LearningRateSchedule.BOLD_DRIVER)?thitas.copy():thitas;
+        PerThreadAccumulator<GradientBuffer> gradients = new PerThreadAccumulator<>(() -> new GradientBuffer(thitas.getNumberOfFeatures(), thitas.getNumberOfClasses()));
         for(int iteration=0;iteration<totalIterations;++iteration) {
             
             logger.debug("Iteration {}", iteration);
             
-            Map<List<Object>, Double> tmp_newThitas = storageEngine.getBigMap("tmp_newThitas", (Class<List<Object>>)(Class<?>)List.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+            if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                learningRate = schedule.getLearningRate(trainingParameters.getLearningRate(), trainingParameters.getLearningRateDecay(), iteration);
+            }
+            else {
+                newThitas.assign(thitas);
+            }
+            
+            batchGradientDescent(StreamMethods.stream(trainingData.stream(), isParallelized()), trainingData.size(), newThitas, gradients, learningRate, 1.0, null);
             
-            tmp_newThitas.putAll(thitas);
-            batchGradientDescent(trainingData, tmp_newThitas, learningRate);
+            if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                continue;
+            }
             
-            double newError = calculateError(trainingData,tmp_newThitas);
+            double newError = calculateError(trainingData, newThitas);
             
             //bold driver
             if(newError>minError) {
@@ -294,131 +406,262 @@ public class SoftMaxRegression extends AbstractClassifier<SoftMaxRegression.Mode
                 minError=newError;
                 
                 //keep the new thitas
-                thitas.clear();
-                thitas.putAll(tmp_newThitas);
+                thitas.assign(newThitas);
+            }
+        }
+    }
+    
+    private void miniBatchTraining(Dataframe trainingData, int batchSize) {
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        WeightMatrix thitas = knowledgeBase.getModelParameters().getThitas();
+        LearningRateSchedule schedule = trainingParameters.getLearningRateSchedule();
+        
+        MiniBatchSampler sampler = new MiniBatchSampler(trainingData, batchSize, trainingParameters.isShuffle());
+        int n = trainingData.size();
+        
+        double minError = Double.POSITIVE_INFINITY;
+        
+        double learningRate = trainingParameters.getLearningRate();
+        int totalIterations = trainingParameters.getTotalIterations();
+        PerThreadAccumulator<GradientBuffer> gradients = new PerThreadAccumulator<>(() -> new GradientBuffer(thitas.getNumberOfFeatures(), thitas.getNumberOfClasses()));
+        int update = 0;
+        for(int iteration=0;iteration<totalIterations;++iteration) {
+            
+            logger.debug("Iteration {}", iteration);
+            
+            //the error of the pass is estimated on every mini-batch before its update
+            DoubleAdder logLikelihood = new DoubleAdder();
+            for(List<Record> batch : sampler.epoch()) {
+                if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                    learningRate = schedule.getLearningRate(trainingParameters.getLearningRate(), trainingParameters.getLearningRateDecay(), update);
+                }
+                
+                batchGradientDescent(StreamMethods.stream(batch.stream(), isParallelized()), batch.size(), thitas, gradients, learningRate, (double)batch.size()/n, logLikelihood);
+                update++;
             }
             
-            //Drop the temporary Collection
-            storageEngine.dropBigMap("tmp_newThitas", tmp_newThitas);
+            if(schedule == LearningRateSchedule.BOLD_DRIVER) {
+                double newError = -logLikelihood.sum()/n + calculatePenalty(thitas);
+                
+                //bold driver
+                if(newError>minError) {
+                    learningRate/=2.0;
+                }
+                else {
+                    learningRate*=1.05;
+                    minError=newError;
+                }
+            }
         }
     }
 
-    private void batchGradientDescent(Dataframe trainingData, Map<List<Object>, Double> newThitas, double learningRate) {
+    /**
+     * Performs one step of gradient descent on the provided records. The
+     * regularization is weighted by the proportion of the training data that
+     * the records represent. If the logLikelihood is not null, the log likelihood
+     * of the records under the previous thitas is added to it. The newThitas
+     * must be equal to the thitas before the call and they can be the same object.
+     * 
+     * @param records
+     * @param n
+     * @param newThitas
+     * @param gradients
+     * @param learningRate
+     * @param regularizationWeight
+     * @param logLikelihood 
+     */
+    private void batchGradientDescent(Stream<Record> records, int n, WeightMatrix newThitas, PerThreadAccumulator<GradientBuffer> gradients, double learningRate, double regularizationWeight, DoubleAdder logLikelihood) {
         //NOTE! This is not the stochastic gradient descent. It is the batch gradient descent optimized for speed (despite it looks more than the stochastic). 
         //Despite the fact that the loops are inverse, the function still changes the values of Thitas at the end of the function. We use the previous thitas 
         //to estimate the costs and only at the end we update the new thitas.
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
 
-        double multiplier = learningRate/trainingData.size();
-        Map<List<Object>, Double> thitas = modelParameters.getThitas();
-        Set<Object> classesSet = modelParameters.getClasses();
+        double multiplier = learningRate/n;
+        WeightMatrix thitas = modelParameters.getThitas();
+        int c = thitas.getNumberOfClasses();
+        int constantId = thitas.getFeatureId(Dataframe.COLUMN_NAME_CONSTANT);
         
-        streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> { //slow parallel loop
+        //every thread accumulates its updates on a private buffer which is applied at the end of the pass
+        streamExecutor.forEach(records, r -> { //slow parallel loop
             //mind the fact that we use the previous thitas to estimate the new ones! this is because the thitas must be updated simultaniously
-            AssociativeArray classProbabilities = hypothesisFunction(r.getX(), thitas);
-            for(Object theClass : classesSet) {
-                
+            double[] classProbabilities = hypothesisFunction(r.getX(), thitas);
+            int yClassId = thitas.getClassId(r.getY());
+            
+            if(logLikelihood != null) {
+                logLikelihood.add(Math.log(classProbabilities[yClassId]));
+            }
+            
+            GradientBuffer gradient = gradients.get();
+            double[] errorMultipliers = gradient.errorMultipliers;
+            for(int classId=0;classId<c;classId++) {
                 double error;
-                double score = classProbabilities.getDouble(theClass);
-                if(r.getY().equals(theClass)) {
+                double score = classProbabilities[classId];
+                if(classId == yClassId) {
                     error = 1 - score;
                 }
                 else {
                     error = - score;
                 }
-                
-                double errorMultiplier = multiplier*error;
-                
-                synchronized(newThitas) {
-                    //update the weights
-                    for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
-                        Double value = TypeInference.toDouble(entry.getValue());
-
-                        Object feature = entry.getKey();
-                        List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-                        
-                        newThitas.put(featureClassTuple, newThitas.get(featureClassTuple)+errorMultiplier*value);   
-                    }
-                    List<Object> featureClassTuple = Arrays.asList(Dataframe.COLUMN_NAME_CONSTANT, theClass);
-                    newThitas.put(featureClassTuple, newThitas.get(featureClassTuple)+errorMultiplier); //update the weight of constant
-                }
+                errorMultipliers[classId] = multiplier*error;
             }
+            
+            //update the weights
+            r.getX().forEachDouble((feature, value) -> {
+                int featureId = thitas.getFeatureId(feature);
+                if(featureId < 0) {
+                    return;
+                }
+                gradient.add(featureId, value);
+            });
+            gradient.add(constantId, 1.0); //update the weight of constant
         });
 
-        double l1 = knowledgeBase.getTrainingParameters().getL1();
-        double l2 = knowledgeBase.getTrainingParameters().getL2();
-
-        if(l1>0.0 && l2>0.0) {
-            ElasticNetRegularizer.updateWeights(l1, l2, learningRate, thitas, newThitas);
+        double l1 = regularizationWeight*knowledgeBase.getTrainingParameters().getL1();
+        double l2 = regularizationWeight*knowledgeBase.getTrainingParameters().getL2();
+        
+        //the L2 update depends on the previous thitas, so it is applied before the gradients which may overwrite them
+        L2Regularizer.updateWeights(l2, learningRate, thitas.getWeights(), newThitas.getWeights());
+        
+        for(GradientBuffer gradient : gradients.buffers()) {
+            gradient.applyAndReset(newThitas.getWeights());
         }
-        else if(l1>0.0) {
-            L1Regularizer.updateWeights(l1, learningRate, thitas, newThitas);
+        
+        //the L1 update clips the weights after the gradient step
+        L1Regularizer.updateWeights(l1, learningRate, thitas.getWeights(), newThitas.getWeights());
+    }
+    
+    /**
+     * The gradient buffer of a single thread. Only the rows of the features 
+     * which appear on the records are touched, so applying and resetting the 
+     * buffer costs as much as the non-zero features of the batch and the same 
+     * buffer is reused by all the batches.
+     */
+    private static class GradientBuffer {
+        private final int c;
+        private final double[] gradient;
+        private final double[] errorMultipliers;
+        private final boolean[] touched;
+        private final int[] touchedFeatureIds;
+        private int touchedCount = 0;
+        
+        /**
+         * @param numberOfFeatures
+         * @param c 
+         */
+        private GradientBuffer(int numberOfFeatures, int c) {
+            this.c = c;
+            gradient = new double[numberOfFeatures*c];
+            errorMultipliers = new double[c];
+            touched = new boolean[numberOfFeatures];
+            touchedFeatureIds = new int[numberOfFeatures];
         }
-        else if(l2>0.0) {
-            L2Regularizer.updateWeights(l2, learningRate, thitas, newThitas);
+        
+        /**
+         * Adds the errorMultipliers multiplied by the value on the row of the feature.
+         * 
+         * @param featureId
+         * @param value 
+         */
+        private void add(int featureId, double value) {
+            if(!touched[featureId]) {
+                touched[featureId] = true;
+                touchedFeatureIds[touchedCount++] = featureId;
+            }
+            int offset = featureId*c;
+            for(int classId=0;classId<c;classId++) {
+                gradient[offset+classId] += errorMultipliers[classId]*value;
+            }
         }
         
+        /**
+         * Adds the touched rows on the weights and clears them.
+         * 
+         * @param weights 
+         */
+        private void applyAndReset(double[] weights) {
+            for(int i=0;i<touchedCount;i++) {
+                int featureId = touchedFeatureIds[i];
+                int offset = featureId*c;
+                for(int classId=0;classId<c;classId++) {
+                    weights[offset+classId] += gradient[offset+classId];
+                    gradient[offset+classId] = 0.0;
+                }
+                touched[featureId] = false;
+            }
+            touchedCount = 0;
+        }
     }
     
-    private Double calculateClassScore(AssociativeArray x, Object theClass, Map<List<Object>, Double> thitas) {
-        double score = thitas.get(Arrays.asList(Dataframe.COLUMN_NAME_CONSTANT, theClass));
+    private double[] calculateClassScores(AssociativeArray x, WeightMatrix thitas) {
+        int c = thitas.getNumberOfClasses();
+        double[] scores = new double[c];
+        double[] weights = thitas.getWeights();
         
-        for(Map.Entry<Object, Object> entry : x.entrySet()) {
-            Double value = TypeInference.toDouble(entry.getValue());
-            
-            Object feature = entry.getKey();
-            List<Object> featureClassTuple = Arrays.asList(feature, theClass);
+        int offset = thitas.index(thitas.getFeatureId(Dataframe.COLUMN_NAME_CONSTANT), 0);
+        System.arraycopy(weights, offset, scores, 0, c);
+        
+        x.forEachDouble((feature, value) -> {
+            int featureId = thitas.getFeatureId(feature);
+            if(featureId < 0) { //ensure that the feature is in the dictionary
+                return;
+            }
             
-            Double thitaWeight = thitas.get(featureClassTuple);
-            if(thitaWeight!=null) {//ensure that the feature is in the dictionary
-                score+=thitaWeight*value;
+            int featureOffset = thitas.index(featureId, 0);
+            for(int classId=0;classId<c;classId++) {
+                scores[classId] += weights[featureOffset+classId]*value;
             }
-        }
+        });
         
-        return score;
+        return scores;
     }
     
-    private double calculateError(Dataframe trainingData, Map<List<Object>, Double> thitas) {
+    private double calculateError(Dataframe trainingData, WeightMatrix thitas) {
         //The cost function as described on http://ufldl.stanford.edu/wiki/index.php/Softmax_Regression
         //It is optimized for speed to reduce the amount of loops
         
         double error = streamExecutor.sum(StreamMethods.stream(trainingData.stream(), isParallelized()).mapToDouble(r -> { 
-            AssociativeArray classProbabilities = hypothesisFunction(r.getX(), thitas);
-            Double score = classProbabilities.getDouble(r.getY());
+            double[] classProbabilities = hypothesisFunction(r.getX(), thitas);
+            double score = classProbabilities[thitas.getClassId(r.getY())];
             return Math.log(score); //no need to loop through the categories. Just grab the one that we are interested in
         }));
 
         error = -error/trainingData.size();
 
+        error += calculatePenalty(thitas);
+
+        return error;
+    }
+    
+    private double calculatePenalty(WeightMatrix thitas) {
         double l1 = knowledgeBase.getTrainingParameters().getL1();
         double l2 = knowledgeBase.getTrainingParameters().getL2();
 
         if(l1>0.0 && l2>0.0) {
-            error += ElasticNetRegularizer.estimatePenalty(l1, l2, thitas);
+            return ElasticNetRegularizer.estimatePenalty(l1, l2, thitas.getWeights());
         }
         else if(l1>0.0) {
-            error += L1Regularizer.estimatePenalty(l1, thitas);
+            return L1Regularizer.estimatePenalty(l1, thitas.getWeights());
         }
         else if(l2>0.0) {
-            error += L2Regularizer.estimatePenalty(l2, thitas);
+            return L2Regularizer.estimatePenalty(l2, thitas.getWeights());
         }
-
-        return error;
+        return 0.0;
     }
     
-    private AssociativeArray hypothesisFunction(AssociativeArray x, Map<List<Object>, Double> thitas) {
-        Set<Object> classesSet = knowledgeBase.getModelParameters().getClasses();
-        AssociativeArray predictionProbabilities = new AssociativeArray(); 
-        
-        for(Object theClass : classesSet) {
-            double score=calculateClassScore(x, theClass, thitas);
-            if(score<=0) {
-                score=1e-8;
+    private double[] hypothesisFunction(AssociativeArray x, WeightMatrix thitas) {
+        double[] predictionProbabilities = calculateClassScores(x, thitas);
+        
+        double sum = 0.0;
+        for(int classId=0;classId<predictionProbabilities.length;classId++) {
+            if(predictionProbabilities[classId]<=0) {
+                predictionProbabilities[classId]=1e-8;
             }
-            predictionProbabilities.put(theClass, score);
+            sum += predictionProbabilities[classId];
         }
         
-        Descriptives.normalize(predictionProbabilities);
+        for(int classId=0;classId<predictionProbabilities.length;classId++) {
+            predictionProbabilities[classId] /= sum;
+        }
         
         return predictionProbabilities;
     }
@@ -44,10 +44,14 @@ import java.util.Map;
 public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPMM.ModelParameters, GaussianDPMM.TrainingParameters> {
 
     /**
-     * The AbstractCluster class of the GaussianDPMM model.
+     * The AbstractCluster class of the GaussianDPMM model. The cluster keeps the
+     * Cholesky factor of the posterior scale matrix, which is updated in O(d^2) 
+     * with rank-one updates and downdates when records are added or removed. 
+     * Thus the posterior PDF is estimated by forward substitution without any 
+     * matrix decomposition or inversion.
      */
     public static class Cluster extends AbstractDPMM.AbstractCluster {
-        private static final long serialVersionUID = 2L;
+        private static final long serialVersionUID = 3L;
 
         //informational fields
         private final int dimensions;
@@ -55,24 +59,18 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
         //hyper parameters
         private final int kappa0;
         private final int nu0;
-        private final RealVector mu0;
-        private final RealMatrix psi0;
+        private final double[] mu0;
+        private final double[][] psi0;
 
         //cluster parameters
-        private RealVector mean;
-        private RealMatrix covariance;
-
-        //validation - confidence interval vars
-        private RealMatrix meanError;
-        private int meanDf;
+        private double[] mean;
+        private double[][] choleskyFactor; //lower triangular factor L of the scale matrix Psi = L*L^T
+        private double covarianceScale; //the covariance is equal to covarianceScale*Psi
+        private double logDeterminant; //the log determinant of the covariance
 
         //internal vars for calculation
-        private RealVector xi_sum;
-        private RealMatrix xi_square_sum;
-
-        //Cache
-        private volatile Double cache_covariance_determinant;
-        private volatile Array2DRowRealMatrix cache_covariance_inverse;
+        private double[] xi_sum;
+        private double[][] xi_square_sum; //only the lower triangle is used
 
         /**
          * @param clusterId
@@ -90,26 +88,41 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
                 nu0 = dimensions;
             }
 
-            mean = new OpenMapRealVector(dimensions);
-            covariance = new OpenMapRealMatrix(dimensions, dimensions);
-            for(int i=0;i<dimensions;i++) {
-                covariance.setEntry(i, i, 1.0);
-            }
-
-            meanError = calculateMeanError(psi0, kappa0, nu0);
-            meanDf = nu0-dimensions+1;
-
-
             this.kappa0 = kappa0;
             this.nu0 = nu0;
-            this.mu0 = new OpenMapRealVector(mu0);
-            this.psi0 = new OpenMapRealMatrix(dimensions, dimensions).add(psi0);
+            this.mu0 = mu0.toArray();
+            this.psi0 = psi0.getData();
             this.dimensions = dimensions;
 
-            xi_sum = new OpenMapRealVector(dimensions);
-            xi_square_sum = new OpenMapRealMatrix(dimensions,dimensions);
-            cache_covariance_determinant = null;
-            cache_covariance_inverse = null;
+            xi_sum = new double[dimensions];
+            xi_square_sum = new double[dimensions][dimensions];
+            
+            resetClusterParameters();
+        }
+        
+        /**
+         * Copy constructor.
+         * 
+         * @param cluster 
+         */
+        private Cluster(Cluster cluster) {
+            super(cluster.clusterId);
+            size = cluster.size;
+            featureIds = cluster.featureIds;
+            
+            dimensions = cluster.dimensions;
+            kappa0 = cluster.kappa0;
+            nu0 = cluster.nu0;
+            mu0 = cluster.mu0;
+            psi0 = cluster.psi0;
+            
+            mean = cluster.mean.clone();
+            choleskyFactor = copyMatrix(cluster.choleskyFactor);
+            covarianceScale = cluster.covarianceScale;
+            logDeterminant = cluster.logDeterminant;
+            
+            xi_sum = (cluster.xi_sum!=null)?cluster.xi_sum.clone():null;
+            xi_square_sum = (cluster.xi_square_sum!=null)?copyMatrix(cluster.xi_square_sum):null;
         }
 
         /**
@@ -139,7 +152,13 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
          * @return
          */
         protected RealMatrix getMeanError() {
-            return meanError;
+            //Reference: page 18, equation 228 at http://www.cs.ubc.ca/~murphyk/Papers/bayesGauss.pdf
+            if(size==0) {
+                return MatrixUtils.createRealMatrix(psi0).scalarMultiply(1.0/(kappa0*(nu0-dimensions+1.0)));
+            }
+            RealMatrix L = MatrixUtils.createRealMatrix(choleskyFactor);
+            RealMatrix psi = L.multiply(L.transpose());
+            return psi.scalarMultiply(1.0/((kappa0+size)*(nu0+size-dimensions+1.0)));
         }
 
         /**
@@ -148,30 +167,29 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
          * @return
          */
         protected int getMeanDf() {
-            return meanDf;
+            return nu0+size-dimensions+1;
         }
 
         /** {@inheritDoc} */
         @Override
         protected double posteriorLogPdf(Record r) {
-            RealVector x_mu = DataframeMatrix.parseRecord(r, featureIds);
-
-            x_mu = x_mu.subtract(mean);
-
-            if(cache_covariance_determinant==null || cache_covariance_inverse==null) {
-                synchronized(this) {
-                    if(cache_covariance_determinant==null || cache_covariance_inverse==null) {
-                        LUDecomposition lud = new LUDecomposition(covariance);
-                        cache_covariance_determinant = lud.getDeterminant();
-                        cache_covariance_inverse = (Array2DRowRealMatrix) lud.getSolver().getInverse();
-                    }
+            double[] x = DataframeMatrix.parseRecord(r, featureIds).toArray();
+
+            //solve L*y = x-mean by forward substitution; y overwrites x
+            double x_muInvSx_muT = 0.0;
+            for(int i=0;i<dimensions;++i) {
+                double[] row = choleskyFactor[i];
+                double value = x[i]-mean[i];
+                for(int j=0;j<i;++j) {
+                    value -= row[j]*x[j];
                 }
+                value /= row[i];
+                x[i] = value;
+                x_muInvSx_muT += value*value;
             }
-
-            double x_muInvSx_muT = (cache_covariance_inverse.preMultiply(x_mu)).dotProduct(x_mu);
-            double normConst = 1.0/( Math.pow(2*Math.PI, dimensions/2.0) * Math.pow(cache_covariance_determinant, 0.5) );
-            //double pdf = Math.exp(-0.5 * x_muInvSx_muT)*normConst;
-            double logPdf = -0.5 * x_muInvSx_muT + Math.log(normConst);
+            x_muInvSx_muT /= covarianceScale;
+            
+            double logPdf = -0.5 * x_muInvSx_muT - 0.5*(dimensions*Math.log(2*Math.PI) + logDeterminant);
             return logPdf;
         }
 
@@ -180,15 +198,24 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
         protected void add(Record r) {
             assertModifiable();
 
-            RealVector rv = DataframeMatrix.parseRecord(r, featureIds);
-
-            //update cluster clusterParameters
-            xi_sum = xi_sum.add(rv);
-            xi_square_sum = xi_square_sum.add(rv.outerProduct(rv));
-
+            double[] x = DataframeMatrix.parseRecord(r, featureIds).toArray();
+            updateSums(x, 1.0);
             size++;
-
-            updateClusterParameters();
+            
+            if(size==1) {
+                updateClusterParameters();
+                return;
+            }
+            
+            //Psi_n = Psi_{n-1} + kappa_{n-1}/kappa_n * (x-mean_{n-1})*(x-mean_{n-1})^T
+            int kappa_n = kappa0 + size;
+            double coefficient = Math.sqrt((kappa_n-1.0)/kappa_n);
+            for(int i=0;i<dimensions;++i) {
+                x[i] = coefficient*(x[i]-mean[i]);
+            }
+            choleskyUpdate(x);
+            
+            updatePosterior();
         }
 
         /** {@inheritDoc} */
@@ -199,20 +226,38 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
                 throw new IllegalArgumentException("The cluster is empty.");
             }
 
+            double[] x = DataframeMatrix.parseRecord(r, featureIds).toArray();
+            updateSums(x, -1.0);
             size--;
-
-            RealVector rv = DataframeMatrix.parseRecord(r, featureIds);
-
-            //update cluster clusterParameters
-            xi_sum=xi_sum.subtract(rv);
-            xi_square_sum=xi_square_sum.subtract(rv.outerProduct(rv));
-
-            updateClusterParameters();
+            
+            if(size==0) {
+                resetClusterParameters();
+                return;
+            }
+            
+            //Psi_n = Psi_{n+1} - kappa_{n+1}/kappa_n * (x-mean_{n+1})*(x-mean_{n+1})^T
+            int kappa_n = kappa0 + size;
+            double coefficient = Math.sqrt((kappa_n+1.0)/kappa_n);
+            for(int i=0;i<dimensions;++i) {
+                x[i] = coefficient*(x[i]-mean[i]);
+            }
+            if(choleskyDowndate(x)) {
+                updatePosterior();
+            }
+            else {
+                //the downdate lost the positive definiteness due to rounding errors, so we decompose the matrix again
+                updateClusterParameters();
+            }
         }
-
-        private RealMatrix calculateMeanError(RealMatrix Psi, int kappa, int nu) {
-            //Reference: page 18, equation 228 at http://www.cs.ubc.ca/~murphyk/Papers/bayesGauss.pdf
-            return Psi.scalarMultiply(1.0/(kappa*(nu-dimensions+1.0)));
+        
+        /**
+         * Returns a deep copy of the cluster.
+         * 
+         * @return 
+         */
+        @Override
+        protected Cluster copy() {
+            return new Cluster(this);
         }
 
         /** {@inheritDoc} */
@@ -220,36 +265,175 @@ public class GaussianDPMM extends AbstractDPMM<GaussianDPMM.Cluster, GaussianDPM
         protected void clear() {
             xi_sum = null;
             xi_square_sum = null;
-            cache_covariance_determinant = null;
-            cache_covariance_inverse = null;
         }
 
         /** {@inheritDoc} */
         @Override
         protected void updateClusterParameters() {
             assertModifiable();
-            //fetch hyperparameters
-
+            if(size==0) {
+                resetClusterParameters();
+                return;
+            }
+            
+            int kappa_n = kappa0 + size;
+            
+            double[] mu_mu0 = new double[dimensions];
+            for(int i=0;i<dimensions;++i) {
+                mu_mu0[i] = xi_sum[i]/size - mu0[i];
+            }
+            
+            //Psi = Psi0 + sum(xi*xi^T) - n*mu*mu^T + kappa0*n/kappa_n * (mu-mu0)*(mu-mu0)^T
+            double[][] psi = new double[dimensions][dimensions];
+            for(int i=0;i<dimensions;++i) {
+                for(int j=0;j<=i;++j) {
+                    psi[i][j] = psi0[i][j] + xi_square_sum[i][j] - xi_sum[i]*xi_sum[j]/size + kappa0*size/(double)kappa_n*mu_mu0[i]*mu_mu0[j];
+                }
+            }
+            choleskyFactor = choleskyDecomposition(psi);
+            
+            updatePosterior();
+        }
+        
+        /**
+         * Sets the parameters of an empty cluster.
+         */
+        private void resetClusterParameters() {
+            mean = new double[dimensions];
+            choleskyFactor = new double[dimensions][dimensions];
+            for(int i=0;i<dimensions;i++) {
+                choleskyFactor[i][i] = 1.0;
+            }
+            covarianceScale = 1.0;
+            logDeterminant = 0.0;
+        }
+        
+        /**
+         * Updates the mean, the scale and the determinant of the covariance by 
+         * using the current Cholesky factor.
+         */
+        private void updatePosterior() {
             int kappa_n = kappa0 + size;
             int nu = nu0 + size;
-
-            RealVector mu = xi_sum.mapDivide(size);
-            RealVector mu_mu0 = mu.subtract(mu0);
-
-            RealMatrix C = xi_square_sum.subtract( ( mu.outerProduct(mu) ).scalarMultiply(size) );
-
-            RealMatrix psi = psi0.add( C.add( ( mu_mu0.outerProduct(mu_mu0) ).scalarMultiply(kappa0*size/(double)kappa_n) ));//
-
-            mean = ( mu0.mapMultiply(kappa0) ).add( mu.mapMultiply(size) ).mapDivide(kappa_n);
-
-            synchronized(this) {
-                covariance = psi.scalarMultiply(  (kappa_n+1.0)/(kappa_n*(nu - dimensions + 1.0))  );
-                cache_covariance_determinant = null;
-                cache_covariance_inverse = null;
+            
+            for(int i=0;i<dimensions;++i) {
+                mean[i] = (kappa0*mu0[i] + xi_sum[i])/kappa_n;
             }
-
-            meanError = calculateMeanError(psi, kappa_n, nu);
-            meanDf = nu-dimensions+1;
+            
+            covarianceScale = (kappa_n+1.0)/(kappa_n*(nu - dimensions + 1.0));
+            
+            double logDeterminantPsi = 0.0;
+            for(int i=0;i<dimensions;++i) {
+                logDeterminantPsi += Math.log(choleskyFactor[i][i]);
+            }
+            logDeterminant = dimensions*Math.log(covarianceScale) + 2.0*logDeterminantPsi;
+        }
+        
+        /**
+         * Adds the sign*x*x^T to the sufficient statistics.
+         * 
+         * @param x
+         * @param sign 
+         */
+        private void updateSums(double[] x, double sign) {
+            for(int i=0;i<dimensions;++i) {
+                double xi = sign*x[i];
+                if(xi==0.0) {
+                    continue;
+                }
+                xi_sum[i] += xi;
+                double[] row = xi_square_sum[i];
+                for(int j=0;j<=i;++j) {
+                    row[j] += xi*x[j];
+                }
+            }
+        }
+        
+        /**
+         * Updates the Cholesky factor L so that L*L^T becomes L*L^T + v*v^T. 
+         * The v is overwritten.
+         * 
+         * @param v 
+         */
+        private void choleskyUpdate(double[] v) {
+            for(int k=0;k<dimensions;++k) {
+                double Lkk = choleskyFactor[k][k];
+                double r = Math.sqrt(Lkk*Lkk + v[k]*v[k]);
+                double c = r/Lkk;
+                double s = v[k]/Lkk;
+                choleskyFactor[k][k] = r;
+                for(int i=k+1;i<dimensions;++i) {
+                    choleskyFactor[i][k] = (choleskyFactor[i][k] + s*v[i])/c;
+                    v[i] = c*v[i] - s*choleskyFactor[i][k];
+                }
+            }
+        }
+        
+        /**
+         * Updates the Cholesky factor L so that L*L^T becomes L*L^T - v*v^T. 
+         * The v is overwritten. It returns false if the result is not positive
+         * definite, in which case the factor is left in an invalid state.
+         * 
+         * @param v 
+         * @return 
+         */
+        private boolean choleskyDowndate(double[] v) {
+            for(int k=0;k<dimensions;++k) {
+                double Lkk = choleskyFactor[k][k];
+                double r2 = Lkk*Lkk - v[k]*v[k];
+                if(r2<=0.0) {
+                    return false;
+                }
+                double r = Math.sqrt(r2);
+                double c = r/Lkk;
+                double s = v[k]/Lkk;
+                choleskyFactor[k][k] = r;
+                for(int i=k+1;i<dimensions;++i) {
+                    choleskyFactor[i][k] = (choleskyFactor[i][k] - s*v[i])/c;
+                    v[i] = c*v[i] - s*choleskyFactor[i][k];
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Estimates the lower triangular Cholesky factor of a symmetric positive
+         * definite matrix. Only the lower triangle of the matrix is used.
+         * 
+         * @param matrix
+         * @return 
+         */
+        private double[][] choleskyDecomposition(double[][] matrix) {
+            double[][] L = new double[dimensions][dimensions];
+            for(int j=0;j<dimensions;++j) {
+                double[] Lj = L[j];
+                double diagonal = matrix[j][j];
+                for(int k=0;k<j;++k) {
+                    diagonal -= Lj[k]*Lj[k];
+                }
+                if(diagonal<=0.0) {
+                    throw new IllegalArgumentException("The Psi matrix is not positive definite.");
+                }
+                Lj[j] = Math.sqrt(diagonal);
+                
+                for(int i=j+1;i<dimensions;++i) {
+                    double[] Li = L[i];
+                    double value = matrix[i][j];
+                    for(int k=0;k<j;++k) {
+                        value -= Li[k]*Lj[k];
+                    }
+                    Li[j] = value/Lj[j];
+                }
+            }
+            return L;
+        }
+        
+        private static double[][] copyMatrix(double[][] matrix) {
+            double[][] copy = new double[matrix.length][];
+            for(int i=0;i<matrix.length;++i) {
+                copy[i] = matrix[i].clone();
+            }
+            return copy;
         }
     }
 
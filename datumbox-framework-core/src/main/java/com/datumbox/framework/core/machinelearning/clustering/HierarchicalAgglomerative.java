@@ -29,10 +29,12 @@ import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrai
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClusterer;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
+import com.datumbox.framework.core.mathematics.distances.CondensedDistanceMatrix;
 import com.datumbox.framework.core.mathematics.distances.Distance;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * This class implements the Hierarchical Agglomerative clustering algorithm
@@ -202,6 +204,31 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
             MAXIMUM;
         }
         
+        /**
+         * The Engine which stores the distances and merges the clusters.
+         */
+        public enum Engine {
+            /**
+             * The distances of all the pairs are stored in a temporary BigMap 
+             * and the closest pair is searched after every merge. It requires 
+             * cubic time and it should be used only on small datasets.
+             */
+            BIGMAP,
+            
+            /**
+             * The distances are stored in a condensed triangular matrix on the
+             * heap and the clusters are merged with the Nearest-Neighbour Chain 
+             * algorithm in quadratic time.
+             */
+            NN_CHAIN,
+            
+            /**
+             * Same as NN_CHAIN but the matrix is stored in a memory-mapped 
+             * temporary file, so it can exceed the size of the heap.
+             */
+            NN_CHAIN_MMAP;
+        }
+        
         //Vars
         
         private Linkage linkageMethod = Linkage.COMPLETE;
@@ -212,6 +239,8 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
         
         private double minClustersThreshold = 2;
         
+        private Engine engine = Engine.NN_CHAIN;
+        
         //Getters Setters
         /**
          * Getter for Linkage Method.
@@ -285,6 +314,24 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
             this.minClustersThreshold = minClustersThreshold;
         }
         
+        /**
+         * Getter for the Engine.
+         * 
+         * @return 
+         */
+        public Engine getEngine() {
+            return engine;
+        }
+        
+        /**
+         * Setter for the Engine.
+         * 
+         * @param engine 
+         */
+        public void setEngine(Engine engine) {
+            this.engine = engine;
+        }
+        
     }
 
 
@@ -407,12 +454,6 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         Map<Integer, Cluster> clusterMap = modelParameters.getClusterMap();
         
-        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
-
-        Map<List<Object>, Double> tmp_distanceArray = storageEngine.getBigMap("tmp_distanceArray", (Class<List<Object>>)(Class<?>)List.class, Double.class, MapType.HASHMAP, StorageHint.IN_CACHE, true, true); //it holds the distances between clusters
-        Map<Integer, Integer> tmp_minClusterDistanceId = storageEngine.getBigMap("tmp_minClusterDistanceId", Integer.class, Integer.class, MapType.HASHMAP, StorageHint.IN_CACHE, true, true); //it holds the ids of the min distances
-        
-        
         //initialize clusters, foreach point create a cluster
         Integer clusterId = 0;
         for(Record r : trainingData.values()) {
@@ -425,6 +466,44 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
             ++clusterId;
         }
         
+        //merging process
+        TrainingParameters.Engine engine = trainingParameters.getEngine();
+        if(engine==TrainingParameters.Engine.BIGMAP) {
+            mergeWithDistanceMaps();
+        }
+        else if(engine==TrainingParameters.Engine.NN_CHAIN || engine==TrainingParameters.Engine.NN_CHAIN_MMAP) {
+            mergeWithNearestNeighbourChain(engine==TrainingParameters.Engine.NN_CHAIN_MMAP);
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported Engine.");
+        }
+        
+        //update centroids. it does not update their IDs
+        Iterator<Map.Entry<Integer, Cluster>> it = clusterMap.entrySet().iterator();
+        while(it.hasNext()) {
+            Map.Entry<Integer, Cluster> entry = it.next();
+            Integer cId = entry.getKey();
+            Cluster cluster = entry.getValue();
+            if(cluster.isActive()) {
+                cluster.updateClusterParameters();
+                clusterMap.put(cId, cluster);
+            }
+            else {
+                it.remove(); //remove inactive clusters
+            }
+        }
+    }
+    
+    private void mergeWithDistanceMaps() {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        Map<Integer, Cluster> clusterMap = modelParameters.getClusterMap();
+        
+        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
+
+        Map<List<Object>, Double> tmp_distanceArray = storageEngine.getBigMap("tmp_distanceArray", (Class<List<Object>>)(Class<?>)List.class, Double.class, MapType.HASHMAP, StorageHint.IN_CACHE, true, true); //it holds the distances between clusters
+        Map<Integer, Integer> tmp_minClusterDistanceId = storageEngine.getBigMap("tmp_minClusterDistanceId", Integer.class, Integer.class, MapType.HASHMAP, StorageHint.IN_CACHE, true, true); //it holds the ids of the min distances
+        
         //calculate distance table and minimum distances
         streamExecutor.forEach(StreamMethods.stream(clusterMap.entrySet().stream(), isParallelized()), entry1 -> {
             Integer clusterId1 = entry1.getKey();
@@ -449,7 +528,6 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
             }
         });
         
-        //merging process
         boolean continueMerging = true;
         while(continueMerging) {
             continueMerging = mergeClosest(tmp_minClusterDistanceId, tmp_distanceArray);
@@ -467,24 +545,198 @@ public class HierarchicalAgglomerative extends AbstractClusterer<HierarchicalAgg
             }
         }
         
-        //update centroids. it does not update their IDs
-        Iterator<Map.Entry<Integer, Cluster>> it = clusterMap.entrySet().iterator();
-        while(it.hasNext()) {
-            Map.Entry<Integer, Cluster> entry = it.next();
-            Integer cId = entry.getKey();
-            Cluster cluster = entry.getValue();
-            if(cluster.isActive()) {
-                cluster.updateClusterParameters();
-                clusterMap.put(cId, cluster);
+        //Drop the temporary Collection
+        storageEngine.dropBigMap("tmp_distanceArray", tmp_distanceArray);
+        storageEngine.dropBigMap("tmp_minClusterDistanceId", tmp_minClusterDistanceId);
+    }
+    
+    /**
+     * Merges the clusters by using the Nearest-Neighbour Chain algorithm. The 
+     * chain follows the nearest neighbours of the clusters until it reaches two 
+     * clusters which are reciprocal nearest neighbours and merges them. Since 
+     * the supported linkages are reducible, the rest of the chain remains valid 
+     * after the merge. The algorithm produces the same dendrogram as merging 
+     * the closest pair at every step, but it requires quadratic time and stores 
+     * only the n(n-1)/2 distances.
+     * 
+     * The merges are not discovered in increasing distance order, so they are 
+     * sorted and replayed afterwards in order to apply the thresholds.
+     * 
+     * References:
+     * https://en.wikipedia.org/wiki/Nearest-neighbor_chain_algorithm
+     * https://arxiv.org/abs/1109.2378
+     * 
+     * @param memoryMapped 
+     */
+    private void mergeWithNearestNeighbourChain(boolean memoryMapped) {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        Map<Integer, Cluster> clusterMap = modelParameters.getClusterMap();
+        TrainingParameters.Linkage linkageMethod = trainingParameters.getLinkageMethod();
+        
+        int n = clusterMap.size();
+        if(n<2) {
+            return;
+        }
+        
+        Cluster[] clusters = new Cluster[n];
+        for(int i=0;i<n;i++) {
+            clusters[i] = clusterMap.get(i);
+        }
+        
+        //the merges in the order that they are found
+        int[] mergeIds1 = new int[n-1];
+        int[] mergeIds2 = new int[n-1];
+        double[] mergeDistances = new double[n-1];
+        
+        try(CondensedDistanceMatrix distances = new CondensedDistanceMatrix(n, memoryMapped)) {
+            //calculate distance table
+            streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, n).boxed(), isParallelized()), i -> {
+                Record centroid = clusters[i].getCentroid();
+                for(int j=i+1;j<n;j++) {
+                    distances.set(i, j, calculateDistance(centroid, clusters[j].getCentroid()));
+                }
+            });
+            
+            //the active clusters are kept in a linked list. Every cluster is represented by its smallest id.
+            int[] next = new int[n];
+            int[] previous = new int[n];
+            for(int i=0;i<n;i++) {
+                next[i] = i+1;
+                previous[i] = i-1;
             }
-            else {
-                it.remove(); //remove inactive clusters
+            int first = 0;
+            double[] sizes = new double[n];
+            Arrays.fill(sizes, 1.0);
+            
+            int[] chain = new int[n];
+            int chainLength = 0;
+            for(int m=0;m<n-1;m++) {
+                if(chainLength==0) {
+                    chain[chainLength++] = first;
+                }
+                
+                //extend the chain until the last two clusters are reciprocal nearest neighbours
+                int id1, id2;
+                double minDistance;
+                while(true) {
+                    id1 = chain[chainLength-1];
+                    
+                    //prefer the previous cluster of the chain in case of ties to avoid cycles
+                    id2 = -1;
+                    minDistance = Double.POSITIVE_INFINITY;
+                    if(chainLength>1) {
+                        id2 = chain[chainLength-2];
+                        minDistance = distances.get(id1, id2);
+                    }
+                    
+                    for(int x=first;x<n;x=next[x]) {
+                        if(x!=id1) {
+                            double distance = distances.get(id1, x);
+                            if(distance<minDistance) {
+                                minDistance = distance;
+                                id2 = x;
+                            }
+                        }
+                    }
+                    
+                    if(chainLength>1 && id2==chain[chainLength-2]) {
+                        break;
+                    }
+                    chain[chainLength++] = id2;
+                }
+                chainLength -= 2;
+                
+                int survivorId = Math.min(id1, id2);
+                int mergedId = Math.max(id1, id2);
+                mergeIds1[m] = survivorId;
+                mergeIds2[m] = mergedId;
+                mergeDistances[m] = minDistance;
+                
+                //update the distances with the merged cluster
+                double survivorSize = sizes[survivorId];
+                double mergedSize = sizes[mergedId];
+                for(int x=first;x<n;x=next[x]) {
+                    if(x==survivorId || x==mergedId) {
+                        continue;
+                    }
+                    
+                    double survivorDistance = distances.get(survivorId, x);
+                    double mergedDistance = distances.get(mergedId, x);
+                    double distance;
+                    if(linkageMethod==TrainingParameters.Linkage.SINGLE) {
+                        distance = Math.min(survivorDistance, mergedDistance);
+                    }
+                    else if(linkageMethod==TrainingParameters.Linkage.COMPLETE) {
+                        distance = Math.max(survivorDistance, mergedDistance);
+                    }
+                    else if(linkageMethod==TrainingParameters.Linkage.AVERAGE) {
+                        distance = (survivorDistance*survivorSize + mergedDistance*mergedSize)/(survivorSize+mergedSize);
+                    }
+                    else {
+                        throw new IllegalArgumentException("Unsupported Linkage method.");
+                    }
+                    distances.set(survivorId, x, distance);
+                }
+                sizes[survivorId] += mergedSize;
+                
+                //remove the merged cluster from the active list
+                if(previous[mergedId]>=0) {
+                    next[previous[mergedId]] = next[mergedId];
+                }
+                else {
+                    first = next[mergedId];
+                }
+                if(next[mergedId]<n) {
+                    previous[next[mergedId]] = previous[mergedId];
+                }
             }
         }
         
-        //Drop the temporary Collection
-        storageEngine.dropBigMap("tmp_distanceArray", tmp_distanceArray);
-        storageEngine.dropBigMap("tmp_minClusterDistanceId", tmp_minClusterDistanceId);
+        //sort the merges by distance. The sort is stable so the merges of equal distance keep their order.
+        Integer[] order = new Integer[n-1];
+        for(int m=0;m<n-1;m++) {
+            order[m] = m;
+        }
+        Arrays.sort(order, (m1, m2) -> Double.compare(mergeDistances[m1], mergeDistances[m2]));
+        
+        //replay the merges until one of the thresholds is reached
+        int[] parents = new int[n];
+        for(int i=0;i<n;i++) {
+            parents[i] = i;
+        }
+        int activeClusters = n;
+        for(int m : order) {
+            if(mergeDistances[m]>=trainingParameters.getMaxDistanceThreshold()) {
+                break;
+            }
+            
+            int root1 = findRoot(parents, mergeIds1[m]);
+            int root2 = findRoot(parents, mergeIds2[m]);
+            int survivorId = Math.min(root1, root2);
+            int mergedId = Math.max(root1, root2);
+            
+            clusters[survivorId].merge(clusters[mergedId]);
+            clusters[mergedId].setActive(false);
+            parents[mergedId] = survivorId;
+            --activeClusters;
+            
+            if(activeClusters<=trainingParameters.getMinClustersThreshold()) {
+                break;
+            }
+        }
+        
+        for(int i=0;i<n;i++) {
+            clusterMap.put(i, clusters[i]);
+        }
+    }
+    
+    private int findRoot(int[] parents, int id) {
+        while(parents[id]!=id) {
+            parents[id] = parents[parents[id]]; //path halving
+            id = parents[id];
+        }
+        return id;
     }
     
     private boolean mergeClosest(Map<Integer, Integer> minClusterDistanceId, Map<List<Object>, Double> distanceArray) {
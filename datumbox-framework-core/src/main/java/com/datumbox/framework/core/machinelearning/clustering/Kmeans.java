@@ -26,6 +26,7 @@ import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
+import com.datumbox.framework.common.utilities.RandomGenerator;
 import com.datumbox.framework.core.common.utilities.MapMethods;
 import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
@@ -36,9 +37,8 @@ import com.datumbox.framework.core.mathematics.distances.Distance;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 import com.datumbox.framework.core.statistics.sampling.SimpleRandomSampling;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.IntStream;
 
 
 /**
@@ -53,6 +53,9 @@ import java.util.Set;
  * http://www.ima.umn.edu/~iwen/REU/BATS-Means.pdf
  * http://web.cs.swarthmore.edu/~turnbull/Papers/Turnbull_GenreRBF_KDE05.pdf
  * http://thesis.neminis.org/wp-content/plugins/downloads-manager/upload/masterThesis-VR.pdf
+ * https://epubs.siam.org/doi/pdf/10.1137/1.9781611972801.12
+ * https://www.eecs.tufts.edu/~dsculley/papers/fastkmeans.pdf
+ * http://vldb.org/pvldb/vol5/p622_bahmanbahmani_vldb2012.pdf
  * 
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
@@ -234,7 +237,16 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
              * http://ilpubs.stanford.edu:8090/778/1/2006-13.pdf
              * http://www.ima.umn.edu/~iwen/REU/BATS-Means.pdf
              */
-            PLUS_PLUS;
+            PLUS_PLUS,
+            
+            /**
+             * Scalable Kmeans++ (k-means||). It oversamples candidate centroids 
+             * in a few passes over the data and reclusters the weighted candidates
+             * with Kmeans++.
+             * References: 
+             * http://vldb.org/pvldb/vol5/p622_bahmanbahmani_vldb2012.pdf
+             */
+            PARALLEL_PLUS_PLUS;
         }
         
         /**
@@ -268,6 +280,12 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
         
         private boolean weighted = false; //whether the weighted version of the algorithm will run. The weighted version estimates weights for every feature
         
+        private int batchSize = 0; //the number of records sampled on every iteration of the Mini-Batch Kmeans. If 0 all the records are used on every iteration
+        
+        private double oversamplingFactor = 2.0; //used by the PARALLEL_PLUS_PLUS initialization, the expected number of candidates sampled on every round is oversamplingFactor*k
+        
+        private int initializationRounds = 5; //used by the PARALLEL_PLUS_PLUS initialization, the number of sampling rounds
+        
         //Getters Setters
         /**
          * Getter for the number of clusters k.
@@ -397,6 +415,67 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
             this.weighted = weighted;
         }
         
+        /**
+         * Getter for the number of records which are sampled on every iteration
+         * of the Mini-Batch Kmeans. If it is 0, all the records are used on 
+         * every iteration.
+         * 
+         * @return 
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        /**
+         * Setter for the number of records which are sampled on every iteration
+         * of the Mini-Batch Kmeans. If it is 0, all the records are used on 
+         * every iteration.
+         * 
+         * @param batchSize 
+         */
+        public void setBatchSize(int batchSize) {
+            if(batchSize<0) {
+                throw new IllegalArgumentException("The batch size can not be negative.");
+            }
+            this.batchSize = batchSize;
+        }
+        
+        /**
+         * Getter for the oversampling factor of the PARALLEL_PLUS_PLUS initialization.
+         * 
+         * @return 
+         */
+        public double getOversamplingFactor() {
+            return oversamplingFactor;
+        }
+        
+        /**
+         * Setter for the oversampling factor of the PARALLEL_PLUS_PLUS initialization.
+         * 
+         * @param oversamplingFactor 
+         */
+        public void setOversamplingFactor(double oversamplingFactor) {
+            this.oversamplingFactor = oversamplingFactor;
+        }
+        
+        /**
+         * Getter for the number of sampling rounds of the PARALLEL_PLUS_PLUS initialization.
+         * 
+         * @return 
+         */
+        public int getInitializationRounds() {
+            return initializationRounds;
+        }
+        
+        /**
+         * Setter for the number of sampling rounds of the PARALLEL_PLUS_PLUS initialization.
+         * 
+         * @param initializationRounds 
+         */
+        public void setInitializationRounds(int initializationRounds) {
+            this.initializationRounds = initializationRounds;
+        }
+        
     }
 
 
@@ -487,7 +566,12 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
         initializeClusters(trainingData);
         
         //calculate clusters
-        calculateClusters(trainingData);
+        if(knowledgeBase.getTrainingParameters().getBatchSize()>0) {
+            calculateClustersMiniBatch(trainingData);
+        }
+        else {
+            calculateClusters(trainingData);
+        }
         
         clearClusters();
     }
@@ -527,11 +611,8 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
         
             //calculate variance and frequencies
             for(Record r : trainingData) { 
-                for(Map.Entry<Object, Object> e : r.getX().entrySet()) {
-                    Double value = TypeInference.toDouble(e.getValue());
-                    if (value!=null && value!=0.0) {
-                        Object feature = e.getKey();
-                        
+                r.getX().forEachDouble((feature, value) -> {
+                    if (value!=0.0) {
                         if(columnTypes.get(feature)!=TypeInference.DataType.NUMERICAL) {
                             Double previousValue = tmp_categoricalFrequencies.getOrDefault(feature, 0.0);
                             tmp_categoricalFrequencies.put(feature, previousValue+1.0);
@@ -543,7 +624,7 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
                             tmp_varianceSumXsquare.put(feature, previousValueSumXsquare+value*value);
                         }
                     }
-                }
+                });
             }
             
             double gammaWeight = trainingParameters.getCategoricalGamaMultiplier();
@@ -711,37 +792,33 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
         else if(initializationMethod==TrainingParameters.Initialization.PLUS_PLUS) {
             StorageEngine storageEngine = knowledgeBase.getStorageEngine();
             Set<Integer> alreadyAddedPoints = new HashSet(); //this is small. equal to k
+            
+            //the minimum distances are updated only with the last centroid on every pass
+            Map<Object, Double> tmp_minClusterDistance = storageEngine.getBigMap("tmp_minClusterDistance", Object.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+            AssociativeArray minClusterDistanceArray = new AssociativeArray((Map)tmp_minClusterDistance);
             for(int i = 0; i < k; ++i) {
-                Map<Object, Double> tmp_minClusterDistance = storageEngine.getBigMap("tmp_minClusterDistance", Object.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
-                AssociativeArray minClusterDistanceArray = new AssociativeArray((Map)tmp_minClusterDistance);
+                Record lastCentroid = (i>0)?clusterMap.get(i-1).getCentroid():null;
                 
                 streamExecutor.forEach(StreamMethods.stream(trainingData.entries(), isParallelized()), e -> {
                     Integer rId = e.getKey();
                     Record r = e.getValue();
                     if(alreadyAddedPoints.contains(rId)==false) {
-                        double minClusterDistance = 1.0;
-                        if(clusterMap.size()>0) {
-                            minClusterDistance = Double.MAX_VALUE;
-                            for(Cluster c : clusterMap.values()) {
-                                double distance = calculateDistance(r, c.getCentroid());
-
-                                if(distance<minClusterDistance) {
-                                    minClusterDistance=distance;
-                                }
+                        if(lastCentroid==null) {
+                            tmp_minClusterDistance.put(rId, 1.0);
+                        }
+                        else {
+                            double distance = calculateDistance(r, lastCentroid);
+                            if(distance<tmp_minClusterDistance.get(rId)) {
+                                tmp_minClusterDistance.put(rId, distance);
                             }
                         }
-
-                        minClusterDistanceArray.put(rId, minClusterDistance);
                     }
                 });
                 
-                Descriptives.normalize(minClusterDistanceArray);
                 Integer selectedRecordId = (Integer) SimpleRandomSampling.weightedSampling(minClusterDistanceArray, 1, true).iterator().next();
                 
-                storageEngine.dropBigMap("tmp_minClusterDistance", tmp_minClusterDistance);
-                
-                
                 alreadyAddedPoints.add(selectedRecordId);
+                tmp_minClusterDistance.remove(selectedRecordId);
                 
                 Integer clusterId = clusterMap.size();
                 Cluster c = new Cluster(clusterId);
@@ -750,45 +827,305 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
                 
                 clusterMap.put(clusterId, c);
             }
+            
+            storageEngine.dropBigMap("tmp_minClusterDistance", tmp_minClusterDistance);
             //alreadyAddedPoints = null;
         }
+        else if(initializationMethod==TrainingParameters.Initialization.PARALLEL_PLUS_PLUS) {
+            StorageEngine storageEngine = knowledgeBase.getStorageEngine();
+            Map<Integer, Double> tmp_minCandidateDistance = storageEngine.getBigMap("tmp_minCandidateDistance", Integer.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true); //the squared distances from the closest candidates
+            Map<Integer, Integer> tmp_closestCandidate = storageEngine.getBigMap("tmp_closestCandidate", Integer.class, Integer.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+            
+            Random random = RandomGenerator.getThreadLocalRandom();
+            double expectedSamples = trainingParameters.getOversamplingFactor()*k;
+            int rounds = trainingParameters.getInitializationRounds();
+            
+            //select the first candidate uniformly
+            List<Record> candidates = new ArrayList<>();
+            int[] recordIds = getRecordIds(trainingData);
+            List<Record> newCandidates = Collections.singletonList(trainingData.get(recordIds[random.nextInt(recordIds.length)]));
+            for(int round=0;;++round) {
+                //update the distances only with the candidates of the last round
+                int start = candidates.size();
+                candidates.addAll(newCandidates);
+                int end = candidates.size();
+                streamExecutor.forEach(StreamMethods.stream(trainingData.entries(), isParallelized()), e -> {
+                    Integer rId = e.getKey();
+                    Record r = e.getValue();
+                    double minDistance = tmp_minCandidateDistance.getOrDefault(rId, Double.POSITIVE_INFINITY);
+                    Integer closestCandidate = tmp_closestCandidate.get(rId);
+                    for(int c=start;c<end;++c) {
+                        double distance = calculateDistance(r, candidates.get(c));
+                        distance *= distance;
+                        if(distance<minDistance) {
+                            minDistance = distance;
+                            closestCandidate = c;
+                        }
+                    }
+                    tmp_minCandidateDistance.put(rId, minDistance);
+                    tmp_closestCandidate.put(rId, closestCandidate);
+                });
+                
+                if(round>=rounds) {
+                    break;
+                }
+                
+                double cost = 0.0;
+                for(Double distance : tmp_minCandidateDistance.values()) {
+                    cost += distance;
+                }
+                if(cost==0.0) {
+                    break; //every record is a candidate
+                }
+                
+                //sample every record independently proportionally to its squared distance
+                newCandidates = new ArrayList<>();
+                for(Map.Entry<Integer, Record> e : trainingData.entries()) {
+                    if(random.nextDouble()*cost<expectedSamples*tmp_minCandidateDistance.get(e.getKey())) {
+                        newCandidates.add(e.getValue());
+                    }
+                }
+            }
+            
+            //weight the candidates by the number of records which are closer to them
+            int m = candidates.size();
+            double[] weights = new double[m];
+            for(Integer c : tmp_closestCandidate.values()) {
+                ++weights[c];
+            }
+            
+            storageEngine.dropBigMap("tmp_minCandidateDistance", tmp_minCandidateDistance);
+            storageEngine.dropBigMap("tmp_closestCandidate", tmp_closestCandidate);
+            
+            //recluster the weighted candidates with Kmeans++
+            double[] minDistances = new double[m];
+            Arrays.fill(minDistances, Double.POSITIVE_INFINITY);
+            double[] probabilities = weights.clone();
+            for(int i=0;i<k;++i) {
+                int selectedCandidate = weightedChoice(probabilities, random);
+                if(selectedCandidate<0) {
+                    break; //all the remaining candidates are duplicates of the selected ones
+                }
+                Record candidate = candidates.get(selectedCandidate);
+                
+                Integer clusterId = clusterMap.size();
+                Cluster c = new Cluster(clusterId);
+                c.add(candidate);
+                c.updateClusterParameters();
+                
+                clusterMap.put(clusterId, c);
+                
+                for(int j=0;j<m;++j) {
+                    double distance = calculateDistance(candidates.get(j), candidate);
+                    distance *= distance;
+                    if(distance<minDistances[j]) {
+                        minDistances[j] = distance;
+                    }
+                    probabilities[j] = weights[j]*minDistances[j];
+                }
+                probabilities[selectedCandidate] = 0.0;
+            }
+        }
+    }
+    
+    /**
+     * Selects an index with probability proportional to its weight. It returns
+     * -1 if all the weights are zero.
+     * 
+     * @param weights
+     * @param random
+     * @return 
+     */
+    private int weightedChoice(double[] weights, Random random) {
+        double total = 0.0;
+        for(double weight : weights) {
+            total += weight;
+        }
+        if(total<=0.0) {
+            return -1;
+        }
+        
+        double randomWeight = random.nextDouble()*total;
+        int selected = -1;
+        double cumulativeWeight = 0.0;
+        for(int i=0;i<weights.length;++i) {
+            if(weights[i]>0.0) {
+                selected = i;
+                cumulativeWeight += weights[i];
+                if(cumulativeWeight>randomWeight) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * Returns the ids of the records of the Dataframe.
+     * 
+     * @param trainingData
+     * @return 
+     */
+    private int[] getRecordIds(Dataframe trainingData) {
+        int[] recordIds = new int[trainingData.size()];
+        int i = 0;
+        for(Integer rId : trainingData.index()) {
+            recordIds[i++] = rId;
+        }
+        return recordIds;
+    }
+    
+    /**
+     * Returns the clusters in an array indexed by their ids.
+     * 
+     * @return 
+     */
+    private Cluster[] getClusterArray() {
+        Map<Integer, Cluster> clusterMap = knowledgeBase.getModelParameters().getClusterMap();
+        Cluster[] clusters = new Cluster[clusterMap.size()];
+        for(int c=0;c<clusters.length;++c) {
+            clusters[c] = clusterMap.get(c);
+        }
+        return clusters;
+    }
+    
+    /**
+     * Finds the closest cluster of the record. The distances from the closest
+     * and the second closest clusters are written in the closestDistances array.
+     * 
+     * @param r
+     * @param clusters
+     * @param closestDistances
+     * @return 
+     */
+    private int findClosestCluster(Record r, Cluster[] clusters, double[] closestDistances) {
+        int closestCluster = 0;
+        double minDistance = Double.POSITIVE_INFINITY;
+        double secondMinDistance = Double.POSITIVE_INFINITY;
+        for(int c=0;c<clusters.length;++c) {
+            double distance = calculateDistance(r, clusters[c].getCentroid());
+            if(distance<minDistance) {
+                secondMinDistance = minDistance;
+                minDistance = distance;
+                closestCluster = c;
+            }
+            else if(distance<secondMinDistance) {
+                secondMinDistance = distance;
+            }
+        }
+        closestDistances[0] = minDistance;
+        closestDistances[1] = secondMinDistance;
+        return closestCluster;
     }
 
+    /**
+     * Runs the Lloyd iterations. The assignments are accelerated with the 
+     * bounds of Hamerly: every record keeps an upper bound on the distance 
+     * from its centroid and a lower bound on the distance from the second
+     * closest centroid. After every iteration the bounds are loosened by the
+     * shifts of the centroids and the distances are calculated only for the
+     * records whose bounds overlap. Since the bounds rely on the triangle 
+     * inequality, they are used only when all the feature weights are non 
+     * negative. The assignments are the same as the ones of the standard algorithm.
+     * 
+     * References:
+     * https://epubs.siam.org/doi/pdf/10.1137/1.9781611972801.12
+     * 
+     * @param trainingData 
+     */
     private void calculateClusters(Dataframe trainingData) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         Map<Integer, Cluster> clusterMap = modelParameters.getClusterMap();
+        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
         
         int maxIterations = trainingParameters.getMaxIterations();
         modelParameters.setTotalIterations(maxIterations);
         
+        Cluster[] clusters = getClusterArray();
+        int k = clusters.length;
+        
+        boolean useBounds = true;
+        for(Double weight : modelParameters.getFeatureWeights().values()) {
+            if(weight<0.0) {
+                useBounds = false;
+                break;
+            }
+        }
+        
+        Map<Integer, Integer> tmp_clusterAssignments = storageEngine.getBigMap("tmp_clusterAssignments", Integer.class, Integer.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+        Map<Integer, Double> tmp_upperBounds = storageEngine.getBigMap("tmp_upperBounds", Integer.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+        Map<Integer, Double> tmp_lowerBounds = storageEngine.getBigMap("tmp_lowerBounds", Integer.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
+        
+        double[] shifts = new double[k];
+        double[] halfSeparations = new double[k];
         for(int iteration=0;iteration<maxIterations;++iteration) {
             logger.debug("Iteration {}", iteration);
             
+            //half of the distance from the closest centroid. Records closer than this to their centroid can't change cluster
+            if(useBounds) {
+                streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, k).boxed(), isParallelized()), c1 -> {
+                    double minDistance = Double.POSITIVE_INFINITY;
+                    for(int c2=0;c2<k;++c2) {
+                        if(c1!=c2) {
+                            minDistance = Math.min(minDistance, calculateDistance(clusters[c1].getCentroid(), clusters[c2].getCentroid()));
+                        }
+                    }
+                    halfSeparations[c1] = minDistance/2.0;
+                });
+            }
+            
+            //the maximum shifts are used to loosen the lower bounds
+            int maxShiftId = -1;
+            double maxShift = 0.0;
+            double secondMaxShift = 0.0;
+            for(int c=0;c<k;++c) {
+                if(shifts[c]>maxShift) {
+                    secondMaxShift = maxShift;
+                    maxShift = shifts[c];
+                    maxShiftId = c;
+                }
+                else if(shifts[c]>secondMaxShift) {
+                    secondMaxShift = shifts[c];
+                }
+            }
+            final int finalMaxShiftId = maxShiftId;
+            final double finalMaxShift = maxShift;
+            final double finalSecondMaxShift = secondMaxShift;
+            final boolean finalUseBounds = useBounds;
+            
             //reset cluster points
-            for(Map.Entry<Integer, Cluster> entry1 : clusterMap.entrySet()) {
-                Integer clusterId = entry1.getKey();
-                Cluster cluster = entry1.getValue();
+            for(Cluster cluster : clusters) {
                 cluster.reset();
-                clusterMap.put(clusterId, cluster);
             }
             
             //assign records to clusters
-            Map<Integer, Integer> tmp_clusterAssignments = knowledgeBase.getStorageEngine().getBigMap("tmp_clusterAssignments", Integer.class, Integer.class, MapType.HASHMAP, StorageHint.IN_MEMORY, true, true);
             streamExecutor.forEach(StreamMethods.stream(trainingData.entries(), isParallelized()), e -> {
                 Integer rId = e.getKey();
                 Record r = e.getValue();
-                //we are storing cluster references not clusterIds
-                AssociativeArray clusterDistances = new AssociativeArray();
-                for(Map.Entry<Integer, Cluster> entry : clusterMap.entrySet()) {
-                    Integer cId = entry.getKey();
-                    Cluster c = entry.getValue();
-                    clusterDistances.put(cId, calculateDistance(r, c.getCentroid()));
+                
+                Integer assignedClusterId = tmp_clusterAssignments.get(rId);
+                if(finalUseBounds && assignedClusterId!=null) {
+                    double upperBound = tmp_upperBounds.get(rId) + shifts[assignedClusterId];
+                    double lowerBound = tmp_lowerBounds.get(rId) - ((assignedClusterId==finalMaxShiftId)?finalSecondMaxShift:finalMaxShift);
+                    double bound = Math.max(halfSeparations[assignedClusterId], lowerBound);
+                    if(upperBound>bound) {
+                        //tighten the upper bound and check again
+                        upperBound = calculateDistance(r, clusters[assignedClusterId].getCentroid());
+                    }
+                    if(upperBound<=bound) {
+                        tmp_upperBounds.put(rId, upperBound);
+                        tmp_lowerBounds.put(rId, lowerBound);
+                        return;
+                    }
                 }
                 
                 //find the closest cluster
-                Integer selectedClusterId = (Integer)getSelectedClusterFromDistances(clusterDistances);
+                double[] closestDistances = new double[2];
+                Integer selectedClusterId = findClosestCluster(r, clusters, closestDistances);
                 tmp_clusterAssignments.put(rId, selectedClusterId);
+                tmp_upperBounds.put(rId, closestDistances[0]);
+                tmp_lowerBounds.put(rId, closestDistances[1]);
             });
             
             for(Map.Entry<Integer, Record> e : trainingData.entries()) {
@@ -796,20 +1133,21 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
                 Record r = e.getValue();
                 
                 //add the record in the cluster
-                Integer selectedClusterId = tmp_clusterAssignments.get(rId);
-                Cluster selectedCluster = clusterMap.get(selectedClusterId);
-                selectedCluster.add(r);
-                clusterMap.put(selectedClusterId, selectedCluster);
+                clusters[tmp_clusterAssignments.get(rId)].add(r);
             }
-            knowledgeBase.getStorageEngine().dropBigMap("tmp_clusterAssignments", tmp_clusterAssignments);
             
             //update clusters
             boolean changed=false;
-            for(Map.Entry<Integer, Cluster> e : clusterMap.entrySet()) {
-                Integer cId = e.getKey();
-                Cluster c = e.getValue();
-                changed|=c.updateClusterParameters();
-                clusterMap.put(cId, c);
+            for(int c=0;c<k;++c) {
+                Record previousCentroid = clusters[c].getCentroid();
+                if(clusters[c].updateClusterParameters()) {
+                    changed = true;
+                    shifts[c] = calculateDistance(previousCentroid, clusters[c].getCentroid());
+                }
+                else {
+                    shifts[c] = 0.0;
+                }
+                clusterMap.put(c, clusters[c]);
             }
             
             //if none of the clusters changed then exit
@@ -818,6 +1156,85 @@ public class Kmeans extends AbstractClusterer<Kmeans.Cluster, Kmeans.ModelParame
                 break;
             }
         }
+        
+        //Drop the temporary Collections
+        storageEngine.dropBigMap("tmp_clusterAssignments", tmp_clusterAssignments);
+        storageEngine.dropBigMap("tmp_upperBounds", tmp_upperBounds);
+        storageEngine.dropBigMap("tmp_lowerBounds", tmp_lowerBounds);
     }
-
-}
\ No newline at end of file
+    
+    /**
+     * Runs the Mini-Batch Kmeans. On every iteration a random batch of records
+     * is assigned to the closest clusters. The clusters accumulate the records
+     * of all the batches and their centroids are the means of the accumulated
+     * records, which is equivalent to the per-centroid learning rate of the 
+     * algorithm. After the last iteration every record is assigned once to the
+     * final centroids, so the sizes of the clusters count the training records.
+     * 
+     * References:
+     * https://www.eecs.tufts.edu/~dsculley/papers/fastkmeans.pdf
+     * 
+     * @param trainingData 
+     */
+    private void calculateClustersMiniBatch(Dataframe trainingData) {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        Map<Integer, Cluster> clusterMap = modelParameters.getClusterMap();
+        
+        int maxIterations = trainingParameters.getMaxIterations();
+        modelParameters.setTotalIterations(maxIterations);
+        
+        Cluster[] clusters = getClusterArray();
+        for(Cluster cluster : clusters) {
+            cluster.reset();
+        }
+        
+        int batchSize = trainingParameters.getBatchSize();
+        int[] recordIds = getRecordIds(trainingData);
+        Random random = RandomGenerator.getThreadLocalRandom();
+        
+        Record[] batch = new Record[batchSize];
+        int[] batchAssignments = new int[batchSize];
+        for(int iteration=0;iteration<maxIterations;++iteration) {
+            logger.debug("Iteration {}", iteration);
+            
+            for(int i=0;i<batchSize;++i) {
+                batch[i] = trainingData.get(recordIds[random.nextInt(recordIds.length)]);
+            }
+            
+            //assign the records of the batch to clusters
+            streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, batchSize).boxed(), isParallelized()), i -> {
+                batchAssignments[i] = findClosestCluster(batch[i], clusters, new double[2]);
+            });
+            
+            for(int i=0;i<batchSize;++i) {
+                clusters[batchAssignments[i]].add(batch[i]);
+            }
+            
+            //update the clusters which have received records
+            for(Cluster cluster : clusters) {
+                if(cluster.size()>0) {
+                    cluster.updateClusterParameters();
+                }
+            }
+        }
+        
+        //the clusters hold the samples of all the batches, so reassign every record once to the final centroids
+        for(Cluster cluster : clusters) {
+            cluster.reset();
+        }
+        
+        int[] assignments = new int[recordIds.length];
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, recordIds.length).boxed(), isParallelized()), i -> {
+            assignments[i] = findClosestCluster(trainingData.get(recordIds[i]), clusters, new double[2]);
+        });
+        
+        for(int i=0;i<recordIds.length;++i) {
+            clusters[assignments[i]].add(trainingData.get(recordIds[i]));
+        }
+        
+        for(int c=0;c<clusters.length;++c) {
+            clusterMap.put(c, clusters[c]);
+        }
+    }
+}
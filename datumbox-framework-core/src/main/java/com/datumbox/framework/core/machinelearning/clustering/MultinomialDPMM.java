@@ -16,15 +16,14 @@
 package com.datumbox.framework.core.machinelearning.clustering;
 
 import com.datumbox.framework.common.Configuration;
-import com.datumbox.framework.core.common.dataobjects.DataframeMatrix;
+import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.algorithms.AbstractDPMM;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClusterer;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
-import org.apache.commons.math3.linear.OpenMapRealVector;
-import org.apache.commons.math3.linear.RealVector;
+import org.apache.commons.math3.util.OpenIntToDoubleHashMap;
 
 import java.util.Map;
 
@@ -47,15 +46,16 @@ public class MultinomialDPMM extends AbstractDPMM<MultinomialDPMM.Cluster, Multi
      * The AbstractCluster class of the MultinomialDPMM model.
      */
     public static class Cluster extends AbstractDPMM.AbstractCluster {
-        private static final long serialVersionUID = 2L;
+        private static final long serialVersionUID = 4L;
         
         //hyper parameters
+        private final int dimensions;
         private final double alphaWords; //effectively we set alphaWords = 50. The alphaWords controls the amount of words in each cluster. In most notes it is notated as alpha.
         
         //cluster parameters
-        private RealVector wordCounts;
+        private final OpenIntToDoubleHashMap wordCounts; //sparse counts indexed by featureId, the missing entries are zero
         
-        private Double wordcounts_plusalpha; //internal cached value of WordCountsPlusAlpha
+        private double wordCountsSum; //internal cached sum of the wordCounts
         
         /** 
          * @param clusterId
@@ -66,20 +66,55 @@ public class MultinomialDPMM extends AbstractDPMM<MultinomialDPMM.Cluster, Multi
         protected Cluster(Integer clusterId, int dimensions, double alphaWords) {
             super(clusterId);
 
+            this.dimensions = dimensions;
             this.alphaWords = alphaWords;
             
-            wordCounts = new OpenMapRealVector(dimensions);
-            wordcounts_plusalpha = estimateWordCountsPlusAlpha();
+            wordCounts = new OpenIntToDoubleHashMap(0.0);
+            wordCountsSum = 0.0;
         }
         
-        /** {@inheritDoc} */
+        /**
+         * Copy constructor.
+         * 
+         * @param cluster 
+         */
+        private Cluster(Cluster cluster) {
+            super(cluster.clusterId);
+            size = cluster.size;
+            featureIds = cluster.featureIds;
+            
+            dimensions = cluster.dimensions;
+            alphaWords = cluster.alphaWords;
+            wordCounts = new OpenIntToDoubleHashMap(cluster.wordCounts);
+            wordCountsSum = cluster.wordCountsSum;
+        }
+        
+        /** 
+         * {@inheritDoc} 
+         * 
+         * The log posterior is equal to C(wordCounts+alpha+x)-C(wordCounts+alpha).
+         * The terms of the zero words of x cancel out, so only the non-zero 
+         * words of the record are visited.
+         */
         @Override
         protected double posteriorLogPdf(Record r) {
-            RealVector x_mu = DataframeMatrix.parseRecord(r, featureIds);
-
-            RealVector wordCountsPlusAlpha = wordCounts.mapAdd(alphaWords);
-
-            double logPdf = C(wordCountsPlusAlpha.add(x_mu))-wordcounts_plusalpha;
+            double totalAlpha = wordCountsSum + alphaWords*dimensions;
+            double sumX = 0.0;
+            double logPdf = 0.0;
+            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                Double value = TypeInference.toDouble(entry.getValue());
+                if(value == null || value == 0.0) {
+                    continue;
+                }
+                Integer featureId = featureIds.get(entry.getKey());
+                if(featureId == null) {
+                    continue;
+                }
+                double a = wordCounts.get(featureId) + alphaWords;
+                logPdf += ContinuousDistributions.logGamma(a + value) - ContinuousDistributions.logGamma(a);
+                sumX += value;
+            }
+            logPdf -= ContinuousDistributions.logGamma(totalAlpha + sumX) - ContinuousDistributions.logGamma(totalAlpha);
             return logPdf;
         }
 
@@ -98,38 +133,32 @@ public class MultinomialDPMM extends AbstractDPMM<MultinomialDPMM.Cluster, Multi
         /** {@inheritDoc} */
         @Override
         protected void add(Record r) {
-            RealVector rv = DataframeMatrix.parseRecord(r, featureIds);
-
-            //update cluster clusterParameters
-            if(size==0) {
-                wordCounts=rv;
-            }
-            else {
-                wordCounts=wordCounts.add(rv);
-            }
-            
+            updateWordCounts(r, 1.0);
             size++;
-            
-            updateClusterParameters();
         }
         
         /** {@inheritDoc} */
         @Override
         protected void remove(Record r) {
+            updateWordCounts(r, -1.0);
             size--;
-            
-            RealVector rv = DataframeMatrix.parseRecord(r, featureIds);
-
-            //update cluster clusterParameters
-            wordCounts=wordCounts.subtract(rv);
-            
-            updateClusterParameters();
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        protected Cluster copy() {
+            return new Cluster(this);
         }
         
         /** {@inheritDoc} */
         @Override
         protected void updateClusterParameters() {
-            wordcounts_plusalpha = estimateWordCountsPlusAlpha();
+            wordCountsSum = 0.0;
+            OpenIntToDoubleHashMap.Iterator it = wordCounts.iterator();
+            while(it.hasNext()) {
+                it.advance();
+                wordCountsSum += it.value();
+            }
         }
 
         /** {@inheritDoc} */
@@ -139,38 +168,31 @@ public class MultinomialDPMM extends AbstractDPMM<MultinomialDPMM.Cluster, Multi
         }
         
         /**
-         * Estimates the WordCountsPlusAlpha which is stored internally in the
-         * cluster for performance reasons.
+         * Adds the non-zero word counts of the record multiplied by the sign. The
+         * counts that drop to zero are removed to keep the map sparse.
          * 
-         * @return 
+         * @param r
+         * @param sign 
          */
-        private double estimateWordCountsPlusAlpha() {
-            RealVector wordCountsPlusAlpha = wordCounts.mapAdd(alphaWords);
-            return C(wordCountsPlusAlpha);
-        }
-        
-        /**
-         * Internal method that estimates the value of C(a).
-         * 
-         * @param alphaVector   Vector with alpha values
-         * @return              Returns the value of C(a)
-         */
-        private double C(RealVector alphaVector) {
-            double Cvalue;
-            double sumAi=0.0;
-            double sumLogGammaAi=0.0;
-
-            int aLength=alphaVector.getDimension();
-            double tmp;
-            for(int i=0;i<aLength;++i) {
-                tmp=alphaVector.getEntry(i);
-                sumAi+= tmp;
-                sumLogGammaAi+=ContinuousDistributions.logGamma(tmp);
+        private void updateWordCounts(Record r, double sign) {
+            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                Double value = TypeInference.toDouble(entry.getValue());
+                if(value == null) {
+                    continue;
+                }
+                Integer featureId = featureIds.get(entry.getKey());
+                if(featureId == null) {
+                    continue;
+                }
+                double count = wordCounts.get(featureId) + sign*value;
+                if(count == 0.0) {
+                    wordCounts.remove(featureId);
+                }
+                else {
+                    wordCounts.put(featureId, count);
+                }
+                wordCountsSum += sign*value;
             }
-
-            Cvalue = sumLogGammaAi-ContinuousDistributions.logGamma(sumAi);
-
-            return Cvalue;
         }
     }
     
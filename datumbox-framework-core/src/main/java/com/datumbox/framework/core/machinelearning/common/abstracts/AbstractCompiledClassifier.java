@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.machinelearning.common.abstracts;
+
+import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.common.dataobjects.TypeInference;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Base class for the compiled forms of the classifiers. A compiled classifier is an
+ * immutable snapshot of the parameters of a trained model, stored in primitive
+ * arrays and indexed by consecutive feature and class ids. It scores primitive
+ * feature vectors into buffers which are provided by the caller, so the predictions
+ * do not allocate any objects and the instance can be shared by many threads.
+ *
+ * The ids of the features are resolved once with getFeatureId() and used to build
+ * either dense vectors of length getNumberOfFeatures() or sparse vectors of ids and
+ * values. The prediction buffers must have length getNumberOfClasses().
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public abstract class AbstractCompiledClassifier implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maps the features to their ids.
+     */
+    private final Map<Object, Integer> featureIds;
+
+    /**
+     * The classes ordered by their ids.
+     */
+    private final Object[] classes;
+
+    /**
+     * Protected constructor of the compiled classifier.
+     *
+     * @param featureIds
+     * @param classes
+     */
+    protected AbstractCompiledClassifier(Map<Object, Integer> featureIds, List<Object> classes) {
+        this.featureIds = Collections.unmodifiableMap(new HashMap<>(featureIds));
+        this.classes = classes.toArray();
+    }
+
+    /**
+     * Returns the number of features.
+     *
+     * @return
+     */
+    public int getNumberOfFeatures() {
+        return featureIds.size();
+    }
+
+    /**
+     * Returns the number of classes.
+     *
+     * @return
+     */
+    public int getNumberOfClasses() {
+        return classes.length;
+    }
+
+    /**
+     * Returns the id of the feature or -1 if the feature is not known by the model.
+     *
+     * @param feature
+     * @return
+     */
+    public int getFeatureId(Object feature) {
+        Integer id = featureIds.get(feature);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the class with the specific id.
+     *
+     * @param classId
+     * @return
+     */
+    public Object getClassById(int classId) {
+        return classes[classId];
+    }
+
+    /**
+     * Predicts a dense feature vector. The probabilities of the classes are written
+     * in the provided buffer and the id of the selected class is returned.
+     *
+     * @param x
+     * @param probabilities
+     * @return
+     */
+    public int predict(double[] x, double[] probabilities) {
+        if(x.length != featureIds.size()) {
+            throw new IllegalArgumentException("The length of the feature vector does not match the number of features.");
+        }
+        checkBuffer(probabilities);
+
+        initialize(probabilities);
+        for(int featureId=0;featureId<x.length;featureId++) {
+            double value = x[featureId];
+            if(value != 0.0) {
+                accumulate(featureId, value, probabilities);
+            }
+        }
+        return finish(probabilities);
+    }
+
+    /**
+     * Predicts a sparse feature vector which is given by the first length positions
+     * of the featureIds and values arrays. Negative feature ids are ignored. The
+     * probabilities of the classes are written in the provided buffer and the id
+     * of the selected class is returned.
+     *
+     * @param featureIds
+     * @param values
+     * @param length
+     * @param probabilities
+     * @return
+     */
+    public int predict(int[] featureIds, double[] values, int length, double[] probabilities) {
+        checkBuffer(probabilities);
+
+        initialize(probabilities);
+        for(int i=0;i<length;i++) {
+            int featureId = featureIds[i];
+            double value = values[i];
+            if(featureId >= 0 && value != 0.0) {
+                accumulate(featureId, value, probabilities);
+            }
+        }
+        return finish(probabilities);
+    }
+
+    /**
+     * Predicts the x values of a record. The features which are not known by the
+     * model are ignored. The probabilities of the classes are written in the
+     * provided buffer and the id of the selected class is returned.
+     *
+     * @param x
+     * @param probabilities
+     * @return
+     */
+    public int predict(AssociativeArray x, double[] probabilities) {
+        checkBuffer(probabilities);
+
+        initialize(probabilities);
+        for(Map.Entry<Object, Object> entry : x.entrySet()) {
+            Integer featureId = featureIds.get(entry.getKey());
+            if(featureId == null) {
+                continue;
+            }
+            Double value = TypeInference.toDouble(entry.getValue());
+            if(value != null && value != 0.0) {
+                accumulate(featureId, value, probabilities);
+            }
+        }
+        return finish(probabilities);
+    }
+
+    /**
+     * Initializes the buffer before the features are accumulated.
+     *
+     * @param buffer
+     */
+    protected abstract void initialize(double[] buffer);
+
+    /**
+     * Adds the contribution of a non-zero feature on the buffer.
+     *
+     * @param featureId
+     * @param value
+     * @param buffer
+     */
+    protected abstract void accumulate(int featureId, double value, double[] buffer);
+
+    /**
+     * Converts the accumulated buffer to class probabilities and returns the id
+     * of the selected class.
+     *
+     * @param buffer
+     * @return
+     */
+    protected abstract int finish(double[] buffer);
+
+    private void checkBuffer(double[] probabilities) {
+        if(probabilities.length != classes.length) {
+            throw new IllegalArgumentException("The length of the buffer does not match the number of classes.");
+        }
+    }
+
+}
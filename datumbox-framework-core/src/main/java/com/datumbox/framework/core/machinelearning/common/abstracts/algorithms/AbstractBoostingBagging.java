@@ -16,10 +16,10 @@
 package com.datumbox.framework.core.machinelearning.common.abstracts.algorithms;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.*;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
-import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
 import com.datumbox.framework.core.common.utilities.MapMethods;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
@@ -27,14 +27,12 @@ import com.datumbox.framework.core.machinelearning.MLBuilder;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClassifier;
 import com.datumbox.framework.core.machinelearning.common.dataobjects.TrainableBundle;
-import com.datumbox.framework.core.machinelearning.ensemblelearning.FixedCombinationRules;
+import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 import com.datumbox.framework.core.statistics.sampling.SimpleRandomSampling;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.IntStream;
 
 /**
  * Base class for Adaboost and BoostrapAgregating.
@@ -43,7 +41,7 @@ import java.util.Set;
  * @param <MP>
  * @param <TP>
  */
-public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging.AbstractModelParameters, TP extends AbstractBoostingBagging.AbstractTrainingParameters> extends AbstractClassifier<MP, TP> {
+public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging.AbstractModelParameters, TP extends AbstractBoostingBagging.AbstractTrainingParameters> extends AbstractClassifier<MP, TP> implements TrainParallelizable {
 
     private final TrainableBundle bundle;
 
@@ -138,6 +136,7 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
     protected AbstractBoostingBagging(TP trainingParameters, Configuration configuration) {
         super(trainingParameters, configuration);
         bundle  = new TrainableBundle(configuration.getStorageConfiguration().getStorageNameSeparator());
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
 
     /**
@@ -148,6 +147,27 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
     protected AbstractBoostingBagging(String storageName, Configuration configuration) {
         super(storageName, configuration);
         bundle  = new TrainableBundle(configuration.getStorageConfiguration().getStorageNameSeparator());
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
+    }
+    
+    private boolean parallelized = true;
+    
+    /**
+     * This executor is used for the parallel processing of streams with custom 
+     * Thread pool.
+     */
+    protected final ForkJoinStream streamExecutor;
+    
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelized() {
+        return parallelized;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelized(boolean parallelized) {
+        this.parallelized = parallelized;
     }
     
     /** {@inheritDoc} */
@@ -158,50 +178,118 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
 
         List<Double> weakClassifierWeights = knowledgeBase.getModelParameters().getWeakClassifierWeights();
 
-        //create a temporary map for the observed probabilities in training set
-        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
-        Map<Object, DataTable2D> tmp_recordDecisions = storageEngine.getBigMap("tmp_recordDecisions", Object.class, DataTable2D.class, MapType.HASHMAP, StorageHint.IN_DISK, false, true);
-        
-        //initialize array of recordDecisions
-        for(Integer rId : newData.index()) {
-            tmp_recordDecisions.put(rId, new DataTable2D());
+        //index the classes so that the votes of each record are kept in a primitive buffer
+        Map<Object, Integer> classIds = new HashMap<>();
+        List<Object> classes = new ArrayList<>();
+        for(Object theClass : knowledgeBase.getModelParameters().getClasses()) {
+            classIds.put(theClass, classes.size());
+            classes.add(theClass);
         }
+        int n = newData.size();
+        int c = classes.size();
+        int cells;
+        try {
+            cells = Math.multiplyExact(n, c);
+        }
+        catch(ArithmeticException ex) {
+            //the votes don't fit in a primitive buffer
+            predictWithBigMap(newData, weakClassifierWeights);
+            return;
+        }
+        double[] votes = new double[cells];
+        boolean[] voted = new boolean[cells];
         
         //using the weak classifiers
-        AssociativeArray classifierWeightsArray = new AssociativeArray();
         int totalWeakClassifiers = weakClassifierWeights.size();
         for(int i=0;i<totalWeakClassifiers;++i) {
 
             AbstractClassifier mlclassifier = (AbstractClassifier) bundle.get(STORAGE_INDICATOR + i);
             mlclassifier.predict(newData);
             
-            classifierWeightsArray.put(i, weakClassifierWeights.get(i));
+            double weight = weakClassifierWeights.get(i);
             
-            for(Map.Entry<Integer, Record> e : newData.entries()) {
-                Integer rId = e.getKey();
-                Record r = e.getValue();
-                AssociativeArray classProbabilities = r.getYPredictedProbabilities();
-                
-                DataTable2D rDecisions = tmp_recordDecisions.get(rId);
-                rDecisions.put(i, classProbabilities);
-                
-                tmp_recordDecisions.put(rId, rDecisions); //WARNING: Do not remove this! We must put it back to the Map to store it on Disk-backed maps
+            //the records are always iterated in the same order, so their position is used as the row of the buffer
+            int row = 0;
+            for(Record r : newData) {
+                for(Map.Entry<Object, Object> entry : r.getYPredictedProbabilities().entrySet()) {
+                    int position = row*c + classIds.get(entry.getKey());
+                    votes[position] += TypeInference.toDouble(entry.getValue())*weight;
+                    voted[position] = true;
+                }
+                ++row;
             }
         }
         
-        //for each record find the combined classification by majority vote
+        //for each record find the combined classification by weighted majority vote
+        int row = 0;
         for(Map.Entry<Integer, Record> e : newData.entries()) {
             Integer rId = e.getKey();
             Record r = e.getValue();
             
-            AssociativeArray combinedClassVotes = FixedCombinationRules.weightedAverage(tmp_recordDecisions.get(rId), classifierWeightsArray);
-            Descriptives.normalize(combinedClassVotes);
+            AssociativeArray combinedClassVotes = new AssociativeArray();
+            for(int j=0;j<c;++j) {
+                int position = row*c + j;
+                if(voted[position]) {
+                    combinedClassVotes.put(classes.get(j), votes[position]);
+                }
+            }
+            setCombinedVotes(newData, rId, r, combinedClassVotes);
+            ++row;
+        }
+    }
+    
+    /**
+     * Combines the votes of the weak classifiers in a temporary BigMap which
+     * stores the weighted votes of every record. It is used when the votes of
+     * all the records and classes don't fit in a primitive buffer.
+     * 
+     * @param newData
+     * @param weakClassifierWeights 
+     */
+    private void predictWithBigMap(Dataframe newData, List<Double> weakClassifierWeights) {
+        StorageEngine storageEngine = knowledgeBase.getStorageEngine();
+        Map<Integer, AssociativeArray> tmp_combinedVotes = storageEngine.getBigMap("tmp_combinedVotes", Integer.class, AssociativeArray.class, StorageEngine.MapType.HASHMAP, StorageEngine.StorageHint.IN_DISK, false, true);
+        
+        int totalWeakClassifiers = weakClassifierWeights.size();
+        for(int i=0;i<totalWeakClassifiers;++i) {
+
+            AbstractClassifier mlclassifier = (AbstractClassifier) bundle.get(STORAGE_INDICATOR + i);
+            mlclassifier.predict(newData);
+            
+            double weight = weakClassifierWeights.get(i);
             
-            newData._unsafe_set(rId, new Record(r.getX(), r.getY(), MapMethods.selectMaxKeyValue(combinedClassVotes).getKey(), combinedClassVotes));
+            for(Map.Entry<Integer, Record> e : newData.entries()) {
+                Integer rId = e.getKey();
+                AssociativeArray combinedClassVotes = tmp_combinedVotes.getOrDefault(rId, new AssociativeArray());
+                for(Map.Entry<Object, Object> entry : e.getValue().getYPredictedProbabilities().entrySet()) {
+                    Double previousVotes = combinedClassVotes.getDouble(entry.getKey());
+                    combinedClassVotes.put(entry.getKey(), ((previousVotes!=null)?previousVotes:0.0) + TypeInference.toDouble(entry.getValue())*weight);
+                }
+                tmp_combinedVotes.put(rId, combinedClassVotes); //WARNING: Do not remove this! We must put it back to the Map to store it on Disk-backed maps
+            }
+        }
+        
+        for(Map.Entry<Integer, Record> e : newData.entries()) {
+            Integer rId = e.getKey();
+            setCombinedVotes(newData, rId, e.getValue(), tmp_combinedVotes.get(rId));
         }
         
         //Drop the temporary Collection
-        storageEngine.dropBigMap("tmp_recordDecisions", tmp_recordDecisions);
+        storageEngine.dropBigMap("tmp_combinedVotes", tmp_combinedVotes);
+    }
+    
+    /**
+     * Normalizes the combined votes of the record and stores the class with the
+     * most votes as its prediction.
+     * 
+     * @param newData
+     * @param rId
+     * @param r
+     * @param combinedClassVotes 
+     */
+    private void setCombinedVotes(Dataframe newData, Integer rId, Record r, AssociativeArray combinedClassVotes) {
+        Descriptives.normalize(combinedClassVotes);
+        newData._unsafe_set(rId, new Record(r.getX(), r.getY(), MapMethods.selectMaxKeyValue(combinedClassVotes).getKey(), combinedClassVotes));
     }
     
     /** {@inheritDoc} */
@@ -236,6 +324,11 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
         AbstractClassifier.AbstractTrainingParameters weakClassifierTrainingParameters = trainingParameters.getWeakClassifierTrainingParameters();
         int totalWeakClassifiers = trainingParameters.getMaxWeakClassifiers();
         
+        if(hasIndependentWeakClassifiers()) {
+            fitIndependentWeakClassifiers(trainingData, observationWeights);
+            return;
+        }
+        
         //training the weak classifiers
         int i=0;
         int retryCounter = 0;
@@ -245,8 +338,8 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
             //We sample a list of Ids based on their weights
             FlatDataList sampledIDs = SimpleRandomSampling.weightedSampling(observationWeights, n, true).toFlatDataList();
 
-            //We construct a new Dataframe from the sampledIDs
-            Dataframe sampledTrainingDataset = trainingData.getSubset(sampledIDs);
+            //We construct a view of the trainingData from the sampledIDs without copying the records
+            Dataframe sampledTrainingDataset = trainingData.getView(sampledIDs);
 
 
             AbstractClassifier mlclassifier = MLBuilder.create(weakClassifierTrainingParameters, configuration);
@@ -287,6 +380,69 @@ public abstract class AbstractBoostingBagging<MP extends AbstractBoostingBagging
         
     }
     
+    /**
+     * Trains the weak classifiers concurrently. This is possible when the weak 
+     * classifiers are independent, so the observation weights remain unchanged 
+     * and the training set does not need to be predicted between the rounds.
+     * 
+     * @param trainingData
+     * @param observationWeights 
+     */
+    private void fitIndependentWeakClassifiers(Dataframe trainingData, AssociativeArray observationWeights) {
+        Configuration configuration = knowledgeBase.getConfiguration();
+        TP trainingParameters = knowledgeBase.getTrainingParameters();
+        AbstractClassifier.AbstractTrainingParameters weakClassifierTrainingParameters = trainingParameters.getWeakClassifierTrainingParameters();
+        int totalWeakClassifiers = trainingParameters.getMaxWeakClassifiers();
+        int n = trainingData.size();
+        
+        //the samples are drawn sequentially to keep the results reproducible
+        List<FlatDataList> sampledIDs = new ArrayList<>(totalWeakClassifiers);
+        for(int i=0;i<totalWeakClassifiers;i++) {
+            sampledIDs.add(SimpleRandomSampling.weightedSampling(observationWeights, n, true).toFlatDataList());
+        }
+        
+        AbstractClassifier[] weakClassifiers = new AbstractClassifier[totalWeakClassifiers];
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, totalWeakClassifiers).boxed(), isParallelized()), i -> {
+            logger.debug("Training Weak learner {}", i);
+            
+            Dataframe sampledTrainingDataset = trainingData.getView(sampledIDs.get(i));
+            
+            AbstractClassifier mlclassifier = MLBuilder.create(weakClassifierTrainingParameters, configuration);
+            mlclassifier.fit(sampledTrainingDataset);
+            sampledTrainingDataset.close();
+            
+            weakClassifiers[i] = mlclassifier;
+        });
+        
+        //the weak classifiers are added on the bundle in the same order that they were sampled
+        int stored = 0;
+        for(int i=0;i<totalWeakClassifiers;i++) {
+            Status status = updateObservationAndClassifierWeights(trainingData, observationWeights);
+            if(status == Status.IGNORE) {
+                weakClassifiers[i].close();
+                continue;
+            }
+            bundle.put(STORAGE_INDICATOR + stored++, weakClassifiers[i]);
+            
+            if(status==Status.STOP) {
+                logger.debug("Skipping further training due to low error");
+                for(int j=i+1;j<totalWeakClassifiers;j++) {
+                    weakClassifiers[j].close();
+                }
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Returns whether the weak classifiers can be trained independently. When 
+     * true, the observation weights must not depend on the predictions of the 
+     * previous weak classifiers and the weak classifiers are trained concurrently.
+     * 
+     * @return 
+     */
+    protected abstract boolean hasIndependentWeakClassifiers();
+    
     /**
      * The status of the weight estimation process.
      */
@@ -16,6 +16,9 @@
 package com.datumbox.framework.core.machinelearning.common.abstracts.algorithms;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ConcurrencyConfiguration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
@@ -23,18 +26,18 @@ import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
+import com.datumbox.framework.common.utilities.RandomGenerator;
 import com.datumbox.framework.core.common.utilities.MapMethods;
 import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClusterer;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
-import com.datumbox.framework.core.statistics.sampling.SimpleRandomSampling;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+import java.util.stream.IntStream;
 
 
 /**
@@ -102,6 +105,14 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
         /** {@inheritDoc} */
         @Override
         protected abstract void remove(Record r);
+        
+        /**
+         * Returns a deep copy of the cluster which can be modified independently.
+         * The featureIds reference is shared.
+         * 
+         * @return 
+         */
+        protected abstract AbstractCluster copy();
     }
     
     /** 
@@ -213,6 +224,26 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
         //are generated and the observations are assigned randomly in it.
         private Initialization initializationMethod = Initialization.ONE_CLUSTER_PER_RECORD; 
         
+        /**
+         * The sampler used during training.
+         */
+        public enum Sampler {
+            /**
+             * The exact collapsed Gibbs sampler which visits the records sequentially.
+             */
+            COLLAPSED_GIBBS,
+            
+            /**
+             * Approximate collapsed Gibbs sampler which splits the records in one 
+             * shard per thread. Every shard samples its records against a local
+             * copy of the clusters and the clusters are rebuilt from the assignments
+             * at the end of every iteration.
+             */
+            SHARDED_GIBBS;
+        }
+        
+        private Sampler sampler = Sampler.COLLAPSED_GIBBS;
+        
         /**
          * Getter for Alpha hyperparameter.
          * 
@@ -267,6 +298,25 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
             this.initializationMethod = initializationMethod;
         }
         
+        /**
+         * Getter for the sampler that we use.
+         * 
+         * @return 
+         */
+        public Sampler getSampler() {
+            return sampler;
+        }
+        
+        /**
+         * Setter for the sampler that we use. The SHARDED_GIBBS sampler is used 
+         * only when the algorithm is parallelized.
+         * 
+         * @param sampler 
+         */
+        public void setSampler(Sampler sampler) {
+            this.sampler = sampler;
+        }
+        
     }
 
     /**
@@ -276,6 +326,7 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
      */
     protected AbstractDPMM(TP trainingParameters, Configuration configuration) {
         super(trainingParameters, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
 
     /**
@@ -285,10 +336,17 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
      */
     protected AbstractDPMM(String storageName, Configuration configuration) {
         super(storageName, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
     
     private boolean parallelized = true;
     
+    /**
+     * This executor is used for the parallel processing of streams with custom 
+     * Thread pool.
+     */
+    protected final ForkJoinStream streamExecutor;
+    
     /** {@inheritDoc} */
     @Override
     public boolean isParallelized() {
@@ -379,7 +437,9 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
     }
     
     /**
-     * Implementation of Collapsed Gibbs Sampling algorithm.
+     * Implementation of Collapsed Gibbs Sampling algorithm. The records and their
+     * assignments are kept in arrays during the sampling and they are written 
+     * back to the dataset at the end. 
      * 
      * @param dataset The list of points that we want to cluster
      */
@@ -391,34 +451,41 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
         
         double alpha = trainingParameters.getAlpha();
         
+        int n = dataset.size();
+        Integer[] recordIds = new Integer[n];
+        Record[] records = new Record[n];
+        int[] assignments = new int[n];
+        int i = 0;
+        for(Map.Entry<Integer, Record> e : dataset.entries()) {
+            recordIds[i] = e.getKey();
+            records[i] = e.getValue();
+            ++i;
+        }
+        
         //Initialize clusters, create a cluster for every xi
-        Integer newClusterId = clusterMap.size(); //start counting the Ids based on clusters in the list
+        int newClusterId = clusterMap.size(); //start counting the Ids based on clusters in the list
 
         if(trainingParameters.getInitializationMethod()==AbstractTrainingParameters.Initialization.ONE_CLUSTER_PER_RECORD) {
-            for(Map.Entry<Integer, Record> e : dataset.entries()) {
-                Integer rId = e.getKey();
-                Record r = e.getValue();
-                
+            for(i=0;i<n;++i) {
                 //generate a new cluster
                 CL cluster = createNewCluster(newClusterId);
-                cluster.add(r);
+                cluster.add(records[i]);
                 clusterMap.put(newClusterId, cluster);
 
                 //add the record in the new cluster
-                r = new Record(r.getX(), r.getY(), newClusterId, r.getYPredictedProbabilities());
-                dataset._unsafe_set(rId, r);
+                assignments[i] = newClusterId;
 
                 ++newClusterId;
             }            
         }
         else {
-            int numberOfNewClusters = (int)(Math.max(alpha, 1)*Math.log(dataset.size())); //a*log(n) clusters on average
+            int numberOfNewClusters = (int)(Math.max(alpha, 1)*Math.log(n)); //a*log(n) clusters on average
             if(numberOfNewClusters<=0) {
                 numberOfNewClusters=1;
             }
             
             //generate new clusters
-            for(int i=0;i<numberOfNewClusters;++i) {
+            for(int j=0;j<numberOfNewClusters;++j) {
                 //generate a new cluster
                 CL cluster = createNewCluster(newClusterId);
                 clusterMap.put(newClusterId, cluster);
@@ -427,23 +494,22 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
             }
             
             int clusterMapSize = newClusterId;
-            for(Map.Entry<Integer, Record> e : dataset.entries()) {
-                Integer rId = e.getKey();
-                Record r = e.getValue();
-                
-                Integer assignedClusterId = PHPMethods.mt_rand(0, clusterMapSize-1);
-                
-                r = new Record(r.getX(), r.getY(), assignedClusterId, r.getYPredictedProbabilities());
-                dataset._unsafe_set(rId, r);
+            for(i=0;i<n;++i) {
+                int assignedClusterId = PHPMethods.mt_rand(0, clusterMapSize-1);
+                assignments[i] = assignedClusterId;
                 
                 CL c = getFromClusterMap(assignedClusterId, clusterMap);
-                c.add(r);
+                c.add(records[i]);
                 clusterMap.put(assignedClusterId, c);
             }
         }
-
-                
-        int n = clusterMap.size();
+        
+        //in parallel mode the records are split in one shard per thread
+        ConcurrencyConfiguration concurrencyConfiguration = knowledgeBase.getConfiguration().getConcurrencyConfiguration();
+        int shards = 1;
+        if(trainingParameters.getSampler()==AbstractTrainingParameters.Sampler.SHARDED_GIBBS && isParallelized() && concurrencyConfiguration.isParallelized()) {
+            shards = Math.min(concurrencyConfiguration.getMaxNumberOfThreadsPerTask(), n);
+        }
         
         int maxIterations = trainingParameters.getMaxIterations();
         
@@ -453,97 +519,240 @@ public abstract class AbstractDPMM<CL extends AbstractDPMM.AbstractCluster, MP e
             
             logger.debug("Iteration {}", iteration);
             
-            noChangeMade=true;
-            for(Map.Entry<Integer, Record> e : dataset.entries()) {
-                Integer rId = e.getKey();
-                Record r = e.getValue();
-                
-                Integer pointClusterId = (Integer) r.getYPredicted();
-                CL ci = getFromClusterMap(pointClusterId, clusterMap);
-                
-                //remove the point from the cluster
-                ci.remove(r);
-                
-                //if empty cluster remove it
-                if(ci.size()==0) {
-                    clusterMap.remove(pointClusterId);
-                }
-                else {
-                    clusterMap.put(pointClusterId, ci);
-                }
-                
-                AssociativeArray condProbCiGivenXiAndOtherCi = clusterProbabilities(r, n, clusterMap);
-                                
-                //Calculate the probabilities of assigning the point to a new cluster
-                //compute P*(X[i]) = P(X[i]|λ)
-                
-                CL cNew = createNewCluster(newClusterId);
-                
-                double priorLogPredictive = cNew.posteriorLogPdf(r);
-
-                //compute P(z[i] = * | z[-i], Data) = α/(α+N-1)
-                double probNewCluster = alpha/(alpha+n-1.0);
-
-                condProbCiGivenXiAndOtherCi.put(newClusterId, priorLogPredictive+Math.log(probNewCluster));
-                
-                //normalize probabilities P(z[i])
-                Descriptives.normalizeExp(condProbCiGivenXiAndOtherCi);
-                
-                Integer sampledClusterId = (Integer) SimpleRandomSampling.weightedSampling(condProbCiGivenXiAndOtherCi, 1, true).iterator().next();
-                //condProbCiGivenXiAndOtherCi=null;
-                
-                //Add Xi back to the sampled AbstractCluster
-                if(Objects.equals(sampledClusterId, newClusterId)) { //if new cluster
-                    //add the record in the new cluster
-                    r = new Record(r.getX(), r.getY(), newClusterId, r.getYPredictedProbabilities());
-                    dataset._unsafe_set(rId, r);
-                    
-                    cNew.add(r);
-                    
-                    clusterMap.put(newClusterId, cNew);
-                    
-                    noChangeMade=false;
-                    
-                    ++newClusterId;
-                }
-                else {
-                    if(!Objects.equals(pointClusterId, sampledClusterId)) { //if it assigned in a different cluster update the record
-                        r = new Record(r.getX(), r.getY(), sampledClusterId, r.getYPredictedProbabilities());
-                        dataset._unsafe_set(rId, r);
-                        noChangeMade=false;
-                    }
-                    
-                    CL c = getFromClusterMap(sampledClusterId, clusterMap);
-                    c.add(r); //add it to the cluster (or just add it back)
-                    clusterMap.put(sampledClusterId, c);
-                }
-                
+            int changedCounter;
+            if(shards == 1) {
+                int[] nextClusterId = {newClusterId};
+                changedCounter = sampleRecords(clusterMap, null, records, assignments, 0, n, n, () -> nextClusterId[0]++, RandomGenerator.getThreadLocalRandom());
+                newClusterId = nextClusterId[0];
+            }
+            else {
+                int[] nextClusterId = {newClusterId};
+                changedCounter = shardedSampling(clusterMap, records, assignments, shards, nextClusterId);
+                newClusterId = nextClusterId[0];
             }
+            noChangeMade = changedCounter == 0;
             
             ++iteration;
         }
         
+        //store the final assignments on the dataset
+        for(i=0;i<n;++i) {
+            Record r = records[i];
+            dataset._unsafe_set(recordIds[i], new Record(r.getX(), r.getY(), assignments[i], r.getYPredictedProbabilities()));
+        }
+        
         return iteration;
     }
     
-    private AssociativeArray clusterProbabilities(Record r, int n, Map<Integer, CL> clusterMap) {
-        Map<Integer, Double> condProbCiGivenXiAndOtherCi = new HashMap<>();
-        double alpha = knowledgeBase.getTrainingParameters().getAlpha();
+    /**
+     * Performs one iteration of the sharded sampler. The records are split in 
+     * contiguous shards and every shard samples its records in parallel against
+     * a local view of the clusters. The views share the global clusters, which 
+     * are only read, and a shard copies a cluster the first time it modifies it.
+     * The new clusters of every shard receive non-overlapping ids. Once all the 
+     * shards finish, the global clusters are rebuilt from the assignments.
+     * 
+     * @param clusterMap
+     * @param records
+     * @param assignments
+     * @param shards
+     * @param nextClusterId
+     * @return 
+     */
+    private int shardedSampling(Map<Integer, CL> clusterMap, Record[] records, int[] assignments, int shards, int[] nextClusterId) {
+        int n = records.length;
         
-        //Probabilities that appear on https://www.cs.cmu.edu/~kbe/dp_tutorial.pdf
-        //Calculate the probabilities of assigning the point for every cluster
+        //take a read-only snapshot of the global clusters
+        Map<Integer, CL> snapshot = new HashMap<>();
         for(Integer clusterId : clusterMap.keySet()) {
-            AbstractCluster ck = getFromClusterMap(clusterId, clusterMap);
-            //compute P_k(X[i]) = P(X[i] | X[-i] = k)
-            double marginalLogLikelihoodXi = ck.posteriorLogPdf(r);
-            //set N_{k,-i} = dim({X[-i] = k})
-            //compute P(z[i] = k | z[-i], Data) = N_{k,-i}/(a+N-1)
-            double mixingXi = ck.size()/(alpha+n-1.0);
+            snapshot.put(clusterId, getFromClusterMap(clusterId, clusterMap));
+        }
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        long[] seeds = new long[shards];
+        for(int shard=0;shard<shards;++shard) {
+            seeds[shard] = random.nextLong();
+        }
+        
+        int baseClusterId = nextClusterId[0];
+        int[] changedCounters = new int[shards];
+        int[] createdCounters = new int[shards];
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, shards).boxed(), true), shard -> {
+            Map<Integer, CL> localClusterMap = new HashMap<>(snapshot);
+            Set<Integer> sharedClusterIds = new HashSet<>(snapshot.keySet());
+            
+            //the new ids of every shard are interleaved to avoid collisions
+            int[] created = {0};
+            changedCounters[shard] = sampleRecords(localClusterMap, sharedClusterIds, records, assignments, shard*n/shards, (shard+1)*n/shards, n, 
+                    () -> baseClusterId + shard + shards*(created[0]++), new Random(seeds[shard]));
+            createdCounters[shard] = created[0];
+        });
+        
+        int maxCreated = 0;
+        int changedCounter = 0;
+        for(int shard=0;shard<shards;++shard) {
+            maxCreated = Math.max(maxCreated, createdCounters[shard]);
+            changedCounter += changedCounters[shard];
+        }
+        nextClusterId[0] = baseClusterId + shards*maxCreated;
+        
+        //rebuild the global clusters from the assignments
+        Map<Integer, List<Integer>> clusterRecords = new HashMap<>();
+        for(int i=0;i<n;++i) {
+            clusterRecords.computeIfAbsent(assignments[i], key -> new ArrayList<>()).add(i);
+        }
+        Map<Integer, CL> newClusters = new ConcurrentHashMap<>();
+        streamExecutor.forEach(StreamMethods.stream(clusterRecords.entrySet().stream(), true), entry -> {
+            Integer clusterId = entry.getKey();
+            CL c = createNewCluster(clusterId);
+            for(Integer i : entry.getValue()) {
+                c.add(records[i]);
+            }
+            newClusters.put(clusterId, c);
+        });
+        clusterMap.clear();
+        clusterMap.putAll(newClusters);
+        
+        return changedCounter;
+    }
+    
+    /**
+     * Samples the assignments of the records in the [from, to) range. The clusters
+     * of the map are updated in place, except those with ids in sharedClusterIds
+     * which are replaced by a copy before their first modification.
+     * 
+     * @param clusterMap
+     * @param sharedClusterIds
+     * @param records
+     * @param assignments
+     * @param from
+     * @param to
+     * @param n
+     * @param newClusterIds
+     * @param random
+     * @return 
+     */
+    private int sampleRecords(Map<Integer, CL> clusterMap, Set<Integer> sharedClusterIds, Record[] records, int[] assignments, int from, int to, int n, IntSupplier newClusterIds, Random random) {
+        double alpha = knowledgeBase.getTrainingParameters().getAlpha();
+        
+        //the prior cluster is never modified, so a single one is used to estimate the probability of a new cluster
+        CL priorCluster = createNewCluster(-1);
+        
+        //compute P(z[i] = * | z[-i], Data) = α/(α+N-1)
+        double logProbNewCluster = Math.log(alpha/(alpha+n-1.0));
+        
+        int changedCounter = 0;
+        int[] clusterIds = new int[0];
+        double[] logProbabilities = new double[0];
+        for(int i=from;i<to;++i) {
+            Record r = records[i];
+            
+            int pointClusterId = assignments[i];
+            CL ci = getModifiableCluster(pointClusterId, clusterMap, sharedClusterIds);
+            
+            //remove the point from the cluster
+            ci.remove(r);
+            
+            //if empty cluster remove it
+            if(ci.size()==0) {
+                clusterMap.remove(pointClusterId);
+            }
+            else {
+                clusterMap.put(pointClusterId, ci);
+            }
+            
+            int numberOfClusters = clusterMap.size();
+            if(clusterIds.length<numberOfClusters+1) {
+                clusterIds = new int[2*(numberOfClusters+1)];
+                logProbabilities = new double[2*(numberOfClusters+1)];
+            }
+            
+            //Probabilities that appear on https://www.cs.cmu.edu/~kbe/dp_tutorial.pdf
+            //Calculate the probabilities of assigning the point for every cluster
+            double maxLogProbability = Double.NEGATIVE_INFINITY;
+            int k = 0;
+            for(Integer clusterId : clusterMap.keySet()) {
+                AbstractCluster ck = getFromClusterMap(clusterId, clusterMap);
+                //compute P_k(X[i]) = P(X[i] | X[-i] = k)
+                double marginalLogLikelihoodXi = ck.posteriorLogPdf(r);
+                //set N_{k,-i} = dim({X[-i] = k})
+                //compute P(z[i] = k | z[-i], Data) = N_{k,-i}/(a+N-1)
+                double mixingXi = ck.size()/(alpha+n-1.0);
+                
+                clusterIds[k] = clusterId;
+                logProbabilities[k] = marginalLogLikelihoodXi+Math.log(mixingXi);
+                maxLogProbability = Math.max(maxLogProbability, logProbabilities[k]);
+                ++k;
+            }
+            
+            //Calculate the probabilities of assigning the point to a new cluster
+            //compute P*(X[i]) = P(X[i]|λ)
+            clusterIds[k] = -1;
+            logProbabilities[k] = priorCluster.posteriorLogPdf(r)+logProbNewCluster;
+            maxLogProbability = Math.max(maxLogProbability, logProbabilities[k]);
+            ++k;
             
-            condProbCiGivenXiAndOtherCi.put(clusterId, marginalLogLikelihoodXi+Math.log(mixingXi)); //concurrent map and non-overlapping keys for each thread
+            //normalize probabilities P(z[i])
+            double sum = 0.0;
+            for(int j=0;j<k;++j) {
+                logProbabilities[j] = Math.exp(logProbabilities[j]-maxLogProbability);
+                sum += logProbabilities[j];
+            }
+            
+            double randomPoint = random.nextDouble()*sum;
+            int sampled = k-1;
+            double cumulative = 0.0;
+            for(int j=0;j<k;++j) {
+                cumulative += logProbabilities[j];
+                if(cumulative>=randomPoint) {
+                    sampled = j;
+                    break;
+                }
+            }
+            
+            //Add Xi back to the sampled AbstractCluster
+            if(clusterIds[sampled] == -1) { //if new cluster
+                int newClusterId = newClusterIds.getAsInt();
+                CL cNew = createNewCluster(newClusterId);
+                cNew.add(r);
+                clusterMap.put(newClusterId, cNew);
+                
+                assignments[i] = newClusterId;
+                ++changedCounter;
+            }
+            else {
+                int sampledClusterId = clusterIds[sampled];
+                if(pointClusterId != sampledClusterId) { //if it assigned in a different cluster update the assignment
+                    assignments[i] = sampledClusterId;
+                    ++changedCounter;
+                }
+                
+                CL c = getModifiableCluster(sampledClusterId, clusterMap, sharedClusterIds);
+                c.add(r); //add it to the cluster (or just add it back)
+                clusterMap.put(sampledClusterId, c);
+            }
         }
         
-        return new AssociativeArray((Map)condProbCiGivenXiAndOtherCi);
+        return changedCounter;
+    }
+    
+    /**
+     * Returns a cluster of the map which can be modified. If the cluster is 
+     * shared with other threads, it is replaced in the map by a private copy.
+     * 
+     * @param clusterId
+     * @param clusterMap
+     * @param sharedClusterIds
+     * @return 
+     */
+    @SuppressWarnings("unchecked")
+    private CL getModifiableCluster(int clusterId, Map<Integer, CL> clusterMap, Set<Integer> sharedClusterIds) {
+        CL c = getFromClusterMap(clusterId, clusterMap);
+        if(sharedClusterIds != null && sharedClusterIds.remove(clusterId)) {
+            c = (CL) c.copy();
+            clusterMap.put(clusterId, c);
+        }
+        return c;
     }
     
     private Object getSelectedClusterFromScores(AssociativeArray clusterScores) {
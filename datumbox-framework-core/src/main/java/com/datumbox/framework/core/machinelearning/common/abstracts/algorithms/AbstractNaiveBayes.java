@@ -17,6 +17,7 @@ package com.datumbox.framework.core.machinelearning.common.abstracts.algorithms;
 
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.PerThreadAccumulator;
 import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
@@ -28,11 +29,16 @@ import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier.FeatureValues;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
+import org.apache.commons.math3.util.OpenIntToDoubleHashMap;
 
 import java.util.*;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
 
 
 /**
@@ -52,6 +58,16 @@ public abstract class AbstractNaiveBayes<MP extends AbstractNaiveBayes.AbstractM
         @BigMap(keyClass=List.class, valueClass=Double.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_MEMORY, concurrent=true)
         private Map<List<Object>, Double> logLikelihoods; //posterior log probabilities of features-classes combination
         
+        private Map<Object, Double> classCounts = new HashMap<>(); //number of training records of each class
+        
+        private Map<Object, Double> totalFeatureOccurrences = new HashMap<>(); //sum of the occurrences of all the features in each class
+        
+        @BigMap(keyClass=Object.class, valueClass=Integer.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_MEMORY, concurrent=true)
+        private Map<Object, Integer> featureIds; //the ids of the features of the vocabulary
+        
+        @BigMap(keyClass=List.class, valueClass=Double.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_MEMORY, concurrent=true)
+        private Map<List<Object>, Double> featureOccurrences; //occurrences of the features-classes combinations; the missing combinations have zero occurrences
+        
         /** 
          * @param storageEngine
          * @see AbstractTrainer.AbstractModelParameters#AbstractModelParameters(StorageEngine)
@@ -95,6 +111,78 @@ public abstract class AbstractNaiveBayes<MP extends AbstractNaiveBayes.AbstractM
         protected void setLogLikelihoods(Map<List<Object>, Double> logLikelihoods) {
             this.logLikelihoods = logLikelihoods;
         }
+        
+        /**
+         * Getter for the number of training records of each class.
+         * 
+         * @return 
+         */
+        public Map<Object, Double> getClassCounts() {
+            return classCounts;
+        }
+        
+        /**
+         * Setter for the number of training records of each class.
+         * 
+         * @param classCounts 
+         */
+        protected void setClassCounts(Map<Object, Double> classCounts) {
+            this.classCounts = classCounts;
+        }
+        
+        /**
+         * Getter for the sum of the occurrences of all the features in each class.
+         * 
+         * @return 
+         */
+        public Map<Object, Double> getTotalFeatureOccurrences() {
+            return totalFeatureOccurrences;
+        }
+        
+        /**
+         * Setter for the sum of the occurrences of all the features in each class.
+         * 
+         * @param totalFeatureOccurrences 
+         */
+        protected void setTotalFeatureOccurrences(Map<Object, Double> totalFeatureOccurrences) {
+            this.totalFeatureOccurrences = totalFeatureOccurrences;
+        }
+        
+        /**
+         * Getter for the ids of the features of the vocabulary.
+         * 
+         * @return 
+         */
+        public Map<Object, Integer> getFeatureIds() {
+            return featureIds;
+        }
+        
+        /**
+         * Setter for the ids of the features of the vocabulary.
+         * 
+         * @param featureIds 
+         */
+        protected void setFeatureIds(Map<Object, Integer> featureIds) {
+            this.featureIds = featureIds;
+        }
+        
+        /**
+         * Getter for the occurrences of the features-classes combinations.
+         * 
+         * @return 
+         */
+        public Map<List<Object>, Double> getFeatureOccurrences() {
+            return featureOccurrences;
+        }
+        
+        /**
+         * Setter for the occurrences of the features-classes combinations.
+         * 
+         * @param featureOccurrences 
+         */
+        protected void setFeatureOccurrences(Map<List<Object>, Double> featureOccurrences) {
+            this.featureOccurrences = featureOccurrences;
+        }
     } 
 
     /** {@inheritDoc} */
@@ -229,58 +317,197 @@ public abstract class AbstractNaiveBayes<MP extends AbstractNaiveBayes.AbstractM
         
         return new Prediction(predictedClass, predictionScores);
     }
+
+    /**
+     * Compiles the trained model to a CompiledLinearClassifier which predicts
+     * primitive feature vectors without allocations. The compiled classifier is
+     * a snapshot of the current parameters; it is not updated by partialFit(), 
+     * so the model must be compiled again after every update.
+     *
+     * @return
+     */
+    public CompiledLinearClassifier compile() {
+        boolean binarized = !knowledgeBase.getTrainingParameters().isMultiProbabilityWeighted() || isBinarized();
+        return compile(logLikelihood -> logLikelihood, Collections.emptyMap(), binarized?FeatureValues.BINARIZED_POSITIVE:FeatureValues.RAW);
+    }
+
+    /**
+     * Compiles the model by converting the stored likelihoods of the feature-class
+     * pairs to weights. The bias of every class is its log prior plus its offset.
+     *
+     * @param weightFunction
+     * @param biasOffsets
+     * @param featureValues
+     * @return
+     */
+    protected CompiledLinearClassifier compile(DoubleUnaryOperator weightFunction, Map<Object, Double> biasOffsets, FeatureValues featureValues) {
+        AbstractModelParameters modelParameters = knowledgeBase.getModelParameters();
+        Map<List<Object>, Double> logLikelihoods = modelParameters.getLogLikelihoods();
+        Map<Object, Double> logPriors = modelParameters.getLogPriors();
+
+        List<Object> classes = new ArrayList<>(modelParameters.getClasses());
+        int c = classes.size();
+        Map<Object, Integer> classIds = new HashMap<>();
+        double[] bias = new double[c];
+        for(int classId=0;classId<c;classId++) {
+            Object theClass = classes.get(classId);
+            classIds.put(theClass, classId);
+            bias[classId] = logPriors.get(theClass) + biasOffsets.getOrDefault(theClass, 0.0);
+        }
+
+        Map<Object, Integer> featureIds = new HashMap<>();
+        for(List<Object> featureClassTuple : logLikelihoods.keySet()) {
+            featureIds.putIfAbsent(featureClassTuple.get(0), featureIds.size());
+        }
+
+        double[] weights = new double[featureIds.size()*c];
+        for(Map.Entry<List<Object>, Double> entry : logLikelihoods.entrySet()) {
+            List<Object> featureClassTuple = entry.getKey();
+            int featureId = featureIds.get(featureClassTuple.get(0));
+            int classId = classIds.get(featureClassTuple.get(1));
+            weights[featureId*c+classId] = weightFunction.applyAsDouble(entry.getValue());
+        }
+
+        return new CompiledLinearClassifier(featureIds, classes, weights, bias, featureValues);
+    }
+    
+    /**
+     * Updates the model with new training data without retraining it from scratch. 
+     * The occurrences of the new records are added to the sufficient statistics 
+     * of the model and the parameters are re-estimated, so the model is identical 
+     * to the one trained on all the data at once. Previously unseen classes and 
+     * features are added to the model. The classifiers returned by compile() 
+     * before the update keep the previous parameters.
+     * 
+     * @param trainingData 
+     */
+    public void partialFit(Dataframe trainingData) {
+        logger.info("partialFit()");
+        
+        _fit(trainingData);
+    }
     
     /** {@inheritDoc} */
     @Override
     protected void _fit(Dataframe trainingData) {
+        updateSufficientStatistics(trainingData);
+        
+        //calculate prior log probabilities
         AbstractModelParameters modelParameters = knowledgeBase.getModelParameters();
-        int n = trainingData.size();
-        int d = trainingData.xColumnSize();
+        Map<Object, Double> logPriors = modelParameters.getLogPriors();
+        Map<Object, Double> classCounts = modelParameters.getClassCounts();
+        
+        double n = 0.0;
+        for(Double count : classCounts.values()) {
+            n += count;
+        }
+        for(Map.Entry<Object, Double> entry : classCounts.entrySet()) {
+            Object theClass = entry.getKey();
+            Double count = entry.getValue();
+            
+            //updated log priors
+            logPriors.put(theClass, Math.log(count/n));
+        }
         
+        estimateLikelihoods();
+    }
+    
+    /**
+     * Estimates the likelihoods of all the features-classes combinations from 
+     * the sufficient statistics of the model.
+     */
+    protected void estimateLikelihoods() {
+        AbstractModelParameters modelParameters = knowledgeBase.getModelParameters();
         Map<List<Object>, Double> logLikelihoods = modelParameters.getLogLikelihoods();
-        Map<Object, Double> logPriors = modelParameters.getLogPriors();
+        Map<List<Object>, Double> featureOccurrences = modelParameters.getFeatureOccurrences();
+        Map<Object, Double> totalFeatureOccurrences = modelParameters.getTotalFeatureOccurrences();
+        Map<Object, Integer> featureIds = modelParameters.getFeatureIds();
+        Set<Object> classesSet = modelParameters.getClasses();
+        int d = featureIds.size();
+        
+        //The math REQUIRE us to have scores for all classes to make the probabilities comparable.
+        streamExecutor.forEach(StreamMethods.stream(featureIds.keySet().stream(), isParallelized()), feature -> {
+            for(Object theClass : classesSet) {
+                List<Object> featureClassTuple = Arrays.asList(feature, theClass);
+                Double occurrences = featureOccurrences.getOrDefault(featureClassTuple, 0.0);
+                
+                //We perform laplace smoothing (also known as add-1)
+                Double smoothedProbability = (occurrences+1.0)/(totalFeatureOccurrences.get(theClass)+d); // the d is also known in NLP problems as the Vocabulary size. 
+                
+                logLikelihoods.put(featureClassTuple, Math.log( smoothedProbability )); //the key is unique across threads and the map is concurrent
+            }
+        });
+    }
+    
+    /**
+     * Adds the class counts and the feature occurrences of the provided data to 
+     * the sufficient statistics of the model. Every thread counts the occurrences
+     * of its records in its own sparse primitive maps, indexed by the ids of the 
+     * features, and the maps are merged once all the records are processed.
+     * 
+     * @param trainingData 
+     */
+    private void updateSufficientStatistics(Dataframe trainingData) {
+        AbstractModelParameters modelParameters = knowledgeBase.getModelParameters();
+        Map<List<Object>, Double> featureOccurrences = modelParameters.getFeatureOccurrences();
+        Map<Object, Double> totalFeatureOccurrences = modelParameters.getTotalFeatureOccurrences();
+        Map<Object, Double> classCounts = modelParameters.getClassCounts();
+        Map<Object, Integer> featureIds = modelParameters.getFeatureIds();
         Set<Object> classesSet = modelParameters.getClasses();
         boolean isBinarized = isBinarized();
         
         //calculate first statistics about the classes
-        Map<Object, Double> totalFeatureOccurrencesForEachClass = new HashMap<>();
         for(Record r : trainingData) { 
             Object theClass=r.getY();
             
             if(classesSet.add(theClass)) { //is it new class? add it
-                logPriors.put(theClass, 1.0);  
-                totalFeatureOccurrencesForEachClass.put(theClass, 0.0);
+                classCounts.put(theClass, 1.0);  
+                totalFeatureOccurrences.put(theClass, 0.0);
             }
             else { //already exists? increase counter
-                logPriors.put(theClass,logPriors.get(theClass)+1.0);  
+                classCounts.put(theClass, classCounts.get(theClass)+1.0);  
             }
         }
         
-        //Loop through all the classes to ensure that the feature-class combination is initialized for ALL the classes
-        //The math REQUIRE us to have scores for all classes to make the probabilities comparable.
         /*
             Implementation note:
             The code below uses the metadata from the Dataframe to avoid looping through all the data. 
             This means that if the metadata are stale (contain more columns than the actual data due to 
-            updates/removes) we will initialize more parameters here. Nevertheless this should not have 
+            updates/removes) we will add more features in the vocabulary. Nevertheless this should not have 
             any effects on the results of the algorithm since the scores will be the same in all classes
             and it will be taken care by the normalization.
         */
-        streamExecutor.forEach(StreamMethods.stream(trainingData.getXDataTypes().keySet().stream(), isParallelized()), feature -> {
-            for(Object theClass : classesSet) {
-                List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-                logLikelihoods.put(featureClassTuple, 0.0); //the key is unique across threads and the map is concurrent
-            }
-        });
+        for(Object feature : trainingData.getXDataTypes().keySet()) {
+            featureIds.putIfAbsent(feature, featureIds.size()); //the known features keep their ids
+        }
+        
+        Object[] classes = classesSet.toArray();
+        int c = classes.length;
+        int d = featureIds.size();
+        Map<Object, Integer> classIds = new HashMap<>();
+        for(int classId=0;classId<c;classId++) {
+            classIds.put(classes[classId], classId);
+        }
         
+        //The counts of each class are stored in a sparse row of the table which is allocated the first time the thread sees the class. The last row stores the total occurrences of every class.
+        PerThreadAccumulator<OpenIntToDoubleHashMap[]> counts = new PerThreadAccumulator<>(() -> {
+            OpenIntToDoubleHashMap[] table = new OpenIntToDoubleHashMap[c+1];
+            table[c] = new OpenIntToDoubleHashMap(0.0);
+            return table;
+        });
         
         //now calculate the statistics of features
         streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> {
-            Object theClass = r.getY();
+            int classId = classIds.get(r.getY());
+            OpenIntToDoubleHashMap[] table = counts.get();
+            if(table[classId] == null) {
+                table[classId] = new OpenIntToDoubleHashMap(0.0);
+            }
+            OpenIntToDoubleHashMap classRow = table[classId];
+            
             //store the occurrances of the features
             double sumOfOccurrences = 0.0;
             for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
-                Object feature = entry.getKey();
                 Double occurrences=TypeInference.toDouble(entry.getValue());
                 
                 if(occurrences!= null && occurrences>0.0) {
@@ -288,41 +515,63 @@ public abstract class AbstractNaiveBayes<MP extends AbstractNaiveBayes.AbstractM
                         occurrences=1.0;
                     }
                     
-                    List<Object> featureClassTuple = Arrays.asList(feature, theClass);
-                    logLikelihoods.put(featureClassTuple, logLikelihoods.get(featureClassTuple)+occurrences); //each thread updates a unique key and the map is cuncurrent
-                    
+                    int featureId = featureIds.get(entry.getKey());
+                    classRow.put(featureId, classRow.get(featureId)+occurrences);
                     sumOfOccurrences+=occurrences;
                 }
             }
-            synchronized(totalFeatureOccurrencesForEachClass) {
-                totalFeatureOccurrencesForEachClass.put(theClass,totalFeatureOccurrencesForEachClass.get(theClass)+sumOfOccurrences);
-            }
+            table[c].put(classId, table[c].get(classId)+sumOfOccurrences);
         });
         
-        //calculate prior log probabilities
-        for(Map.Entry<Object, Double> entry : logPriors.entrySet()) {
-            Object theClass = entry.getKey();
-            Double count = entry.getValue();
-            
-            //updated log priors
-            logPriors.put(theClass, Math.log(count/n));
+        //merge the tables of all the threads
+        OpenIntToDoubleHashMap[] mergedCounts = new OpenIntToDoubleHashMap[c+1];
+        for(OpenIntToDoubleHashMap[] table : counts.buffers()) {
+            for(int k=0;k<=c;k++) {
+                if(table[k] == null) {
+                    continue;
+                }
+                
+                if(mergedCounts[k] == null) {
+                    mergedCounts[k] = table[k];
+                }
+                else {
+                    OpenIntToDoubleHashMap mergedRow = mergedCounts[k];
+                    OpenIntToDoubleHashMap.Iterator it = table[k].iterator();
+                    while(it.hasNext()) {
+                        it.advance();
+                        mergedRow.put(it.key(), mergedRow.get(it.key())+it.value());
+                    }
+                }
+            }
         }
         
+        //add the merged counts to the sufficient statistics of the model
+        if(mergedCounts[c] != null) {
+            for(int classId=0;classId<c;classId++) {
+                Object theClass = classes[classId];
+                totalFeatureOccurrences.put(theClass, totalFeatureOccurrences.get(theClass)+mergedCounts[c].get(classId));
+            }
+        }
+        
+        Object[] features = new Object[d];
+        for(Map.Entry<Object, Integer> entry : featureIds.entrySet()) {
+            features[entry.getValue()] = entry.getKey();
+        }
         
-        //update log likelihood
-        streamExecutor.forEach(StreamMethods.stream(logLikelihoods.entrySet().stream(), isParallelized()), featureClassCounts -> {
-            List<Object> featureClassTuple = featureClassCounts.getKey();
-            Object theClass = featureClassTuple.get(1);
-            Double occurrences = featureClassCounts.getValue();
-            if(occurrences==null) {
-                occurrences=0.0;
+        //only the non-zero counts of every class are visited
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, c).boxed(), isParallelized()), classId -> {
+            if(mergedCounts[classId] == null) {
+                return;
             }
-
-            //We perform laplace smoothing (also known as add-1)
-            Double smoothedProbability = (occurrences+1.0)/(totalFeatureOccurrencesForEachClass.get(theClass)+d); // the d is also known in NLP problems as the Vocabulary size. 
-            
-            logLikelihoods.put(featureClassTuple, Math.log( smoothedProbability )); //calculate the logScore
-        }); 
+            OpenIntToDoubleHashMap.Iterator it = mergedCounts[classId].iterator();
+            while(it.hasNext()) {
+                it.advance();
+                if(it.value() > 0.0) {
+                    List<Object> featureClassTuple = Arrays.asList(features[it.key()], classes[classId]);
+                    featureOccurrences.put(featureClassTuple, featureOccurrences.getOrDefault(featureClassTuple, 0.0)+it.value()); //each thread updates a unique key and the map is concurrent
+                }
+            }
+        });
     }
     
-}
\ No newline at end of file
+}
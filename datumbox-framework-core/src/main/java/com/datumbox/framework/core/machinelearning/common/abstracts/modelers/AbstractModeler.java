@@ -16,8 +16,19 @@
 package com.datumbox.framework.core.machinelearning.common.abstracts.modelers;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
+import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable.Prediction;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Base Class for Machine Learning algorithms.
@@ -28,6 +39,11 @@ import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrai
  */
 public abstract class AbstractModeler<MP extends AbstractModeler.AbstractModelParameters, TP extends AbstractModeler.AbstractTrainingParameters> extends AbstractTrainer<MP, TP> {
 
+    /**
+     * The default number of records which are predicted together by the streaming methods.
+     */
+    public static final int DEFAULT_PREDICTION_BATCH_SIZE = 1000;
+
     /**
      * @param trainingParameters
      * @param configuration
@@ -58,10 +74,148 @@ public abstract class AbstractModeler<MP extends AbstractModeler.AbstractModelPa
         _predict(newData);
     }
 
+    /**
+     * Calculates lazily the predictions of a Stream of records. The returned
+     * Stream contains one Prediction per record in the same order.
+     *
+     * @param records
+     * @return
+     * @see #predict(Stream, int)
+     */
+    public Stream<Prediction> predict(Stream<Record> records) {
+        return predict(records, DEFAULT_PREDICTION_BATCH_SIZE);
+    }
+
+    /**
+     * Calculates lazily the predictions of a Stream of records. The records are
+     * pulled from the source in micro-batches of batchSize records, only when the
+     * returned Stream is consumed. Thus at most one micro-batch is held in memory
+     * and the source can be unbounded. The returned Stream contains one Prediction
+     * per record in the same order and closing it closes the source.
+     *
+     * @param records
+     * @param batchSize
+     * @return
+     */
+    public Stream<Prediction> predict(Stream<Record> records, int batchSize) {
+        logger.info("predict()");
+
+        Iterator<Prediction> it = new MicroBatchIterator<>(records.iterator(), r -> r, batchSize);
+        return StreamMethods.stream(it, false).onClose(records::close);
+    }
+
+    /**
+     * Calculates lazily the predictions of the provided x values.
+     *
+     * @param xData
+     * @return
+     * @see #predict(Iterator, int)
+     */
+    public Iterator<Prediction> predict(Iterator<AssociativeArray> xData) {
+        return predict(xData, DEFAULT_PREDICTION_BATCH_SIZE);
+    }
+
+    /**
+     * Calculates lazily the predictions of the provided x values. The values are
+     * pulled from the source in micro-batches of batchSize records, only when the
+     * returned Iterator is consumed. The returned Iterator contains one Prediction
+     * per value in the same order.
+     *
+     * @param xData
+     * @param batchSize
+     * @return
+     */
+    public Iterator<Prediction> predict(Iterator<AssociativeArray> xData, int batchSize) {
+        logger.info("predict()");
+
+        return new MicroBatchIterator<>(xData, x -> new Record(x, null), batchSize);
+    }
+
     /**
      * Estimates the predictions for a new Dataframe.
      *
      * @param newData
      */
     protected abstract void _predict(Dataframe newData);
+
+    /**
+     * Estimates the predictions of a micro-batch of records. The algorithms which
+     * are PredictParallelizable predict the records directly; the rest store the
+     * micro-batch in a temporary Dataframe.
+     *
+     * @param batch
+     * @return
+     */
+    protected List<Prediction> _predictBatch(List<Record> batch) {
+        if(this instanceof PredictParallelizable) {
+            PredictParallelizable modeler = (PredictParallelizable) this;
+            ForkJoinStream streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
+            return streamExecutor.collect(StreamMethods.stream(batch.stream(), modeler.isParallelized()).map(modeler::_predictRecord), Collectors.toList());
+        }
+
+        Dataframe batchData = new Dataframe(knowledgeBase.getConfiguration());
+        try {
+            Integer[] rIds = new Integer[batch.size()];
+            int i = 0;
+            for(Record r : batch) {
+                rIds[i++] = batchData.addRecord(r);
+            }
+
+            _predict(batchData);
+
+            List<Prediction> predictions = new ArrayList<>(rIds.length);
+            for(Integer rId : rIds) {
+                Record r = batchData.get(rId);
+                predictions.add(new Prediction(r.getYPredicted(), r.getYPredictedProbabilities()));
+            }
+            return predictions;
+        }
+        finally {
+            batchData.close();
+        }
+    }
+
+    /**
+     * Iterator which pulls the source in micro-batches and returns their predictions.
+     *
+     * @param <T>
+     */
+    private class MicroBatchIterator<T> implements Iterator<Prediction> {
+        private final Iterator<T> source;
+        private final Function<T, Record> converter;
+        private final int batchSize;
+
+        private Iterator<Prediction> predictions = Collections.emptyIterator();
+
+        private MicroBatchIterator(Iterator<T> source, Function<T, Record> converter, int batchSize) {
+            if(batchSize <= 0) {
+                throw new IllegalArgumentException("Invalid batch size.");
+            }
+            this.source = source;
+            this.converter = converter;
+            this.batchSize = batchSize;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            if(!predictions.hasNext() && source.hasNext()) {
+                List<Record> batch = new ArrayList<>(batchSize);
+                while(batch.size() < batchSize && source.hasNext()) {
+                    batch.add(converter.apply(source.next()));
+                }
+                predictions = _predictBatch(batch).iterator();
+            }
+            return predictions.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Prediction next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return predictions.next();
+        }
+    }
 }
@@ -87,7 +87,8 @@ public abstract class AbstractSplitter {
     }
 
     /**
-     * Produces a series of train/test splits on the provided dataframe.
+     * Produces a series of train/test splits on the provided dataframe. The
+     * splits are views of the dataframe, so they must be closed before it.
      *
      * @param dataset
      * @return
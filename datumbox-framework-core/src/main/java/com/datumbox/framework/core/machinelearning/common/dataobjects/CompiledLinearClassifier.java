@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.machinelearning.common.dataobjects;
+
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractCompiledClassifier;
+
+import java.util.*;
+
+/**
+ * Compiled form of the linear classifiers. The score of every class is the sum of
+ * its bias and the weights of the features multiplied by their values, and the
+ * scores are converted to probabilities with the softmax function. The weight of
+ * a feature-class pair is stored in position featureId*C+classId.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CompiledLinearClassifier extends AbstractCompiledClassifier {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The way that the values of the features are used by the model.
+     */
+    public enum FeatureValues {
+        /**
+         * The values are used as they are.
+         */
+        RAW,
+
+        /**
+         * The positive values are replaced by 1.
+         */
+        BINARIZED_POSITIVE,
+
+        /**
+         * All the non-zero values are replaced by 1.
+         */
+        BINARIZED;
+    }
+
+    private final double[] weights;
+
+    private final double[] bias;
+
+    private final FeatureValues featureValues;
+
+    /**
+     * Public constructor of the compiled classifier.
+     *
+     * @param featureIds
+     * @param classes
+     * @param weights
+     * @param bias
+     * @param featureValues
+     */
+    public CompiledLinearClassifier(Map<Object, Integer> featureIds, List<Object> classes, double[] weights, double[] bias, FeatureValues featureValues) {
+        super(featureIds, classes);
+        if(weights.length != featureIds.size()*classes.size() || bias.length != classes.size()) {
+            throw new IllegalArgumentException("The dimensions of the weights do not match the features and the classes.");
+        }
+        this.weights = weights;
+        this.bias = bias;
+        this.featureValues = featureValues;
+    }
+
+    /**
+     * Compiles a WeightMatrix. The weights of the biasFeature, if it is not null,
+     * are used as the bias of the classes and the feature is removed from the
+     * dictionary.
+     *
+     * @param matrix
+     * @param biasFeature
+     * @param featureValues
+     * @return
+     */
+    public static CompiledLinearClassifier compile(WeightMatrix matrix, Object biasFeature, FeatureValues featureValues) {
+        int c = matrix.getNumberOfClasses();
+        double[] matrixWeights = matrix.getWeights();
+
+        double[] bias = new double[c];
+        int biasId = (biasFeature != null) ? matrix.getFeatureId(biasFeature) : -1;
+        if(biasId >= 0) {
+            System.arraycopy(matrixWeights, matrix.index(biasId, 0), bias, 0, c);
+        }
+
+        Map<Object, Integer> featureIds = new HashMap<>();
+        double[] weights = new double[(matrix.getNumberOfFeatures() - (biasId >= 0 ? 1 : 0))*c];
+        for(Object feature : matrix.getFeatures()) {
+            int matrixFeatureId = matrix.getFeatureId(feature);
+            if(matrixFeatureId == biasId) {
+                continue;
+            }
+            int featureId = featureIds.size();
+            featureIds.put(feature, featureId);
+            System.arraycopy(matrixWeights, matrix.index(matrixFeatureId, 0), weights, featureId*c, c);
+        }
+
+        return new CompiledLinearClassifier(featureIds, matrix.getClasses(), weights, bias, featureValues);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initialize(double[] buffer) {
+        System.arraycopy(bias, 0, buffer, 0, buffer.length);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void accumulate(int featureId, double value, double[] buffer) {
+        if(featureValues == FeatureValues.BINARIZED || (featureValues == FeatureValues.BINARIZED_POSITIVE && value > 0.0)) {
+            value = 1.0;
+        }
+
+        int c = buffer.length;
+        int offset = featureId*c;
+        for(int classId=0;classId<c;classId++) {
+            buffer[classId] += weights[offset+classId]*value;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int finish(double[] buffer) {
+        //select the class and apply the softmax. Prevents numeric underflow by subtracting the max.
+        int selectedClassId = 0;
+        for(int classId=1;classId<buffer.length;classId++) {
+            if(buffer[classId] > buffer[selectedClassId]) {
+                selectedClassId = classId;
+            }
+        }
+
+        double max = buffer[selectedClassId];
+        double sum = 0.0;
+        for(int classId=0;classId<buffer.length;classId++) {
+            buffer[classId] = Math.exp(buffer[classId]-max);
+            sum += buffer[classId];
+        }
+        for(int classId=0;classId<buffer.length;classId++) {
+            buffer[classId] /= sum;
+        }
+
+        return selectedClassId;
+    }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.machinelearning.common.dataobjects;
+
+import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractCompiledClassifier;
+
+import java.util.*;
+
+/**
+ * Compiled form of the Ordinal Regression. The classes are ordered and the
+ * probability of every class is the difference of the logistic functions of its
+ * threshold and the threshold of its previous class.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CompiledOrdinalClassifier extends AbstractCompiledClassifier {
+    private static final long serialVersionUID = 1L;
+
+    private final double[] weights;
+
+    private final double[] thitas;
+
+    /**
+     * Public constructor of the compiled classifier. The classes and their
+     * thitas must be provided in ascending order.
+     *
+     * @param featureIds
+     * @param classes
+     * @param weights
+     * @param thitas
+     */
+    public CompiledOrdinalClassifier(Map<Object, Integer> featureIds, List<Object> classes, double[] weights, double[] thitas) {
+        super(featureIds, classes);
+        if(weights.length != featureIds.size() || thitas.length != classes.size()) {
+            throw new IllegalArgumentException("The dimensions of the weights do not match the features and the classes.");
+        }
+        this.weights = weights;
+        this.thitas = thitas;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void initialize(double[] buffer) {
+        buffer[0] = 0.0; //the first cell holds the dot product until the end
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void accumulate(int featureId, double value, double[] buffer) {
+        buffer[0] += weights[featureId]*value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int finish(double[] buffer) {
+        double xTw = buffer[0];
+
+        int selectedClassId = 0;
+        double previousG = 0.0; //the left bound thita0 is equal to -inf
+        for(int classId=0;classId<buffer.length;classId++) {
+            double g = g(thitas[classId]-xTw);
+            buffer[classId] = g - previousG;
+            previousG = g;
+
+            if(buffer[classId] > buffer[selectedClassId]) {
+                selectedClassId = classId;
+            }
+        }
+
+        return selectedClassId;
+    }
+
+    private double g(double z) {
+        if(z>30) {
+            return 1.0;
+        }
+        else if(z<-30) {
+            return 0.0;
+        }
+        return 1.0/(1.0+Math.exp(-z));
+    }
+
+}
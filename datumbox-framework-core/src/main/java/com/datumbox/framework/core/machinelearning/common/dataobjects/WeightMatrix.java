@@ -0,0 +1,265 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.machinelearning.common.dataobjects;
+
+import com.datumbox.framework.common.interfaces.Copyable;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The WeightMatrix stores the feature-class weights of linear models in a dense
+ * primitive array. The features and the classes are mapped to consecutive integer
+ * ids and the weight of a feature-class pair is stored in position
+ * featureId*C+classId. This avoids the boxing, the tuple allocations and the
+ * hash lookups of the Map based representations in the hot loops of the algorithms.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class WeightMatrix implements Serializable, Copyable<WeightMatrix> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maps the features to their ids.
+     */
+    private final Map<Object, Integer> featureIds;
+
+    /**
+     * Maps the classes to their ids.
+     */
+    private final Map<Object, Integer> classIds;
+
+    /**
+     * The list of classes ordered by their ids.
+     */
+    private final List<Object> classes;
+
+    /**
+     * The weights of the feature-class pairs.
+     */
+    private final double[] weights;
+
+    /**
+     * Public constructor which initializes all the weights to zero. The ids of
+     * the features and classes follow the iteration order of the provided
+     * collections.
+     *
+     * @param features
+     * @param classes
+     */
+    public WeightMatrix(Collection<Object> features, Collection<Object> classes) {
+        this.featureIds = new HashMap<>(features.size()*4/3+1);
+        for(Object feature : features) {
+            featureIds.putIfAbsent(feature, featureIds.size());
+        }
+
+        this.classIds = new HashMap<>();
+        this.classes = new ArrayList<>(classes.size());
+        for(Object theClass : classes) {
+            if(classIds.putIfAbsent(theClass, classIds.size()) == null) {
+                this.classes.add(theClass);
+            }
+        }
+
+        this.weights = new double[featureIds.size()*classIds.size()];
+    }
+
+    /**
+     * Private constructor used by copy().
+     *
+     * @param featureIds
+     * @param classIds
+     * @param classes
+     * @param weights
+     */
+    private WeightMatrix(Map<Object, Integer> featureIds, Map<Object, Integer> classIds, List<Object> classes, double[] weights) {
+        this.featureIds = featureIds;
+        this.classIds = classIds;
+        this.classes = classes;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns a copy of the matrix which shares the immutable dictionaries but
+     * has its own weights.
+     *
+     * @return
+     */
+    @Override
+    public WeightMatrix copy() {
+        return new WeightMatrix(featureIds, classIds, classes, weights.clone());
+    }
+
+    /**
+     * Returns the number of features.
+     *
+     * @return
+     */
+    public int getNumberOfFeatures() {
+        return featureIds.size();
+    }
+
+    /**
+     * Returns the number of classes.
+     *
+     * @return
+     */
+    public int getNumberOfClasses() {
+        return classes.size();
+    }
+
+    /**
+     * Returns the total number of weights.
+     *
+     * @return
+     */
+    public int size() {
+        return weights.length;
+    }
+
+    /**
+     * Returns the id of the feature or -1 if the feature is not in the dictionary.
+     *
+     * @param feature
+     * @return
+     */
+    public int getFeatureId(Object feature) {
+        Integer id = featureIds.get(feature);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the id of the class or -1 if the class is not in the dictionary.
+     *
+     * @param theClass
+     * @return
+     */
+    public int getClassId(Object theClass) {
+        Integer id = classIds.get(theClass);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * Returns the class with the specific id.
+     *
+     * @param classId
+     * @return
+     */
+    public Object getClassById(int classId) {
+        return classes.get(classId);
+    }
+
+    /**
+     * Returns an unmodifiable view of the features of the matrix.
+     *
+     * @return
+     */
+    public Set<Object> getFeatures() {
+        return Collections.unmodifiableSet(featureIds.keySet());
+    }
+
+    /**
+     * Returns an unmodifiable list of the classes, ordered by their ids.
+     *
+     * @return
+     */
+    public List<Object> getClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    /**
+     * Returns the position of the feature-class pair in the weights array.
+     *
+     * @param featureId
+     * @param classId
+     * @return
+     */
+    public int index(int featureId, int classId) {
+        return featureId*classes.size() + classId;
+    }
+
+    /**
+     * Returns the internal array of weights. Changes on the array are reflected
+     * on the matrix.
+     *
+     * @return
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns the weight of the feature-class pair or null if any of them is
+     * not in the dictionaries.
+     *
+     * @param feature
+     * @param theClass
+     * @return
+     */
+    public Double get(Object feature, Object theClass) {
+        int featureId = getFeatureId(feature);
+        int classId = getClassId(theClass);
+        if(featureId < 0 || classId < 0) {
+            return null;
+        }
+        return weights[index(featureId, classId)];
+    }
+
+    /**
+     * Sets the weight of the feature-class pair. Both of them must exist in
+     * the dictionaries.
+     *
+     * @param feature
+     * @param theClass
+     * @param value
+     */
+    public void set(Object feature, Object theClass, double value) {
+        int featureId = getFeatureId(feature);
+        int classId = getClassId(theClass);
+        if(featureId < 0 || classId < 0) {
+            throw new IllegalArgumentException("The feature-class pair does not exist in the matrix.");
+        }
+        weights[index(featureId, classId)] = value;
+    }
+
+    /**
+     * Adds to the weights of the matrix the values of the provided array.
+     *
+     * @param deltas
+     */
+    public void add(double[] deltas) {
+        if(deltas.length != weights.length) {
+            throw new IllegalArgumentException("The length of the array does not match the size of the matrix.");
+        }
+        for(int i=0;i<weights.length;i++) {
+            weights[i] += deltas[i];
+        }
+    }
+
+    /**
+     * Replaces the weights of the matrix with the ones of the provided matrix.
+     * The two matrices must have the same dimensions.
+     *
+     * @param other
+     */
+    public void assign(WeightMatrix other) {
+        if(other.weights.length != weights.length) {
+            throw new IllegalArgumentException("The dimensions of the matrices do not match.");
+        }
+        System.arraycopy(other.weights, 0, weights, 0, weights.length);
+    }
+
+}
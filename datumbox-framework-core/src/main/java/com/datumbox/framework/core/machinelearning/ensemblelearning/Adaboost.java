@@ -75,6 +75,12 @@ public class Adaboost extends AbstractBoostingBagging<Adaboost.ModelParameters,
         super(storageName, configuration);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean hasIndependentWeakClassifiers() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected Status updateObservationAndClassifierWeights(Dataframe validationDataset, AssociativeArray observationWeights) {
@@ -22,15 +22,18 @@ import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
+import com.datumbox.framework.common.utilities.RandomGenerator;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.DataframeMatrix;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.featureselectors.AbstractFeatureSelector;
+import com.datumbox.framework.core.mathematics.linearalgebra.CrossProductAccumulator;
 import org.apache.commons.math3.linear.*;
 import org.apache.commons.math3.util.FastMath;
 
 import java.util.*;
+import java.util.stream.Collector;
 
 
 /**
@@ -147,6 +150,35 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
         private Integer maxDimensions = null;
         private Double variancePercentageThreshold = null;
         
+        /**
+         * The method which is used to estimate the components.
+         */
+        public enum Solver {
+            /**
+             * Exact method which accumulates the dxd covariance matrix in a single
+             * parallel pass over the data and estimates all of its eigenvectors.
+             */
+            EIGEN_DECOMPOSITION,
+            
+            /**
+             * Approximate method which estimates only the first maxDimensions 
+             * components with the randomized subspace iteration. The covariance 
+             * matrix is never constructed; it is multiplied with a thin matrix 
+             * during a few parallel passes over the data. If maxDimensions is not
+             * set, the EIGEN_DECOMPOSITION is used.
+             * 
+             * References:
+             * Halko, N., Martinsson, P. G., and Tropp, J. A. Finding structure with randomness: Probabilistic algorithms for constructing approximate matrix decompositions.
+             */
+            RANDOMIZED;
+        }
+        
+        private Solver solver = Solver.EIGEN_DECOMPOSITION;
+        
+        private int oversampling = 10;
+        
+        private int powerIterations = 2;
+        
         /**
          * Getter for whether we should run whitened PCA.
          * 
@@ -206,6 +238,64 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
         public void setVariancePercentageThreshold(Double variancePercentageThreshold) {
             this.variancePercentageThreshold = variancePercentageThreshold;
         }
+        
+        /**
+         * Getter for the solver which estimates the components.
+         * 
+         * @return 
+         */
+        public Solver getSolver() {
+            return solver;
+        }
+        
+        /**
+         * Setter for the solver which estimates the components.
+         * 
+         * @param solver 
+         */
+        public void setSolver(Solver solver) {
+            this.solver = solver;
+        }
+        
+        /**
+         * Getter for the number of additional random vectors which are used by
+         * the RANDOMIZED solver to improve the accuracy of the components.
+         * 
+         * @return 
+         */
+        public int getOversampling() {
+            return oversampling;
+        }
+        
+        /**
+         * Setter for the number of additional random vectors which are used by
+         * the RANDOMIZED solver to improve the accuracy of the components.
+         * 
+         * @param oversampling 
+         */
+        public void setOversampling(int oversampling) {
+            this.oversampling = oversampling;
+        }
+        
+        /**
+         * Getter for the number of power iterations of the RANDOMIZED solver. 
+         * Every iteration requires one pass over the data.
+         * 
+         * @return 
+         */
+        public int getPowerIterations() {
+            return powerIterations;
+        }
+        
+        /**
+         * Setter for the number of power iterations of the RANDOMIZED solver. 
+         * Every iteration requires one pass over the data.
+         * 
+         * @param powerIterations 
+         */
+        public void setPowerIterations(int powerIterations) {
+            this.powerIterations = powerIterations;
+        }
 
     }
 
@@ -243,45 +333,74 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
     @Override
     protected void _fit(Dataframe trainingData) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         
-        int n = trainingData.size();
         int d = trainingData.xColumnSize();
         
-        //convert data into matrix
+        //assign the column ids in the order that the features appear in the data
         Map<Object, Integer> featureIds= modelParameters.getFeatureIds();
-        DataframeMatrix matrixDataset = DataframeMatrix.newInstance(trainingData, false, null, featureIds);
-        RealMatrix X = matrixDataset.getX();
+        int previousFeatureId = 0;
+        for(Record r : trainingData) {
+            for(Object feature : r.getX().keySet()) {
+                if(featureIds.putIfAbsent(feature, previousFeatureId) == null) {
+                    previousFeatureId++;
+                }
+            }
+        }
+        
+        Integer maxDimensions = trainingParameters.getMaxDimensions();
+        boolean randomized = trainingParameters.getSolver()==TrainingParameters.Solver.RANDOMIZED && maxDimensions!=null && maxDimensions<d;
+        
+        //calculate the means and the covariance (or only the variances) with a single parallel pass over the non-zero cells of the data
+        CrossProductAccumulator accumulator = streamExecutor.collect(StreamMethods.stream(trainingData.stream(), isParallelized()), Collector.of(
+                () -> new CrossProductAccumulator(d, !randomized),
+                (a, r) -> {
+                    int[] indices = new int[r.getX().size()];
+                    double[] values = new double[indices.length];
+                    a.add(indices, values, DataframeMatrix.parseRecord(r, featureIds, indices, values));
+                },
+                CrossProductAccumulator::merge
+        ));
         
-        //calculate means and subtract them from data
+        double[] mean = accumulator.getMeans();
         RealVector meanValues = new OpenMapRealVector(d);
         for(Integer columnId : featureIds.values()) {
-            double mean = 0.0;
-            for(int row=0;row<n;row++) {
-                mean += X.getEntry(row, columnId);
+            meanValues.setEntry(columnId, mean[columnId]);
+        }
+        modelParameters.setMean(meanValues);
+        
+        RealVector eigenValues;
+        RealMatrix components;
+        double totalVariance = 0.0;
+        if(randomized) {
+            RealMatrix[] decomposition = randomizedEigenDecomposition(trainingData, featureIds, mean, maxDimensions);
+            eigenValues = decomposition[0].getRowVector(0);
+            components = decomposition[1];
+            
+            //the total variance is the trace of the covariance matrix
+            for(double variance : accumulator.getVariances()) {
+                totalVariance += variance;
             }
-            mean /= n;
-
-            for(int row=0;row<n;row++) {
-                X.addToEntry(row, columnId, -mean);
+        }
+        else {
+            //dxd matrix; the data are centered implicitly as (X'X - n*mean*mean')/(n-1) to keep X sparse
+            RealMatrix covarianceDD = new Array2DRowRealMatrix(accumulator.getCovariance(), false);
+            
+            EigenDecomposition decomposition = new EigenDecomposition(covarianceDD);
+            eigenValues = new ArrayRealVector(decomposition.getRealEigenvalues(), false);
+            components = decomposition.getV();
+            
+            for(int i=0;i<d;i++) {
+                totalVariance += eigenValues.getEntry(i);
             }
-
-            meanValues.setEntry(columnId, mean);
         }
-        modelParameters.setMean(meanValues);
-
-        //dxd matrix
-        RealMatrix covarianceDD = (X.transpose().multiply(X)).scalarMultiply(1.0/(n-1.0)); 
-
-        EigenDecomposition decomposition = new EigenDecomposition(covarianceDD);
-        RealVector eigenValues = new ArrayRealVector(decomposition.getRealEigenvalues(), false);
-
-        RealMatrix components = decomposition.getV();
+        int m = eigenValues.getDimension();
         
         //Whiten Components W = U*L^0.5; To whiten them we multiply with L^0.5.
-        if(knowledgeBase.getTrainingParameters().isWhitened()) {
+        if(trainingParameters.isWhitened()) {
 
-            RealMatrix sqrtEigenValues = new DiagonalMatrix(d);
-            for(int i=0;i<d;i++) {
+            RealMatrix sqrtEigenValues = new DiagonalMatrix(m);
+            for(int i=0;i<m;i++) {
                 sqrtEigenValues.setEntry(i, i, FastMath.sqrt(eigenValues.getEntry(i)));
             }
 
@@ -289,17 +408,11 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
         }
         
         //the eigenvalues and their components are sorted by descending order no need to resort them
-        Integer maxDimensions = knowledgeBase.getTrainingParameters().getMaxDimensions();
-        Double variancePercentageThreshold = knowledgeBase.getTrainingParameters().getVariancePercentageThreshold();
+        Double variancePercentageThreshold = trainingParameters.getVariancePercentageThreshold();
         if(variancePercentageThreshold!=null && variancePercentageThreshold<=1) {
-            double totalVariance = 0.0;
-            for(int i=0;i<d;i++) {
-                totalVariance += eigenValues.getEntry(i);
-            }
-
             double sum=0.0;
             int varCounter=0;
-            for(int i=0;i<d;i++) {
+            for(int i=0;i<m;i++) {
                 sum+=eigenValues.getEntry(i)/totalVariance;
                 varCounter++;
                 if(sum>=variancePercentageThreshold) {
@@ -312,7 +425,7 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
             }
         }
         
-        if(maxDimensions!=null && maxDimensions<d) {  
+        if(maxDimensions!=null && maxDimensions<m) {  
             //keep only the maximum selected eigenvalues
             eigenValues=eigenValues.getSubVector(0, maxDimensions);
 
@@ -330,27 +443,33 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
     protected void _transform(Dataframe newData) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
         
-        //convert data into matrix
         Map<Object, Integer> featureIds= modelParameters.getFeatureIds();
         
-        Map<Integer, Integer> recordIdsReference = new HashMap<>();
-        DataframeMatrix matrixDataset = DataframeMatrix.parseDataset(newData, recordIdsReference, featureIds);
-        
-        RealMatrix components = modelParameters.getComponents();
-        
-        
-        //multiplying the data with components
-        final RealMatrix X = matrixDataset.getX().multiply(components);
+        RealMatrix componentsMatrix = modelParameters.getComponents();
+        int m = componentsMatrix.getColumnDimension();
+        final double[][] components = componentsMatrix.getData();
         
+        //multiplying every record with the components by visiting only its non-zero values
         streamExecutor.forEach(StreamMethods.stream(newData.entries(), isParallelized()), e -> {
             Integer rId = e.getKey();
             Record r = e.getValue();
-            int rowId = recordIdsReference.get(rId);
+            
+            int[] indices = new int[r.getX().size()];
+            double[] values = new double[indices.length];
+            int length = DataframeMatrix.parseRecord(r, featureIds, indices, values);
+            
+            double[] projection = new double[m];
+            for(int p=0;p<length;p++) {
+                double value = values[p];
+                double[] row = components[indices[p]];
+                for(int j=0;j<m;j++) {
+                    projection[j] += value*row[j];
+                }
+            }
             
             AssociativeArray xData = new AssociativeArray();
-            int componentId=0;
-            for(double value : X.getRow(rowId)) {
-                xData.put(componentId++, value);
+            for(int componentId=0;componentId<m;componentId++) {
+                xData.put(componentId, projection[componentId]);
             }
 
             Record newR = new Record(xData, r.getY(), r.getYPredicted(), r.getYPredictedProbabilities());
@@ -359,12 +478,198 @@ public class PCA extends AbstractFeatureSelector<PCA.ModelParameters, PCA.Traini
             newData._unsafe_set(rId, newR);
         });
         
-        //recordIdsReference = null;
-        //matrixDataset = null;
-        
         newData.recalculateMeta();
     }
-
+    
+    /**
+     * Estimates the largest eigenvalues and the eigenvectors of the covariance
+     * matrix with the randomized subspace iteration. The method returns a 1xl 
+     * matrix with the eigenvalues in descending order and a dxl matrix with the
+     * eigenvectors, where l is equal to the requested dimensions plus the 
+     * oversampling.
+     * 
+     * @param trainingData
+     * @param featureIds
+     * @param mean
+     * @param maxDimensions
+     * @return 
+     */
+    private RealMatrix[] randomizedEigenDecomposition(Dataframe trainingData, Map<Object, Integer> featureIds, double[] mean, int maxDimensions) {
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        int d = mean.length;
+        int l = Math.min(d, maxDimensions + Math.max(trainingParameters.getOversampling(), 0));
+        
+        //random starting subspace
+        Random random = RandomGenerator.getThreadLocalRandom();
+        double[][] Q = new double[d][l];
+        for(int i=0;i<d;i++) {
+            for(int j=0;j<l;j++) {
+                Q[i][j] = random.nextGaussian();
+            }
+        }
+        orthonormalizeColumns(Q, random);
+        
+        //power iterations Q = orth(C*Q)
+        int powerIterations = Math.max(trainingParameters.getPowerIterations(), 0);
+        for(int iteration=0;iteration<powerIterations;iteration++) {
+            Q = multiplyCovariance(trainingData, featureIds, mean, Q);
+            orthonormalizeColumns(Q, random);
+        }
+        
+        //project the covariance on the subspace B = Q'*C*Q
+        double[][] CQ = multiplyCovariance(trainingData, featureIds, mean, Q);
+        double[][] B = new double[l][l];
+        for(int i=0;i<d;i++) {
+            double[] qi = Q[i];
+            double[] ci = CQ[i];
+            for(int a=0;a<l;a++) {
+                for(int b=0;b<l;b++) {
+                    B[a][b] += qi[a]*ci[b];
+                }
+            }
+        }
+        for(int a=0;a<l;a++) {
+            for(int b=0;b<a;b++) {
+                double value = (B[a][b] + B[b][a])/2.0;
+                B[a][b] = value;
+                B[b][a] = value;
+            }
+        }
+        
+        //the eigenvectors of the covariance are Q*V
+        EigenDecomposition decomposition = new EigenDecomposition(new Array2DRowRealMatrix(B, false));
+        RealMatrix eigenValues = new Array2DRowRealMatrix(new double[][]{decomposition.getRealEigenvalues()}, false);
+        RealMatrix components = new Array2DRowRealMatrix(Q, false).multiply(decomposition.getV());
+        
+        return new RealMatrix[]{eigenValues, components};
+    }
+    
+    /**
+     * Multiplies the covariance matrix of the data with the dxl matrix Q in a 
+     * single parallel pass over the non-zero cells of the data, without 
+     * constructing the covariance. Every record is projected on Q and the 
+     * product is estimated as (sum(x*t') - mean*sum(t)')/(n-1), where t is the
+     * centered projection (x-mean)'*Q of the record.
+     * 
+     * @param trainingData
+     * @param featureIds
+     * @param mean
+     * @param Q
+     * @return 
+     */
+    private double[][] multiplyCovariance(Dataframe trainingData, Map<Object, Integer> featureIds, double[] mean, double[][] Q) {
+        int d = Q.length;
+        int l = Q[0].length;
+        int n = trainingData.size();
+        
+        double[] meanQ = new double[l];
+        for(int i=0;i<d;i++) {
+            if(mean[i]!=0.0) {
+                for(int j=0;j<l;j++) {
+                    meanQ[j] += mean[i]*Q[i][j];
+                }
+            }
+        }
+        
+        //the last row keeps the sum of the projections
+        double[][] products = streamExecutor.collect(StreamMethods.stream(trainingData.stream(), isParallelized()), Collector.of(
+                () -> new double[d+1][l],
+                (a, r) -> {
+                    int[] indices = new int[r.getX().size()];
+                    double[] values = new double[indices.length];
+                    int length = DataframeMatrix.parseRecord(r, featureIds, indices, values);
+                    
+                    double[] t = a[d];
+                    double[] projection = new double[l];
+                    for(int j=0;j<l;j++) {
+                        projection[j] = -meanQ[j];
+                    }
+                    for(int p=0;p<length;p++) {
+                        double value = values[p];
+                        double[] row = Q[indices[p]];
+                        for(int j=0;j<l;j++) {
+                            projection[j] += value*row[j];
+                        }
+                    }
+                    for(int j=0;j<l;j++) {
+                        t[j] += projection[j];
+                    }
+                    for(int p=0;p<length;p++) {
+                        double value = values[p];
+                        double[] row = a[indices[p]];
+                        for(int j=0;j<l;j++) {
+                            row[j] += value*projection[j];
+                        }
+                    }
+                },
+                (a, b) -> {
+                    for(int i=0;i<=d;i++) {
+                        for(int j=0;j<l;j++) {
+                            a[i][j] += b[i][j];
+                        }
+                    }
+                    return a;
+                }
+        ));
+        
+        double[][] result = new double[d][l];
+        double[] t = products[d];
+        for(int i=0;i<d;i++) {
+            for(int j=0;j<l;j++) {
+                result[i][j] = (products[i][j] - mean[i]*t[j])/(n-1.0);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Orthonormalizes in place the columns of the matrix with the modified 
+     * Gram-Schmidt process, which is applied twice for numerical stability. 
+     * Columns which are linearly dependent are replaced by random vectors.
+     * 
+     * @param Q
+     * @param random 
+     */
+    private static void orthonormalizeColumns(double[][] Q, Random random) {
+        int d = Q.length;
+        int l = Q[0].length;
+        for(int j=0;j<l;j++) {
+            double initialNorm = columnNorm(Q, j);
+            for(int pass=0;pass<2;pass++) {
+                for(int k=0;k<j;k++) {
+                    double dot = 0.0;
+                    for(int i=0;i<d;i++) {
+                        dot += Q[i][k]*Q[i][j];
+                    }
+                    for(int i=0;i<d;i++) {
+                        Q[i][j] -= dot*Q[i][k];
+                    }
+                }
+            }
+            
+            double norm = columnNorm(Q, j);
+            if(norm<=1e-10*initialNorm || norm==0.0) {
+                //the column is in the span of the previous ones
+                for(int i=0;i<d;i++) {
+                    Q[i][j] = random.nextGaussian();
+                }
+                j--;
+                continue;
+            }
+            for(int i=0;i<d;i++) {
+                Q[i][j] /= norm;
+            }
+        }
+    }
+    
+    private static double columnNorm(double[][] Q, int j) {
+        double sum = 0.0;
+        for(double[] row : Q) {
+            sum += row[j]*row[j];
+        }
+        return FastMath.sqrt(sum);
+    }
+    
     /** {@inheritDoc} */
     @Override
     protected Set<TypeInference.DataType> getSupportedXDataTypes() {
@@ -16,6 +16,9 @@
 package com.datumbox.framework.core.machinelearning.modelselection;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ConcurrencyConfiguration;
+import com.datumbox.framework.common.concurrency.StreamMethods;
+import com.datumbox.framework.common.concurrency.ThreadMethods;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractModeler;
@@ -23,9 +26,12 @@ import com.datumbox.framework.core.machinelearning.common.abstracts.modelselecti
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainingParameters;
 import com.datumbox.framework.core.machinelearning.common.interfaces.ValidationMetrics;
 
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Estimates the validation metrics of a specific model.
@@ -38,6 +44,8 @@ public class Validator<VM extends ValidationMetrics> {
     private final Class<VM> vmClass;
     private final Configuration configuration;
 
+    private int maxParallelFolds = 1;
+
     /**
      * The constructor of the K-Fold cross validator.
      *
@@ -48,6 +56,32 @@ public class Validator<VM extends ValidationMetrics> {
         this.configuration = configuration;
     }
 
+    /**
+     * Getter for the maximum number of folds which are trained and evaluated
+     * concurrently.
+     *
+     * @return
+     */
+    public int getMaxParallelFolds() {
+        return maxParallelFolds;
+    }
+
+    /**
+     * Setter for the maximum number of folds which are trained and evaluated
+     * concurrently. Every fold is trained by a separate modeler on its own
+     * storage. By default the folds are executed one after the other on the
+     * calling thread, which keeps the results reproducible when a global seed
+     * is used.
+     *
+     * @param maxParallelFolds
+     */
+    public void setMaxParallelFolds(int maxParallelFolds) {
+        if(maxParallelFolds<=0) {
+            throw new IllegalArgumentException("The max number of parallel folds should be positive.");
+        }
+        this.maxParallelFolds = maxParallelFolds;
+    }
+
     /**
      * Estimates the average validation metrics on the provided data splits.
      *
@@ -56,27 +90,72 @@ public class Validator<VM extends ValidationMetrics> {
      * @return
      */
     public VM validate(Iterator<Split> dataSplits, TrainingParameters trainingParameters) {
-        AbstractModeler modeler = MLBuilder.create(trainingParameters, configuration);
+        //the splits are requested sequentially and the metrics are kept in the order of the folds
+        Map<Integer, VM> foldValidationMetrics = new ConcurrentSkipListMap<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        ConcurrencyConfiguration foldConcurrencyConfiguration = new ConcurrencyConfiguration();
+        foldConcurrencyConfiguration.setParallelized(maxParallelFolds>1);
+        foldConcurrencyConfiguration.setMaxNumberOfThreadsPerTask(maxParallelFolds);
 
-        List<VM> validationMetricsList = new LinkedList<>();
-        while (dataSplits.hasNext()) {
-            Split s = dataSplits.next();
+        ThreadMethods.throttledExecution(StreamMethods.enumerate(StreamMethods.stream(dataSplits, false)), e -> {
+            Split s = e.getValue();
             Dataframe trainData = s.getTrain();
             Dataframe testData = s.getTest();
 
-            modeler.fit(trainData);
-            trainData.close();
+            if(failure.get() != null) {
+                trainData.close();
+                testData.close();
+                return;
+            }
 
-            modeler.predict(testData);
-            VM entrySample = ValidationMetrics.newInstance(vmClass, testData);
-            testData.close();
+            try {
+                foldValidationMetrics.put(e.getKey(), validateFold(trainData, testData, trainingParameters));
+            }
+            catch(RuntimeException ex) {
+                failure.compareAndSet(null, ex);
+            }
+        }, foldConcurrencyConfiguration);
 
-            validationMetricsList.add(entrySample);
+        if(failure.get() != null) {
+            throw failure.get();
         }
-        modeler.close();
 
+        List<VM> validationMetricsList = new ArrayList<>(foldValidationMetrics.values());
         VM avgValidationMetrics = ValidationMetrics.newInstance(vmClass, validationMetricsList);
 
         return avgValidationMetrics;
     }
+
+    /**
+     * Trains a new modeler on the train data of the fold and estimates its
+     * validation metrics on the test data. Both Dataframes are closed, even if
+     * the training or the prediction fails.
+     *
+     * @param trainData
+     * @param testData
+     * @param trainingParameters
+     * @return
+     */
+    private VM validateFold(Dataframe trainData, Dataframe testData, TrainingParameters trainingParameters) {
+        AbstractModeler modeler = null;
+        try {
+            try {
+                modeler = MLBuilder.create(trainingParameters, configuration);
+                modeler.fit(trainData);
+            }
+            finally {
+                trainData.close();
+            }
+
+            modeler.predict(testData);
+            return ValidationMetrics.newInstance(vmClass, testData);
+        }
+        finally {
+            testData.close();
+            if(modeler != null) {
+                modeler.close();
+            }
+        }
+    }
 }
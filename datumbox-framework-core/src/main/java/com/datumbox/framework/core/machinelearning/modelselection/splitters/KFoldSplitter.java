@@ -59,10 +59,6 @@ public class KFoldSplitter extends AbstractSplitter {
         if(k<=0 || n<=k) {
             throw new IllegalArgumentException("Invalid number of folds.");
         }
-        else if(k == 1) {
-            //by convention we the train and test datasets are the same. we need to copy both of them to ensure the original data won't be modified.
-            return Arrays.asList(new Split(dataset.copy(), dataset.copy())).iterator();
-        }
 
         //shuffle the ids of the records
         final Integer[] ids = new Integer[n];
@@ -70,6 +66,13 @@ public class KFoldSplitter extends AbstractSplitter {
         for(Integer rId : dataset.index()) {
             ids[j++]=rId;
         }
+
+        if(k == 1) {
+            //by convention we the train and test datasets are the same. we use two views to ensure the original data won't be modified.
+            FlatDataList allIds = new FlatDataList(new ArrayList<>(Arrays.asList(ids)));
+            return Arrays.asList(new Split(dataset.getView(allIds), dataset.getView(allIds))).iterator();
+        }
+
         PHPMethods.shuffle(ids, random);
 
         //estimate the size of fold. we floor the number here
@@ -105,7 +108,8 @@ public class KFoldSplitter extends AbstractSplitter {
 
                 counter++;
 
-                return new Split(dataset.getSubset(trainIds), dataset.getSubset(testIds));
+                //the folds are views of the dataset; modifying them does not affect the original data
+                return new Split(dataset.getView(trainIds), dataset.getView(testIds));
             }
         };
     }
@@ -102,7 +102,8 @@ public class ShuffleSplitter extends AbstractSplitter {
 
                 counter++;
 
-                return new Split(dataset.getSubset(trainIds), dataset.getSubset(testIds));
+                //the splits are views of the dataset; modifying them does not affect the original data
+                return new Split(dataset.getView(trainIds), dataset.getView(testIds));
             }
         };
     }
@@ -16,6 +16,8 @@
 package com.datumbox.framework.core.machinelearning.recommendation;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.*;
 import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
@@ -26,10 +28,13 @@ import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractRecommender;
+import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.mathematics.distances.Distance;
 import com.datumbox.framework.core.statistics.parametrics.relatedsamples.PearsonCorrelation;
 
+import java.io.Serializable;
 import java.util.*;
+import java.util.stream.IntStream;
 
 
 /**
@@ -37,14 +42,70 @@ import java.util.*;
  *
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
-public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFiltering.ModelParameters, CollaborativeFiltering.TrainingParameters> {
+public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFiltering.ModelParameters, CollaborativeFiltering.TrainingParameters> implements TrainParallelizable {
 
+    /**
+     * The Neighbourhood stores the most similar items of an item in primitive 
+     * arrays, sorted by similarity in descending order. The neighbours are 
+     * referenced by their position in the items of the ModelParameters.
+     */
+    public static class Neighbourhood implements Serializable {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] itemIds;
+        
+        private final double[] similarities;
+        
+        /**
+         * Constructor of the Neighbourhood object.
+         * 
+         * @param itemIds
+         * @param similarities 
+         */
+        public Neighbourhood(int[] itemIds, double[] similarities) {
+            this.itemIds = itemIds;
+            this.similarities = similarities;
+        }
+        
+        /**
+         * Returns the number of neighbours.
+         * 
+         * @return 
+         */
+        public int size() {
+            return itemIds.length;
+        }
+        
+        /**
+         * Returns the id of the i-th most similar neighbour.
+         * 
+         * @param i
+         * @return 
+         */
+        public int getItemId(int i) {
+            return itemIds[i];
+        }
+        
+        /**
+         * Returns the similarity of the i-th most similar neighbour.
+         * 
+         * @param i
+         * @return 
+         */
+        public double getSimilarity(int i) {
+            return similarities[i];
+        }
+        
+    }
+    
     /** {@inheritDoc} */
     public static class ModelParameters extends AbstractRecommender.AbstractModelParameters {
         private static final long serialVersionUID = 1L;
         
-        @BigMap(keyClass=List.class, valueClass=Double.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_CACHE, concurrent=false)
-        private Map<List<Object>, Double> similarities; //the similarity map among observations
+        private Object[] items = new Object[0]; //the items of the training data; their positions are used as ids by the neighbourhoods
+        
+        @BigMap(keyClass=Object.class, valueClass=Neighbourhood.class, mapType=MapType.HASHMAP, storageHint=StorageHint.IN_CACHE, concurrent=true)
+        private Map<Object, Neighbourhood> neighbourhoods; //the most similar items of every item
         
         /** 
          * @param storageEngine
@@ -57,21 +118,41 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
         //Getters / Setters
         
         /**
-         * Getter for the similarities map.
+         * Getter for the items of the training data. The position of every item
+         * is its id in the neighbourhoods.
          * 
          * @return 
          */
-        public Map<List<Object>, Double> getSimilarities() {
-            return similarities;
+        public Object[] getItems() {
+            return items;
         }
         
         /**
-         * Setter for the similarities map.
+         * Setter for the items of the training data.
          * 
-         * @param similarities 
+         * @param items 
          */
-        protected void setSimilarities(Map<List<Object>, Double> similarities) {
-            this.similarities = similarities;
+        protected void setItems(Object[] items) {
+            this.items = items;
+        }
+        
+        /**
+         * Getter for the neighbourhoods map. It contains the most similar items
+         * of every item.
+         * 
+         * @return 
+         */
+        public Map<Object, Neighbourhood> getNeighbourhoods() {
+            return neighbourhoods;
+        }
+        
+        /**
+         * Setter for the neighbourhoods map.
+         * 
+         * @param neighbourhoods 
+         */
+        protected void setNeighbourhoods(Map<Object, Neighbourhood> neighbourhoods) {
+            this.neighbourhoods = neighbourhoods;
         }
    
     }
@@ -102,6 +183,10 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
         
         private SimilarityMeasure similarityMethod = SimilarityMeasure.EUCLIDIAN;
         
+        private int maxNeighbours = 0; //0 means that all the items are kept
+        
+        private double similarityThreshold = 0.0;
+        
         /**
          * Getter for the similarity method.
          * 
@@ -119,6 +204,49 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
         public void setSimilarityMethod(SimilarityMeasure similarityMethod) {
             this.similarityMethod = similarityMethod;
         }
+        
+        /**
+         * Getter for the maximum number of neighbours stored for every item.
+         * 
+         * @return 
+         */
+        public int getMaxNeighbours() {
+            return maxNeighbours;
+        }
+        
+        /**
+         * Setter for the maximum number of neighbours stored for every item. Only 
+         * the most similar items are kept. If it is set to 0, all the items are
+         * kept.
+         * 
+         * @param maxNeighbours 
+         */
+        public void setMaxNeighbours(int maxNeighbours) {
+            if(maxNeighbours<0) {
+                throw new IllegalArgumentException("The max number of neighbours can not be negative.");
+            }
+            this.maxNeighbours = maxNeighbours;
+        }
+        
+        /**
+         * Getter for the similarity threshold.
+         * 
+         * @return 
+         */
+        public double getSimilarityThreshold() {
+            return similarityThreshold;
+        }
+        
+        /**
+         * Setter for the similarity threshold. The neighbours with similarity
+         * lower than the threshold are not stored. All the similarity measures 
+         * take values in the [0, 1] range.
+         * 
+         * @param similarityThreshold 
+         */
+        public void setSimilarityThreshold(double similarityThreshold) {
+            this.similarityThreshold = similarityThreshold;
+        }
 
     }
 
@@ -129,6 +257,7 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
      */
     protected CollaborativeFiltering(TrainingParameters trainingParameters, Configuration configuration) {
         super(trainingParameters, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
 
     /**
@@ -138,49 +267,77 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
      */
     protected CollaborativeFiltering(String storageName, Configuration configuration) {
         super(storageName, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
+    }
+    
+    private boolean parallelized = true;
+    
+    /**
+     * This executor is used for the parallel processing of streams with custom 
+     * Thread pool.
+     */
+    protected final ForkJoinStream streamExecutor;
+    
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelized() {
+        return parallelized;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelized(boolean parallelized) {
+        this.parallelized = parallelized;
     }
 
     /** {@inheritDoc} */
     @Override
     protected void _predict(Dataframe newData) {
-        Map<List<Object>, Double> similarities = knowledgeBase.getModelParameters().getSimilarities();
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        Map<Object, Neighbourhood> neighbourhoods = modelParameters.getNeighbourhoods();
+        Object[] items = modelParameters.getItems();
+        
+        //buffers indexed by the item ids; only the touched positions are reset after every record
+        double[] weightedScores = new double[items.length];
+        double[] simSums = new double[items.length];
+        boolean[] isTouched = new boolean[items.length];
+        int[] touchedItemIds = new int[items.length];
         
         //generate recommendation for each record in the list
         for(Map.Entry<Integer, Record> e : newData.entries()) {
             Integer rId = e.getKey();
             Record r = e.getValue();
-            Map<Object, Double> recommendations = new HashMap<>();
             
-            Map<Object, Double> simSums = new HashMap<>();
+            int touched = 0;
             for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
-                Object row = entry.getKey();
-                Double score = TypeInference.toDouble(entry.getValue());
+                Neighbourhood neighbourhood = neighbourhoods.get(entry.getKey());
+                if(neighbourhood == null) {
+                    continue; //the item was not part of the training data
+                }
+                double score = TypeInference.toDouble(entry.getValue());
                 
-                for(Map.Entry<List<Object>, Double> entry2 : similarities.entrySet()) {
-                    List<Object> tpk = entry2.getKey();
-                    if(!tpk.get(0).equals(row)) {
-                        continue; //filter the irrelevant two pair key combinations that do not include the row
-                    }
-                    
-                    Object column = tpk.get(1);
-                    
-                    Double previousRecValue = recommendations.getOrDefault(column, 0.0);
-                    Double previousSimsumValue = simSums.getOrDefault(column, 0.0);
+                for(int i=0;i<neighbourhood.size();++i) {
+                    int itemId = neighbourhood.getItemId(i);
+                    double similarity = neighbourhood.getSimilarity(i);
                     
-                    Double similarity = entry2.getValue();
-
-                    recommendations.put(column, previousRecValue+similarity*score);
-                    simSums.put(column, previousSimsumValue+similarity);
+                    if(!isTouched[itemId]) {
+                        isTouched[itemId] = true;
+                        touchedItemIds[touched++] = itemId;
+                    }
+                    weightedScores[itemId] += similarity*score;
+                    simSums[itemId] += similarity;
                 }
             }
             
-            for(Map.Entry<Object, Double> entry : recommendations.entrySet()) {
-                Object column = entry.getKey();
-                Double score = entry.getValue();
+            Map<Object, Double> recommendations = new HashMap<>();
+            for(int i=0;i<touched;++i) {
+                int itemId = touchedItemIds[i];
+                recommendations.put(items[itemId], weightedScores[itemId]/simSums[itemId]);
                 
-                recommendations.put(column, score/simSums.get(column));
+                weightedScores[itemId] = 0.0;
+                simSums[itemId] = 0.0;
+                isTouched[itemId] = false;
             }
-            //simSums = null;
             
             recommendations = MapMethods.sortNumberMapByValueDescending(recommendations);
             newData._unsafe_set(rId, new Record(r.getX(), r.getY(), recommendations.keySet().iterator().next(), new AssociativeArray((Map)recommendations)));
@@ -191,39 +348,60 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
     @Override
     protected void _fit(Dataframe trainingData) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         
-        //calculate similarity matrix
-        Map<List<Object>, Double> similarities = modelParameters.getSimilarities();
-        for(Record r1 : trainingData) {
-            Object y1 = r1.getY();
-            for(Record r2: trainingData) {
-                Object y2 = r2.getY();
-                
-                List<Object> tkp = Arrays.asList(y1, y2);
-                if(similarities.containsKey(tkp)) {
+        int n = trainingData.size();
+        int maxNeighbours = trainingParameters.getMaxNeighbours();
+        int capacity = (maxNeighbours == 0)?n:Math.min(maxNeighbours, n);
+        double similarityThreshold = trainingParameters.getSimilarityThreshold();
+        
+        //load the items and their ratings; the ids of the items are their positions
+        Object[] items = new Object[n];
+        AssociativeArray[] ratings = new AssociativeArray[n];
+        NeighbourHeap[] heaps = new NeighbourHeap[n];
+        int itemId = 0;
+        for(Record r : trainingData) {
+            items[itemId] = r.getY();
+            ratings[itemId] = r.getX();
+            heaps[itemId] = new NeighbourHeap(capacity);
+            ++itemId;
+        }
+        modelParameters.setItems(items);
+        
+        //every pair is evaluated once and it is offered to the heaps of both items
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, n).boxed(), isParallelized()), i -> {
+            for(int j=i;j<n;++j) {
+                double similarity = calculateSimilarity(ratings[i], ratings[j]);
+                if(similarity < similarityThreshold) {
                     continue;
                 }
                 
-                double similarity = calculateSimilarity(r1, r2);
-                
-                similarities.put(tkp, similarity);
-                similarities.put(Arrays.asList(y2, y1), similarity); //add also for the reverse key because similarity is symmetric
+                heaps[i].offer(j, similarity);
+                if(j != i) {
+                    heaps[j].offer(i, similarity);
+                }
             }
-        }
+        });
+        
+        Map<Object, Neighbourhood> neighbourhoods = modelParameters.getNeighbourhoods();
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, n).boxed(), isParallelized()), i -> {
+            neighbourhoods.put(items[i], heaps[i].toNeighbourhood());
+            heaps[i] = null;
+        });
     }
     
-    private double calculateSimilarity(Record r1, Record r2) {        
+    private double calculateSimilarity(AssociativeArray x1, AssociativeArray x2) {        
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
         
         double similarity;
         TrainingParameters.SimilarityMeasure similarityMethod = trainingParameters.getSimilarityMethod();
         if(similarityMethod==TrainingParameters.SimilarityMeasure.EUCLIDIAN) {
-            similarity = Distance.euclidean(r1.getX(), r2.getX());
+            similarity = Distance.euclidean(x1, x2);
             
             similarity = 1.0/(1.0+similarity); //convert distance into a similarity measure
         }
         else if(similarityMethod==TrainingParameters.SimilarityMeasure.MANHATTAN) {
-            similarity = Distance.manhattan(r1.getX(), r2.getX());
+            similarity = Distance.manhattan(x1, x2);
             
             similarity = 1.0/(1.0+similarity); //convert distance into a similarity measure
         }
@@ -231,15 +409,15 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
             
             
             //extract the commonColumns to ensure that the order of the data will be the same for both records
-            Set<Object> commonColumns = new HashSet<>(r1.getX().keySet());
-            commonColumns.addAll(r2.getX().keySet());
+            Set<Object> commonColumns = new HashSet<>(x1.keySet());
+            commonColumns.addAll(x2.keySet());
             
             //create the FlatDataLists with the data of each record
             FlatDataList flatDataList1 = new FlatDataList();
             FlatDataList flatDataList2 = new FlatDataList();
             for(Object column : commonColumns) {
-                flatDataList1.add(TypeInference.toDouble(r1.getX().get(column)));
-                flatDataList2.add(TypeInference.toDouble(r2.getX().get(column)));
+                flatDataList1.add(TypeInference.toDouble(x1.get(column)));
+                flatDataList2.add(TypeInference.toDouble(x2.get(column)));
             }
             
             TransposeDataList transposeDataList = new TransposeDataList();
@@ -258,6 +436,104 @@ public class CollaborativeFiltering extends AbstractRecommender<CollaborativeFil
         }
         
         return similarity;
-    } 
+    }
     
+    /**
+     * Bounded heap which keeps the most similar neighbours of an item. The root
+     * is the least similar of the kept neighbours, so it is the one replaced 
+     * when a more similar item is offered. Ties are broken by the item id to 
+     * keep the results independent of the order of the offers.
+     */
+    private static class NeighbourHeap {
+        
+        private final int[] itemIds;
+        
+        private final double[] similarities;
+        
+        private int size = 0;
+        
+        private NeighbourHeap(int capacity) {
+            itemIds = new int[capacity];
+            similarities = new double[capacity];
+        }
+        
+        /**
+         * Offers an item to the heap. It is synchronized because the pairs of 
+         * items are offered to the heaps of both items in parallel.
+         * 
+         * @param itemId
+         * @param similarity 
+         */
+        private synchronized void offer(int itemId, double similarity) {
+            if(size < itemIds.length) {
+                int i = size++;
+                while(i > 0) {
+                    int parent = (i-1)/2;
+                    if(!isLessSimilar(itemId, similarity, itemIds[parent], similarities[parent])) {
+                        break;
+                    }
+                    itemIds[i] = itemIds[parent];
+                    similarities[i] = similarities[parent];
+                    i = parent;
+                }
+                itemIds[i] = itemId;
+                similarities[i] = similarity;
+            }
+            else if(size > 0 && isLessSimilar(itemIds[0], similarities[0], itemId, similarity)) {
+                siftDown(itemId, similarity, size);
+            }
+        }
+        
+        /**
+         * Converts the heap to a Neighbourhood sorted by similarity in descending
+         * order. The heap is emptied.
+         * 
+         * @return 
+         */
+        private synchronized Neighbourhood toNeighbourhood() {
+            int[] sortedItemIds = new int[size];
+            double[] sortedSimilarities = new double[size];
+            while(size > 0) {
+                --size;
+                sortedItemIds[size] = itemIds[0];
+                sortedSimilarities[size] = similarities[0];
+                siftDown(itemIds[size], similarities[size], size);
+            }
+            return new Neighbourhood(sortedItemIds, sortedSimilarities);
+        }
+        
+        /**
+         * Places the item at the root and moves it down until the heap property
+         * is restored for the first n elements.
+         * 
+         * @param itemId
+         * @param similarity
+         * @param n 
+         */
+        private void siftDown(int itemId, double similarity, int n) {
+            int i = 0;
+            while(true) {
+                int child = 2*i+1;
+                if(child >= n) {
+                    break;
+                }
+                if(child+1 < n && isLessSimilar(itemIds[child+1], similarities[child+1], itemIds[child], similarities[child])) {
+                    ++child;
+                }
+                if(!isLessSimilar(itemIds[child], similarities[child], itemId, similarity)) {
+                    break;
+                }
+                itemIds[i] = itemIds[child];
+                similarities[i] = similarities[child];
+                i = child;
+            }
+            itemIds[i] = itemId;
+            similarities[i] = similarity;
+        }
+        
+        private static boolean isLessSimilar(int itemId1, double similarity1, int itemId2, double similarity2) {
+            int cmp = Double.compare(similarity1, similarity2);
+            return cmp < 0 || cmp == 0 && itemId1 > itemId2;
+        }
+    }
 }
@@ -16,6 +16,9 @@
 package com.datumbox.framework.core.machinelearning.regression;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
+import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.DataframeMatrix;
 import com.datumbox.framework.core.common.dataobjects.Record;
@@ -27,22 +30,29 @@ import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractRegressor;
 import com.datumbox.framework.core.machinelearning.common.interfaces.StepwiseCompatible;
+import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
+import com.datumbox.framework.core.mathematics.linearalgebra.CrossProductAccumulator;
+import com.datumbox.framework.core.mathematics.linearalgebra.NormalEquationSolver;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
-import org.apache.commons.math3.linear.LUDecomposition;
 import org.apache.commons.math3.linear.OpenMapRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collector;
 
 
 /**
- * Performs Linear Regression using Matrices.
+ * Performs Linear Regression using Matrices. The X'X and X'Y matrices are
+ * accumulated in a single parallel pass over the data and the normal equations 
+ * are solved with the Cholesky decomposition, so the memory does not depend on 
+ * the number of records.
  *
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
-public class MatrixLinearRegression extends AbstractRegressor<MatrixLinearRegression.ModelParameters, MatrixLinearRegression.TrainingParameters> implements StepwiseCompatible {
+public class MatrixLinearRegression extends AbstractRegressor<MatrixLinearRegression.ModelParameters, MatrixLinearRegression.TrainingParameters> implements StepwiseCompatible, TrainParallelizable {
 
     /** {@inheritDoc} */
     public static class ModelParameters extends AbstractRegressor.AbstractModelParameters {
@@ -139,6 +149,7 @@ public class MatrixLinearRegression extends AbstractRegressor<MatrixLinearRegres
      */
     protected MatrixLinearRegression(TrainingParameters trainingParameters, Configuration configuration) {
         super(trainingParameters, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
 
     /**
@@ -148,6 +159,27 @@ public class MatrixLinearRegression extends AbstractRegressor<MatrixLinearRegres
      */
     protected MatrixLinearRegression(String storageName, Configuration configuration) {
         super(storageName, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
+    }
+    
+    private boolean parallelized = true;
+    
+    /**
+     * This executor is used for the parallel processing of streams with custom 
+     * Thread pool.
+     */
+    protected final ForkJoinStream streamExecutor;
+    
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelized() {
+        return parallelized;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelized(boolean parallelized) {
+        this.parallelized = parallelized;
     }
 
     /** {@inheritDoc} */
@@ -188,76 +220,111 @@ public class MatrixLinearRegression extends AbstractRegressor<MatrixLinearRegres
     @Override
     protected void _fit(Dataframe trainingData) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
-        int n = trainingData.size();
-        int d = trainingData.xColumnSize();
         
         Map<Object, Double> thitas = modelParameters.getThitas();
         Map<Object, Integer> featureIds = modelParameters.getFeatureIds();
-        //Map<Integer, Integer> recordIdsReference = null;
-        DataframeMatrix matrixDataset = DataframeMatrix.newInstance(trainingData, true, null, featureIds);
-        
-        RealVector Y = matrixDataset.getY();
-        RealMatrix X = matrixDataset.getX();
-        
-        //(X'X)^-1
-        RealMatrix Xt = X.transpose();
-        LUDecomposition lud = new LUDecomposition(Xt.multiply(X));
-        //W = (X'X)^-1 * X'Y
-        RealMatrix XtXinv = lud.getSolver().getInverse();
-        RealVector coefficients = XtXinv.multiply(Xt).operate(Y);
-        // instead of matrix inversion calculate (X'X) * W = X'Y
-        //RealVector coefficients = lud.getSolver().solve(Xt.operate(Y));
-        //lud =null;
-        
         
-        //Xt = null;
+        //W = (X'X)^-1 * X'Y, estimated from the normal equations without materializing the X matrix
+        NormalEquationSolver solver = buildSolver(trainingData, featureIds);
+        double[] coefficients = solver.getCoefficients();
         
         //put the features coefficients in the thita map
-        thitas.put(Dataframe.COLUMN_NAME_CONSTANT, coefficients.getEntry(0));
         for(Map.Entry<Object, Integer> entry : featureIds.entrySet()) {
             Object feature = entry.getKey();
             Integer featureId = entry.getValue();
             
-            thitas.put(feature, coefficients.getEntry(featureId));
+            thitas.put(feature, coefficients[featureId]);
         }
         
+        //creating a flipped map of ids to features
+        Map<Integer, Object> idsFeatures = PHPMethods.array_flip(featureIds);
         
-        //get the predictions and subtact the Y vector. Sum the squared differences to get the error
-        double SSE = 0.0;
-        for(double v : X.operate(coefficients).subtract(Y).toArray()) {
-            SSE += v*v;
+        modelParameters.setFeaturePvalues(estimatePvalues(solver, idsFeatures));
+    }
+    
+    /**
+     * Assigns the column ids of the features, with the constant in the first 
+     * column, and accumulates the X'X, X'Y and Y'Y in a single parallel pass 
+     * over the non-zero values of the data. It returns the factorized normal 
+     * equations.
+     * 
+     * @param trainingData
+     * @param featureIds
+     * @return 
+     */
+    NormalEquationSolver buildSolver(Dataframe trainingData, Map<Object, Integer> featureIds) {
+        int featureId = 0;
+        featureIds.put(Dataframe.COLUMN_NAME_CONSTANT, featureId++);
+        for(Record r : trainingData) {
+            for(Object feature : r.getX().keySet()) {
+                if(featureIds.putIfAbsent(feature, featureId) == null) {
+                    featureId++;
+                }
+            }
         }
-        //Y = null;
-
+        
+        //the Y is stored as an extra column after the features
+        int d = featureIds.size();
+        CrossProductAccumulator accumulator = streamExecutor.collect(StreamMethods.stream(trainingData.stream(), isParallelized()), Collector.of(
+                () -> new CrossProductAccumulator(d+1, true),
+                (a, r) -> {
+                    int[] indices = new int[r.getX().size()+2];
+                    double[] values = new double[indices.length];
+                    int length = DataframeMatrix.parseRecord(r, featureIds, indices, values);
+                    double y = TypeInference.toDouble(r.getY());
+                    if(y!=0.0) {
+                        indices[length] = d;
+                        values[length] = y;
+                        length++;
+                    }
+                    a.add(indices, values, length);
+                },
+                CrossProductAccumulator::merge
+        ));
+        
+        double[][] crossProducts = accumulator.getCrossProducts();
+        double[][] XtX = new double[d][];
+        double[] XtY = new double[d];
+        for(int i=0;i<d;i++) {
+            XtX[i] = Arrays.copyOf(crossProducts[i], d);
+            XtY[i] = crossProducts[d][i];
+        }
+        
+        return new NormalEquationSolver(XtX, XtY, crossProducts[d][d], accumulator.getCount());
+    }
+    
+    /**
+     * Estimates the p-values of the active columns of the normal equations. 
+     * 
+     * @param solver
+     * @param idsFeatures
+     * @return 
+     */
+    static Map<Object, Double> estimatePvalues(NormalEquationSolver solver, Map<Integer, Object> idsFeatures) {
+        int n = (int) solver.getN();
+        int[] columns = solver.getColumns();
+        int d = columns.length-1; //excluding the constant
+        double[] coefficients = solver.getCoefficients();
+        
         //standard error matrix
-        double MSE = SSE/(n-(d+1)); //mean square error = SSE / dfResidual
-        RealMatrix SE = XtXinv.scalarMultiply(MSE);
-        //XtXinv = null;
-
-        //creating a flipped map of ids to features
-        Map<Integer, Object> idsFeatures = PHPMethods.array_flip(featureIds);
-
+        double MSE = solver.getSSE()/(n-(d+1)); //mean square error = SSE / dfResidual
+        double[] inverseDiagonal = solver.getInverseDiagonal();
 
         Map<Object, Double> pvalues = new HashMap<>(); //This is not small, but it does not make sense to store it in the storage
         for(int i =0;i<(d+1);++i) {
-            double error = SE.getEntry(i, i);
-            Object feature = idsFeatures.get(i);
+            double error = inverseDiagonal[i]*MSE;
+            Object feature = idsFeatures.get(columns[i]);
             if(error<=0.0) {
                 //double tstat = Double.MAX_VALUE;
                 pvalues.put(feature, 0.0);
             }
             else {
-                double tstat = coefficients.getEntry(i)/Math.sqrt(error);
+                double tstat = coefficients[i]/Math.sqrt(error);
                 pvalues.put(feature, 1.0-ContinuousDistributions.studentsCdf(tstat, n-(d+1))); //n-d degrees of freedom
             }
         }
-        //SE=null;
-        //coefficients=null;
-        //idsFeatures=null;
-        //matrixDataset = null;
-
-        modelParameters.setFeaturePvalues(pvalues);
-
+        
+        return pvalues;
     }
     
     /** {@inheritDoc} */
@@ -17,6 +17,7 @@ package com.datumbox.framework.core.machinelearning.regression;
 
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.PerThreadAccumulator;
 import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
@@ -30,11 +31,17 @@ import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrai
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractRegressor;
 import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable;
 import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
+import com.datumbox.framework.core.mathematics.optimization.LearningRateSchedule;
+import com.datumbox.framework.core.mathematics.optimization.MiniBatchSampler;
 import com.datumbox.framework.core.mathematics.regularization.ElasticNetRegularizer;
 import com.datumbox.framework.core.mathematics.regularization.L1Regularizer;
 import com.datumbox.framework.core.mathematics.regularization.L2Regularizer;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.stream.Stream;
 
 /**
  * Linear Regression model which uses the Normalised Least Mean Squares Algorithm.
@@ -93,6 +100,10 @@ public class NLMS extends AbstractRegressor<NLMS.ModelParameters, NLMS.TrainingP
         private double learningRate=0.1;
         private double l1=0.0;
         private double l2=0.0;
+        private int batchSize=0;
+        private boolean shuffle=true;
+        private LearningRateSchedule learningRateSchedule=LearningRateSchedule.BOLD_DRIVER;
+        private double learningRateDecay=0.01;
 
         /**
          * Getter for the total iterations of the training process.
@@ -167,6 +178,83 @@ public class NLMS extends AbstractRegressor<NLMS.ModelParameters, NLMS.TrainingP
             this.l2 = l2;
         }
 
+        /**
+         * Getter for the number of Records used on every update.
+         *
+         * @return
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * Setter for the number of Records used on every update. If it is 0 or
+         * larger than the size of the training data, the full batch gradient
+         * descent is used. Otherwise every iteration is a pass over the data
+         * in mini-batches, which updates the weights after every mini-batch.
+         *
+         * @param batchSize
+         */
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Getter for whether the Records are shuffled before every pass of the
+         * mini-batch training.
+         *
+         * @return
+         */
+        public boolean isShuffle() {
+            return shuffle;
+        }
+
+        /**
+         * Setter for whether the Records are shuffled before every pass of the
+         * mini-batch training.
+         *
+         * @param shuffle
+         */
+        public void setShuffle(boolean shuffle) {
+            this.shuffle = shuffle;
+        }
+
+        /**
+         * Getter for the schedule of the learning rate.
+         *
+         * @return
+         */
+        public LearningRateSchedule getLearningRateSchedule() {
+            return learningRateSchedule;
+        }
+
+        /**
+         * Setter for the schedule of the learning rate.
+         *
+         * @param learningRateSchedule
+         */
+        public void setLearningRateSchedule(LearningRateSchedule learningRateSchedule) {
+            this.learningRateSchedule = learningRateSchedule;
+        }
+
+        /**
+         * Getter for the decay of the INVERSE_SCALING learning rate schedule.
+         *
+         * @return
+         */
+        public double getLearningRateDecay() {
+            return learningRateDecay;
+        }
+
+        /**
+         * Setter for the decay of the INVERSE_SCALING learning rate schedule.
+         *
+         * @param learningRateDecay
+         */
+        public void setLearningRateDecay(double learningRateDecay) {
+            this.learningRateDecay = learningRateDecay;
+        }
+
     }
 
     /**
@@ -239,78 +327,166 @@ public class NLMS extends AbstractRegressor<NLMS.ModelParameters, NLMS.TrainingP
         }
         
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        
+        int batchSize = trainingParameters.getBatchSize();
+        if(batchSize > 0 && batchSize < trainingData.size()) {
+            miniBatchTraining(trainingData, batchSize);
+        }
+        else {
+            batchTraining(trainingData);
+        }
+    }
+    
+    private void batchTraining(Dataframe trainingData) {
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        Map<Object, Double> thitas = knowledgeBase.getModelParameters().getThitas();
+        LearningRateSchedule schedule = trainingParameters.getLearningRateSchedule();
 
         double minError = Double.POSITIVE_INFINITY;
         
         double learningRate = trainingParameters.getLearningRate();
         int totalIterations = trainingParameters.getTotalIterations();
         StorageEngine storageEngine = knowledgeBase.getStorageEngine();
+        PerThreadAccumulator<Map<Object, Double>> gradients = new PerThreadAccumulator<>(HashMap::new);
         for(int iteration=0;iteration<totalIterations;++iteration) {
             
             logger.debug("Iteration {}", iteration);
             
+            if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                learningRate = schedule.getLearningRate(trainingParameters.getLearningRate(), trainingParameters.getLearningRateDecay(), iteration);
+            }
+            
             Map<Object, Double> tmp_newThitas = storageEngine.getBigMap("tmp_newThitas", Object.class, Double.class, MapType.HASHMAP, StorageHint.IN_MEMORY, false, true);
             
             tmp_newThitas.putAll(thitas);
             
-            batchGradientDescent(trainingData, tmp_newThitas, learningRate);
-            
-            double newError = calculateError(trainingData,tmp_newThitas);
+            batchGradientDescent(StreamMethods.stream(trainingData.stream(), isParallelized()), trainingData.size(), tmp_newThitas, gradients, learningRate, 1.0, null);
             
-            //bold driver
-            if(newError>minError) {
-                learningRate/=2.0;
+            if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                thitas.putAll(tmp_newThitas);
             }
             else {
-                learningRate*=1.05;
-                minError=newError;
-                
-                //keep the new thitas
-                thitas.clear();
-                thitas.putAll(tmp_newThitas);
+                double newError = calculateError(trainingData,tmp_newThitas);
+
+                //bold driver
+                if(newError>minError) {
+                    learningRate/=2.0;
+                }
+                else {
+                    learningRate*=1.05;
+                    minError=newError;
+
+                    //keep the new thitas
+                    thitas.clear();
+                    thitas.putAll(tmp_newThitas);
+                }
             }
             
             //Drop the temporary Collection
             storageEngine.dropBigMap("tmp_newThitas", tmp_newThitas);
         }
     }
+    
+    private void miniBatchTraining(Dataframe trainingData, int batchSize) {
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        Map<Object, Double> thitas = knowledgeBase.getModelParameters().getThitas();
+        LearningRateSchedule schedule = trainingParameters.getLearningRateSchedule();
+        
+        MiniBatchSampler sampler = new MiniBatchSampler(trainingData, batchSize, trainingParameters.isShuffle());
+        int n = trainingData.size();
 
-    private void batchGradientDescent(Dataframe trainingData, Map<Object, Double> newThitas, double learningRate) {
+        double minError = Double.POSITIVE_INFINITY;
+        
+        double learningRate = trainingParameters.getLearningRate();
+        int totalIterations = trainingParameters.getTotalIterations();
+        PerThreadAccumulator<Map<Object, Double>> gradients = new PerThreadAccumulator<>(HashMap::new);
+        int update = 0;
+        for(int iteration=0;iteration<totalIterations;++iteration) {
+            
+            logger.debug("Iteration {}", iteration);
+            
+            //the error of the pass is estimated on every mini-batch before its update
+            DoubleAdder squaredErrors = new DoubleAdder();
+            for(List<Record> batch : sampler.epoch()) {
+                if(schedule != LearningRateSchedule.BOLD_DRIVER) {
+                    learningRate = schedule.getLearningRate(trainingParameters.getLearningRate(), trainingParameters.getLearningRateDecay(), update);
+                }
+                
+                batchGradientDescent(StreamMethods.stream(batch.stream(), isParallelized()), batch.size(), thitas, gradients, learningRate, (double)batch.size()/n, squaredErrors);
+                update++;
+            }
+            
+            if(schedule == LearningRateSchedule.BOLD_DRIVER) {
+                double newError = squaredErrors.sum()/n + calculatePenalty(thitas);
+                
+                //bold driver
+                if(newError>minError) {
+                    learningRate/=2.0;
+                }
+                else {
+                    learningRate*=1.05;
+                    minError=newError;
+                }
+            }
+        }
+    }
+
+    /**
+     * Performs one step of gradient descent on the provided records. The
+     * regularization is weighted by the proportion of the training data that
+     * the records represent. If the squaredErrors is not null, the squared errors
+     * of the records under the previous thitas are added to it. The newThitas
+     * must be equal to the thitas before the call and they can be the same object.
+     * 
+     * @param records
+     * @param n
+     * @param newThitas
+     * @param gradients
+     * @param learningRate
+     * @param regularizationWeight
+     * @param squaredErrors 
+     */
+    private void batchGradientDescent(Stream<Record> records, int n, Map<Object, Double> newThitas, PerThreadAccumulator<Map<Object, Double>> gradients, double learningRate, double regularizationWeight, DoubleAdder squaredErrors) {
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
         
-        double multiplier = learningRate/trainingData.size();
+        double multiplier = learningRate/n;
         Map<Object, Double> thitas = modelParameters.getThitas();
         
-        streamExecutor.forEach(StreamMethods.stream(trainingData.stream(), isParallelized()), r -> { 
+        streamExecutor.forEach(records, r -> { 
             //mind the fact that we use the previous thitas to estimate the new ones! this is because the thitas must be updated simultaniously
             double error = TypeInference.toDouble(r.getY()) - hypothesisFunction(r.getX(), thitas);
+            
+            if(squaredErrors != null) {
+                squaredErrors.add(error*error);
+            }
 
             double errorMultiplier = multiplier*error;
             
-            synchronized(newThitas) {
-                //update the weights
-                for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
-                    Object feature = entry.getKey();
-                    Double value = TypeInference.toDouble(entry.getValue());
-
-                    newThitas.put(feature, newThitas.get(feature)+errorMultiplier*value);
-                }
-                newThitas.put(Dataframe.COLUMN_NAME_CONSTANT, newThitas.get(Dataframe.COLUMN_NAME_CONSTANT)+errorMultiplier);
-            }
+            //every thread accumulates the sparse updates of its records on a private map
+            Map<Object, Double> gradient = gradients.get();
+            r.getX().forEachDouble((feature, value) -> {
+                gradient.merge(feature, errorMultiplier*value, Double::sum);
+            });
+            gradient.merge(Dataframe.COLUMN_NAME_CONSTANT, errorMultiplier, Double::sum);
         });
 
-        double l1 = knowledgeBase.getTrainingParameters().getL1();
-        double l2 = knowledgeBase.getTrainingParameters().getL2();
+        double l1 = regularizationWeight*knowledgeBase.getTrainingParameters().getL1();
+        double l2 = regularizationWeight*knowledgeBase.getTrainingParameters().getL2();
 
-        if(l1>0.0 && l2>0.0) {
-            ElasticNetRegularizer.updateWeights(l1, l2, learningRate, thitas, newThitas);
-        }
-        else if(l1>0.0) {
-            L1Regularizer.updateWeights(l1, learningRate, thitas, newThitas);
-        }
-        else if(l2>0.0) {
-            L2Regularizer.updateWeights(l2, learningRate, thitas, newThitas);
+        //the L2 update depends on the previous thitas, so it is applied before the gradients which may overwrite them
+        L2Regularizer.updateWeights(l2, learningRate, thitas, newThitas);
+        
+        //the maps are cleared instead of discarded, so they are reused by the next batch
+        for(Map<Object, Double> gradient : gradients.buffers()) {
+            for(Map.Entry<Object, Double> e : gradient.entrySet()) {
+                Object feature = e.getKey();
+                newThitas.put(feature, newThitas.get(feature)+e.getValue());
+            }
+            gradient.clear();
         }
+        
+        //the L1 update clips the weights after the gradient step
+        L1Regularizer.updateWeights(l1, learningRate, thitas, newThitas);
     }
     
     private double calculateError(Dataframe trainingData, Map<Object, Double> thitas) {
@@ -322,32 +498,34 @@ public class NLMS extends AbstractRegressor<NLMS.ModelParameters, NLMS.TrainingP
         }));
         error /= trainingData.size();
 
+        error += calculatePenalty(thitas);
+
+        return error;
+    }
+    
+    private double calculatePenalty(Map<Object, Double> thitas) {
         double l1 = knowledgeBase.getTrainingParameters().getL1();
         double l2 = knowledgeBase.getTrainingParameters().getL2();
 
         if(l1>0.0 && l2>0.0) {
-            error += ElasticNetRegularizer.estimatePenalty(l1, l2, thitas);
+            return ElasticNetRegularizer.estimatePenalty(l1, l2, thitas);
         }
         else if(l1>0.0) {
-            error += L1Regularizer.estimatePenalty(l1, thitas);
+            return L1Regularizer.estimatePenalty(l1, thitas);
         }
         else if(l2>0.0) {
-            error += L2Regularizer.estimatePenalty(l2, thitas);
+            return L2Regularizer.estimatePenalty(l2, thitas);
         }
-
-        return error;
+        return 0.0;
     }
     
     private double hypothesisFunction(AssociativeArray x, Map<Object, Double> thitas) {
-        double sum = thitas.get(Dataframe.COLUMN_NAME_CONSTANT);
+        double[] sum = {thitas.get(Dataframe.COLUMN_NAME_CONSTANT)};
         
-        for(Map.Entry<Object, Object> entry : x.entrySet()) {
-            Object feature = entry.getKey();
-            Double xj = TypeInference.toDouble(entry.getValue());
-            
-            sum+=thitas.getOrDefault(feature, 0.0)*xj;
-        }
+        x.forEachDouble((feature, xj) -> {
+            sum[0]+=thitas.getOrDefault(feature, 0.0)*xj;
+        });
         
-        return sum;
+        return sum[0];
     }
 }
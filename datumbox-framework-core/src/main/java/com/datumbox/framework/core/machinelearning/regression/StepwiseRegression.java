@@ -19,12 +19,15 @@ import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.core.common.utilities.MapMethods;
+import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractRegressor;
 import com.datumbox.framework.core.machinelearning.common.dataobjects.TrainableBundle;
 import com.datumbox.framework.core.machinelearning.common.interfaces.StepwiseCompatible;
+import com.datumbox.framework.core.mathematics.linearalgebra.NormalEquationSolver;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -181,32 +184,39 @@ public class StepwiseRegression extends AbstractRegressor<StepwiseRegression.Mod
         //copy data before starting
         Dataframe copiedTrainingData = trainingData.copy();
         
-        //backword elimination algorithm
-        for(int iteration = 0; iteration<maxIterations ; ++iteration) {
-            
-            Map<Object, Double> pvalues = runRegression(copiedTrainingData);
-            
-            if(pvalues.isEmpty()) {
-                break; //no more features
-            }
-            
-            //fetch the feature with highest pvalue, excluding constant
-            pvalues.remove(Dataframe.COLUMN_NAME_CONSTANT);
-            Map.Entry<Object, Double> maxPvalueEntry = MapMethods.selectMaxKeyValue(pvalues);
-            //pvalues=null;
-            
-            if(maxPvalueEntry.getValue()<=aOut) {
-                break; //nothing to remove, the highest pvalue is less than the aOut
-            }
-            
-            
-            Set<Object> removedFeatures = new HashSet<>();
-            removedFeatures.add(maxPvalueEntry.getKey());
+        if(trainingParameters.getRegressionTrainingParameters() instanceof MatrixLinearRegression.TrainingParameters) {
+            //the MatrixLinearRegression is not refitted; the columns are removed from its factorized normal equations
+            Set<Object> removedFeatures = incrementalBackwardElimination(copiedTrainingData, maxIterations, aOut);
             copiedTrainingData.dropXColumns(removedFeatures);
-            //removedFeatures = null;
-            
-            if(copiedTrainingData.xColumnSize()==0) {
-                break; //if no more features exit
+        }
+        else {
+            //backword elimination algorithm
+            for(int iteration = 0; iteration<maxIterations ; ++iteration) {
+                
+                Map<Object, Double> pvalues = runRegression(copiedTrainingData);
+                
+                if(pvalues.isEmpty()) {
+                    break; //no more features
+                }
+                
+                //fetch the feature with highest pvalue, excluding constant
+                pvalues.remove(Dataframe.COLUMN_NAME_CONSTANT);
+                Map.Entry<Object, Double> maxPvalueEntry = MapMethods.selectMaxKeyValue(pvalues);
+                //pvalues=null;
+                
+                if(maxPvalueEntry.getValue()<=aOut) {
+                    break; //nothing to remove, the highest pvalue is less than the aOut
+                }
+                
+                
+                Set<Object> removedFeatures = new HashSet<>();
+                removedFeatures.add(maxPvalueEntry.getKey());
+                copiedTrainingData.dropXColumns(removedFeatures);
+                //removedFeatures = null;
+                
+                if(copiedTrainingData.xColumnSize()==0) {
+                    break; //if no more features exit
+                }
             }
         }
         
@@ -264,6 +274,54 @@ public class StepwiseRegression extends AbstractRegressor<StepwiseRegression.Mod
         }
     }
 
+    /**
+     * Performs the backward elimination for the MatrixLinearRegression by 
+     * factorizing the normal equations once and removing the eliminated columns
+     * from the factorization. It returns the features that should be removed.
+     * 
+     * @param trainingData
+     * @param maxIterations
+     * @param aOut
+     * @return 
+     */
+    private Set<Object> incrementalBackwardElimination(Dataframe trainingData, int maxIterations, double aOut) {
+        MatrixLinearRegression mlregressor = MLBuilder.create(
+                (MatrixLinearRegression.TrainingParameters) knowledgeBase.getTrainingParameters().getRegressionTrainingParameters(),
+                knowledgeBase.getConfiguration()
+        );
+        
+        Map<Object, Integer> featureIds = new HashMap<>();
+        NormalEquationSolver solver = mlregressor.buildSolver(trainingData, featureIds);
+        mlregressor.close();
+        
+        Map<Integer, Object> idsFeatures = PHPMethods.array_flip(featureIds);
+        
+        Set<Object> removedFeatures = new HashSet<>();
+        for(int iteration = 0; iteration<maxIterations ; ++iteration) {
+            Map<Object, Double> pvalues = MatrixLinearRegression.estimatePvalues(solver, idsFeatures);
+            
+            //fetch the feature with highest pvalue, excluding constant
+            pvalues.remove(Dataframe.COLUMN_NAME_CONSTANT);
+            if(pvalues.isEmpty()) {
+                break; //no more features
+            }
+            Map.Entry<Object, Double> maxPvalueEntry = MapMethods.selectMaxKeyValue(pvalues);
+            
+            if(maxPvalueEntry.getValue()<=aOut) {
+                break; //nothing to remove, the highest pvalue is less than the aOut
+            }
+            
+            removedFeatures.add(maxPvalueEntry.getKey());
+            solver.removeColumn(featureIds.get(maxPvalueEntry.getKey()));
+            
+            if(solver.getColumns().length==1) {
+                break; //if only the constant is left exit
+            }
+        }
+        
+        return removedFeatures;
+    }
+
     private Map<Object, Double> runRegression(Dataframe trainingData) {
         AbstractRegressor mlregressor = MLBuilder.create(
                 knowledgeBase.getTrainingParameters().getRegressionTrainingParameters(),
@@ -16,23 +16,27 @@
 package com.datumbox.framework.core.machinelearning.topicmodeling;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.concurrency.ConcurrencyConfiguration;
+import com.datumbox.framework.common.concurrency.ForkJoinStream;
+import com.datumbox.framework.common.concurrency.StreamMethods;
 import com.datumbox.framework.common.dataobjects.*;
 import com.datumbox.framework.common.storage.interfaces.BigMap;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
 import com.datumbox.framework.common.storage.interfaces.StorageEngine.StorageHint;
+import com.datumbox.framework.common.utilities.RandomGenerator;
 import com.datumbox.framework.core.common.utilities.MapMethods;
 import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.common.abstracts.AbstractTrainer;
 import com.datumbox.framework.core.machinelearning.common.abstracts.modelers.AbstractTopicModeler;
+import com.datumbox.framework.core.machinelearning.common.interfaces.TrainParallelizable;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 import com.datumbox.framework.core.statistics.sampling.SimpleRandomSampling;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.IntStream;
 
 
 /**
@@ -48,6 +52,7 @@ import java.util.Map;
  * http://machinelearning.wustl.edu/mlpapers/paper_files/BleiNJ03.pdf
  * http://www.cl.cam.ac.uk/teaching/1213/L101/clark_lectures/lect7.pdf
  * http://www.ics.uci.edu/~newman/pubs/fastlda.pdf
+ * http://www.jmlr.org/papers/volume10/newman09a/newman09a.pdf (AD-LDA)
  * http://www.tnkcs.inf.elte.hu/vedes/Biro_Istvan_Tezisek_en.pdf (Limit Gibbs Sampler & unseen inference)
  * http://airweb.cse.lehigh.edu/2008/submissions/biro_2008_latent_dirichlet_allocation_spam.pdf (unseen inference)
  * http://www.cs.cmu.edu/~akyrola/10702project/kyrola10702FINAL.pdf 
@@ -56,7 +61,7 @@ import java.util.Map;
  *
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
-public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirichletAllocation.ModelParameters, LatentDirichletAllocation.TrainingParameters> {
+public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirichletAllocation.ModelParameters, LatentDirichletAllocation.TrainingParameters> implements TrainParallelizable {
     
     /** {@inheritDoc} */
     public static class ModelParameters extends AbstractTopicModeler.AbstractModelParameters {
@@ -248,6 +253,25 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
     public static class TrainingParameters extends AbstractTopicModeler.AbstractTrainingParameters {  
         private static final long serialVersionUID = 1L;
         
+        /**
+         * The Sampler used to estimate the topic assignments.
+         */
+        public enum Sampler {
+            /**
+             * Standard collapsed Gibbs sampler which computes the posterior of all
+             * the topics for every word.
+             */
+            COLLAPSED_GIBBS,
+            
+            /**
+             * SparseLDA collapsed Gibbs sampler which decomposes the posterior into
+             * buckets and visits only the topics with non-zero counts in the 
+             * document or the word. It keeps all the counts in primitive arrays and
+             * it supports parallel training.
+             */
+            SPARSE;
+        }
+        
         private int k = 2; //number of topics
         private int maxIterations = 50; //both for training and testing
         
@@ -255,6 +279,8 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
         private double alpha = 1.0; //the hyperparameter of dirichlet prior for document topic distribution
         private double beta = 1.0; //the hyperparameter of dirichlet prior for word topic distribution
         
+        private Sampler sampler = Sampler.COLLAPSED_GIBBS;
+        
         /**
          * Getter for the total number of topics k.
          * 
@@ -327,6 +353,25 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
             this.beta = beta;
         }
         
+        /**
+         * Getter for the Sampler used during training and prediction.
+         * 
+         * @return 
+         */
+        public Sampler getSampler() {
+            return sampler;
+        }
+        
+        /**
+         * Setter for the Sampler used during training and prediction. The SPARSE
+         * sampler is considerably faster for large number of topics.
+         * 
+         * @param sampler 
+         */
+        public void setSampler(Sampler sampler) {
+            this.sampler = sampler;
+        }
+        
     }
 
     /**
@@ -336,6 +381,7 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
      */
     protected LatentDirichletAllocation(TrainingParameters trainingParameters, Configuration configuration) {
         super(trainingParameters, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
     }
 
     /**
@@ -345,6 +391,33 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
      */
     protected LatentDirichletAllocation(String storageName, Configuration configuration) {
         super(storageName, configuration);
+        streamExecutor = new ForkJoinStream(knowledgeBase.getConfiguration().getConcurrencyConfiguration());
+    }
+    
+    /**
+     * The parallel training is an approximation of the collapsed Gibbs sampler 
+     * and its results depend on the number of threads, so it is disabled by
+     * default. When enabled, the SPARSE sampler splits the documents in one 
+     * shard per thread of the ConcurrencyConfiguration.
+     */
+    private boolean parallelized = false;
+    
+    /**
+     * This executor is used for the parallel processing of streams with custom 
+     * Thread pool.
+     */
+    protected final ForkJoinStream streamExecutor;
+    
+    /** {@inheritDoc} */
+    @Override
+    public boolean isParallelized() {
+        return parallelized;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void setParallelized(boolean parallelized) {
+        this.parallelized = parallelized;
     }
     
     /**
@@ -398,6 +471,11 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
         int d = modelParameters.getD();
         
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        
+        if(trainingParameters.getSampler() == TrainingParameters.Sampler.SPARSE) {
+            sparseFit(trainingData);
+            return;
+        }
 
         
         //get model parameters
@@ -563,6 +641,11 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
         //training data in order to make a decision
         ModelParameters modelParameters = knowledgeBase.getModelParameters();
         TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        
+        if(trainingParameters.getSampler() == TrainingParameters.Sampler.SPARSE) {
+            sparsePredict(newData);
+            return;
+        }
 
         //get model parameters
         int d = modelParameters.getD();
@@ -722,4 +805,723 @@ public class LatentDirichletAllocation extends AbstractTopicModeler<LatentDirich
         storageEngine.dropBigMap("tmp_topicWordCounts", tmp_topicWordCounts);
         storageEngine.dropBigMap("tmp_topicCounts", tmp_topicCounts);
     }
+    
+    /**
+     * Trains the model with the SparseLDA sampler. The documents and the topic
+     * assignments are kept in primitive arrays during the sampling and the model
+     * parameters are populated once the sampling is over.
+     * 
+     * @param trainingData 
+     */
+    private void sparseFit(Dataframe trainingData) {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        
+        int d = modelParameters.getD();
+        int k = trainingParameters.getK();
+        double alpha = trainingParameters.getAlpha();
+        double beta = trainingParameters.getBeta();
+        int maxIterations = trainingParameters.getMaxIterations();
+        
+        Map<List<Object>, Integer> topicAssignmentOfDocumentWord = modelParameters.getTopicAssignmentOfDocumentWord();
+        Map<List<Integer>, Integer> documentTopicCounts = modelParameters.getDocumentTopicCounts();
+        Map<List<Object>, Integer> topicWordCounts = modelParameters.getTopicWordCounts();
+        Map<Integer, Integer> documentWordCounts = modelParameters.getDocumentWordCounts();
+        Map<Integer, Integer> topicCounts = modelParameters.getTopicCounts();
+        
+        SparseSampler sampler = new SparseSampler(k, alpha, beta, beta*d);
+        
+        //initialize topic assignments of each word randomly and update the counters
+        int n = trainingData.size();
+        int[][] documentWords = new int[n][];
+        int[][] assignments = new int[n][];
+        int doc = 0;
+        for(Map.Entry<Integer, Record> e : trainingData.entries()) {
+            Integer documentId = e.getKey();
+            AssociativeArray x = e.getValue().getX();
+            
+            documentWordCounts.put(documentId, x.size());
+            
+            documentWords[doc] = new int[x.size()];
+            assignments[doc] = new int[x.size()];
+            int j = 0;
+            for(Object word : x.values()) {
+                int wordId = sampler.getWordId(word);
+                int topic = PHPMethods.mt_rand(0,k-1);
+                
+                documentWords[doc][j] = wordId;
+                assignments[doc][j] = topic;
+                sampler.add(wordId, topic, 1);
+                ++j;
+            }
+            ++doc;
+        }
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        int[] mainTopics = new int[n];
+        Arrays.fill(mainTopics, -1);
+        
+        //in parallel mode the documents are split in one shard per thread
+        ConcurrencyConfiguration concurrencyConfiguration = knowledgeBase.getConfiguration().getConcurrencyConfiguration();
+        int shards = 1;
+        if(isParallelized() && concurrencyConfiguration.isParallelized()) {
+            shards = Math.min(concurrencyConfiguration.getMaxNumberOfThreadsPerTask(), n);
+        }
+        SparseSampler[] localSamplers = new SparseSampler[shards];
+        for(int shard=0;shard<shards && shards>1;++shard) {
+            localSamplers[shard] = new SparseSampler(k, alpha, beta, beta*d);
+        }
+        
+        int iteration=0;
+        while(iteration<maxIterations) {
+            
+            logger.debug("Iteration {}", iteration);
+            
+            int changedCounter;
+            if(shards == 1) {
+                sampler.startIteration();
+                changedCounter = sampleDocuments(sampler, documentWords, assignments, mainTopics, 0, n, random);
+            }
+            else {
+                changedCounter = parallelSampleDocuments(sampler, localSamplers, documentWords, assignments, mainTopics, random);
+            }
+            ++iteration;
+            
+            logger.debug("Reassigned Records {}", changedCounter);
+            
+            if(changedCounter==0) {
+                break;
+            }
+        }
+        
+        //store the assignments and the counts in the model parameters
+        doc = 0;
+        for(Map.Entry<Integer, Record> e : trainingData.entries()) {
+            Integer documentId = e.getKey();
+            Record r = e.getValue();
+            int[] topics = assignments[doc];
+            
+            int j = 0;
+            for(Object wordPosition : r.getX().keySet()) {
+                topicAssignmentOfDocumentWord.put(Arrays.asList(documentId, wordPosition), topics[j]);
+                ++j;
+            }
+            
+            sampler.startDocument(topics);
+            for(int i=0;i<sampler.documentNonZero;++i) {
+                int topic = sampler.documentTopics[i];
+                documentTopicCounts.put(Arrays.asList(documentId, topic), sampler.documentTopicCounts[topic]);
+            }
+            trainingData._unsafe_set(documentId, new Record(r.getX(), r.getY(), sampler.getMainTopic(), sampler.getTopicAssignments()));
+            sampler.endDocument();
+            ++doc;
+        }
+        
+        for(int topic=0;topic<k;++topic) {
+            topicCounts.put(topic, sampler.topicCounts[topic]);
+        }
+        for(int wordId=0;wordId<sampler.words.size();++wordId) {
+            Object word = sampler.words.get(wordId);
+            int[] topics = sampler.wordTopics[wordId];
+            int[] counts = sampler.wordTopicCounts[wordId];
+            for(int i=0;i<sampler.wordNonZero[wordId];++i) {
+                topicWordCounts.put(Arrays.asList(topics[i], word), counts[i]);
+            }
+        }
+        
+        modelParameters.setTotalIterations(iteration);
+    }
+    
+    /**
+     * Performs one pass of the SparseLDA sampler over the documents of the range
+     * and returns the number of documents whose main topic changed.
+     * 
+     * @param sampler
+     * @param documentWords
+     * @param assignments
+     * @param mainTopics
+     * @param from
+     * @param to
+     * @param random
+     * @return 
+     */
+    private int sampleDocuments(SparseSampler sampler, int[][] documentWords, int[][] assignments, int[] mainTopics, int from, int to, Random random) {
+        int changedCounter = 0;
+        for(int doc=from;doc<to;++doc) {
+            int[] words = documentWords[doc];
+            int[] topics = assignments[doc];
+
+            sampler.startDocument(topics);
+            for(int j=0;j<words.length;++j) {
+                sampler.update(words[j], topics[j], -1);
+                topics[j] = sampler.sample(words[j], random.nextDouble());
+                sampler.update(words[j], topics[j], 1);
+            }
+
+            int mainTopic = sampler.getMainTopic();
+            sampler.endDocument();
+
+            if(mainTopic != mainTopics[doc]) {
+                mainTopics[doc] = mainTopic;
+                ++changedCounter;
+            }
+        }
+        return changedCounter;
+    }
+    
+    /**
+     * Performs one pass of the Approximate Distributed LDA (AD-LDA) sampler. 
+     * The documents are split in contiguous shards and every shard is sampled 
+     * in parallel against its own copy of the counts. The copies are merged 
+     * back to the global sampler once all the shards finish. Every shard uses
+     * its own seeded Random, so the results are reproducible for a given number
+     * of threads.
+     * 
+     * @param sampler
+     * @param localSamplers
+     * @param documentWords
+     * @param assignments
+     * @param mainTopics
+     * @param random
+     * @return 
+     */
+    private int parallelSampleDocuments(SparseSampler sampler, SparseSampler[] localSamplers, int[][] documentWords, int[][] assignments, int[] mainTopics, Random random) {
+        int shards = localSamplers.length;
+        int n = documentWords.length;
+        
+        long[] seeds = new long[shards];
+        for(int shard=0;shard<shards;++shard) {
+            seeds[shard] = random.nextLong();
+        }
+        
+        int[] changedCounters = new int[shards];
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, shards).boxed(), true), shard -> {
+            SparseSampler localSampler = localSamplers[shard];
+            localSampler.copyCounts(sampler);
+            localSampler.startIteration();
+            
+            changedCounters[shard] = sampleDocuments(localSampler, documentWords, assignments, mainTopics, shard*n/shards, (shard+1)*n/shards, new Random(seeds[shard]));
+        });
+        
+        //merge the counts of the shards; the words are split in ranges which are merged in parallel
+        int vocabularySize = sampler.words.size();
+        streamExecutor.forEach(StreamMethods.stream(IntStream.range(0, shards).boxed(), true), shard -> {
+            sampler.mergeWordCounts(localSamplers, shard*vocabularySize/shards, (shard+1)*vocabularySize/shards);
+        });
+        sampler.mergeTopicCounts(localSamplers);
+        
+        int changedCounter = 0;
+        for(int shard=0;shard<shards;++shard) {
+            changedCounter += changedCounters[shard];
+        }
+        return changedCounter;
+    }
+    
+    /**
+     * Estimates the topics of the documents with the SparseLDA sampler. The 
+     * counts of the training data are loaded in the sampler and they are combined
+     * with the ones of the new documents, without modifying the model parameters.
+     * 
+     * @param newData 
+     */
+    private void sparsePredict(Dataframe newData) {
+        ModelParameters modelParameters = knowledgeBase.getModelParameters();
+        TrainingParameters trainingParameters = knowledgeBase.getTrainingParameters();
+        
+        int d = modelParameters.getD();
+        int k = trainingParameters.getK();
+        double alpha = trainingParameters.getAlpha();
+        double beta = trainingParameters.getBeta();
+        int maxIterations = trainingParameters.getMaxIterations();
+        
+        SparseSampler sampler = new SparseSampler(k, alpha, beta, beta*d-1);
+        
+        //load the counts of the training data
+        for(Map.Entry<List<Object>, Integer> entry : modelParameters.getTopicWordCounts().entrySet()) {
+            List<Object> key = entry.getKey();
+            sampler.add(sampler.getWordId(key.get(1)), (Integer)key.get(0), entry.getValue());
+        }
+        
+        //initialize topic assignments of each word randomly and update the counters
+        int n = newData.size();
+        int[][] documentWords = new int[n][];
+        int[][] assignments = new int[n][];
+        int doc = 0;
+        for(Map.Entry<Integer, Record> e : newData.entries()) {
+            AssociativeArray x = e.getValue().getX();
+            
+            documentWords[doc] = new int[x.size()];
+            assignments[doc] = new int[x.size()];
+            int j = 0;
+            for(Object word : x.values()) {
+                int wordId = sampler.getWordId(word);
+                int topic = PHPMethods.mt_rand(0,k-1);
+                
+                documentWords[doc][j] = wordId;
+                assignments[doc][j] = topic;
+                sampler.add(wordId, topic, 1);
+                ++j;
+            }
+            ++doc;
+        }
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        int[] mainTopics = new int[n];
+        Arrays.fill(mainTopics, -1);
+        
+        for(int iteration=0;iteration<maxIterations;++iteration) {
+            
+            logger.debug("Iteration {}", iteration);
+            
+            int changedCounter = 0;
+            double perplexity = 0.0;
+            double totalDatasetWords = 0.0;
+            sampler.startIteration();
+            for(doc=0;doc<n;++doc) {
+                int[] words = documentWords[doc];
+                int[] topics = assignments[doc];
+                
+                totalDatasetWords += words.length;
+                double documentNormalizer = words.length-1+alpha*k;
+                
+                sampler.startDocument(topics);
+                for(int j=0;j<words.length;++j) {
+                    sampler.update(words[j], topics[j], -1);
+                    topics[j] = sampler.sample(words[j], random.nextDouble());
+                    perplexity += Math.log(sampler.totalMass/documentNormalizer);
+                    sampler.update(words[j], topics[j], 1);
+                }
+                
+                int mainTopic = sampler.getMainTopic();
+                sampler.endDocument();
+                
+                if(mainTopic != mainTopics[doc]) {
+                    mainTopics[doc] = mainTopic;
+                    ++changedCounter;
+                }
+            }
+            
+            perplexity=Math.exp(-perplexity/totalDatasetWords);
+            
+            logger.debug("Reassigned Records {} - Perplexity: {}", changedCounter, perplexity);
+            
+            if(changedCounter==0) {
+                break;
+            }
+        }
+        
+        doc = 0;
+        for(Map.Entry<Integer, Record> e : newData.entries()) {
+            Record r = e.getValue();
+            
+            sampler.startDocument(assignments[doc]);
+            newData._unsafe_set(e.getKey(), new Record(r.getX(), r.getY(), sampler.getMainTopic(), sampler.getTopicAssignments()));
+            sampler.endDocument();
+            ++doc;
+        }
+    }
+    
+    /**
+     * The SparseSampler implements the collapsed Gibbs sampler of SparseLDA.
+     * The unnormalized posterior of every topic (alpha+ndt)(beta+nwt)/(betaD+nt)
+     * is decomposed into a smoothing bucket alpha*beta/(betaD+nt), a document 
+     * bucket ndt*beta/(betaD+nt) and a word bucket (alpha+ndt)*nwt/(betaD+nt). 
+     * The masses of the first two buckets are updated in constant time when a 
+     * count changes and the word bucket visits only the topics with non-zero 
+     * counts for the word. Since most of the mass falls in the word bucket, the
+     * cost per token is proportional to the number of topics of the word instead 
+     * of k. The topic-word counts are stored in sparse primitive arrays.
+     * 
+     * References:
+     * http://www.cs.ucsb.edu/~mingjia/cs240/doc/273811.pdf
+     */
+    private static class SparseSampler {
+        
+        private final int k;
+        
+        private final double alpha;
+        
+        private final double beta;
+        
+        private final double betaD;
+        
+        //the vocabulary; it maps the words to the ids used by the sampler
+        private final Map<Object, Integer> wordIds = new HashMap<>();
+        private final List<Object> words = new ArrayList<>();
+        
+        //for every word id, the topics with non-zero counts and their counts
+        private int[][] wordTopics = new int[1024][];
+        private int[][] wordTopicCounts = new int[1024][];
+        private int[] wordNonZero = new int[1024];
+        
+        private final int[] topicCounts;
+        
+        //the topic counts of the current document and the topics with non-zero counts
+        private final int[] documentTopicCounts;
+        private final int[] documentTopics;
+        private int documentNonZero = 0;
+        
+        //the (alpha+ndt)/(betaD+nt) of all the topics for the current document
+        private final double[] coefficients;
+        
+        //buffer with the weights of the word bucket
+        private final double[] wordWeights;
+        
+        private double smoothingMass = 0.0;
+        
+        private double documentMass = 0.0;
+        
+        //the total mass of the last sampled posterior
+        private double totalMass = 0.0;
+        
+        private SparseSampler(int k, double alpha, double beta, double betaD) {
+            this.k = k;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.betaD = betaD;
+            
+            topicCounts = new int[k];
+            documentTopicCounts = new int[k];
+            documentTopics = new int[k];
+            coefficients = new double[k];
+            wordWeights = new double[k];
+        }
+        
+        /**
+         * Returns the id of the word, adding it in the vocabulary if necessary.
+         * 
+         * @param word
+         * @return 
+         */
+        private int getWordId(Object word) {
+            Integer wordId = wordIds.get(word);
+            if(wordId == null) {
+                wordId = words.size();
+                wordIds.put(word, wordId);
+                words.add(word);
+                
+                if(wordId == wordNonZero.length) {
+                    int capacity = 2*wordId;
+                    wordTopics = Arrays.copyOf(wordTopics, capacity);
+                    wordTopicCounts = Arrays.copyOf(wordTopicCounts, capacity);
+                    wordNonZero = Arrays.copyOf(wordNonZero, capacity);
+                }
+                wordTopics[wordId] = new int[2];
+                wordTopicCounts[wordId] = new int[2];
+            }
+            return wordId;
+        }
+        
+        /**
+         * Modifies the topic-word and the topic counts by delta. It does not 
+         * update the state of the current document.
+         * 
+         * @param wordId
+         * @param topic
+         * @param delta 
+         */
+        private void add(int wordId, int topic, int delta) {
+            topicCounts[topic] += delta;
+            
+            int[] topics = wordTopics[wordId];
+            int[] counts = wordTopicCounts[wordId];
+            int size = wordNonZero[wordId];
+            
+            int i = 0;
+            while(i<size && topics[i]!=topic) {
+                ++i;
+            }
+            
+            if(i<size) {
+                counts[i] += delta;
+                if(counts[i] == 0) {
+                    //remove the topic by moving the last one in its place
+                    --size;
+                    topics[i] = topics[size];
+                    counts[i] = counts[size];
+                    wordNonZero[wordId] = size;
+                }
+            }
+            else if(delta != 0) {
+                if(size == topics.length) {
+                    topics = wordTopics[wordId] = Arrays.copyOf(topics, Math.min(2*size, k));
+                    counts = wordTopicCounts[wordId] = Arrays.copyOf(counts, topics.length);
+                }
+                topics[size] = topic;
+                counts[size] = delta;
+                wordNonZero[wordId] = size+1;
+            }
+        }
+        
+        /**
+         * Modifies by delta the counts of a word of the current document which 
+         * is assigned to the topic and updates the masses of the buckets.
+         * 
+         * @param wordId
+         * @param topic
+         * @param delta 
+         */
+        private void update(int wordId, int topic, int delta) {
+            double denominator = betaD + topicCounts[topic];
+            smoothingMass -= alpha*beta/denominator;
+            documentMass -= documentTopicCounts[topic]*beta/denominator;
+            
+            add(wordId, topic, delta);
+            addDocumentTopic(topic, delta);
+            
+            denominator = betaD + topicCounts[topic];
+            smoothingMass += alpha*beta/denominator;
+            documentMass += documentTopicCounts[topic]*beta/denominator;
+            coefficients[topic] = (alpha + documentTopicCounts[topic])/denominator;
+        }
+        
+        /**
+         * Computes the mass of the smoothing bucket and the coefficients of the
+         * topics. It is called before every pass over the data to eliminate any 
+         * accumulated rounding errors.
+         */
+        private void startIteration() {
+            smoothingMass = 0.0;
+            for(int topic=0;topic<k;++topic) {
+                double denominator = betaD + topicCounts[topic];
+                smoothingMass += alpha*beta/denominator;
+                coefficients[topic] = alpha/denominator;
+            }
+        }
+        
+        /**
+         * Loads the topic assignments of the words of a document.
+         * 
+         * @param topics 
+         */
+        private void startDocument(int[] topics) {
+            for(int topic : topics) {
+                addDocumentTopic(topic, 1);
+            }
+            
+            documentMass = 0.0;
+            for(int i=0;i<documentNonZero;++i) {
+                int topic = documentTopics[i];
+                double denominator = betaD + topicCounts[topic];
+                documentMass += documentTopicCounts[topic]*beta/denominator;
+                coefficients[topic] = (alpha + documentTopicCounts[topic])/denominator;
+            }
+        }
+        
+        /**
+         * Clears the state of the current document.
+         */
+        private void endDocument() {
+            for(int i=0;i<documentNonZero;++i) {
+                int topic = documentTopics[i];
+                documentTopicCounts[topic] = 0;
+                coefficients[topic] = alpha/(betaD + topicCounts[topic]);
+            }
+            documentNonZero = 0;
+            documentMass = 0.0;
+        }
+        
+        /**
+         * Samples the topic of a word of the current document, after its previous
+         * assignment has been removed from the counts.
+         * 
+         * @param wordId
+         * @param uniform A random number in [0, 1).
+         * @return 
+         */
+        private int sample(int wordId, double uniform) {
+            int[] topics = wordTopics[wordId];
+            int[] counts = wordTopicCounts[wordId];
+            int size = wordNonZero[wordId];
+            
+            double wordMass = 0.0;
+            for(int i=0;i<size;++i) {
+                wordWeights[i] = coefficients[topics[i]]*counts[i];
+                wordMass += wordWeights[i];
+            }
+            
+            totalMass = smoothingMass + documentMass + wordMass;
+            double u = uniform*totalMass;
+            
+            if(u < wordMass) {
+                for(int i=0;i<size;++i) {
+                    u -= wordWeights[i];
+                    if(u < 0.0) {
+                        return topics[i];
+                    }
+                }
+                return topics[size-1];
+            }
+            u -= wordMass;
+            
+            if(u < documentMass) {
+                for(int i=0;i<documentNonZero;++i) {
+                    int topic = documentTopics[i];
+                    u -= documentTopicCounts[topic]*beta/(betaD + topicCounts[topic]);
+                    if(u < 0.0) {
+                        return topic;
+                    }
+                }
+                //the mass is exhausted due to rounding errors; fall back to the smoothing bucket
+                u = 0.0;
+            }
+            else {
+                u -= documentMass;
+            }
+            
+            for(int topic=0;topic<k;++topic) {
+                u -= alpha*beta/(betaD + topicCounts[topic]);
+                if(u < 0.0) {
+                    return topic;
+                }
+            }
+            return k-1;
+        }
+        
+        /**
+         * Replaces the topic and the topic-word counts with the ones of the other
+         * sampler. The existing arrays are reused when they have enough capacity.
+         * 
+         * @param other 
+         */
+        private void copyCounts(SparseSampler other) {
+            System.arraycopy(other.topicCounts, 0, topicCounts, 0, k);
+            
+            int vocabularySize = other.words.size();
+            if(wordNonZero.length < vocabularySize) {
+                int capacity = other.wordNonZero.length;
+                wordTopics = Arrays.copyOf(wordTopics, capacity);
+                wordTopicCounts = Arrays.copyOf(wordTopicCounts, capacity);
+                wordNonZero = Arrays.copyOf(wordNonZero, capacity);
+            }
+            for(int wordId=0;wordId<vocabularySize;++wordId) {
+                int size = other.wordNonZero[wordId];
+                if(wordTopics[wordId] == null || wordTopics[wordId].length < size) {
+                    wordTopics[wordId] = new int[other.wordTopics[wordId].length];
+                    wordTopicCounts[wordId] = new int[other.wordTopics[wordId].length];
+                }
+                System.arraycopy(other.wordTopics[wordId], 0, wordTopics[wordId], 0, size);
+                System.arraycopy(other.wordTopicCounts[wordId], 0, wordTopicCounts[wordId], 0, size);
+                wordNonZero[wordId] = size;
+            }
+        }
+        
+        /**
+         * Merges the topic-word counts of the samplers which were copied from 
+         * this one for the words of the range. Since every word of the data is 
+         * sampled by exactly one of them, the merged count is the sum of their
+         * counts minus the previous count for every additional sampler.
+         * 
+         * @param localSamplers
+         * @param fromWordId
+         * @param toWordId 
+         */
+        private void mergeWordCounts(SparseSampler[] localSamplers, int fromWordId, int toWordId) {
+            int[] counts = new int[k];
+            for(int wordId=fromWordId;wordId<toWordId;++wordId) {
+                int[] topics = wordTopics[wordId];
+                for(int i=0;i<wordNonZero[wordId];++i) {
+                    counts[topics[i]] = (1-localSamplers.length)*wordTopicCounts[wordId][i];
+                }
+                for(SparseSampler localSampler : localSamplers) {
+                    for(int i=0;i<localSampler.wordNonZero[wordId];++i) {
+                        counts[localSampler.wordTopics[wordId][i]] += localSampler.wordTopicCounts[wordId][i];
+                    }
+                }
+                
+                //every previous topic of the word is kept by at least one of the samplers, so this loop also clears the counts
+                int size = 0;
+                for(SparseSampler localSampler : localSamplers) {
+                    for(int i=0;i<localSampler.wordNonZero[wordId];++i) {
+                        int topic = localSampler.wordTopics[wordId][i];
+                        if(counts[topic] > 0) {
+                            if(size == topics.length) {
+                                topics = wordTopics[wordId] = Arrays.copyOf(topics, Math.min(2*size, k));
+                                wordTopicCounts[wordId] = Arrays.copyOf(wordTopicCounts[wordId], topics.length);
+                            }
+                            topics[size] = topic;
+                            wordTopicCounts[wordId][size] = counts[topic];
+                            ++size;
+                            counts[topic] = 0;
+                        }
+                    }
+                }
+                wordNonZero[wordId] = size;
+            }
+        }
+        
+        /**
+         * Merges the topic counts of the samplers which were copied from this one.
+         * 
+         * @param localSamplers 
+         */
+        private void mergeTopicCounts(SparseSampler[] localSamplers) {
+            for(int topic=0;topic<k;++topic) {
+                int count = (1-localSamplers.length)*topicCounts[topic];
+                for(SparseSampler localSampler : localSamplers) {
+                    count += localSampler.topicCounts[topic];
+                }
+                topicCounts[topic] = count;
+            }
+        }
+        
+        /**
+         * Returns the topic with the most words in the current document.
+         * 
+         * @return 
+         */
+        private int getMainTopic() {
+            int mainTopic = -1;
+            int maxCount = 0;
+            for(int i=0;i<documentNonZero;++i) {
+                int topic = documentTopics[i];
+                int count = documentTopicCounts[topic];
+                if(count > maxCount || count == maxCount && topic < mainTopic) {
+                    mainTopic = topic;
+                    maxCount = count;
+                }
+            }
+            return mainTopic;
+        }
+        
+        /**
+         * Returns the proportion of the words of the current document which are 
+         * assigned to each topic.
+         * 
+         * @return 
+         */
+        private AssociativeArray getTopicAssignments() {
+            int totalWords = 0;
+            for(int i=0;i<documentNonZero;++i) {
+                totalWords += documentTopicCounts[documentTopics[i]];
+            }
+            
+            AssociativeArray topicAssignments = new AssociativeArray();
+            for(int topic=0;topic<k;++topic) {
+                topicAssignments.put(topic, (totalWords>0)?documentTopicCounts[topic]/(double)totalWords:0.0);
+            }
+            return topicAssignments;
+        }
+        
+        /**
+         * Modifies the count of the topic in the current document.
+         * 
+         * @param topic
+         * @param delta 
+         */
+        private void addDocumentTopic(int topic, int delta) {
+            int count = documentTopicCounts[topic];
+            documentTopicCounts[topic] = count + delta;
+            if(count == 0) {
+                documentTopics[documentNonZero++] = topic;
+            }
+            else if(count + delta == 0) {
+                int i = 0;
+                while(documentTopics[i] != topic) {
+                    ++i;
+                }
+                documentTopics[i] = documentTopics[--documentNonZero];
+            }
+        }
+    }
 }
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.distances;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The CondensedDistanceMatrix stores the distances of n points as the upper 
+ * triangle of the distance matrix, without the diagonal, in n(n-1)/2 doubles. 
+ * The values are kept in chunks so that the matrix is not limited by the maximum
+ * size of an array. The chunks are either heap buffers or buffers which are 
+ * memory-mapped to a temporary file. The memory-mapped matrices are paged in 
+ * and out by the operating system, so they can exceed the size of the heap.
+ * 
+ * Writing different cells from multiple threads is safe.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CondensedDistanceMatrix implements AutoCloseable {
+    
+    /**
+     * The number of doubles stored in every chunk (1GB).
+     */
+    private static final int CHUNK_BITS = 27;
+    
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    
+    private final int n;
+    
+    private final DoubleBuffer[] chunks;
+    
+    private final Path file;
+    
+    /**
+     * Public constructor which creates a matrix for n points.
+     * 
+     * @param n
+     * @param memoryMapped Whether the values are stored in a memory-mapped temporary file instead of the heap.
+     */
+    public CondensedDistanceMatrix(int n, boolean memoryMapped) {
+        if(n<0) {
+            throw new IllegalArgumentException("The number of points can not be negative.");
+        }
+        this.n = n;
+        
+        long size = n*(n-1L)/2;
+        int numberOfChunks = (int)((size + CHUNK_MASK) >>> CHUNK_BITS);
+        chunks = new DoubleBuffer[numberOfChunks];
+        
+        if(memoryMapped) {
+            try {
+                file = Files.createTempFile("distances", ".bin");
+                try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    for(int c=0;c<numberOfChunks;++c) {
+                        long offset = (long)c << CHUNK_BITS;
+                        long chunkSize = Math.min(size - offset, 1L << CHUNK_BITS);
+                        chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, offset*Double.BYTES, chunkSize*Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+                    }
+                }
+            }
+            catch(IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        else {
+            file = null;
+            for(int c=0;c<numberOfChunks;++c) {
+                long offset = (long)c << CHUNK_BITS;
+                chunks[c] = DoubleBuffer.allocate((int)Math.min(size - offset, 1L << CHUNK_BITS));
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of points.
+     * 
+     * @return 
+     */
+    public int size() {
+        return n;
+    }
+    
+    /**
+     * Returns the distance between the points i and j. The points must be different.
+     * 
+     * @param i
+     * @param j
+     * @return 
+     */
+    public double get(int i, int j) {
+        long index = index(i, j);
+        return chunks[(int)(index >>> CHUNK_BITS)].get((int)(index & CHUNK_MASK));
+    }
+    
+    /**
+     * Sets the distance between the points i and j. The points must be different.
+     * 
+     * @param i
+     * @param j
+     * @param distance 
+     */
+    public void set(int i, int j, double distance) {
+        long index = index(i, j);
+        chunks[(int)(index >>> CHUNK_BITS)].put((int)(index & CHUNK_MASK), distance);
+    }
+    
+    /**
+     * Releases the storage of the matrix. The temporary file of a memory-mapped
+     * matrix is deleted.
+     */
+    @Override
+    public void close() {
+        for(int c=0;c<chunks.length;++c) {
+            chunks[c] = null;
+        }
+        if(file != null) {
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch(IOException ex) {
+                //the file can't be deleted while it is mapped on some platforms
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+    
+    /**
+     * Returns the position of the pair in the condensed matrix.
+     * 
+     * @param i
+     * @param j
+     * @return 
+     */
+    private long index(int i, int j) {
+        if(i > j) {
+            int tmp = i;
+            i = j;
+            j = tmp;
+        }
+        else if(i == j) {
+            throw new IllegalArgumentException("The distance of a point with itself is not stored.");
+        }
+        return (long)n*i - (long)i*(i+1)/2 + (j-i-1);
+    }
+    
+}
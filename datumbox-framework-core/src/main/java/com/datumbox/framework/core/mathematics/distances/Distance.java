@@ -16,6 +16,7 @@
 package com.datumbox.framework.core.mathematics.distances;
 
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.common.dataobjects.NumericMap;
 import com.datumbox.framework.common.dataobjects.TypeInference;
 
 import java.util.*;
@@ -27,6 +28,10 @@ import java.util.*;
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
 public class Distance {
+
+    private static final int EUCLIDEAN = 0;
+    private static final int MANHATTAN = 1;
+    private static final int MAXIMUM = 2;
     
     /**
      * Estimates the euclidean distance of two Associative Arrays.
@@ -36,6 +41,9 @@ public class Distance {
      * @return 
      */
     public static double euclidean(AssociativeArray a1, AssociativeArray a2) {
+        if(a1.getNumericData() != null && a2.getNumericData() != null) {
+            return numericDistance(a1.getNumericData(), a2.getNumericData(), null, EUCLIDEAN);
+        }
         Map<Object, Double> columnDistances = columnDistances(a1, a2, null);
         
         double distance = 0.0;
@@ -55,6 +63,9 @@ public class Distance {
      * @return 
      */
     public static double euclideanWeighted(AssociativeArray a1, AssociativeArray a2, Map<Object, Double> columnWeights) {
+        if(a1.getNumericData() != null && a2.getNumericData() != null) {
+            return numericDistance(a1.getNumericData(), a2.getNumericData(), columnWeights, EUCLIDEAN);
+        }
         Map<Object, Double> columnDistances = columnDistances(a1, a2, columnWeights.keySet());
         
         double distance = 0.0;
@@ -73,6 +84,9 @@ public class Distance {
      * @return 
      */
     public static double manhattan(AssociativeArray a1, AssociativeArray a2) {
+        if(a1.getNumericData() != null && a2.getNumericData() != null) {
+            return numericDistance(a1.getNumericData(), a2.getNumericData(), null, MANHATTAN);
+        }
         Map<Object, Double> columnDistances = columnDistances(a1, a2, null);
         
         double distance = 0.0;
@@ -92,6 +106,9 @@ public class Distance {
      * @return 
      */
     public static double manhattanWeighted(AssociativeArray a1, AssociativeArray a2, Map<Object, Double> columnWeights) {
+        if(a1.getNumericData() != null && a2.getNumericData() != null) {
+            return numericDistance(a1.getNumericData(), a2.getNumericData(), columnWeights, MANHATTAN);
+        }
         Map<Object, Double> columnDistances = columnDistances(a1, a2, columnWeights.keySet());
         
         double distance = 0.0;
@@ -110,6 +127,9 @@ public class Distance {
      * @return 
      */
     public static double maximum(AssociativeArray a1, AssociativeArray a2) {
+        if(a1.getNumericData() != null && a2.getNumericData() != null) {
+            return numericDistance(a1.getNumericData(), a2.getNumericData(), null, MAXIMUM);
+        }
         Map<Object, Double> columnDistances = columnDistances(a1, a2, null);
         
         double distance=0.0;
@@ -123,6 +143,67 @@ public class Distance {
         return distance;
     }
     
+    /**
+     * Estimates the distance of two NumericMaps by merging their sorted key ids,
+     * without building the intermediate map of column distances. A missing
+     * column is treated like in columnDistances(), where the distance is equal
+     * to the value of the other map.
+     *
+     * @param m1
+     * @param m2
+     * @param columnWeights
+     * @param type
+     * @return
+     */
+    private static double numericDistance(NumericMap m1, NumericMap m2, Map<Object, Double> columnWeights, int type) {
+        int n1 = m1.size();
+        int n2 = m2.size();
+
+        double distance = 0.0;
+        int i = 0;
+        int j = 0;
+        while(i<n1 || j<n2) {
+            int id1 = (i<n1)?m1.keyIdAt(i):Integer.MAX_VALUE;
+            int id2 = (j<n2)?m2.keyIdAt(j):Integer.MAX_VALUE;
+
+            Object column;
+            double columnDistance;
+            if(id1==id2) {
+                column = (columnWeights!=null)?m1.keyAt(i):null;
+                columnDistance = m1.valueAt(i++) - m2.valueAt(j++);
+            }
+            else if(id1<id2) {
+                column = (columnWeights!=null)?m1.keyAt(i):null;
+                columnDistance = m1.valueAt(i++);
+            }
+            else {
+                column = (columnWeights!=null)?m2.keyAt(j):null;
+                columnDistance = m2.valueAt(j++);
+            }
+
+            double weight = 1.0;
+            if(columnWeights!=null) {
+                Double w = columnWeights.get(column);
+                if(w==null) {
+                    continue; //the column is not compared
+                }
+                weight = w;
+            }
+
+            if(type==EUCLIDEAN) {
+                distance+=(columnDistance*columnDistance)*weight;
+            }
+            else if(type==MANHATTAN) {
+                distance+=Math.abs(columnDistance)*weight;
+            }
+            else {
+                distance=Math.max(distance, Math.abs(columnDistance));
+            }
+        }
+
+        return (type==EUCLIDEAN)?Math.sqrt(distance):distance;
+    }
+    
     private static Map<Object, Double> columnDistances(AssociativeArray a1, AssociativeArray a2, Set<Object> comparingColumns) {
         if(comparingColumns==null) {
             //if the list of comparing columns is not set, build it from the data
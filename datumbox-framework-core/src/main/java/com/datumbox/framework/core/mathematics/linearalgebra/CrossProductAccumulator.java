@@ -0,0 +1,333 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.linearalgebra;
+
+import java.util.Arrays;
+
+/**
+ * The CrossProductAccumulator estimates in a single pass the count, the sums and
+ * the cross-products X'X of a stream of sparse vectors. Only the non-zero values
+ * of every vector are visited and the cross-products are kept in the lower 
+ * triangle of the matrix, so the memory is O(d^2) regardless of the number of 
+ * vectors. When the cross-products are not needed, only the sums of squares are
+ * accumulated and the memory is O(d).
+ * 
+ * To avoid the catastrophic cancellation of (X'X - n*mean*mean') when the means
+ * are large compared to the spread of the data, the statistics are accumulated on
+ * the vectors shifted by the first vector of the stream. The shift is sparse when
+ * the data are sparse, so only the union of the non-zero elements of the vector
+ * and the shift is visited. The accumulators are merged by translating the shifted
+ * statistics of the other accumulator to the shift of this one.
+ * 
+ * The instances are not thread-safe; parallel streams should use one instance 
+ * per worker and merge them with the merge() method.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CrossProductAccumulator {
+    
+    private final int d;
+    
+    private long count = 0;
+    
+    private final double[] sums; //of the shifted vectors
+    
+    private final double[] sumsOfSquares; //of the shifted vectors
+    
+    private final double[][] crossProducts; //of the shifted vectors; lower triangle; row i has i+1 elements
+    
+    private final double[] shift;
+    
+    private int[] shiftIndices = new int[0]; //the positions of the non-zero elements of the shift
+    
+    //buffers which store the shifted vector during the add()
+    private final double[] buffer;
+    private final long[] marks;
+    private int[] shiftedIndices = new int[0];
+    private double[] shiftedValues = new double[0];
+    
+    /**
+     * Public constructor.
+     * 
+     * @param d The dimension of the vectors.
+     * @param crossProducts Whether the full cross-product matrix is accumulated or only its diagonal.
+     */
+    public CrossProductAccumulator(int d, boolean crossProducts) {
+        this.d = d;
+        sums = new double[d];
+        sumsOfSquares = new double[d];
+        if(crossProducts) {
+            this.crossProducts = new double[d][];
+            for(int i=0;i<d;i++) {
+                this.crossProducts[i] = new double[i+1];
+            }
+        }
+        else {
+            this.crossProducts = null;
+        }
+        shift = new double[d];
+        buffer = new double[d];
+        marks = new long[d];
+    }
+    
+    /**
+     * Returns the dimension of the vectors.
+     * 
+     * @return 
+     */
+    public int getDimension() {
+        return d;
+    }
+    
+    /**
+     * Returns the number of the accumulated vectors.
+     * 
+     * @return 
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns whether the full cross-product matrix is accumulated.
+     * 
+     * @return 
+     */
+    public boolean hasCrossProducts() {
+        return crossProducts != null;
+    }
+    
+    /**
+     * Adds a vector which is provided by the positions and the values of its 
+     * non-zero elements.
+     * 
+     * @param indices
+     * @param values
+     * @param length The number of non-zero elements.
+     */
+    public void add(int[] indices, double[] values, int length) {
+        if(count == 0) {
+            setShift(indices, values, length);
+        }
+        count++;
+        
+        //subtract the shift from the vector; the marks use the count as stamp
+        int n = 0;
+        int maxLength = length + shiftIndices.length;
+        if(shiftedIndices.length < maxLength) {
+            shiftedIndices = new int[maxLength];
+            shiftedValues = new double[maxLength];
+        }
+        for(int p=0;p<length;p++) {
+            int i = indices[p];
+            if(marks[i] != count) {
+                marks[i] = count;
+                shiftedIndices[n++] = i;
+            }
+            buffer[i] += values[p];
+        }
+        for(int i : shiftIndices) {
+            if(marks[i] != count) {
+                marks[i] = count;
+                shiftedIndices[n++] = i;
+            }
+            buffer[i] -= shift[i];
+        }
+        int m = 0;
+        for(int p=0;p<n;p++) {
+            int i = shiftedIndices[p];
+            double value = buffer[i];
+            buffer[i] = 0.0;
+            if(value != 0.0) {
+                shiftedIndices[m] = i;
+                shiftedValues[m++] = value;
+            }
+        }
+        
+        for(int p=0;p<m;p++) {
+            int i = shiftedIndices[p];
+            double value = shiftedValues[p];
+            sums[i] += value;
+            sumsOfSquares[i] += value*value;
+            if(crossProducts != null) {
+                for(int q=0;q<p;q++) {
+                    int j = shiftedIndices[q];
+                    if(i>j) {
+                        crossProducts[i][j] += value*shiftedValues[q];
+                    }
+                    else {
+                        crossProducts[j][i] += value*shiftedValues[q];
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Merges the statistics of another accumulator with the same dimension and
+     * returns this instance.
+     * 
+     * @param other
+     * @return 
+     */
+    public CrossProductAccumulator merge(CrossProductAccumulator other) {
+        if(d != other.d || hasCrossProducts() != other.hasCrossProducts()) {
+            throw new IllegalArgumentException("The accumulators are not compatible.");
+        }
+        if(other.count == 0) {
+            return this;
+        }
+        if(count == 0) {
+            System.arraycopy(other.shift, 0, shift, 0, d);
+            shiftIndices = other.shiftIndices.clone();
+        }
+        
+        //translate the statistics of the other from its shift to ours: y = (x - otherShift) + delta
+        double n = other.count;
+        double[] delta = new double[d];
+        for(int i=0;i<d;i++) {
+            delta[i] = other.shift[i] - shift[i];
+        }
+        for(int i=0;i<d;i++) {
+            sumsOfSquares[i] += other.sumsOfSquares[i] + 2.0*delta[i]*other.sums[i] + n*delta[i]*delta[i];
+        }
+        if(crossProducts != null) {
+            for(int i=0;i<d;i++) {
+                double[] row = crossProducts[i];
+                double[] otherRow = other.crossProducts[i];
+                for(int j=0;j<i;j++) {
+                    row[j] += otherRow[j] + delta[i]*other.sums[j] + delta[j]*other.sums[i] + n*delta[i]*delta[j];
+                }
+            }
+        }
+        for(int i=0;i<d;i++) {
+            sums[i] += other.sums[i] + n*delta[i];
+        }
+        count += other.count;
+        return this;
+    }
+    
+    /**
+     * Returns the sums of the vectors.
+     * 
+     * @return 
+     */
+    public double[] getSums() {
+        double[] result = new double[d];
+        for(int i=0;i<d;i++) {
+            result[i] = sums[i] + count*shift[i];
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the means of the vectors.
+     * 
+     * @return 
+     */
+    public double[] getMeans() {
+        double[] means = new double[d];
+        if(count>0) {
+            for(int i=0;i<d;i++) {
+                means[i] = shift[i] + sums[i]/count;
+            }
+        }
+        return means;
+    }
+    
+    /**
+     * Returns the sample variances of the vectors.
+     * 
+     * @return 
+     */
+    public double[] getVariances() {
+        double[] variances = new double[d];
+        if(count>1) {
+            for(int i=0;i<d;i++) {
+                variances[i] = (sumsOfSquares[i] - sums[i]*sums[i]/count)/(count-1.0);
+            }
+        }
+        return variances;
+    }
+    
+    /**
+     * Returns the cross-product matrix X'X.
+     * 
+     * @return 
+     */
+    public double[][] getCrossProducts() {
+        assertCrossProducts();
+        double[][] matrix = new double[d][d];
+        for(int i=0;i<d;i++) {
+            for(int j=0;j<=i;j++) {
+                double shifted = (i==j)?sumsOfSquares[i]:crossProducts[i][j];
+                double value = shifted + shift[i]*sums[j] + shift[j]*sums[i] + count*shift[i]*shift[j];
+                matrix[i][j] = value;
+                matrix[j][i] = value;
+            }
+        }
+        return matrix;
+    }
+    
+    /**
+     * Returns the sample covariance matrix (X'X - n*mean*mean')/(n-1), which is
+     * estimated from the shifted statistics.
+     * 
+     * @return 
+     */
+    public double[][] getCovariance() {
+        assertCrossProducts();
+        if(count<2) {
+            throw new IllegalArgumentException("At least two vectors are required to estimate the covariance.");
+        }
+        double[][] matrix = new double[d][d];
+        for(int i=0;i<d;i++) {
+            for(int j=0;j<=i;j++) {
+                double shifted = (i==j)?sumsOfSquares[i]:crossProducts[i][j];
+                double value = (shifted - sums[i]*sums[j]/count)/(count-1.0);
+                matrix[i][j] = value;
+                matrix[j][i] = value;
+            }
+        }
+        return matrix;
+    }
+    
+    /**
+     * Uses the provided vector as the shift of the statistics.
+     * 
+     * @param indices
+     * @param values
+     * @param length 
+     */
+    private void setShift(int[] indices, double[] values, int length) {
+        int[] nonZero = new int[length];
+        int n = 0;
+        for(int p=0;p<length;p++) {
+            int i = indices[p];
+            if(values[p] != 0.0 && shift[i] == 0.0) {
+                nonZero[n++] = i;
+            }
+            shift[i] += values[p];
+        }
+        shiftIndices = Arrays.copyOf(nonZero, n);
+    }
+    
+    private void assertCrossProducts() {
+        if(crossProducts == null) {
+            throw new IllegalArgumentException("The cross-products are not accumulated.");
+        }
+    }
+}
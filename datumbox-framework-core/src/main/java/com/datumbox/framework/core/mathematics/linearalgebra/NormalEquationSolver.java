@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.linearalgebra;
+
+import org.apache.commons.math3.linear.SingularMatrixException;
+
+import java.util.Arrays;
+
+/**
+ * The NormalEquationSolver estimates the least squares coefficients of a linear 
+ * model from the normal equations X'X*b = X'y, which require only O(d^2) memory.
+ * The matrix X'X is factorized with the Cholesky decomposition X'X = L*L'. The
+ * columns of X can be removed after the factorization; the factor is updated 
+ * with Givens rotations in O(d^2) instead of being estimated from scratch.
+ * 
+ * The columns are identified by their position on the original X'X matrix.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class NormalEquationSolver {
+    
+    private final long n;
+    
+    private final double yty;
+    
+    private int[] columns; //the original ids of the active columns
+    
+    private double[] Xty; //X'y of the active columns
+    
+    private double[][] L; //lower triangular Cholesky factor of X'X of the active columns
+    
+    private double[] coefficients;
+    
+    /**
+     * Public constructor which factorizes the X'X matrix.
+     * 
+     * @param XtX The X'X matrix.
+     * @param Xty The X'y vector.
+     * @param yty The y'y value.
+     * @param n The number of observations.
+     * @throws SingularMatrixException if X'X is not positive definite
+     */
+    public NormalEquationSolver(double[][] XtX, double[] Xty, double yty, long n) {
+        int d = Xty.length;
+        this.n = n;
+        this.yty = yty;
+        this.Xty = Xty.clone();
+        columns = new int[d];
+        for(int i=0;i<d;i++) {
+            columns[i] = i;
+        }
+        
+        //Cholesky decomposition
+        L = new double[d][];
+        for(int j=0;j<d;j++) {
+            double[] Lj = new double[j+1];
+            L[j] = Lj;
+            for(int k=0;k<j;k++) {
+                double[] Lk = L[k];
+                double value = XtX[j][k];
+                for(int m=0;m<k;m++) {
+                    value -= Lj[m]*Lk[m];
+                }
+                Lj[k] = value/Lk[k];
+            }
+            double diagonal = XtX[j][j];
+            for(int m=0;m<j;m++) {
+                diagonal -= Lj[m]*Lj[m];
+            }
+            if(diagonal<=0.0) {
+                throw new SingularMatrixException();
+            }
+            Lj[j] = Math.sqrt(diagonal);
+        }
+    }
+    
+    /**
+     * Returns the number of observations.
+     * 
+     * @return 
+     */
+    public long getN() {
+        return n;
+    }
+    
+    /**
+     * Returns the original ids of the columns which are still active.
+     * 
+     * @return 
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+    
+    /**
+     * Returns the coefficients of the active columns.
+     * 
+     * @return 
+     */
+    public double[] getCoefficients() {
+        if(coefficients == null) {
+            //solve L*z = X'y and L'*b = z
+            double[] z = forwardSubstitution(Xty);
+            int d = z.length;
+            double[] b = new double[d];
+            for(int i=d-1;i>=0;i--) {
+                double value = z[i];
+                for(int k=i+1;k<d;k++) {
+                    value -= L[k][i]*b[k];
+                }
+                b[i] = value/L[i][i];
+            }
+            coefficients = b;
+        }
+        return coefficients.clone();
+    }
+    
+    /**
+     * Returns the sum of squared errors y'y - b'X'y of the model.
+     * 
+     * @return 
+     */
+    public double getSSE() {
+        double[] b = getCoefficients();
+        double SSE = yty;
+        for(int i=0;i<b.length;i++) {
+            SSE -= b[i]*Xty[i];
+        }
+        return Math.max(SSE, 0.0);
+    }
+    
+    /**
+     * Returns the diagonal of the (X'X)^-1 matrix of the active columns.
+     * 
+     * @return 
+     */
+    public double[] getInverseDiagonal() {
+        //the (X'X)^-1 is equal to W'*W where W = L^-1; W is estimated one column at a time
+        int d = columns.length;
+        double[] diagonal = new double[d];
+        double[] w = new double[d];
+        for(int j=0;j<d;j++) {
+            Arrays.fill(w, 0.0);
+            w[j] = 1.0/L[j][j];
+            diagonal[j] += w[j]*w[j];
+            for(int i=j+1;i<d;i++) {
+                double[] Li = L[i];
+                double value = 0.0;
+                for(int k=j;k<i;k++) {
+                    value -= Li[k]*w[k];
+                }
+                w[i] = value/Li[i];
+                diagonal[j] += w[i]*w[i];
+            }
+        }
+        return diagonal;
+    }
+    
+    /**
+     * Removes a column from the model and updates the Cholesky factor. 
+     * 
+     * @param column The original id of the column.
+     */
+    public void removeColumn(int column) {
+        int d = columns.length;
+        int p = -1;
+        for(int i=0;i<d;i++) {
+            if(columns[i]==column) {
+                p = i;
+                break;
+            }
+        }
+        if(p<0) {
+            throw new IllegalArgumentException("The column is not active.");
+        }
+        
+        //remove the row p; the rows below it get an extra element above the diagonal
+        double[][] newL = new double[d-1][];
+        for(int i=0;i<p;i++) {
+            newL[i] = L[i];
+        }
+        for(int i=p;i<d-1;i++) {
+            newL[i] = L[i+1];
+        }
+        
+        //eliminate the elements above the diagonal with Givens rotations on the columns k and k+1
+        for(int k=p;k<d-1;k++) {
+            double a = newL[k][k];
+            double b = newL[k][k+1];
+            double r = Math.hypot(a, b);
+            double c = a/r;
+            double s = b/r;
+            for(int i=k;i<d-1;i++) {
+                double[] Li = newL[i];
+                double x = Li[k];
+                double y = Li[k+1];
+                Li[k] = c*x + s*y;
+                Li[k+1] = -s*x + c*y;
+            }
+            newL[k] = Arrays.copyOf(newL[k], k+1);
+        }
+        L = newL;
+        
+        columns = remove(columns, p);
+        Xty = remove(Xty, p);
+        coefficients = null;
+    }
+    
+    private double[] forwardSubstitution(double[] v) {
+        int d = v.length;
+        double[] z = new double[d];
+        for(int i=0;i<d;i++) {
+            double[] Li = L[i];
+            double value = v[i];
+            for(int k=0;k<i;k++) {
+                value -= Li[k]*z[k];
+            }
+            z[i] = value/Li[i];
+        }
+        return z;
+    }
+    
+    private static int[] remove(int[] array, int p) {
+        int[] result = new int[array.length-1];
+        System.arraycopy(array, 0, result, 0, p);
+        System.arraycopy(array, p+1, result, p, array.length-p-1);
+        return result;
+    }
+    
+    private static double[] remove(double[] array, int p) {
+        double[] result = new double[array.length-1];
+        System.arraycopy(array, 0, result, 0, p);
+        System.arraycopy(array, p+1, result, p, array.length-p-1);
+        return result;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.optimization;
+
+/**
+ * The LBFGS class minimizes a differentiable function with the limited-memory
+ * Broyden-Fletcher-Goldfarb-Shanno quasi-Newton method. It keeps the last few
+ * changes of the point and the gradient to approximate the inverse Hessian, so
+ * it converges in far fewer iterations than gradient descent while using only
+ * O(m*d) memory. The step length is selected with a backtracking line search
+ * which satisfies the Armijo condition.
+ *
+ * References:
+ * Nocedal, J. and Wright, S. J. (2006). Numerical Optimization, 2nd edition, Chapter 7.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class LBFGS {
+    
+    /**
+     * A function which can be minimized by the LBFGS.
+     */
+    @FunctionalInterface
+    public interface DifferentiableFunction {
+        
+        /**
+         * Returns the value of the function at the provided point and writes
+         * its gradient in the provided array.
+         * 
+         * @param point
+         * @param gradient
+         * @return 
+         */
+        public double evaluate(double[] point, double[] gradient);
+    }
+    
+    private static final double ARMIJO_CONSTANT = 1e-4;
+    
+    private static final int MAX_LINE_SEARCH_STEPS = 40;
+    
+    private final int memory;
+    
+    private final int maxIterations;
+    
+    private final double tolerance;
+    
+    /**
+     * Public constructor.
+     * 
+     * @param memory The number of corrections which are used to approximate the inverse Hessian.
+     * @param maxIterations The maximum number of iterations.
+     * @param tolerance The optimization stops when the norm of the gradient or the relative decrease of the function falls below this value.
+     */
+    public LBFGS(int memory, int maxIterations, double tolerance) {
+        if(memory <= 0) {
+            throw new IllegalArgumentException("The memory must be positive.");
+        }
+        else if(maxIterations < 0) {
+            throw new IllegalArgumentException("The maximum number of iterations can't be negative.");
+        }
+        else if(tolerance < 0.0) {
+            throw new IllegalArgumentException("The tolerance can't be negative.");
+        }
+        this.memory = memory;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+    
+    /**
+     * Minimizes the function starting from the provided point, which is updated
+     * in place with the solution. It returns the number of iterations that were
+     * performed.
+     * 
+     * @param function
+     * @param point
+     * @return 
+     */
+    public int minimize(DifferentiableFunction function, double[] point) {
+        int d = point.length;
+        
+        double[] gradient = new double[d];
+        double value = function.evaluate(point, gradient);
+        
+        //the corrections are stored in circular buffers
+        double[][] s = new double[memory][];
+        double[][] y = new double[memory][];
+        double[] rho = new double[memory];
+        double[] alpha = new double[memory];
+        int corrections = 0;
+        int newest = -1;
+        
+        double[] direction = new double[d];
+        double[] newPoint = new double[d];
+        double[] newGradient = new double[d];
+        
+        int iteration = 0;
+        while(iteration < maxIterations) {
+            if(norm(gradient) <= tolerance*Math.max(1.0, norm(point))) {
+                break;
+            }
+            ++iteration;
+            
+            //two-loop recursion which multiplies the gradient with the approximation of the inverse Hessian
+            System.arraycopy(gradient, 0, direction, 0, d);
+            for(int k=0;k<corrections;k++) {
+                int i = Math.floorMod(newest-k, memory);
+                alpha[i] = rho[i]*dot(s[i], direction);
+                axpy(-alpha[i], y[i], direction);
+            }
+            double gamma = corrections>0 ? dot(s[newest], y[newest])/dot(y[newest], y[newest]) : 1.0/norm(gradient);
+            for(int j=0;j<d;j++) {
+                direction[j] *= -gamma;
+            }
+            for(int k=corrections-1;k>=0;k--) {
+                int i = Math.floorMod(newest-k, memory);
+                double beta = rho[i]*dot(y[i], direction);
+                axpy(-alpha[i]-beta, s[i], direction); //the direction is negated, so are the corrections
+            }
+            
+            double slope = dot(direction, gradient);
+            if(slope >= 0.0) {
+                //not a descent direction; drop the corrections and follow the negative gradient
+                corrections = 0;
+                double scale = 1.0/norm(gradient);
+                for(int j=0;j<d;j++) {
+                    direction[j] = -gradient[j]*scale;
+                }
+                slope = dot(direction, gradient);
+            }
+            
+            //backtracking line search
+            double step = 1.0;
+            double newValue = Double.NaN;
+            boolean accepted = false;
+            for(int t=0;t<MAX_LINE_SEARCH_STEPS;t++) {
+                for(int j=0;j<d;j++) {
+                    newPoint[j] = point[j] + step*direction[j];
+                }
+                newValue = function.evaluate(newPoint, newGradient);
+                if(newValue <= value + ARMIJO_CONSTANT*step*slope) {
+                    accepted = true;
+                    break;
+                }
+                step /= 2.0;
+            }
+            if(!accepted) {
+                break; //no progress can be made along the direction
+            }
+            
+            //store the new correction if it keeps the approximation positive definite
+            double[] sk = new double[d];
+            double[] yk = new double[d];
+            for(int j=0;j<d;j++) {
+                sk[j] = newPoint[j] - point[j];
+                yk[j] = newGradient[j] - gradient[j];
+            }
+            double sy = dot(sk, yk);
+            if(sy > 1e-10) {
+                newest = (newest+1)%memory;
+                s[newest] = sk;
+                y[newest] = yk;
+                rho[newest] = 1.0/sy;
+                corrections = Math.min(corrections+1, memory);
+            }
+            
+            double decrease = value - newValue;
+            System.arraycopy(newPoint, 0, point, 0, d);
+            System.arraycopy(newGradient, 0, gradient, 0, d);
+            value = newValue;
+            
+            if(decrease <= tolerance*Math.max(1.0, Math.abs(value))) {
+                break;
+            }
+        }
+        
+        return iteration;
+    }
+    
+    private static double dot(double[] a, double[] b) {
+        double sum = 0.0;
+        for(int j=0;j<a.length;j++) {
+            sum += a[j]*b[j];
+        }
+        return sum;
+    }
+    
+    private static double norm(double[] a) {
+        return Math.sqrt(dot(a, a));
+    }
+    
+    private static void axpy(double a, double[] x, double[] y) {
+        for(int j=0;j<x.length;j++) {
+            y[j] += a*x[j];
+        }
+    }
+    
+}
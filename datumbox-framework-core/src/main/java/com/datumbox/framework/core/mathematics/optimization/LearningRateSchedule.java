@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.optimization;
+
+/**
+ * The schedules which control the learning rate of the gradient descent
+ * algorithms.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public enum LearningRateSchedule {
+    /**
+     * The learning rate is adapted after every pass over the data: it is
+     * increased by 5% if the error decreased and it is halved otherwise. On full
+     * batch training the updates which increase the error are rejected, which
+     * requires an extra pass to estimate the error. On mini-batch training the
+     * error is accumulated during the pass and no update is rejected.
+     */
+    BOLD_DRIVER,
+    
+    /**
+     * The learning rate remains constant.
+     */
+    CONSTANT,
+    
+    /**
+     * The learning rate decays with the number of updates t as
+     * learningRate/(1+decay*t).
+     */
+    INVERSE_SCALING;
+    
+    /**
+     * Returns the learning rate of the provided update. The BOLD_DRIVER
+     * schedule is adapted by the trainers, so the initial learning rate is
+     * returned for it.
+     * 
+     * @param initialLearningRate
+     * @param decay
+     * @param update
+     * @return 
+     */
+    public double getLearningRate(double initialLearningRate, double decay, int update) {
+        if(this == INVERSE_SCALING) {
+            return initialLearningRate/(1.0+decay*update);
+        }
+        return initialLearningRate;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.optimization;
+
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.common.dataobjects.Record;
+import com.datumbox.framework.core.common.utilities.PHPMethods;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The MiniBatchSampler splits the Records of a Dataframe in mini-batches for
+ * stochastic optimization. Only the ids of the Records are kept in memory; the
+ * Records of every mini-batch are fetched from the Dataframe when the batch is
+ * requested, so at most one batch is materialized at a time.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class MiniBatchSampler {
+    
+    private final Dataframe data;
+    
+    private final Integer[] ids;
+    
+    private final int batchSize;
+    
+    private final boolean shuffle;
+    
+    /**
+     * Public constructor.
+     * 
+     * @param data
+     * @param batchSize
+     * @param shuffle Whether the order of the Records is shuffled on every epoch.
+     */
+    public MiniBatchSampler(Dataframe data, int batchSize, boolean shuffle) {
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        this.data = data;
+        this.batchSize = batchSize;
+        this.shuffle = shuffle;
+        
+        ids = new Integer[data.size()];
+        int i = 0;
+        for(Integer rId : data.index()) {
+            ids[i++] = rId;
+        }
+    }
+    
+    /**
+     * Returns the number of mini-batches of every epoch.
+     * 
+     * @return 
+     */
+    public int getNumberOfBatches() {
+        return (ids.length + batchSize - 1)/batchSize;
+    }
+    
+    /**
+     * Returns the mini-batches of a new pass over the data. If shuffling is
+     * enabled, the Records are shuffled using the thread-local Random of the
+     * RandomGenerator before the batches are produced.
+     * 
+     * @return 
+     */
+    public Iterable<List<Record>> epoch() {
+        if(shuffle) {
+            PHPMethods.shuffle(ids);
+        }
+        
+        return () -> new Iterator<List<Record>>() {
+            private int offset = 0;
+            
+            /** {@inheritDoc} */
+            @Override
+            public boolean hasNext() {
+                return offset < ids.length;
+            }
+            
+            /** {@inheritDoc} */
+            @Override
+            public List<Record> next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int end = Math.min(offset + batchSize, ids.length);
+                List<Record> batch = new ArrayList<>(end - offset);
+                for(int i=offset;i<end;i++) {
+                    batch.add(data.get(ids[i]));
+                }
+                offset = end;
+                return batch;
+            }
+        };
+    }
+    
+}
@@ -42,6 +42,21 @@ public class ElasticNetRegularizer {
         L1Regularizer.updateWeights(l1, learningRate, weights, newWeights);
     }
 
+    /**
+     * Updates the weights by applying the ElasticNet regularization. The arrays
+     * must have the same length.
+     *
+     * @param l1
+     * @param l2
+     * @param learningRate
+     * @param weights
+     * @param newWeights
+     */
+    public static void updateWeights(double l1, double l2, double learningRate, double[] weights, double[] newWeights) {
+        L2Regularizer.updateWeights(l2, learningRate, weights, newWeights);
+        L1Regularizer.updateWeights(l1, learningRate, weights, newWeights);
+    }
+
     /**
      * Estimates the penalty by adding the ElasticNet regularization.
      *
@@ -58,4 +73,19 @@ public class ElasticNetRegularizer {
         return penalty;
     }
 
+    /**
+     * Estimates the penalty by adding the ElasticNet regularization.
+     *
+     * @param l1
+     * @param l2
+     * @param weights
+     * @return
+     */
+    public static double estimatePenalty(double l1, double l2, double[] weights) {
+        double penalty = 0.0;
+        penalty += L2Regularizer.estimatePenalty(l2, weights);
+        penalty += L1Regularizer.estimatePenalty(l1, weights);
+        return penalty;
+    }
+
 }
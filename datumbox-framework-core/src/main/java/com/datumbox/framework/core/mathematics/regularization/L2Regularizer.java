@@ -42,6 +42,23 @@ public class L2Regularizer {
         }
     }
 
+    /**
+     * Updates the weights by applying the L2 regularization. The arrays must
+     * have the same length.
+     *
+     * @param l2
+     * @param learningRate
+     * @param weights
+     * @param newWeights
+     */
+    public static void updateWeights(double l2, double learningRate, double[] weights, double[] newWeights) {
+        if(l2 > 0.0) {
+            for(int i=0;i<weights.length;i++) {
+                newWeights[i] += l2*weights[i]*(-learningRate);
+            }
+        }
+    }
+
     /**
      * Estimates the penalty by adding the L2 regularization.
      *
@@ -62,4 +79,23 @@ public class L2Regularizer {
         return penalty;
     }
 
+    /**
+     * Estimates the penalty by adding the L2 regularization.
+     *
+     * @param l2
+     * @param weights
+     * @return
+     */
+    public static double estimatePenalty(double l2, double[] weights) {
+        double penalty = 0.0;
+        if(l2 > 0.0) {
+            double sumWeightsSquared = 0.0;
+            for(double w : weights) {
+                sumWeightsSquared += w*w;
+            }
+            penalty = l2*sumWeightsSquared/2.0;
+        }
+        return penalty;
+    }
+
 }
@@ -16,6 +16,7 @@
 package com.datumbox.framework.core.statistics.descriptivestatistics;
 
 import com.datumbox.framework.common.dataobjects.*;
+import com.datumbox.framework.core.common.utilities.SelectKth;
 
 import java.util.Arrays;
 import java.util.Iterator;
@@ -67,6 +68,19 @@ public class Descriptives {
         return sum;
     }
     
+    /**
+     * Estimates in a single pass the SummaryStatistics of a Collection. The 
+     * quantiles are not estimated.
+     * 
+     * @param flatDataCollection
+     * @return
+     */
+    public static SummaryStatistics summary(FlatDataCollection flatDataCollection) {
+        SummaryStatistics summaryStatistics = new SummaryStatistics();
+        summaryStatistics.addAll(flatDataCollection);
+        return summaryStatistics;
+    }
+    
     /**
      * Calculates the simple mean
      * 
@@ -100,10 +114,7 @@ public class Descriptives {
      * @return 
      */
     public static double meanSE(FlatDataCollection flatDataCollection) {
-        double std = std(flatDataCollection, true);
-        double meanSE = std/Math.sqrt(count(flatDataCollection));
-        
-        return meanSE;
+        return summary(flatDataCollection).getMeanSE();
     }
     
     /**
@@ -118,14 +129,19 @@ public class Descriptives {
         if(n==0) {
             throw new IllegalArgumentException("The provided collection can't be empty.");
         }
-        Arrays.sort(doubleArray);
         
+        //select the middle elements instead of sorting the whole array
         double median;
         if(n%2==0) {
-            median = (doubleArray[n/2 - 1] + doubleArray[n/2])/2.0;
+            double lower = SelectKth.smallest(doubleArray, n/2);
+            double upper = doubleArray[n/2];
+            for(int i=n/2+1;i<n;i++) {
+                upper = Math.min(upper, doubleArray[i]);
+            }
+            median = (lower + upper)/2.0;
         }
         else {
-            median = doubleArray[n/2];
+            median = SelectKth.smallest(doubleArray, n/2 + 1);
         }
         
         return median;
@@ -282,35 +298,8 @@ public class Descriptives {
      * @return
      */
     public static double variance(FlatDataCollection flatDataCollection, boolean isSample) {
-        /* Uses the formal Variance = E(X^2) - mean^2 */
-        int n = 0;
-        double mean = 0.0;
-        double squaredMean = 0.0;
-        Iterator<Double> it = flatDataCollection.iteratorDouble();
-        while(it.hasNext()) {
-            Double v = it.next();
-            if(v != null) {
-                ++n;
-                mean+=v;
-                squaredMean+=v*v;
-            }
-        }
-
-        if(n<=1) {
-            throw new IllegalArgumentException("The provided collection must have more than 1 elements.");
-        }
-        
-        mean/=n;
-        squaredMean/=n;
-        
-        double variance = squaredMean - mean*mean;
-        
-        /* Unbiased for sample */
-        if(isSample) {
-            variance*=n/(n-1.0);
-        }
-        
-        return variance;
+        /* Uses the numerically stable single pass updates of the SummaryStatistics */
+        return summary(flatDataCollection).getVariance(isSample);
     }
     
     /**
@@ -393,31 +382,8 @@ public class Descriptives {
      * @return
      */
     public static double kurtosis(FlatDataCollection flatDataCollection) {
-	    int n = count(flatDataCollection);
-        if(n<=3) {
-            throw new IllegalArgumentException("The provided collection must have more than 3 elements.");
-        }
-        
-        double mean = mean(flatDataCollection);
-        
-        double m4 = moment(flatDataCollection, 4, mean);
-        double m2 = moment(flatDataCollection, 2, mean);        
-
-        /*
-        g2=m4/(m2*m2);
-
-        kurtosis=((n-1.0)/((n-2.0)*(n-3.0)))*((n+1.0)*g2 +6.0);
-        //kurtosis=g2/(n-1.0)-3.0;
-        //kurtosis=g2;
-        */
-        
-        double s = (n/(n-1.0))*m2;
-        
-        double Mcapital4=n*m4;
-        double Mcapital2=n*m2;
-        double kurtosis=(n*(n+1.0)*Mcapital4-3*Mcapital2*Mcapital2*(n-1.0))/((n-1.0)*(n-2.0)*(n-3.0)*s*s);
-        
-        return kurtosis;
+        /* The moments are estimated in a single pass by the SummaryStatistics */
+        return summary(flatDataCollection).getKurtosis();
     }
     
     /**
@@ -445,19 +411,8 @@ public class Descriptives {
      * @return
      */
     public static double skewness(FlatDataCollection flatDataCollection) {
-	    int n = count(flatDataCollection);
-        if(n<=1) {
-            throw new IllegalArgumentException("The provided collection must have more than 1 elements.");
-        }
-        
-        double mean = mean(flatDataCollection);
-        
-        double m3 = moment(flatDataCollection, 3, mean);
-        double variance = variance(flatDataCollection, false);        
-    
-        double skewness=m3/Math.pow(variance, 3.0/2.0);
-        
-        return skewness;
+        /* The moments are estimated in a single pass by the SummaryStatistics */
+        return summary(flatDataCollection).getSkewness();
     }
     
     /**
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.descriptivestatistics;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The QuantileSketch estimates the quantiles of a stream of values in bounded
+ * memory by using the KLL sketch of Karnin, Lang and Liberty. The values are 
+ * kept in a hierarchy of compactors; when a compactor is full, it is sorted and 
+ * every second value is promoted to the next level with double weight. The 
+ * memory is O(k log(n/k)) and the rank error is O(1/k) with high probability.
+ * As long as no compaction took place, the estimated quantiles are exact.
+ * 
+ * The instances are not thread-safe; parallel streams should use one instance 
+ * per worker and merge them with the merge() method.
+ * 
+ * References: 
+ * https://arxiv.org/abs/1603.05346
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class QuantileSketch {
+    
+    /**
+     * The default accuracy parameter of the sketch.
+     */
+    public static final int DEFAULT_K = 200;
+    
+    private static final double CAPACITY_DECAY = 2.0/3.0;
+    
+    private final int k;
+    
+    private final List<double[]> compactors = new ArrayList<>();
+    
+    private final List<Integer> compactorSizes = new ArrayList<>();
+    
+    private long count = 0;
+    
+    private int size = 0;
+    
+    private int maxSize = 0;
+    
+    private double min = Double.POSITIVE_INFINITY;
+    
+    private double max = Double.NEGATIVE_INFINITY;
+    
+    /**
+     * Public constructor which uses the default accuracy parameter.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+    
+    /**
+     * Public constructor which receives the accuracy parameter k. Larger values
+     * of k use more memory and give more accurate quantiles.
+     * 
+     * @param k 
+     */
+    public QuantileSketch(int k) {
+        if(k<2) {
+            throw new IllegalArgumentException("The accuracy parameter must be at least 2.");
+        }
+        this.k = k;
+        grow();
+    }
+    
+    /**
+     * Adds a value in the sketch. NaN values are ignored.
+     * 
+     * @param value 
+     */
+    public void add(double value) {
+        if(Double.isNaN(value)) {
+            return;
+        }
+        ++count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        
+        append(0, value);
+        ++size;
+        if(size>=maxSize) {
+            compress();
+        }
+    }
+    
+    /**
+     * Merges the values of another sketch into this one. The other sketch is 
+     * not modified.
+     * 
+     * @param other 
+     */
+    public void merge(QuantileSketch other) {
+        if(other.count==0) {
+            return;
+        }
+        while(compactors.size()<other.compactors.size()) {
+            grow();
+        }
+        for(int h=0;h<other.compactors.size();h++) {
+            double[] items = other.compactors.get(h);
+            int otherSize = other.compactorSizes.get(h);
+            for(int i=0;i<otherSize;i++) {
+                append(h, items[i]);
+            }
+            size += otherSize;
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        
+        while(size>=maxSize) {
+            compress();
+        }
+    }
+    
+    /**
+     * Returns the number of values that were added in the sketch.
+     * 
+     * @return 
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns the number of values which are retained by the sketch.
+     * 
+     * @return 
+     */
+    public int getRetained() {
+        return size;
+    }
+    
+    /**
+     * Estimates the quantile of the provided probability, which must be between
+     * 0.0 and 1.0. The smallest retained value with a cumulative weight of at 
+     * least probability*n is returned.
+     * 
+     * @param probability
+     * @return 
+     */
+    public double getQuantile(double probability) {
+        if(probability<0.0 || probability>1.0) {
+            throw new IllegalArgumentException("The probability must be between 0.0 and 1.0.");
+        }
+        else if(count==0) {
+            throw new IllegalArgumentException("The sketch is empty.");
+        }
+        else if(probability==0.0) {
+            return min;
+        }
+        else if(probability==1.0) {
+            return max;
+        }
+        
+        //gather the retained values along with their weights and sort them
+        double[] values = new double[size];
+        long[] weights = new long[size];
+        int j = 0;
+        for(int h=0;h<compactors.size();h++) {
+            double[] items = compactors.get(h);
+            int compactorSize = compactorSizes.get(h);
+            for(int i=0;i<compactorSize;i++) {
+                values[j] = items[i];
+                weights[j] = 1L<<h;
+                ++j;
+            }
+        }
+        Integer[] order = new Integer[size];
+        for(int i=0;i<size;i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+        
+        long totalWeight = 0;
+        for(long weight : weights) {
+            totalWeight += weight;
+        }
+        
+        double targetWeight = probability*totalWeight;
+        long cumulativeWeight = 0;
+        for(int i : order) {
+            cumulativeWeight += weights[i];
+            if(cumulativeWeight>=targetWeight) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+    
+    /**
+     * Estimates the median.
+     * 
+     * @return 
+     */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+    
+    /**
+     * Returns the minimum value.
+     * 
+     * @return 
+     */
+    public double getMin() {
+        return min;
+    }
+    
+    /**
+     * Returns the maximum value.
+     * 
+     * @return 
+     */
+    public double getMax() {
+        return max;
+    }
+    
+    /**
+     * Adds a new compactor on top of the existing ones and updates the maximum
+     * number of retained values.
+     */
+    private void grow() {
+        compactors.add(new double[8]);
+        compactorSizes.add(0);
+        maxSize = 0;
+        for(int h=0;h<compactors.size();h++) {
+            maxSize += capacity(h);
+        }
+    }
+    
+    /**
+     * Returns the capacity of a compactor. The capacities decay geometrically 
+     * from the top compactor to the bottom one.
+     * 
+     * @param h
+     * @return 
+     */
+    private int capacity(int h) {
+        int height = compactors.size()-h-1;
+        return (int)Math.ceil(Math.pow(CAPACITY_DECAY, height)*k)+1;
+    }
+    
+    /**
+     * Appends a value on the compactor of the provided level.
+     * 
+     * @param h
+     * @param value 
+     */
+    private void append(int h, double value) {
+        double[] items = compactors.get(h);
+        int compactorSize = compactorSizes.get(h);
+        if(compactorSize==items.length) {
+            items = Arrays.copyOf(items, 2*items.length);
+            compactors.set(h, items);
+        }
+        items[compactorSize] = value;
+        compactorSizes.set(h, compactorSize+1);
+    }
+    
+    /**
+     * Compacts the lowest full compactors until the number of the retained
+     * values drops below the maximum size.
+     */
+    private void compress() {
+        Random random = RandomGenerator.getThreadLocalRandom();
+        for(int h=0;h<compactors.size();h++) {
+            int compactorSize = compactorSizes.get(h);
+            if(compactorSize>=capacity(h)) {
+                if(h+1>=compactors.size()) {
+                    grow();
+                }
+                
+                //an odd value out, the most recently added one, stays on the current level
+                double[] items = compactors.get(h);
+                int compacted = compactorSize - compactorSize%2;
+                Arrays.sort(items, 0, compacted);
+                for(int i=random.nextBoolean()?1:0;i<compacted;i+=2) {
+                    append(h+1, items[i]);
+                }
+                if(compacted<compactorSize) {
+                    items[0] = items[compacted];
+                }
+                compactorSizes.set(h, compactorSize-compacted);
+                size -= compacted/2;
+                
+                if(size<maxSize) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.common.utilities.MapMethods;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -101,5 +102,95 @@ public class Ranks {
             itemCounter += count;
         }
     }
-    
+
+    /**
+     * Estimates the ranks of the provided values in O(n log n) time without 
+     * modifying them. The tied values receive their average rank. The method 
+     * writes the ranks in the provided array and returns the sum of t^3-t over
+     * all the groups of t tied values, which is the tie correction term used by
+     * the rank-based tests.
+     *
+     * @param values
+     * @param ranks
+     * @return
+     */
+    public static double getRanks(double[] values, double[] ranks) {
+        int n = values.length;
+        if (ranks.length != n) {
+            throw new IllegalArgumentException("The arrays of the values and the ranks must have the same length.");
+        }
+
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        if (n > 0 && Double.isNaN(sorted[n - 1])) {
+            throw new IllegalArgumentException("The values can't contain NaNs.");
+        }
+
+        //the positions of the first and last occurrence of a value give its average rank
+        for (int i = 0; i < n; i++) {
+            int first = lowerBound(sorted, values[i]);
+            int last = upperBound(sorted, values[i]) - 1;
+            ranks[i] = ((first + 1) + (last + 1)) / 2.0;
+        }
+
+        double tieCorrection = 0.0;
+        int runStart = 0;
+        for (int i = 1; i <= n; i++) {
+            if (i == n || sorted[i] != sorted[runStart]) {
+                double t = i - runStart;
+                if (t > 1.0) {
+                    tieCorrection += (t * t - 1.0) * t;
+                }
+                runStart = i;
+            }
+        }
+        return tieCorrection;
+    }
+
+    /**
+     * Returns the position of the first element of the sorted array which is
+     * not smaller than the value.
+     *
+     * @param sorted
+     * @param value
+     * @return
+     */
+    private static int lowerBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of the first element of the sorted array which is
+     * larger than the value.
+     *
+     * @param sorted
+     * @param value
+     * @return
+     */
+    private static int upperBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
 }
@@ -0,0 +1,368 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.descriptivestatistics;
+
+import com.datumbox.framework.common.dataobjects.FlatDataCollection;
+import com.datumbox.framework.common.dataobjects.TypeInference;
+
+/**
+ * The SummaryStatistics estimates in a single pass the count, the sum, the 
+ * extremes and the central moments up to the fourth order of a stream of values.
+ * The moments are updated with the numerically stable formulas of Pebay, so no
+ * value needs to be kept in memory. Optionally the quantiles are estimated with
+ * a bounded-memory QuantileSketch.
+ * 
+ * The instances are not thread-safe; parallel streams should use one instance 
+ * per worker and merge them with the merge() method.
+ * 
+ * References: 
+ * https://www.osti.gov/biblio/1028931
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class SummaryStatistics {
+    
+    private long count = 0;
+    
+    private double sum = 0.0;
+    
+    private double mean = 0.0;
+    
+    private double m2 = 0.0; //sum of squared deviations
+    
+    private double m3 = 0.0; //sum of cubed deviations
+    
+    private double m4 = 0.0; //sum of deviations to the fourth power
+    
+    private double min = Double.POSITIVE_INFINITY;
+    
+    private double max = Double.NEGATIVE_INFINITY;
+    
+    private double sumOfLogs = 0.0;
+    
+    private double sumOfInverses = 0.0;
+    
+    private final QuantileSketch quantileSketch;
+    
+    /**
+     * Public constructor which does not estimate the quantiles.
+     */
+    public SummaryStatistics() {
+        this(false);
+    }
+    
+    /**
+     * Public constructor which receives whether the quantiles should be 
+     * estimated with a QuantileSketch of the default accuracy.
+     * 
+     * @param estimateQuantiles 
+     */
+    public SummaryStatistics(boolean estimateQuantiles) {
+        quantileSketch = estimateQuantiles?new QuantileSketch():null;
+    }
+    
+    /**
+     * Public constructor which estimates the quantiles with a QuantileSketch of
+     * the provided accuracy parameter.
+     * 
+     * @param k 
+     */
+    public SummaryStatistics(int k) {
+        quantileSketch = new QuantileSketch(k);
+    }
+    
+    /**
+     * Adds a value in the statistics. NaN values are ignored.
+     * 
+     * @param value 
+     */
+    public void add(double value) {
+        if(Double.isNaN(value)) {
+            return;
+        }
+        
+        long n1 = count;
+        ++count;
+        double n = count;
+        
+        double delta = value - mean;
+        double deltaN = delta/n;
+        double deltaN2 = deltaN*deltaN;
+        double term1 = delta*deltaN*n1;
+        
+        mean += deltaN;
+        m4 += term1*deltaN2*(n*n - 3.0*n + 3.0) + 6.0*deltaN2*m2 - 4.0*deltaN*m3;
+        m3 += term1*deltaN*(n - 2.0) - 3.0*deltaN*m2;
+        m2 += term1;
+        
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sumOfLogs += Math.log(value);
+        sumOfInverses += 1.0/value;
+        
+        if(quantileSketch!=null) {
+            quantileSketch.add(value);
+        }
+    }
+    
+    /**
+     * Adds all the not-null values of the collection in the statistics.
+     * 
+     * @param flatDataCollection 
+     */
+    public void addAll(FlatDataCollection flatDataCollection) {
+        for(Object v : flatDataCollection) {
+            if(v != null) {
+                add(TypeInference.toDouble(v));
+            }
+        }
+    }
+    
+    /**
+     * Merges the statistics of another instance into this one. The other 
+     * instance is not modified.
+     * 
+     * @param other 
+     */
+    public void merge(SummaryStatistics other) {
+        if(other.count==0) {
+            return;
+        }
+        else if(count==0) {
+            count = other.count;
+            sum = other.sum;
+            mean = other.mean;
+            m2 = other.m2;
+            m3 = other.m3;
+            m4 = other.m4;
+        }
+        else {
+            double na = count;
+            double nb = other.count;
+            double n = na + nb;
+            double delta = other.mean - mean;
+            double delta2 = delta*delta;
+            double delta3 = delta2*delta;
+            double delta4 = delta2*delta2;
+            
+            double newM2 = m2 + other.m2 + delta2*na*nb/n;
+            double newM3 = m3 + other.m3 + delta3*na*nb*(na - nb)/(n*n) + 3.0*delta*(na*other.m2 - nb*m2)/n;
+            double newM4 = m4 + other.m4 + delta4*na*nb*(na*na - na*nb + nb*nb)/(n*n*n)
+                    + 6.0*delta2*(na*na*other.m2 + nb*nb*m2)/(n*n) + 4.0*delta*(na*other.m3 - nb*m3)/n;
+            
+            mean += delta*nb/n;
+            m2 = newM2;
+            m3 = newM3;
+            m4 = newM4;
+            count += other.count;
+            sum += other.sum;
+        }
+        
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sumOfLogs += other.sumOfLogs;
+        sumOfInverses += other.sumOfInverses;
+        
+        if(quantileSketch!=null && other.quantileSketch!=null) {
+            quantileSketch.merge(other.quantileSketch);
+        }
+    }
+    
+    /**
+     * Returns the number of values.
+     * 
+     * @return 
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * Returns the sum of the values.
+     * 
+     * @return 
+     */
+    public double getSum() {
+        return sum;
+    }
+    
+    /**
+     * Returns the mean.
+     * 
+     * @return 
+     */
+    public double getMean() {
+        if(count==0) {
+            throw new IllegalArgumentException("No not null values where found in the collection.");
+        }
+        return mean;
+    }
+    
+    /**
+     * Returns the Standard Error of Mean under SRS.
+     * 
+     * @return 
+     */
+    public double getMeanSE() {
+        return getStd(true)/Math.sqrt(count);
+    }
+    
+    /**
+     * Returns the minimum.
+     * 
+     * @return 
+     */
+    public double getMin() {
+        return min;
+    }
+    
+    /**
+     * Returns the maximum.
+     * 
+     * @return 
+     */
+    public double getMax() {
+        return max;
+    }
+    
+    /**
+     * Returns the range.
+     * 
+     * @return 
+     */
+    public double getRange() {
+        return max - min;
+    }
+    
+    /**
+     * Returns the geometric mean.
+     * 
+     * @return 
+     */
+    public double getGeometricMean() {
+        if(min<=0.0) {
+            throw new IllegalArgumentException("Negative or zero values are not allowed.");
+        }
+        return Math.exp(sumOfLogs/count);
+    }
+    
+    /**
+     * Returns the harmonic mean.
+     * 
+     * @return 
+     */
+    public double getHarmonicMean() {
+        return count/sumOfInverses;
+    }
+    
+    /**
+     * Returns the variance.
+     * 
+     * @param isSample
+     * @return 
+     */
+    public double getVariance(boolean isSample) {
+        if(count<=1) {
+            throw new IllegalArgumentException("The provided collection must have more than 1 elements.");
+        }
+        return m2/(isSample?count-1.0:count);
+    }
+    
+    /**
+     * Returns the standard deviation.
+     * 
+     * @param isSample
+     * @return 
+     */
+    public double getStd(boolean isSample) {
+        return Math.sqrt(getVariance(isSample));
+    }
+    
+    /**
+     * Returns the central moment of order r, which must be between 1 and 4.
+     * 
+     * @param r
+     * @return 
+     */
+    public double getMoment(int r) {
+        if(count<=1) {
+            throw new IllegalArgumentException("The provided collection must have more than 1 elements.");
+        }
+        switch(r) {
+            case 1:
+                return 0.0;
+            case 2:
+                return m2/count;
+            case 3:
+                return m3/count;
+            case 4:
+                return m4/count;
+            default:
+                throw new IllegalArgumentException("Only the moments up to the fourth order are estimated.");
+        }
+    }
+    
+    /**
+     * Returns the skewness, by using the same formula as Descriptives.skewness().
+     * 
+     * @return 
+     */
+    public double getSkewness() {
+        double variance = getVariance(false);
+        return (m3/count)/Math.pow(variance, 3.0/2.0);
+    }
+    
+    /**
+     * Returns the kurtosis, by using the same formula as Descriptives.kurtosis().
+     * 
+     * @return 
+     */
+    public double getKurtosis() {
+        if(count<=3) {
+            throw new IllegalArgumentException("The provided collection must have more than 3 elements.");
+        }
+        double n = count;
+        double s = m2/(n-1.0);
+        
+        return (n*(n+1.0)*m4 - 3.0*m2*m2*(n-1.0))/((n-1.0)*(n-2.0)*(n-3.0)*s*s);
+    }
+    
+    /**
+     * Estimates the quantile of the provided probability. It requires the 
+     * quantiles to be enabled on the constructor.
+     * 
+     * @param probability
+     * @return 
+     */
+    public double getQuantile(double probability) {
+        if(quantileSketch==null) {
+            throw new IllegalArgumentException("The estimation of the quantiles is not enabled.");
+        }
+        return quantileSketch.getQuantile(probability);
+    }
+    
+    /**
+     * Estimates the median. It requires the quantiles to be enabled on the 
+     * constructor.
+     * 
+     * @return 
+     */
+    public double getMedian() {
+        return getQuantile(0.5);
+    }
+    
+}
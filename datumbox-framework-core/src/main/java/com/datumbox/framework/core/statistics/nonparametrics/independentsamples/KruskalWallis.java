@@ -15,15 +15,12 @@
  */
 package com.datumbox.framework.core.statistics.nonparametrics.independentsamples;
 
-import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataCollection;
 import com.datumbox.framework.common.dataobjects.TransposeDataCollection;
-import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Ranks;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
-import java.util.AbstractMap;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -40,72 +37,52 @@ public class KruskalWallis {
      * @return 
      */
     public static double getPvalue(TransposeDataCollection transposeDataCollection) {
-        //flatten the original internalData table
-        AssociativeArray associativeArray = new AssociativeArray();
+        //flatten the original internalData table, keeping the observations of each group contiguous
+        int n=0;
+        for(FlatDataCollection row : transposeDataCollection.values()) {
+            n+=row.size();
+        }
         
+        //Important note! The groups are stored in the order of the entrySet. The ni stores the total number of observations in each group.
+        int[] ni = new int[transposeDataCollection.size()];
+        double[] values = new double[n];
+        int groupId=0;
+        int pos=0;
         for(Map.Entry<Object, FlatDataCollection> entry : transposeDataCollection.entrySet()) {
-            Object i = entry.getKey();
-            FlatDataCollection row = entry.getValue();
-            
-            Integer j=0;
-            for (Object value : row) {
-                Map.Entry<Object, Object> i_j = new AbstractMap.SimpleEntry<>(i, (Object)j);
-                associativeArray.put(i_j, value);
-                ++j;
+            Iterator<Double> it = entry.getValue().iteratorDouble();
+            while(it.hasNext()) {
+                values[pos++] = it.next();
+                ++ni[groupId];
             }
+            ++groupId;
         }
         
         //converts the values of the flatDataCollection with their Ranks
-        AssociativeArray tiesCounter = Ranks.getRanksFromValues(associativeArray);
-        int n = associativeArray.size();
+        double[] ranks = new double[n];
+        double ties = Ranks.getRanks(values, ranks);
         
         double C=0;
         //Correct for ties
-        if(!tiesCounter.isEmpty()) {
-            for(Object value : tiesCounter.values()) {
-                double Ti = TypeInference.toDouble(value);
-                C+=((Ti*Ti-1)*Ti); //faster than using pow()
-            }
-            C/=((n*n-1.0)*n); //faster than using pow()
+        if(ties>0) {
+            C=ties/((n*n-1.0)*n); //faster than using pow()
         }
-        //tiesCounter = null;
 
-        //Important note! Remember that the "i" value is the number of the group while the j is the number of observation within the group and NOT the other way around.
-        Map<Object, Integer> ni = new HashMap<>(); //stores the total number of observations in each group
-        Map<Object, Double> Ridot = new HashMap<>(); //stores the sum of Ranks for each group
-        
-        for(Map.Entry<Object, Object> entry : associativeArray.entrySet()) {
-            @SuppressWarnings("unchecked")
-            Map.Entry<Object, Object> i_j = (Map.Entry<Object, Object>)entry.getKey();
-            
-            Object i = i_j.getKey(); //get i and j values
-            Double rank = TypeInference.toDouble(entry.getValue());
-            
-            if(Ridot.containsKey(i)==false) { //if this "i" value is found for first time then define 
-                Ridot.put(i, rank);
-                ni.put(i, 1);
-            }
-            else {
-                Ridot.put(i, Ridot.get(i)+rank);
-                ni.put(i, ni.get(i)+1);
-            }
-        }
-        //associativeArray=null;
-
-        int k=ni.size();
-
-        //Calculate Kruskal Wallis scrore based on the above
+        //Calculate Kruskal Wallis scrore based on the sum of Ranks of each group
+        int k=0;
         double KWscore=0.0;
-        
-        for(Map.Entry<Object, Double> entry : Ridot.entrySet()) {
-            Object i = entry.getKey();
-            Double value = entry.getValue();
+        pos=0;
+        for(int i=0;i<ni.length;++i) {
+            if(ni[i]==0) {
+                continue;
+            }
             
-            KWscore+=value*value/ni.get(i);
+            double Ridot=0.0;
+            for(int j=0;j<ni[i];++j) {
+                Ridot+=ranks[pos++];
+            }
+            KWscore+=Ridot*Ridot/ni[i];
+            ++k;
         }
-        //Ridot=null;
-        //ni=null;
-
 
         KWscore=(12.0/(n*(n+1.0)))*KWscore - 3.0*(n+1.0);
 
@@ -15,14 +15,12 @@
  */
 package com.datumbox.framework.core.statistics.nonparametrics.independentsamples;
 
-import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataCollection;
 import com.datumbox.framework.common.dataobjects.TransposeDataCollection;
-import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Ranks;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
-import java.util.AbstractMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -60,38 +58,32 @@ public class MannWhitney {
             //largeIndex=0;
         }
         
-        //flatten the original internalData table
-        AssociativeArray associativeArray = new AssociativeArray();
-        
+        //flatten the original internalData table, remembering which observations belong to the small group
+        double[] values = new double[n1+n2];
+        boolean[] inSmallGroup = new boolean[n1+n2];
+        int k=0;
         for(Map.Entry<Object, FlatDataCollection> entry : transposeDataCollection.entrySet()) {
-            Object i = entry.getKey();
-            FlatDataCollection row = entry.getValue();
+            boolean small = entry.getKey().equals(keys[smallIndex]);
             
-            Integer j=0;
-            for (Object value : row) {
-                Map.Entry<Object, Object> i_j = new AbstractMap.SimpleEntry<>(i, (Object)j);
-                associativeArray.put(i_j, value);
-                ++j;
+            Iterator<Double> it = entry.getValue().iteratorDouble();
+            while(it.hasNext()) {
+                values[k] = it.next();
+                inSmallGroup[k] = small;
+                ++k;
             }
         }
         
         //converts the values of the flatDataCollection with their Ranks
-        Ranks.getRanksFromValues(associativeArray);
+        double[] ranks = new double[values.length];
+        Ranks.getRanks(values, ranks);
 
         //sum up the scores of the smallest sample
         double MWscore=0.0;
-        
-        for(Map.Entry<Object,Object> entry : associativeArray.entrySet()) {
-            @SuppressWarnings("unchecked")
-            Map.Entry<Object, Object> i_j = (Map.Entry<Object, Object>)entry.getKey();
-            Object i = i_j.getKey(); //get i and j values
-            
-            if(i.equals(keys[smallIndex])) { //if it belongs to the FIRST group (small group)
-                Double rank = TypeInference.toDouble(entry.getValue());
-                MWscore+=rank; //add the score
+        for(int j=0;j<ranks.length;++j) {
+            if(inSmallGroup[j]) { //if it belongs to the FIRST group (small group)
+                MWscore+=ranks[j]; //add the score
             }
         }
-        //associativeArray=null;
 
         double pvalue= scoreToPvalue(MWscore, n1, n2);
 
@@ -15,14 +15,12 @@
  */
 package com.datumbox.framework.core.statistics.nonparametrics.onesample;
 
-import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataCollection;
-import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Ranks;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.Map;
 
 /**
  * One sample Wilcoxon test.
@@ -40,7 +38,8 @@ public class WilcoxonOneSample {
      */
     public static double getPvalue(FlatDataCollection flatDataCollection, double median) {
         int n=0;
-        AssociativeArray Di = new AssociativeArray();
+        double[] Di = new double[flatDataCollection.size()];
+        boolean[] positive = new boolean[Di.length];
         Iterator<Double> it = flatDataCollection.iteratorDouble();
         while(it.hasNext()) {
             double delta=it.next()-median;
@@ -49,11 +48,8 @@ public class WilcoxonOneSample {
                 continue; //don't count it at all
             }
 
-            String key="+";
-            if(delta<0) {
-                key="-";
-            }
-            Di.put(key+String.valueOf(n), Math.abs(delta));
+            positive[n] = delta>0;
+            Di[n] = Math.abs(delta);
             ++n;
         }
         if(n<=0) {
@@ -61,14 +57,13 @@ public class WilcoxonOneSample {
         }
 
         //converts the values of the table with its Ranks
-        Ranks.getRanksFromValues(Di);
+        Di = Arrays.copyOf(Di, n);
+        double[] ranks = new double[n];
+        Ranks.getRanks(Di, ranks);
         double W=0.0;
-        for(Map.Entry<Object, Object> entry : Di.entrySet()) {
-            String key = entry.getKey().toString();
-            Double rank = TypeInference.toDouble(entry.getValue());
-        
-            if(key.charAt(0)=='+') {
-                W+=rank;
+        for(int j=0;j<n;++j) {
+            if(positive[j]) {
+                W+=ranks[j];
             }
         }
 
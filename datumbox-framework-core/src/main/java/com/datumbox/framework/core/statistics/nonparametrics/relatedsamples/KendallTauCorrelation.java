@@ -19,6 +19,8 @@ import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TransposeDataList;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
+import java.util.function.IntBinaryOperator;
+
 /**
  * This class provides methods for estimating and testing Kendall Tau's Correlation.
  *
@@ -49,39 +51,165 @@ public class KendallTauCorrelation {
             throw new IllegalArgumentException("The number of observations in each group must be equal and larger than 0.");
         }
 
-        //The following loops calculate twice the scores. That the check both if A>B and B<A and count it twice
-        int numberOfConcordant=0;
-        int numberOfDisconcordant=0;
-        
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for(int i=0;i<n;++i) {
+            x[i] = flatDataListX.getDouble(i);
+            y[i] = flatDataListY.getDouble(i);
+        }
+
+        //the pairs which are tied in x or y are neither concordant nor discordant
+        double concordantMinusDiscordant = concordantMinusDiscordant(x, y);
+
+        double R=concordantMinusDiscordant/(n*(n-1.0)/2.0);
+
+        return R;
+    }
+    
+    /**
+     * Estimates the number of concordant minus the number of discordant pairs
+     * in O(n log n) time by using the algorithm of Knight. The pairs are sorted
+     * by x and then by y, and the discordant pairs are counted as the swaps of
+     * a merge sort on y.
+     * 
+     * References: 
+     * https://doi.org/10.1080/01621459.1966.10480879
+     * 
+     * @param x
+     * @param y
+     * @return 
+     */
+    private static double concordantMinusDiscordant(double[] x, double[] y) {
+        int n = x.length;
         
+        //sort the positions by x and break the ties by y
+        int[] order = new int[n];
         for(int i=0;i<n;++i) {
-            for(int j=0;j<n;++j) {
-                double xi = flatDataListX.getDouble(i);
-                double xj = flatDataListX.getDouble(j);
-                double yi = flatDataListY.getDouble(i);
-                double yj = flatDataListY.getDouble(j);
-                
-                double sign=(xi-xj)*(yi-yj); //if this has a positive sign then they are concordant
-                if(sign>0) {
-                    ++numberOfConcordant;
-                }
-                else if(sign<0) {
-                    ++numberOfDisconcordant;
-                }
+            order[i] = i;
+        }
+        mergeSort(order, new int[n], 0, n, (a, b) -> (x[a]!=x[b])?Double.compare(x[a], x[b]):Double.compare(y[a], y[b]));
+        
+        double[] sortedY = new double[n];
+        long tiedX = 0; //pairs tied in x
+        long tiedXY = 0; //pairs tied in both x and y
+        long runX = 1;
+        long runXY = 1;
+        sortedY[0] = y[order[0]];
+        for(int i=1;i<n;++i) {
+            int current = order[i];
+            int previous = order[i-1];
+            sortedY[i] = y[current];
+            
+            boolean sameX = x[current]==x[previous];
+            if(sameX) {
+                ++runX;
+            }
+            else {
+                tiedX += runX*(runX-1)/2;
+                runX = 1;
+            }
+            
+            if(sameX && y[current]==y[previous]) {
+                ++runXY;
+            }
+            else {
+                tiedXY += runXY*(runXY-1)/2;
+                runXY = 1;
             }
         }
-        /*
-        foreach(transposeDataList[0] as i=>&xi) {
-            foreach(transposeDataList[0] as j=>&xj) {
+        tiedX += runX*(runX-1)/2;
+        tiedXY += runXY*(runXY-1)/2;
+        
+        //every swap of the merge sort on y is a discordant pair
+        long swaps = countSwaps(sortedY, new double[n], 0, n);
+        
+        long tiedY = 0; //pairs tied in y
+        long runY = 1;
+        for(int i=1;i<n;++i) {
+            if(sortedY[i]==sortedY[i-1]) {
+                ++runY;
+            }
+            else {
+                tiedY += runY*(runY-1)/2;
+                runY = 1;
             }
         }
-        */
-        numberOfConcordant/=2; //divide by 2 because we counted them twice
-        numberOfDisconcordant/=2; //divide by 2 because we counted them twice
-
-        double R=(numberOfConcordant-numberOfDisconcordant)/(n*(n-1.0)/2.0);
-
-        return R;
+        tiedY += runY*(runY-1)/2;
+        
+        long totalPairs = (long)n*(n-1)/2;
+        return (double)(totalPairs - tiedX - tiedY + tiedXY - 2*swaps);
+    }
+    
+    /**
+     * Sorts the positions of the range [from, to) with a stable merge sort.
+     * 
+     * @param positions
+     * @param buffer
+     * @param from
+     * @param to
+     * @param comparator 
+     */
+    private static void mergeSort(int[] positions, int[] buffer, int from, int to, IntBinaryOperator comparator) {
+        if(to-from<2) {
+            return;
+        }
+        int mid = (from+to)>>>1;
+        mergeSort(positions, buffer, from, mid, comparator);
+        mergeSort(positions, buffer, mid, to, comparator);
+        
+        int i = from;
+        int j = mid;
+        int k = from;
+        while(i<mid && j<to) {
+            buffer[k++] = (comparator.applyAsInt(positions[j], positions[i])<0)?positions[j++]:positions[i++];
+        }
+        while(i<mid) {
+            buffer[k++] = positions[i++];
+        }
+        while(j<to) {
+            buffer[k++] = positions[j++];
+        }
+        System.arraycopy(buffer, from, positions, from, to-from);
+    }
+    
+    /**
+     * Sorts the range [from, to) of the values with a merge sort and returns the
+     * number of swaps, which is the number of the pairs in strictly decreasing 
+     * order.
+     * 
+     * @param values
+     * @param buffer
+     * @param from
+     * @param to
+     * @return 
+     */
+    private static long countSwaps(double[] values, double[] buffer, int from, int to) {
+        if(to-from<2) {
+            return 0;
+        }
+        int mid = (from+to)>>>1;
+        long swaps = countSwaps(values, buffer, from, mid) + countSwaps(values, buffer, mid, to);
+        
+        int i = from;
+        int j = mid;
+        int k = from;
+        while(i<mid && j<to) {
+            if(values[j]<values[i]) {
+                swaps += mid-i; //the value jumps over all the remaining values of the left half
+                buffer[k++] = values[j++];
+            }
+            else {
+                buffer[k++] = values[i++];
+            }
+        }
+        while(i<mid) {
+            buffer[k++] = values[i++];
+        }
+        while(j<to) {
+            buffer[k++] = values[j++];
+        }
+        System.arraycopy(buffer, from, values, from, to-from);
+        return swaps;
     }
     
     /**
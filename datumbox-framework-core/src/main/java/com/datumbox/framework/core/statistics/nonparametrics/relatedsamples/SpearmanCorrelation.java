@@ -15,10 +15,8 @@
  */
 package com.datumbox.framework.core.statistics.nonparametrics.relatedsamples;
 
-import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TransposeDataList;
-import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Ranks;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
@@ -44,46 +42,33 @@ public class SpearmanCorrelation {
         Object keyX = keys[0];
         Object keyY = keys[1];
 
-        FlatDataList flatDataListX = transposeDataList.get(keyX).copy();
-        FlatDataList flatDataListY = transposeDataList.get(keyY).copy();
+        FlatDataList flatDataListX = transposeDataList.get(keyX);
+        FlatDataList flatDataListY = transposeDataList.get(keyY);
 
         int n = flatDataListX.size();
         if(n<=0 || n!=flatDataListY.size()) {
             throw new IllegalArgumentException("The number of observations in each group must be equal and larger than 0.");
         }
 
-
-        //converts the values of the X table with its Ranks
-        AssociativeArray tiesCounter= Ranks.getRanksFromValues(flatDataListX);
-
-        //Estimate Rx_square
-        double Sum_Rx_square=(n*n-1.0)*n;
-        for(Object value : tiesCounter.values()) {
-            double Ti = TypeInference.toDouble(value);
-            Sum_Rx_square-=((Ti*Ti-1.0)*Ti); //faster than using pow()
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for(int j=0;j<n;++j) {
+            x[j] = flatDataListX.getDouble(j);
+            y[j] = flatDataListY.getDouble(j);
         }
-        Sum_Rx_square/=12.0;
-        //tiesCounter = null;
-
 
+        //converts the values of the X table with its Ranks and estimate Rx_square
+        double[] rx = new double[n];
+        double Sum_Rx_square=((n*n-1.0)*n - Ranks.getRanks(x, rx))/12.0;
 
-        //converts the values of the Y table with its Ranks
-        tiesCounter= Ranks.getRanksFromValues(flatDataListY);
-
-        //Estimate Ry_square
-        double Sum_Ry_square=(n*n-1.0)*n;
-        for(Object value : tiesCounter.values()) {
-            double Ti = TypeInference.toDouble(value);
-            Sum_Ry_square-=((Ti*Ti-1.0)*Ti); //faster than using pow()
-        }
-        Sum_Ry_square/=12.0;
-        //tiesCounter = null;
-        
+        //converts the values of the Y table with its Ranks and estimate Ry_square
+        double[] ry = new double[n];
+        double Sum_Ry_square=((n*n-1.0)*n - Ranks.getRanks(y, ry))/12.0;
         
         //calculate the sum of Di^2
         double Sum_Di_square=0;
         for(int j=0;j<n;++j) {
-            double di= flatDataListX.getDouble(j) - flatDataListY.getDouble(j);
+            double di= rx[j] - ry[j];
             Sum_Di_square+=di*di;
         }
 
@@ -15,14 +15,12 @@
  */
 package com.datumbox.framework.core.statistics.nonparametrics.relatedsamples;
 
-import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TransposeDataList;
-import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Ranks;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * Wilcoxon's Related Samples non-parametric test.
@@ -54,7 +52,9 @@ public class WilcoxonRelatedSamples {
             throw new IllegalArgumentException("The number of observations in each group must be equal and larger than 0.");
         }
 
-        AssociativeArray Di = new AssociativeArray();
+        int m=0;
+        double[] Di = new double[n];
+        boolean[] positive = new boolean[n];
         for(int j=0;j<n;++j) {
             double delta= flatDataListX.getDouble(j) - flatDataListY.getDouble(j);
 
@@ -62,19 +62,19 @@ public class WilcoxonRelatedSamples {
                 continue; //don't count it at all
             }
 
-            String key="+";
-            if(delta<0) {
-                key="-";
-            }
-            Di.put(key+Integer.toString(j), Math.abs(delta));
+            positive[m] = delta>0;
+            Di[m] = Math.abs(delta);
+            ++m;
         }
 
         //converts the values of the table with its Ranks
-        Ranks.getRanksFromValues(Di);
+        Di = Arrays.copyOf(Di, m);
+        double[] ranks = new double[m];
+        Ranks.getRanks(Di, ranks);
         double W=0;
-        for(Map.Entry<Object, Object> entry : Di.entrySet()) {
-            if(entry.getKey().toString().charAt(0)=='+') {
-                W+=TypeInference.toDouble(entry.getValue());
+        for(int j=0;j<m;++j) {
+            if(positive[j]) {
+                W+=ranks[j];
             }
         }
 
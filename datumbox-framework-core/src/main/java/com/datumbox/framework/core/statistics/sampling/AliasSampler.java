@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+
+import java.util.Random;
+
+/**
+ * The AliasSampler draws indexes with probability proportional to a fixed array
+ * of weights by using the alias method of Vose. The tables are built in linear 
+ * time and every draw costs constant time, so it should be preferred when many 
+ * draws are made from the same weights.
+ * 
+ * References: 
+ * http://www.keithschwarz.com/darts-dice-coins/
+ * https://doi.org/10.1109/32.92917
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class AliasSampler {
+    
+    private final double[] probability;
+    
+    private final int[] alias;
+    
+    /**
+     * Builds the alias tables from the provided non-negative weights.
+     * 
+     * @param weights 
+     */
+    public AliasSampler(double[] weights) {
+        int n = weights.length;
+        double total = 0.0;
+        for(double weight : weights) {
+            if(weight<0.0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("The weights must be non-negative.");
+            }
+            total += weight;
+        }
+        if(n==0 || total<=0.0) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+        
+        probability = new double[n];
+        alias = new int[n];
+        
+        //scale the weights so that their average is 1.0 and split them in two worklists
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for(int i=0;i<n;i++) {
+            scaled[i] = weights[i]*n/total;
+            if(scaled[i]<1.0) {
+                small[smallSize++] = i;
+            }
+            else {
+                large[largeSize++] = i;
+            }
+        }
+        
+        //every small column is completed by a part of a large one
+        while(smallSize>0 && largeSize>0) {
+            int l = small[--smallSize];
+            int g = large[--largeSize];
+            
+            probability[l] = scaled[l];
+            alias[l] = g;
+            
+            scaled[g] = (scaled[g]+scaled[l])-1.0;
+            if(scaled[g]<1.0) {
+                small[smallSize++] = g;
+            }
+            else {
+                large[largeSize++] = g;
+            }
+        }
+        
+        //the remaining columns are full; any leftovers are due to rounding errors
+        while(largeSize>0) {
+            int g = large[--largeSize];
+            probability[g] = 1.0;
+            alias[g] = g;
+        }
+        while(smallSize>0) {
+            int l = small[--smallSize];
+            probability[l] = 1.0;
+            alias[l] = l;
+        }
+    }
+    
+    /**
+     * Returns the number of weights.
+     * 
+     * @return 
+     */
+    public int size() {
+        return probability.length;
+    }
+    
+    /**
+     * Draws an index by using the thread local Random of the RandomGenerator.
+     * 
+     * @return 
+     */
+    public int sample() {
+        return sample(RandomGenerator.getThreadLocalRandom());
+    }
+    
+    /**
+     * Draws an index by using the provided Random.
+     * 
+     * @param random
+     * @return 
+     */
+    public int sample(Random random) {
+        int i = random.nextInt(probability.length);
+        return (random.nextDouble()<probability[i])?i:alias[i];
+    }
+    
+    /**
+     * Draws n indexes with replacement by using the provided Random.
+     * 
+     * @param n
+     * @param random
+     * @return 
+     */
+    public int[] sample(int n, Random random) {
+        int[] sampled = new int[n];
+        for(int i=0;i<n;i++) {
+            sampled[i] = sample(random);
+        }
+        return sampled;
+    }
+}
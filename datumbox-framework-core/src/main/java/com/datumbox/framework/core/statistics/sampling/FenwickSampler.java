@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+
+import java.util.Random;
+
+/**
+ * The FenwickSampler draws indexes with probability proportional to an array of
+ * weights which can change between the draws. The weights are stored in a 
+ * Fenwick (binary indexed) tree, so both the updates and the draws cost 
+ * logarithmic time. The draws are made by inverting the cumulative distribution,
+ * so they select the same index as a linear scan over the cumulative weights.
+ * 
+ * References: 
+ * https://doi.org/10.1002/spe.4380240306
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class FenwickSampler {
+    
+    private final double[] tree;
+    
+    private final double[] weights;
+    
+    private final int highestStep;
+    
+    private double total = 0.0;
+    
+    /**
+     * Builds the tree from the provided non-negative weights in linear time.
+     * 
+     * @param weights 
+     */
+    public FenwickSampler(double[] weights) {
+        int n = weights.length;
+        this.weights = new double[n];
+        tree = new double[n+1];
+        for(int i=0;i<n;i++) {
+            validateWeight(weights[i]);
+            this.weights[i] = weights[i];
+            total += weights[i];
+            
+            //propagate the node to its parent
+            int node = i+1;
+            tree[node] += weights[i];
+            int parent = node + (node & -node);
+            if(parent<=n) {
+                tree[parent] += tree[node];
+            }
+        }
+        highestStep = (n>0)?Integer.highestOneBit(n):0;
+    }
+    
+    /**
+     * Returns the number of weights.
+     * 
+     * @return 
+     */
+    public int size() {
+        return weights.length;
+    }
+    
+    /**
+     * Returns the sum of the weights.
+     * 
+     * @return 
+     */
+    public double getTotal() {
+        return total;
+    }
+    
+    /**
+     * Returns the weight of the provided index.
+     * 
+     * @param index
+     * @return 
+     */
+    public double getWeight(int index) {
+        return weights[index];
+    }
+    
+    /**
+     * Changes the weight of the provided index.
+     * 
+     * @param index
+     * @param weight 
+     */
+    public void setWeight(int index, double weight) {
+        validateWeight(weight);
+        double delta = weight - weights[index];
+        weights[index] = weight;
+        total += delta;
+        for(int node=index+1;node<tree.length;node+=node & -node) {
+            tree[node] += delta;
+        }
+    }
+    
+    /**
+     * Draws an index by using the thread local Random of the RandomGenerator.
+     * 
+     * @return 
+     */
+    public int sample() {
+        return sample(RandomGenerator.getThreadLocalRandom());
+    }
+    
+    /**
+     * Draws an index by using the provided Random.
+     * 
+     * @param random
+     * @return 
+     */
+    public int sample(Random random) {
+        if(total<=0.0) {
+            throw new IllegalArgumentException("At least one weight must be positive.");
+        }
+        return find(random.nextDouble()*total);
+    }
+    
+    /**
+     * Returns the first index whose cumulative weight is greater than or equal
+     * to the provided value.
+     * 
+     * @param cumulativeWeight
+     * @return 
+     */
+    public int find(double cumulativeWeight) {
+        int position = 0;
+        double remaining = cumulativeWeight;
+        for(int step=highestStep;step>0;step>>=1) {
+            int next = position + step;
+            if(next<tree.length && tree[next]<remaining) {
+                position = next;
+                remaining -= tree[next];
+            }
+        }
+        
+        //the position can only overflow due to rounding errors
+        return Math.min(position, weights.length-1);
+    }
+    
+    /**
+     * Validates the provided weight.
+     * 
+     * @param weight 
+     */
+    private void validateWeight(double weight) {
+        if(weight<0.0 || Double.isNaN(weight)) {
+            throw new IllegalArgumentException("The weights must be non-negative.");
+        }
+    }
+}
@@ -19,11 +19,14 @@ import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataCollection;
 import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TypeInference;
+import com.datumbox.framework.common.utilities.RandomGenerator;
 import com.datumbox.framework.core.common.utilities.PHPMethods;
 import com.datumbox.framework.core.statistics.descriptivestatistics.Descriptives;
 import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
 
+import java.util.ArrayList;
 import java.util.Map;
+import java.util.Random;
 
 /**
  * This class provides methods which can be used for performing Simple Random Sampling.
@@ -34,7 +37,11 @@ public class SimpleRandomSampling {
     
     /**
      * Samples n ids based on their a Table which contains weights, probabilities 
-     * or frequencies. 
+     * or frequencies. The sampling with replacement inverts the cumulative 
+     * distribution with a FenwickSampler, so it draws the same ids as a linear 
+     * scan over the table in logarithmic time. The sampling without replacement
+     * uses the WeightedReservoirSampling and returns at most as many ids as the 
+     * ones with positive weight.
      * 
      * @param weightedTable
      * @param n
@@ -42,31 +49,33 @@ public class SimpleRandomSampling {
      * @return 
      */
     public static FlatDataCollection weightedSampling(AssociativeArray weightedTable, int n, boolean withReplacement) {
-        FlatDataList sampledIds = new FlatDataList();
-        
-        double sumOfFrequencies = Descriptives.sum(weightedTable.toFlatDataCollection());
         int populationN = weightedTable.size();
+        Object[] pointIDs = new Object[populationN];
+        double[] weights = new double[populationN];
+        int j = 0;
+        for(Map.Entry<Object, Object> entry : weightedTable.entrySet()) {
+            pointIDs[j] = entry.getKey();
+            weights[j] = TypeInference.toDouble(entry.getValue());
+            ++j;
+        }
         
-        for(int i=0;i<n;++i) {
-            if(withReplacement==false && populationN<=n) {
-                //if replacement is not allowed and we already sampled everything that it can stop
-                break;
+        FlatDataList sampledIds = new FlatDataList(new ArrayList<>(n));
+        if(populationN==0) {
+            return sampledIds.toFlatDataCollection();
+        }
+        
+        if(withReplacement) {
+            Random random = RandomGenerator.getThreadLocalRandom();
+            FenwickSampler sampler = new FenwickSampler(weights);
+            double total = sampler.getTotal();
+            for(int i=0;i<n;++i) {
+                //if all the weights are zero, the first id is always selected
+                sampledIds.add(pointIDs[sampler.find(random.nextDouble()*total)]);
             }
-            
-            double randomFrequency = PHPMethods.mt_rand(0.0, sumOfFrequencies);
-            
-            double cumulativeFrequency=0;
-            for(Map.Entry<Object, Object> entry : weightedTable.entrySet()) {
-                Object pointID = entry.getKey();
-                cumulativeFrequency+= TypeInference.toDouble(entry.getValue());
-                if(cumulativeFrequency>=randomFrequency) {
-                    if(withReplacement==false && sampledIds.contains(pointID)) {
-                        continue;
-                    }
-                    
-                    sampledIds.add(pointID);
-                    break;
-                }
+        }
+        else {
+            for(int position : WeightedReservoirSampling.sample(weights, n)) {
+                sampledIds.add(pointIDs[position]);
             }
         }
     
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+
+import java.util.Random;
+
+/**
+ * The WeightedReservoirSampling draws weighted samples without replacement in a
+ * single pass by using the A-ES algorithm of Efraimidis and Spirakis. Every item
+ * receives the key u^(1/w) and the items with the n largest keys are kept in a
+ * heap, so the cost is O(N log n) and no item is ever drawn twice.
+ * 
+ * References: 
+ * https://doi.org/10.1016/j.ipl.2005.11.003
+ * 
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class WeightedReservoirSampling {
+    
+    /**
+     * Samples n indexes without replacement by using the thread local Random 
+     * of the RandomGenerator.
+     * 
+     * @param weights
+     * @param n
+     * @return 
+     */
+    public static int[] sample(double[] weights, int n) {
+        return sample(weights, n, RandomGenerator.getThreadLocalRandom());
+    }
+    
+    /**
+     * Samples n indexes without replacement by using the provided Random. The
+     * indexes are returned in the order they would have been drawn one after 
+     * the other. Indexes with zero weight are never selected, so fewer than n
+     * indexes are returned if there are not enough positive weights.
+     * 
+     * @param weights
+     * @param n
+     * @param random
+     * @return 
+     */
+    public static int[] sample(double[] weights, int n, Random random) {
+        if(n<0) {
+            throw new IllegalArgumentException("The sample size can not be negative.");
+        }
+        
+        //min-heap on the keys; the keys are stored as log(u)/w to avoid underflows
+        int capacity = Math.min(n, weights.length);
+        double[] heapKeys = new double[capacity];
+        int[] heapIndexes = new int[capacity];
+        int heapSize = 0;
+        
+        for(int i=0;i<weights.length;i++) {
+            double weight = weights[i];
+            if(weight<0.0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("The weights must be non-negative.");
+            }
+            else if(weight==0.0 || capacity==0) {
+                continue;
+            }
+            
+            double key = Math.log(1.0-random.nextDouble())/weight; //1-u is in (0, 1]
+            if(heapSize<capacity) {
+                heapKeys[heapSize] = key;
+                heapIndexes[heapSize] = i;
+                siftUp(heapKeys, heapIndexes, heapSize++);
+            }
+            else if(key>heapKeys[0]) {
+                heapKeys[0] = key;
+                heapIndexes[0] = i;
+                siftDown(heapKeys, heapIndexes, heapSize);
+            }
+        }
+        
+        //pop the heap to order the indexes by decreasing key
+        int[] sampled = new int[heapSize];
+        for(int j=heapSize-1;j>=0;j--) {
+            sampled[j] = heapIndexes[0];
+            heapKeys[0] = heapKeys[j];
+            heapIndexes[0] = heapIndexes[j];
+            siftDown(heapKeys, heapIndexes, j);
+        }
+        return sampled;
+    }
+    
+    /**
+     * Moves the element of the position up until the heap property is restored.
+     * 
+     * @param keys
+     * @param indexes
+     * @param position 
+     */
+    private static void siftUp(double[] keys, int[] indexes, int position) {
+        while(position>0) {
+            int parent = (position-1)>>>1;
+            if(keys[parent]<=keys[position]) {
+                break;
+            }
+            swap(keys, indexes, parent, position);
+            position = parent;
+        }
+    }
+    
+    /**
+     * Moves the root down until the heap property is restored.
+     * 
+     * @param keys
+     * @param indexes
+     * @param size 
+     */
+    private static void siftDown(double[] keys, int[] indexes, int size) {
+        int position = 0;
+        while(true) {
+            int left = 2*position+1;
+            if(left>=size) {
+                break;
+            }
+            int smallest = (left+1<size && keys[left+1]<keys[left])?left+1:left;
+            if(keys[position]<=keys[smallest]) {
+                break;
+            }
+            swap(keys, indexes, position, smallest);
+            position = smallest;
+        }
+    }
+    
+    /**
+     * Swaps two elements of the heap.
+     * 
+     * @param keys
+     * @param indexes
+     * @param i
+     * @param j 
+     */
+    private static void swap(double[] keys, int[] indexes, int i, int j) {
+        double tmpKey = keys[i];
+        keys[i] = keys[j];
+        keys[j] = tmpKey;
+        
+        int tmpIndex = indexes[i];
+        indexes[i] = indexes[j];
+        indexes[j] = tmpIndex;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.concurrency;
+
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for ThreadPoolRegistry.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class ThreadPoolRegistryTest extends AbstractTest {
+
+    /**
+     * Builds a parallelized configuration with the provided number of threads.
+     *
+     * @param maxThreads
+     * @return
+     */
+    private ConcurrencyConfiguration getConcurrencyConfiguration(int maxThreads) {
+        ConcurrencyConfiguration concurrencyConfiguration = new ConcurrencyConfiguration();
+        concurrencyConfiguration.setParallelized(true);
+        concurrencyConfiguration.setMaxNumberOfThreadsPerTask(maxThreads);
+        return concurrencyConfiguration;
+    }
+
+    /**
+     * Test of getExecutorService and getForkJoinPool methods, of class ThreadPoolRegistry.
+     */
+    @Test
+    public void testPoolReuse() {
+        logger.info("testPoolReuse");
+
+        ConcurrencyConfiguration concurrencyConfiguration = getConcurrencyConfiguration(3);
+
+        ExecutorService executorService = ThreadPoolRegistry.getExecutorService(concurrencyConfiguration);
+        long reuses = ThreadPoolRegistry.getPoolReuses();
+        assertSame(executorService, ThreadPoolRegistry.getExecutorService(getConcurrencyConfiguration(3)));
+        assertEquals(reuses + 1, ThreadPoolRegistry.getPoolReuses());
+
+        ForkJoinPool forkJoinPool = ThreadPoolRegistry.getForkJoinPool(concurrencyConfiguration);
+        assertSame(forkJoinPool, ThreadPoolRegistry.getForkJoinPool(concurrencyConfiguration));
+        assertEquals(3, forkJoinPool.getParallelism());
+
+        assertFalse(ThreadPoolRegistry.isWorkerOf(executorService));
+
+        ThreadPoolRegistry.shutdown(concurrencyConfiguration);
+    }
+
+    /**
+     * Test of a nested throttledExecution on the same pool, of class ThreadMethods.
+     */
+    @Test
+    public void testNestedExecution() {
+        logger.info("testNestedExecution");
+
+        ConcurrencyConfiguration concurrencyConfiguration = getConcurrencyConfiguration(2);
+        ExecutorService executorService = ThreadPoolRegistry.getExecutorService(concurrencyConfiguration);
+
+        AtomicInteger counter = new AtomicInteger(0);
+        AtomicInteger workerCalls = new AtomicInteger(0);
+        ThreadMethods.throttledExecution(IntStream.range(0, 8).boxed(), i -> {
+            if(ThreadPoolRegistry.isWorkerOf(executorService)) {
+                workerCalls.incrementAndGet();
+            }
+            ThreadMethods.throttledExecution(IntStream.range(0, 10).boxed(), j -> counter.incrementAndGet(), concurrencyConfiguration);
+        }, concurrencyConfiguration);
+
+        assertEquals(8, workerCalls.get());
+        assertEquals(80, counter.get());
+
+        ThreadPoolRegistry.shutdown(concurrencyConfiguration);
+    }
+
+    /**
+     * Test of shutdown method, of class ThreadPoolRegistry.
+     */
+    @Test
+    public void testShutdown() {
+        logger.info("testShutdown");
+
+        ConcurrencyConfiguration concurrencyConfiguration = getConcurrencyConfiguration(5);
+
+        ExecutorService executorService = ThreadPoolRegistry.getExecutorService(concurrencyConfiguration);
+        ForkJoinPool forkJoinPool = ThreadPoolRegistry.getForkJoinPool(concurrencyConfiguration);
+
+        ThreadPoolRegistry.shutdown(concurrencyConfiguration);
+        assertTrue(executorService.isShutdown());
+        assertTrue(forkJoinPool.isShutdown());
+
+        ExecutorService newExecutorService = ThreadPoolRegistry.getExecutorService(concurrencyConfiguration);
+        assertNotSame(executorService, newExecutorService);
+        assertFalse(newExecutorService.isShutdown());
+
+        AtomicInteger counter = new AtomicInteger(0);
+        ThreadMethods.throttledExecution(IntStream.range(0, 20).boxed(), i -> counter.incrementAndGet(), concurrencyConfiguration);
+        assertEquals(20, counter.get());
+
+        ThreadPoolRegistry.shutdown(concurrencyConfiguration);
+        assertTrue(newExecutorService.isShutdown());
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.dataobjects;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for NumericMap.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class NumericMapTest extends AbstractTest {
+
+    /**
+     * Test of put method, of class NumericMap.
+     */
+    @Test
+    public void testPutBoolean() {
+        logger.info("putBoolean");
+        NumericMap instance = new NumericMap();
+        instance.put("a", true);
+        instance.put("b", false);
+        instance.put("c", 2);
+
+        assertEquals(1.0, instance.getDouble("a", -1.0), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(0.0, instance.getDouble("b", -1.0), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(2.0, instance.getDouble("c", -1.0), Constants.DOUBLE_ACCURACY_HIGH);
+
+        Map<Object, Double> expected = new HashMap<>();
+        expected.put("a", 1.0);
+        expected.put("b", 0.0);
+        expected.put("c", 2.0);
+        Map<Object, Double> result = new HashMap<>();
+        new AssociativeArray(instance).forEachDouble(result::put);
+        assertEquals(expected, result);
+    }
+
+    /**
+     * Test of put method, of class NumericMap.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testPutNonNumeric() {
+        logger.info("putNonNumeric");
+        NumericMap instance = new NumericMap();
+        instance.put("a", "text");
+    }
+
+    /**
+     * Test of the serialization of the NumericMap. The deserialized maps share
+     * the dictionary of the existing maps, so they can be merged by their ids.
+     */
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        logger.info("serialization");
+        Map<Object, Object> data = new HashMap<>();
+        data.put("x1", 1.0);
+        data.put("x2", 3.0);
+        data.put(5, -2.0);
+        NumericMap instance = new NumericMap(data);
+        
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            oos.writeObject(instance);
+        }
+        NumericMap result;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            result = (NumericMap) ois.readObject();
+        }
+        
+        assertEquals(instance, result);
+        for(int i=0;i<instance.size();i++) {
+            assertEquals(instance.keyIdAt(i), result.keyIdAt(i));
+            assertEquals(instance.keyAt(i), result.keyAt(i));
+        }
+    }
+
+}
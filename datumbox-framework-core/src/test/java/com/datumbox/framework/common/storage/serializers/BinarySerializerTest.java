@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.common.storage.serializers;
+
+import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.core.common.dataobjects.Record;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test cases for BinarySerializer.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class BinarySerializerTest extends AbstractTest {
+
+    /**
+     * Serializes and deserializes the object with a BinarySerializer.
+     *
+     * @param obj
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(T obj) {
+        BinarySerializer serializer = new BinarySerializer();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        serializer.serialize(obj, Channels.newChannel(baos));
+        return (T) serializer.deserialize(Channels.newChannel(new ByteArrayInputStream(baos.toByteArray())));
+    }
+
+    /**
+     * Test of serializing a cyclic graph that goes through Codec encoded containers.
+     */
+    @Test
+    public void testCyclicGraph() {
+        logger.info("testCyclicGraph");
+
+        Map<String, Object> map = new HashMap<>();
+        List<Object> list = new ArrayList<>();
+        list.add(map);
+        list.add(1.0);
+        list.add(list);
+        map.put("list", list);
+        map.put("key", "value");
+
+        Map<String, Object> result = roundTrip(map);
+        assertNotSame(map, result);
+        assertEquals("value", result.get("key"));
+
+        List<?> resultList = (List<?>) result.get("list");
+        assertEquals(3, resultList.size());
+        assertSame(result, resultList.get(0));
+        assertEquals(1.0, resultList.get(1));
+        assertSame(resultList, resultList.get(2));
+    }
+
+    /**
+     * Test of serializing nested Codec encoded containers with shared references.
+     */
+    @Test
+    public void testNestedCodecs() {
+        logger.info("testNestedCodecs");
+
+        List<Object> shared = new ArrayList<>();
+        shared.add(1);
+        shared.add("a");
+
+        TreeMap<String, Object> sorted = new TreeMap<>();
+        sorted.put("b", shared);
+        sorted.put("a", 2L);
+
+        Map<Object, Object> map = new LinkedHashMap<>();
+        map.put("sorted", sorted);
+        map.put("shared", shared);
+        map.put(3, new HashMap<>());
+        map.put(true, null);
+
+        Map<Object, Object> result = roundTrip(map);
+        assertEquals(map, result);
+        assertEquals(LinkedHashMap.class, result.getClass());
+        assertEquals(new ArrayList<>(map.keySet()), new ArrayList<>(result.keySet()));
+        assertEquals(TreeMap.class, result.get("sorted").getClass());
+        assertSame(result.get("shared"), ((Map<?, ?>) result.get("sorted")).get("b"));
+    }
+
+    /**
+     * Test of serializing AssociativeArrays, including a cycle through one.
+     */
+    @Test
+    public void testAssociativeArray() {
+        logger.info("testAssociativeArray");
+
+        AssociativeArray inner = new AssociativeArray();
+        inner.put("x", 1.5);
+        inner.put(2, "y");
+
+        AssociativeArray aa = new AssociativeArray();
+        aa.put("inner", inner);
+        aa.put("flag", true);
+        aa.put(7, null);
+
+        AssociativeArray result = roundTrip(aa);
+        assertEquals(aa, result);
+
+        List<Object> list = new ArrayList<>();
+        list.add(aa);
+        aa.put("self", list);
+
+        result = roundTrip(aa);
+        assertEquals(inner, result.get("inner"));
+        assertSame(result, ((List<?>) result.get("self")).get(0));
+    }
+
+    /**
+     * Test of serializing Records.
+     */
+    @Test
+    public void testRecord() {
+        logger.info("testRecord");
+
+        AssociativeArray x = new AssociativeArray();
+        x.put("a", 1.0);
+        x.put("b", "c");
+
+        AssociativeArray probabilities = new AssociativeArray();
+        probabilities.put("yes", 0.75);
+        probabilities.put("no", 0.25);
+
+        Record r = new Record(x, "yes", "yes", probabilities);
+        Record result = roundTrip(r);
+        assertEquals(r, result);
+        assertEquals(r.getYPredicted(), result.getYPredicted());
+        assertEquals(r.getYPredictedProbabilities(), result.getYPredictedProbabilities());
+
+        Map<Integer, Record> records = new HashMap<>();
+        records.put(0, r);
+        records.put(1, r);
+        Map<Integer, Record> resultRecords = roundTrip(records);
+        assertEquals(r, resultRecords.get(0));
+        assertSame(resultRecords.get(0), resultRecords.get(1));
+    }
+
+}
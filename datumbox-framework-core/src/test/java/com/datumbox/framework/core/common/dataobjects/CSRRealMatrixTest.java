@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.common.dataobjects;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.apache.commons.math3.exception.MathUnsupportedOperationException;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for CSRRealMatrix.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CSRRealMatrixTest extends AbstractTest {
+
+    //the third row is empty
+    private final double[][] data = {
+        {1.0, 0.0, 2.0, 0.0, 0.0},
+        {0.0, 3.0, 0.0, 0.0, 4.0},
+        {0.0, 0.0, 0.0, 0.0, 0.0},
+        {5.0, 0.0, 6.0, 7.0, 0.0}
+    };
+
+    /**
+     * Builds a CSRRealMatrix from the non-zero values of a dense array.
+     *
+     * @param data
+     * @return
+     */
+    private CSRRealMatrix toCSR(double[][] data) {
+        int rows = data.length;
+        int columns = data[0].length;
+        int nnz = 0;
+        for(double[] row : data) {
+            for(double value : row) {
+                if(value != 0.0) {
+                    nnz++;
+                }
+            }
+        }
+
+        int[] rowPointers = new int[rows+1];
+        int[] columnIndexes = new int[nnz];
+        double[] values = new double[nnz];
+        int k = 0;
+        for(int i=0;i<rows;i++) {
+            rowPointers[i] = k;
+            for(int j=0;j<columns;j++) {
+                if(data[i][j] != 0.0) {
+                    columnIndexes[k] = j;
+                    values[k] = data[i][j];
+                    k++;
+                }
+            }
+        }
+        rowPointers[rows] = k;
+
+        return new CSRRealMatrix(rows, columns, rowPointers, columnIndexes, values);
+    }
+
+    /**
+     * Asserts that two matrices have the same dimensions and entries.
+     *
+     * @param expected
+     * @param actual
+     */
+    private void assertMatrixEquals(RealMatrix expected, RealMatrix actual) {
+        assertEquals(expected.getRowDimension(), actual.getRowDimension());
+        assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+        for(int i=0;i<expected.getRowDimension();i++) {
+            assertArrayEquals(expected.getRow(i), actual.getRow(i), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+    /**
+     * Test of operate method, of class CSRRealMatrix.
+     */
+    @Test
+    public void testOperate() {
+        logger.info("operate");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        CSRRealMatrix instance = toCSR(data);
+        assertEquals(7, instance.getNumberOfNonZeros());
+
+        double[] v = {1.5, -2.0, 0.5, 3.0, -1.0};
+        assertArrayEquals(expected.operate(v), instance.operate(v), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(expected.operate(new ArrayRealVector(v)).toArray(), instance.operate(new ArrayRealVector(v)).toArray(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+
+    /**
+     * Test of preMultiply method, of class CSRRealMatrix.
+     */
+    @Test
+    public void testPreMultiply() {
+        logger.info("preMultiply");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        CSRRealMatrix instance = toCSR(data);
+
+        double[] v = {2.0, -1.0, 4.0, 0.5};
+        assertArrayEquals(expected.preMultiply(v), instance.preMultiply(v), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(expected.preMultiply(new ArrayRealVector(v)).toArray(), instance.preMultiply(new ArrayRealVector(v)).toArray(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+
+    /**
+     * Test of multiply method, of class CSRRealMatrix.
+     */
+    @Test
+    public void testMultiply() {
+        logger.info("multiply");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        CSRRealMatrix instance = toCSR(data);
+
+        //sparse argument
+        assertMatrixEquals(expected.transpose().multiply(expected), instance.transpose().multiply(instance));
+        assertMatrixEquals(expected.multiply(expected.transpose()), instance.multiply(instance.transpose()));
+
+        //dense argument
+        RealMatrix m = new Array2DRowRealMatrix(new double[][] {
+            {1.0, 2.0},
+            {0.0, -1.0},
+            {3.0, 0.5},
+            {-2.0, 1.0},
+            {4.0, 0.0}
+        });
+        assertMatrixEquals(expected.multiply(m), instance.multiply(m));
+    }
+
+    /**
+     * Test of transpose method, of class CSRRealMatrix.
+     */
+    @Test
+    public void testTranspose() {
+        logger.info("transpose");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data).transpose();
+        CSRRealMatrix result = toCSR(data).transpose();
+        assertMatrixEquals(expected, result);
+        assertEquals(7, result.getNumberOfNonZeros());
+        assertMatrixEquals(new Array2DRowRealMatrix(data), result.transpose());
+    }
+
+    /**
+     * Test of getEntry and setEntry methods, of class CSRRealMatrix.
+     */
+    @Test
+    public void testGetSetEntry() {
+        logger.info("getSetEntry");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        CSRRealMatrix instance = toCSR(data);
+        for(int i=0;i<data.length;i++) {
+            for(int j=0;j<data[i].length;j++) {
+                assertEquals(expected.getEntry(i, j), instance.getEntry(i, j), Constants.DOUBLE_ACCURACY_HIGH);
+            }
+        }
+
+        //existing entries can be modified
+        instance.setEntry(3, 2, -6.0);
+        instance.addToEntry(0, 0, 1.0);
+        instance.multiplyEntry(1, 4, 0.5);
+        assertEquals(-6.0, instance.getEntry(3, 2), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(2.0, instance.getEntry(0, 0), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(2.0, instance.getEntry(1, 4), Constants.DOUBLE_ACCURACY_HIGH);
+
+        //zero updates on missing entries are no-ops
+        instance.setEntry(2, 3, 0.0);
+        instance.addToEntry(0, 1, 0.0);
+        instance.multiplyEntry(2, 2, 3.0);
+        assertEquals(0.0, instance.getEntry(2, 3), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(0.0, instance.getEntry(0, 1), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(0.0, instance.getEntry(2, 2), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(7, instance.getNumberOfNonZeros());
+    }
+
+    /**
+     * Test of setEntry method with a non-zero value on a missing entry, of class CSRRealMatrix.
+     */
+    @Test(expected = MathUnsupportedOperationException.class)
+    public void testSetMissingEntry() {
+        logger.info("setMissingEntry");
+
+        CSRRealMatrix instance = toCSR(data);
+        instance.setEntry(2, 3, 1.0);
+    }
+
+}
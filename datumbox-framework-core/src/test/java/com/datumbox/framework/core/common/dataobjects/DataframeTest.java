@@ -19,7 +19,9 @@ import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataCollection;
 import com.datumbox.framework.common.dataobjects.FlatDataList;
+import com.datumbox.framework.common.dataobjects.NumericMap;
 import com.datumbox.framework.common.dataobjects.TypeInference;
+import com.datumbox.framework.tests.Constants;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
@@ -164,6 +166,55 @@ public class DataframeTest extends AbstractTest {
         dataset.close();
     }
 
+    /**
+     * Test of storing Records with numeric x values, of class Dataframe.
+     */
+    @Test
+    public void testNumericRecords() {
+        logger.info("numericRecords");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe dataset = new Dataframe(configuration);
+
+        AssociativeArray xData1 = new AssociativeArray(new NumericMap());
+        xData1.put("a", 1.0);
+        xData1.put("b", 2);
+        dataset.add(new Record(xData1, "c1"));
+
+        AssociativeArray xData2 = new AssociativeArray(new NumericMap());
+        xData2.put("b", -3.5);
+        dataset.add(new Record(xData2, "c2"));
+
+        Map<Object, TypeInference.DataType> expTypes = new LinkedHashMap<>();
+        expTypes.put("a", TypeInference.DataType.NUMERICAL);
+        expTypes.put("b", TypeInference.DataType.NUMERICAL);
+        assertEquals(expTypes, dataset.getXDataTypes());
+
+        String storageName = "numericRecords";
+        dataset.save(storageName);
+        dataset.close();
+
+        dataset = Dataframe.Builder.load(storageName, configuration);
+        assertEquals(2, dataset.size());
+        Iterator<Record> it = dataset.iterator();
+        while(it.hasNext()) {
+            Record r = it.next();
+            NumericMap x = r.getX().getNumericData();
+            assertEquals(true, x != null && x.isUnmodifiable());
+            if("c1".equals(r.getY())) {
+                assertEquals(1.0, x.getDouble("a", 0.0), 0.0);
+                assertEquals(2.0, x.getDouble("b", 0.0), 0.0);
+            }
+            else {
+                assertEquals(1, x.size());
+                assertEquals(-3.5, x.getDouble("b", 0.0), 0.0);
+            }
+        }
+
+        dataset.delete();
+    }
+
     /**
      * Test of extractColumnValues method, of class Dataframe.
      */
@@ -263,4 +314,48 @@ public class DataframeTest extends AbstractTest {
         dataset.close();
     }
 
+    /**
+     * Test of getView method, of class Dataframe.
+     */
+    @Test
+    public void testGetView() {
+        logger.info("getView");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe dataset = new Dataframe(configuration);
+        for(int i=0;i<4;i++) {
+            AssociativeArray xData = new AssociativeArray();
+            xData.put("x", (double)i);
+            dataset.add(new Record(xData, i%2==0));
+        }
+        
+        Dataframe view = dataset.getView(new FlatDataList(Arrays.asList(3, 1, 3)));
+        
+        assertEquals(3, view.size());
+        assertEquals(dataset.get(3), view.get(0));
+        assertEquals(dataset.get(1), view.get(1));
+        assertEquals(dataset.get(3), view.get(2));
+        assertEquals(dataset.getXDataTypes(), view.getXDataTypes());
+        
+        Record r = new Record(new AssociativeArray(), true);
+        view.set(1, r);
+        
+        assertEquals(r, view.get(1));
+        assertEquals(3.0, TypeInference.toDouble(dataset.get(3).getX().get("x")), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(1.0, TypeInference.toDouble(dataset.get(1).getX().get("x")), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        int expectedId = 0;
+        for(Integer rId : view.index()) {
+            assertEquals(expectedId++, rId.intValue());
+        }
+        assertEquals(3, expectedId);
+        
+        view.close();
+        
+        assertEquals(4, dataset.size());
+        
+        dataset.close();
+    }
+
 }
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.common.dataobjects;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for DenseRealMatrix. Every test runs on both the on-heap and the
+ * off-heap (memory-mapped) storage.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class DenseRealMatrixTest extends AbstractTest {
+
+    private final double[][] data = {
+        {1.0, -2.0, 0.0, 3.5},
+        {4.0, 0.5, -1.0, 0.0},
+        {0.0, 2.0, 6.0, -3.0},
+        {7.0, 0.0, 1.5, 2.0},
+        {-0.5, 8.0, 0.0, 1.0},
+        {3.0, 3.0, -4.0, 0.0}
+    };
+
+    /**
+     * Builds a DenseRealMatrix with the provided data.
+     *
+     * @param data
+     * @param offHeap
+     * @return
+     */
+    private DenseRealMatrix toDense(double[][] data, boolean offHeap) {
+        DenseRealMatrix m = new DenseRealMatrix(data.length, data[0].length, offHeap);
+        for(int i=0;i<data.length;i++) {
+            m.setRow(i, data[i]);
+        }
+        assertEquals(offHeap, m.isOffHeap());
+        return m;
+    }
+
+    /**
+     * Asserts that two matrices have the same dimensions and entries.
+     *
+     * @param expected
+     * @param actual
+     */
+    private void assertMatrixEquals(RealMatrix expected, RealMatrix actual) {
+        assertEquals(expected.getRowDimension(), actual.getRowDimension());
+        assertEquals(expected.getColumnDimension(), actual.getColumnDimension());
+        for(int i=0;i<expected.getRowDimension();i++) {
+            assertArrayEquals(expected.getRow(i), actual.getRow(i), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+    /**
+     * Test of operate method, of class DenseRealMatrix.
+     */
+    @Test
+    public void testOperate() {
+        logger.info("operate");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        double[] v = {1.5, -2.0, 0.5, 3.0};
+        for(boolean offHeap : new boolean[]{false, true}) {
+            DenseRealMatrix instance = toDense(data, offHeap);
+            assertArrayEquals(expected.operate(v), instance.operate(v), Constants.DOUBLE_ACCURACY_HIGH);
+            assertArrayEquals(expected.operate(new ArrayRealVector(v)).toArray(), instance.operate(new ArrayRealVector(v)).toArray(), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+    /**
+     * Test of preMultiply method, of class DenseRealMatrix.
+     */
+    @Test
+    public void testPreMultiply() {
+        logger.info("preMultiply");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        double[] v = {2.0, -1.0, 0.0, 0.5, 1.0, -3.0};
+        for(boolean offHeap : new boolean[]{false, true}) {
+            DenseRealMatrix instance = toDense(data, offHeap);
+            assertArrayEquals(expected.preMultiply(v), instance.preMultiply(v), Constants.DOUBLE_ACCURACY_HIGH);
+            assertArrayEquals(expected.preMultiply(new ArrayRealVector(v)).toArray(), instance.preMultiply(new ArrayRealVector(v)).toArray(), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+    /**
+     * Test of multiply method, of class DenseRealMatrix.
+     */
+    @Test
+    public void testMultiply() {
+        logger.info("multiply");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        for(boolean offHeap : new boolean[]{false, true}) {
+            DenseRealMatrix instance = toDense(data, offHeap);
+
+            //dense arguments
+            assertMatrixEquals(expected.transpose().multiply(expected), instance.transpose().multiply(instance));
+            assertMatrixEquals(expected.multiply(expected.transpose()), instance.multiply(expected.transpose()));
+
+            //sparse argument
+            double[][] sparse = {
+                {1.0, 0.0},
+                {0.0, 0.0},
+                {0.0, 2.5},
+                {-1.0, 0.0}
+            };
+            CSRRealMatrix m = new CSRRealMatrix(4, 2, new int[]{0, 1, 1, 2, 3}, new int[]{0, 1, 0}, new double[]{1.0, 2.5, -1.0});
+            assertMatrixEquals(expected.multiply(new Array2DRowRealMatrix(sparse)), instance.multiply(m));
+        }
+    }
+
+    /**
+     * Test of transpose method, of class DenseRealMatrix.
+     */
+    @Test
+    public void testTranspose() {
+        logger.info("transpose");
+
+        RealMatrix expected = new Array2DRowRealMatrix(data);
+        for(boolean offHeap : new boolean[]{false, true}) {
+            DenseRealMatrix instance = toDense(data, offHeap);
+            assertMatrixEquals(expected.transpose(), instance.transpose());
+            assertMatrixEquals(expected, instance.transpose().transpose());
+        }
+    }
+
+    /**
+     * Test of getEntry, setEntry and copy methods, of class DenseRealMatrix.
+     */
+    @Test
+    public void testGetSetEntry() {
+        logger.info("getSetEntry");
+
+        for(boolean offHeap : new boolean[]{false, true}) {
+            RealMatrix expected = new Array2DRowRealMatrix(data);
+            DenseRealMatrix instance = toDense(data, offHeap);
+            assertMatrixEquals(expected, instance);
+
+            expected.setEntry(2, 1, 9.0);
+            instance.setEntry(2, 1, 9.0);
+            expected.addToEntry(0, 3, -1.5);
+            instance.addToEntry(0, 3, -1.5);
+            expected.multiplyEntry(5, 0, 2.0);
+            instance.multiplyEntry(5, 0, 2.0);
+            assertMatrixEquals(expected, instance);
+
+            DenseRealMatrix copy = instance.copy();
+            assertEquals(offHeap, copy.isOffHeap());
+            assertMatrixEquals(expected, copy);
+
+            //the copy is independent of the original
+            copy.setEntry(1, 1, -7.0);
+            assertEquals(expected.getEntry(1, 1), instance.getEntry(1, 1), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+    /**
+     * Test of newInstance method, of class DenseRealMatrix.
+     */
+    @Test
+    public void testNewInstance() {
+        logger.info("newInstance");
+
+        DenseRealMatrix small = DenseRealMatrix.newInstance(10, 10);
+        assertFalse(small.isOffHeap());
+
+        DenseRealMatrix offHeap = new DenseRealMatrix(3, 2, true);
+        assertTrue(offHeap.isOffHeap());
+        for(int i=0;i<3;i++) {
+            assertArrayEquals(new double[2], offHeap.getRow(i), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+
+}
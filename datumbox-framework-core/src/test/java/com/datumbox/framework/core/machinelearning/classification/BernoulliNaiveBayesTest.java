@@ -18,7 +18,10 @@ package com.datumbox.framework.core.machinelearning.classification;
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
+import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable.Prediction;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.ClassificationMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
@@ -27,6 +30,7 @@ import com.datumbox.framework.core.Datasets;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -84,6 +88,51 @@ public class BernoulliNaiveBayesTest extends AbstractTest {
         validationData.close();
     }
 
+    /**
+     * Test of compile method, of class BernoulliNaiveBayes.
+     */
+    @Test
+    public void testCompile() {
+        logger.info("testCompile");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        BernoulliNaiveBayes instance = MLBuilder.create(new BernoulliNaiveBayes.TrainingParameters(), configuration);
+        instance.fit(trainingData);
+
+        CompiledLinearClassifier compiled = instance.compile();
+        double[] x = new double[compiled.getNumberOfFeatures()];
+        double[] probabilities = new double[compiled.getNumberOfClasses()];
+        for(Record r : validationData) {
+            Prediction expResult = instance._predictRecord(r);
+
+            //build the dense feature vector
+            Arrays.fill(x, 0.0);
+            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                int featureId = compiled.getFeatureId(entry.getKey());
+                if(featureId >= 0) {
+                    x[featureId] = TypeInference.toDouble(entry.getValue());
+                }
+            }
+
+            int classId = compiled.predict(x, probabilities);
+            assertEquals(expResult.getYPredicted(), compiled.getClassById(classId));
+            for(int i=0;i<probabilities.length;i++) {
+                assertEquals(expResult.getYPredictedProbabilities().getDouble(compiled.getClassById(i)), probabilities[i], Constants.DOUBLE_ACCURACY_HIGH);
+            }
+        }
+
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
     /**
      * Test of validate method, of class BernoulliNaiveBayes.
      */
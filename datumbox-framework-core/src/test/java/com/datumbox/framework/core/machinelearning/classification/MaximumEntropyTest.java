@@ -16,6 +16,7 @@
 package com.datumbox.framework.core.machinelearning.classification;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
@@ -30,6 +31,7 @@ import org.junit.Test;
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -87,7 +89,92 @@ public class MaximumEntropyTest extends AbstractTest {
         validationData.close();
     }
 
+    
+    /**
+     * Test of predict method, of class MaximumEntropy, with the LBFGS optimizer.
+     */
+    @Test
+    public void testPredictLBFGS() {
+        logger.info("testPredictLBFGS");
+        
+        Configuration configuration = getConfiguration();
+        
+        
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+        
+        MaximumEntropy.TrainingParameters param = new MaximumEntropy.TrainingParameters();
+        param.setTotalIterations(10);
+        param.setOptimizer(MaximumEntropy.TrainingParameters.Optimizer.LBFGS);
+
+        MaximumEntropy instance = MLBuilder.create(param, configuration);
+        
+        instance.fit(trainingData);
+        instance.predict(validationData);
+        
+        Map<Integer, Object> expResult = new HashMap<>();
+        Map<Integer, Object> result = new HashMap<>();
+        for(Map.Entry<Integer, Record> e : validationData.entries()) {
+            Integer rId = e.getKey();
+            Record r = e.getValue();
+            expResult.put(rId, r.getY());
+            result.put(rId, r.getYPredicted());
+        }
+        assertEquals(expResult, result);
+        
+        instance.close();
+        
+        trainingData.close();
+        validationData.close();
+    }
 
+    
+    /**
+     * Test of fit method, of class MaximumEntropy, with the LBFGS optimizer and
+     * L2 regularization. The training data are separable, so the likelihood has
+     * no maximum and the lambdas converge only because of the penalty.
+     */
+    @Test
+    public void testFitLBFGSL2() {
+        logger.info("testFitLBFGSL2");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe trainingData = new Dataframe(configuration);
+        AssociativeArray xData1 = new AssociativeArray();
+        xData1.put("a", 1.0);
+        trainingData.add(new Record(xData1, true));
+        AssociativeArray xData2 = new AssociativeArray();
+        xData2.put("b", 1.0);
+        trainingData.add(new Record(xData2, false));
+        
+        double l2 = 0.1;
+        double[][] weights = new double[2][];
+        int[] totalIterations = {100, 200};
+        for(int i=0;i<totalIterations.length;i++) {
+            MaximumEntropy.TrainingParameters param = new MaximumEntropy.TrainingParameters();
+            param.setTotalIterations(totalIterations[i]);
+            param.setOptimizer(MaximumEntropy.TrainingParameters.Optimizer.LBFGS);
+            param.setL2(l2);
+            
+            MaximumEntropy instance = MLBuilder.create(param, configuration);
+            instance.fit(trainingData);
+            weights[i] = instance.getModelParameters().getLambdas().getWeights().clone();
+            instance.close();
+        }
+        assertArrayEquals(weights[0], weights[1], 1e-4);
+        
+        //on the optimum the penalty balances the gradient of the log-likelihood: l2*w = (1-sigmoid(2w))/2
+        for(double w : weights[0]) {
+            double absW = Math.abs(w);
+            assertEquals(0.5/(1.0+Math.exp(2.0*absW)), l2*absW, 1e-4);
+        }
+        
+        trainingData.close();
+    }
+    
     /**
      * Test of validate method, of class MaximumEntropy.
      */
@@ -16,9 +16,11 @@
 package com.datumbox.framework.core.machinelearning.classification;
 
 import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.ClassificationMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.ShuffleSplitter;
@@ -30,9 +32,11 @@ import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 
 /**
  * Test cases for MultinomialNaiveBayes.
@@ -145,4 +149,82 @@ public class MultinomialNaiveBayesTest extends AbstractTest {
         trainingData.close();
     }
     
+    /**
+     * Test of partialFit method, of class MultinomialNaiveBayes.
+     */
+    @Test
+    public void testPartialFit() {
+        logger.info("testPartialFit");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+        Dataframe trainingData = data[0];
+        data[1].close();
+        
+        FlatDataList firstIds = new FlatDataList();
+        FlatDataList secondIds = new FlatDataList();
+        for(Integer rId : trainingData.index()) {
+            if(firstIds.size() < trainingData.size()/2) {
+                firstIds.add(rId);
+            }
+            else {
+                secondIds.add(rId);
+            }
+        }
+        Dataframe firstBatch = trainingData.getView(firstIds);
+        Dataframe secondBatch = trainingData.getView(secondIds);
+        
+        MultinomialNaiveBayes.TrainingParameters param = new MultinomialNaiveBayes.TrainingParameters();
+        param.setMultiProbabilityWeighted(true);
+        
+        MultinomialNaiveBayes expInstance = MLBuilder.create(param, configuration);
+        expInstance.fit(trainingData);
+        
+        MultinomialNaiveBayes instance = MLBuilder.create(param, configuration);
+        instance.fit(firstBatch);
+        CompiledLinearClassifier compiledBefore = instance.compile();
+        instance.partialFit(secondBatch);
+        CompiledLinearClassifier compiled = instance.compile();
+        assertNotSame(compiledBefore, compiled);
+        
+        Map<Object, Double> expLogPriors = expInstance.getModelParameters().getLogPriors();
+        Map<Object, Double> logPriors = instance.getModelParameters().getLogPriors();
+        assertEquals(expLogPriors.size(), logPriors.size());
+        for(Map.Entry<Object, Double> entry : expLogPriors.entrySet()) {
+            assertEquals(entry.getValue(), logPriors.get(entry.getKey()), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        
+        Map<List<Object>, Double> expLogLikelihoods = expInstance.getModelParameters().getLogLikelihoods();
+        Map<List<Object>, Double> logLikelihoods = instance.getModelParameters().getLogLikelihoods();
+        assertEquals(expLogLikelihoods.size(), logLikelihoods.size());
+        for(Map.Entry<List<Object>, Double> entry : expLogLikelihoods.entrySet()) {
+            assertEquals(entry.getValue(), logLikelihoods.get(entry.getKey()), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        
+        //the model compiled after the update must predict like the model trained on all the data
+        CompiledLinearClassifier expCompiled = expInstance.compile();
+        double[] expProbabilities = new double[expCompiled.getNumberOfClasses()];
+        double[] probabilities = new double[compiled.getNumberOfClasses()];
+        assertEquals(expProbabilities.length, probabilities.length);
+        for(Record r : trainingData) {
+            expCompiled.predict(r.getX(), expProbabilities);
+            compiled.predict(r.getX(), probabilities);
+            
+            Map<Object, Double> expResult = new HashMap<>();
+            for(int i=0;i<expProbabilities.length;i++) {
+                expResult.put(expCompiled.getClassById(i), expProbabilities[i]);
+            }
+            for(int i=0;i<probabilities.length;i++) {
+                assertEquals(expResult.get(compiled.getClassById(i)), probabilities[i], Constants.DOUBLE_ACCURACY_HIGH);
+            }
+        }
+        
+        expInstance.close();
+        instance.close();
+        firstBatch.close();
+        secondBatch.close();
+        trainingData.close();
+    }
+    
 }
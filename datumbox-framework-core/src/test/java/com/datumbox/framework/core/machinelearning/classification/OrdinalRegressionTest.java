@@ -18,7 +18,10 @@ package com.datumbox.framework.core.machinelearning.classification;
 import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
+import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledOrdinalClassifier;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable.Prediction;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.ClassificationMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
@@ -121,6 +124,65 @@ public class OrdinalRegressionTest extends AbstractTest {
     }
 
 
+    /**
+     * Test of compile method, of class OrdinalRegression.
+     */
+    @Test
+    public void testCompile() {
+        logger.info("testCompile");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe[] data = Datasets.winesOrdinal(configuration);
+
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        MinMaxScaler numericalScaler = MLBuilder.create(new MinMaxScaler.TrainingParameters(), configuration);
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.transform(validationData);
+
+        OneHotEncoder categoricalEncoder = MLBuilder.create(new OneHotEncoder.TrainingParameters(), configuration);
+        categoricalEncoder.fit_transform(trainingData);
+        categoricalEncoder.transform(validationData);
+
+        OrdinalRegression.TrainingParameters param = new OrdinalRegression.TrainingParameters();
+        param.setTotalIterations(100);
+        param.setL2(0.001);
+
+        OrdinalRegression instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+
+        CompiledOrdinalClassifier compiled = instance.compile();
+        int[] featureIds = new int[compiled.getNumberOfFeatures()];
+        double[] values = new double[compiled.getNumberOfFeatures()];
+        double[] probabilities = new double[compiled.getNumberOfClasses()];
+        for(Record r : validationData) {
+            Prediction expResult = instance._predictRecord(r);
+
+            //build the sparse feature vector
+            int length = 0;
+            for(Map.Entry<Object, Object> entry : r.getX().entrySet()) {
+                featureIds[length] = compiled.getFeatureId(entry.getKey());
+                values[length] = TypeInference.toDouble(entry.getValue());
+                length++;
+            }
+
+            int classId = compiled.predict(featureIds, values, length, probabilities);
+            assertEquals(expResult.getYPredicted(), compiled.getClassById(classId));
+            for(int i=0;i<probabilities.length;i++) {
+                assertEquals(expResult.getYPredictedProbabilities().getDouble(compiled.getClassById(i)), probabilities[i], Constants.DOUBLE_ACCURACY_HIGH);
+            }
+        }
+
+        numericalScaler.close();
+        categoricalEncoder.close();
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
     /**
      * Test of validate method, of class OrdinalRegression.
      */
@@ -19,6 +19,8 @@ import com.datumbox.framework.common.Configuration;
 import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.dataobjects.CompiledLinearClassifier;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable.Prediction;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.ClassificationMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
@@ -30,7 +32,9 @@ import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
 
@@ -116,6 +120,134 @@ public class SoftMaxRegressionTest extends AbstractTest {
     }
 
 
+    /**
+     * Test of predict method with a Stream of records, of class SoftMaxRegression.
+     */
+    @Test
+    public void testPredictStream() {
+        logger.info("testPredictStream");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe[] data = Datasets.carsCategorical(configuration);
+
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        MinMaxScaler numericalScaler = MLBuilder.create(new MinMaxScaler.TrainingParameters(), configuration);
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.transform(validationData);
+
+        OneHotEncoder categoricalEncoder = MLBuilder.create(new OneHotEncoder.TrainingParameters(), configuration);
+        categoricalEncoder.fit_transform(trainingData);
+        categoricalEncoder.transform(validationData);
+
+        SoftMaxRegression.TrainingParameters param = new SoftMaxRegression.TrainingParameters();
+        param.setTotalIterations(2000);
+        param.setL2(0.001);
+
+        SoftMaxRegression instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+
+        List<Object> expResult = validationData.stream().map(Record::getY).collect(Collectors.toList());
+        List<Object> result = instance.predict(validationData.stream(), 2).map(Prediction::getYPredicted).collect(Collectors.toList());
+        assertEquals(expResult, result);
+
+        numericalScaler.close();
+        categoricalEncoder.close();
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
+
+    /**
+     * Test of compile method, of class SoftMaxRegression.
+     */
+    @Test
+    public void testCompile() {
+        logger.info("testCompile");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe[] data = Datasets.carsCategorical(configuration);
+
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        MinMaxScaler numericalScaler = MLBuilder.create(new MinMaxScaler.TrainingParameters(), configuration);
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.transform(validationData);
+
+        OneHotEncoder categoricalEncoder = MLBuilder.create(new OneHotEncoder.TrainingParameters(), configuration);
+        categoricalEncoder.fit_transform(trainingData);
+        categoricalEncoder.transform(validationData);
+
+        SoftMaxRegression.TrainingParameters param = new SoftMaxRegression.TrainingParameters();
+        param.setTotalIterations(2000);
+        param.setL2(0.001);
+
+        SoftMaxRegression instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+
+        CompiledLinearClassifier compiled = instance.compile();
+        double[] probabilities = new double[compiled.getNumberOfClasses()];
+        for(Record r : validationData) {
+            Prediction expResult = instance._predictRecord(r);
+
+            int classId = compiled.predict(r.getX(), probabilities);
+            assertEquals(expResult.getYPredicted(), compiled.getClassById(classId));
+            for(int i=0;i<probabilities.length;i++) {
+                assertEquals(expResult.getYPredictedProbabilities().getDouble(compiled.getClassById(i)), probabilities[i], Constants.DOUBLE_ACCURACY_HIGH);
+            }
+        }
+
+        numericalScaler.close();
+        categoricalEncoder.close();
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
+
+    /**
+     * Test of validate method with mini-batch training, of class SoftMaxRegression.
+     */
+    @Test
+    public void testMiniBatchKFoldCrossValidation() {
+        logger.info("testMiniBatchKFoldCrossValidation");
+        
+        Configuration configuration = getConfiguration();
+        
+        int k = 5;
+        
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+        Dataframe trainingData = data[0];
+        data[1].close();
+
+
+        MinMaxScaler scaler = MLBuilder.create(new MinMaxScaler.TrainingParameters(), configuration);
+        scaler.fit_transform(trainingData);
+
+        SoftMaxRegression.TrainingParameters param = new SoftMaxRegression.TrainingParameters();
+        param.setTotalIterations(10);
+        param.setBatchSize(8);
+        param.setL1(0.0001);
+        param.setL2(0.0001);
+
+        ClassificationMetrics vm = new Validator<>(ClassificationMetrics.class, configuration)
+                .validate(new KFoldSplitter(k).split(trainingData), param);
+        
+        double expResult = 0.5338616938616939;
+        double result = vm.getMacroF1();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+        scaler.close();
+        
+        trainingData.close();
+    }
+
     /**
      * Test of validate method, of class SoftMaxRegression.
      */
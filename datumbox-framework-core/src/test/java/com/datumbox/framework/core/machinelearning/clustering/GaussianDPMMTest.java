@@ -85,6 +85,55 @@ public class GaussianDPMMTest extends AbstractTest {
     }
 
     
+    /**
+     * Test of predict method, of class GaussianDPMM, with the sharded sampler.
+     */
+    @Test
+    public void testPredictSharded() {
+        logger.info("testPredictSharded");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.gaussianClusters(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        
+        String storageName = this.getClass().getSimpleName() + "Sharded";
+        
+        GaussianDPMM.TrainingParameters param = new GaussianDPMM.TrainingParameters();
+        param.setAlpha(0.01);
+        param.setMaxIterations(100);
+        param.setInitializationMethod(GaussianDPMM.TrainingParameters.Initialization.ONE_CLUSTER_PER_RECORD);
+        param.setSampler(GaussianDPMM.TrainingParameters.Sampler.SHARDED_GIBBS);
+        param.setKappa0(0);
+        param.setNu0(1);
+        param.setMu0(new OpenMapRealVector(2));
+        param.setPsi0(MatrixUtils.createRealIdentityMatrix(2));
+
+        GaussianDPMM instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        instance.save(storageName);
+
+        trainingData.close();
+        instance.close();
+
+        instance = MLBuilder.load(GaussianDPMM.class, storageName, configuration);
+
+        instance.predict(validationData);
+        ClusteringMetrics vm = new ClusteringMetrics(validationData);
+
+        double expResult = 1.0;
+        double result = vm.getPurity();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+        
+        instance.delete();
+
+        validationData.close();
+    }
+
+    
     /**
      * Test of validate method, of class GaussianDPMM.
      */
@@ -28,6 +28,9 @@ import com.datumbox.framework.core.Datasets;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -154,4 +157,71 @@ public class HierarchicalAgglomerativeTest extends AbstractTest {
         trainingData.close();
     }
 
+    /**
+     * Test of predict method, of class HierarchicalAgglomerative, comparing the
+     * Engines on all the Linkage methods.
+     */
+    @Test
+    public void testPredictWithEngines() {
+        logger.info("testPredictWithEngines");
+        
+        Configuration configuration = getConfiguration();
+        
+        
+        Dataframe[] data = Datasets.heartDiseaseClusters(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+        
+
+        MinMaxScaler.TrainingParameters nsParams = new MinMaxScaler.TrainingParameters();
+        MinMaxScaler numericalScaler = MLBuilder.create(nsParams, configuration);
+
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.transform(validationData);
+
+        CornerConstraintsEncoder.TrainingParameters ceParams = new CornerConstraintsEncoder.TrainingParameters();
+        CornerConstraintsEncoder categoricalEncoder = MLBuilder.create(ceParams, configuration);
+
+        categoricalEncoder.fit_transform(trainingData);
+        categoricalEncoder.transform(validationData);
+        
+        
+        for(HierarchicalAgglomerative.TrainingParameters.Linkage linkage : HierarchicalAgglomerative.TrainingParameters.Linkage.values()) {
+            Double expPurity = null;
+            Set<Integer> expClusterIds = null;
+            for(HierarchicalAgglomerative.TrainingParameters.Engine engine : HierarchicalAgglomerative.TrainingParameters.Engine.values()) {
+                HierarchicalAgglomerative.TrainingParameters param = new HierarchicalAgglomerative.TrainingParameters();
+                param.setDistanceMethod(HierarchicalAgglomerative.TrainingParameters.Distance.EUCLIDIAN);
+                param.setLinkageMethod(linkage);
+                param.setMinClustersThreshold(2);
+                param.setMaxDistanceThreshold(Double.MAX_VALUE);
+                param.setEngine(engine);
+
+                HierarchicalAgglomerative instance = MLBuilder.create(param, configuration);
+                instance.fit(trainingData);
+                instance.predict(validationData);
+                
+                ClusteringMetrics vm = new ClusteringMetrics(validationData);
+                double purity = vm.getPurity();
+                Set<Integer> clusterIds = new HashSet<>(instance.getModelParameters().getClusterMap().keySet());
+                if(expPurity == null) {
+                    //the results of the BIGMAP engine are used as reference
+                    expPurity = purity;
+                    expClusterIds = clusterIds;
+                }
+                assertEquals(expPurity, purity, Constants.DOUBLE_ACCURACY_HIGH);
+                assertEquals(expClusterIds, clusterIds);
+                
+                instance.close();
+            }
+        }
+
+        numericalScaler.close();
+        categoricalEncoder.close();
+        
+        trainingData.close();
+        validationData.close();
+    }
+
 }
@@ -107,7 +107,128 @@ public class KmeansTest extends AbstractTest {
 
         validationData.close();
     }
+    
+    /**
+     * Test of predict method, of class Kmeans, with the Mini-Batch training and
+     * the PARALLEL_PLUS_PLUS initialization.
+     */
+    @Test
+    public void testPredictMiniBatch() {
+        logger.info("testPredictMiniBatch");
+
+        Configuration configuration = getConfiguration();
+        
+        
+        Dataframe[] data = Datasets.heartDiseaseClusters(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+        
+        
+        String storageName = this.getClass().getSimpleName() + "MiniBatch";
+
+        MinMaxScaler.TrainingParameters nsParams = new MinMaxScaler.TrainingParameters();
+        MinMaxScaler numericalScaler = MLBuilder.create(nsParams, configuration);
+
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.save(storageName);
+
+        CornerConstraintsEncoder.TrainingParameters ceParams = new CornerConstraintsEncoder.TrainingParameters();
+        CornerConstraintsEncoder categoricalEncoder = MLBuilder.create(ceParams, configuration);
+
+        categoricalEncoder.fit_transform(trainingData);
+        categoricalEncoder.save(storageName);
+        
+        Kmeans.TrainingParameters param = new Kmeans.TrainingParameters();
+        param.setK(2);
+        param.setMaxIterations(50);
+        param.setBatchSize(20);
+        param.setInitializationMethod(Kmeans.TrainingParameters.Initialization.PARALLEL_PLUS_PLUS);
+        param.setDistanceMethod(Kmeans.TrainingParameters.Distance.EUCLIDIAN);
+        param.setWeighted(false);
+        param.setCategoricalGamaMultiplier(1.0);
+        param.setSubsetFurthestFirstcValue(2.0);
+
+        Kmeans instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        instance.save(storageName);
+
+        trainingData.close();
+        
+        instance.close();
+        numericalScaler.close();
+        categoricalEncoder.close();
+
+
+        numericalScaler = MLBuilder.load(MinMaxScaler.class, storageName, configuration);
+        categoricalEncoder = MLBuilder.load(CornerConstraintsEncoder.class, storageName, configuration);
+        instance = MLBuilder.load(Kmeans.class, storageName, configuration);
+
+
+        numericalScaler.transform(validationData);
+        categoricalEncoder.transform(validationData);
+        instance.predict(validationData);
+        ClusteringMetrics vm = new ClusteringMetrics(validationData);
+
+        double expResult = 1.0;
+        double result = vm.getPurity();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+
+        numericalScaler.delete();
+        categoricalEncoder.delete();
+        instance.delete();
+
+        validationData.close();
+    }
+    
+    /**
+     * Test of fit method, of class Kmeans, checking that the sizes of the 
+     * Mini-Batch clusters count the training records.
+     */
+    @Test
+    public void testFitMiniBatchClusterSizes() {
+        logger.info("testFitMiniBatchClusterSizes");
+
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.heartDiseaseClusters(configuration);
+        Dataframe trainingData = data[0];
+        data[1].close();
+        
+        MinMaxScaler.TrainingParameters nsParams = new MinMaxScaler.TrainingParameters();
+        MinMaxScaler numericalScaler = MLBuilder.create(nsParams, configuration);
+        numericalScaler.fit_transform(trainingData);
 
+        CornerConstraintsEncoder.TrainingParameters ceParams = new CornerConstraintsEncoder.TrainingParameters();
+        CornerConstraintsEncoder categoricalEncoder = MLBuilder.create(ceParams, configuration);
+        categoricalEncoder.fit_transform(trainingData);
+        
+        Kmeans.TrainingParameters param = new Kmeans.TrainingParameters();
+        param.setK(2);
+        param.setMaxIterations(50);
+        param.setBatchSize(20);
+        param.setInitializationMethod(Kmeans.TrainingParameters.Initialization.PARALLEL_PLUS_PLUS);
+        param.setDistanceMethod(Kmeans.TrainingParameters.Distance.EUCLIDIAN);
+        param.setWeighted(false);
+        param.setCategoricalGamaMultiplier(1.0);
+        param.setSubsetFurthestFirstcValue(2.0);
+
+        Kmeans instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        
+        int expResult = trainingData.size();
+        int result = 0;
+        for(Kmeans.Cluster cluster : instance.getClusters().values()) {
+            result += cluster.size();
+        }
+        assertEquals(expResult, result);
+
+        numericalScaler.close();
+        categoricalEncoder.close();
+        instance.close();
+
+        trainingData.close();
+    }
     
     /**
      * Test of validate method, of class Kmeans.
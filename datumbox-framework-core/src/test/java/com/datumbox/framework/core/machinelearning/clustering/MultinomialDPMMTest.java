@@ -81,6 +81,52 @@ public class MultinomialDPMMTest extends AbstractTest {
     }
 
     
+    /**
+     * Test of predict method, of class MultinomialDPMM, with the sharded sampler.
+     */
+    @Test
+    public void testPredictSharded() {
+        logger.info("testPredictSharded");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.multinomialClusters(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        
+        String storageName = this.getClass().getSimpleName() + "Sharded";
+        
+        MultinomialDPMM.TrainingParameters param = new MultinomialDPMM.TrainingParameters();
+        param.setAlpha(0.01);
+        param.setMaxIterations(100);
+        param.setInitializationMethod(MultinomialDPMM.TrainingParameters.Initialization.ONE_CLUSTER_PER_RECORD);
+        param.setSampler(MultinomialDPMM.TrainingParameters.Sampler.SHARDED_GIBBS);
+        param.setAlphaWords(1);
+
+        MultinomialDPMM instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        instance.save(storageName);
+        
+        instance.close();
+
+        instance = MLBuilder.load(MultinomialDPMM.class, storageName, configuration);
+
+        instance.predict(validationData);
+        ClusteringMetrics vm = new ClusteringMetrics(validationData);
+
+        double expResult = 1.0;
+        double result = vm.getPurity();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+        
+        instance.delete();
+        
+        trainingData.close();
+        validationData.close();
+    }
+
+    
     /**
      * Test of validate method, of class MultinomialDPMM.
      */
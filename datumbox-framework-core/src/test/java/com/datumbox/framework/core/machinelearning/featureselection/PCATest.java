@@ -93,4 +93,63 @@ public class PCATest extends AbstractTest {
         expResult.close();
     }
     
+    /**
+     * Test of selectFeatures method, of class PCA, with the RANDOMIZED solver.
+     */
+    @Test
+    public void testSelectFeaturesRandomized() {
+        logger.info("selectFeaturesRandomized");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.featureTransformationPCA(configuration);
+        
+        Dataframe originalData = data[0];
+        Dataframe validationData = data[0].copy();
+        Dataframe expResult = data[1];
+        
+        String storageName = this.getClass().getSimpleName() + "Randomized";
+        
+        PCA.TrainingParameters param = new PCA.TrainingParameters();
+        param.setMaxDimensions(2);
+        param.setSolver(PCA.TrainingParameters.Solver.RANDOMIZED);
+
+        PCA instance = MLBuilder.create(param, configuration);
+        instance.fit_transform(originalData);
+        instance.save(storageName);
+
+        originalData.close();
+        instance.close();
+
+        
+        instance = MLBuilder.load(PCA.class, storageName, configuration);
+        
+        instance.transform(validationData);
+        
+        assertEquals(validationData.size(), expResult.size());
+        
+        Iterator<Record> itResult = validationData.iterator();
+        Iterator<Record> itExpectedResult = expResult.iterator();
+        
+        
+        while(itResult.hasNext()) {
+            Record r1 = itResult.next();
+            Record r2 = itExpectedResult.next();
+            
+            assertEquals(2, r1.getX().size());
+            for(Map.Entry<Object, Object> entry : r1.getX().entrySet()) {
+                Object feature = entry.getKey();
+                Double value = TypeInference.toDouble(entry.getValue());
+                
+                //the signs of the components are arbitrary
+                assertEquals(Math.abs(TypeInference.toDouble(r2.getX().get(feature))), Math.abs(value), Constants.DOUBLE_ACCURACY_MEDIUM);
+            }
+        }
+        
+        instance.delete();
+
+        validationData.close();
+        expResult.close();
+    }
+    
 }
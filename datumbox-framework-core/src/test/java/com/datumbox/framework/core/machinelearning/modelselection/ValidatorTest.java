@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.machinelearning.modelselection;
+
+import com.datumbox.framework.common.Configuration;
+import com.datumbox.framework.core.Datasets;
+import com.datumbox.framework.core.common.dataobjects.Dataframe;
+import com.datumbox.framework.core.common.dataobjects.Record;
+import com.datumbox.framework.core.machinelearning.classification.MaximumEntropy;
+import com.datumbox.framework.core.machinelearning.common.abstracts.modelselection.AbstractSplitter.Split;
+import com.datumbox.framework.core.machinelearning.modelselection.metrics.ClassificationMetrics;
+import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test cases for Validator.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class ValidatorTest extends AbstractTest {
+    
+    /**
+     * Test of validate method, of class Validator, with parallel folds.
+     */
+    @Test
+    public void testValidateParallelFolds() {
+        logger.info("testValidateParallelFolds");
+        
+        Configuration configuration = getConfiguration();
+        
+        int k = 5;
+        
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+        Dataframe trainingData = data[0];
+        data[1].close();
+        
+        MaximumEntropy.TrainingParameters param = new MaximumEntropy.TrainingParameters();
+        param.setTotalIterations(10);
+        
+        Validator<ClassificationMetrics> validator = new Validator<>(ClassificationMetrics.class, configuration);
+        validator.setMaxParallelFolds(3);
+        ClassificationMetrics vm = validator.validate(new KFoldSplitter(k).split(trainingData), param);
+        
+        //the same result as the sequential execution of MaximumEntropyTest
+        double expResult = 0.6051098901098901;
+        double result = vm.getMacroF1();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+        
+        trainingData.close();
+    }
+    
+    /**
+     * Test of validate method, of class Validator, when the training of one of
+     * the parallel folds fails.
+     */
+    @Test
+    public void testValidateFailedFold() {
+        logger.info("testValidateFailedFold");
+        
+        Configuration configuration = getConfiguration();
+        
+        int k = 5;
+        
+        Dataframe[] data = Datasets.carsNumeric(configuration);
+        Dataframe trainingData = data[0];
+        data[1].close();
+        
+        //the folds are copied in Dataframes which count how many of them are closed
+        AtomicInteger closedFolds = new AtomicInteger(0);
+        List<Split> splits = new ArrayList<>();
+        Iterator<Split> it = new KFoldSplitter(k).split(trainingData);
+        while(it.hasNext()) {
+            Split s = it.next();
+            boolean failing = splits.size() == 2;
+            splits.add(new Split(
+                    new TrackedDataframe(s.getTrain(), configuration, closedFolds, failing), 
+                    new TrackedDataframe(s.getTest(), configuration, closedFolds, false)
+            ));
+            s.getTrain().close();
+            s.getTest().close();
+        }
+        
+        MaximumEntropy.TrainingParameters param = new MaximumEntropy.TrainingParameters();
+        param.setTotalIterations(10);
+        
+        Validator<ClassificationMetrics> validator = new Validator<>(ClassificationMetrics.class, configuration);
+        validator.setMaxParallelFolds(3);
+        try {
+            validator.validate(splits.iterator(), param);
+            fail("The failure of the fold was not propagated.");
+        }
+        catch(IllegalStateException ex) {
+            assertEquals(TrackedDataframe.FAILURE_MESSAGE, ex.getMessage());
+        }
+        
+        assertEquals(2*k, closedFolds.get());
+        
+        trainingData.close();
+    }
+    
+    /**
+     * Dataframe which counts how many times it is closed and which can fail 
+     * when its Records are read.
+     */
+    private static class TrackedDataframe extends Dataframe {
+        
+        private static final String FAILURE_MESSAGE = "The fold failed.";
+        
+        private final AtomicInteger closedCounter;
+        
+        private final boolean failing;
+        
+        private TrackedDataframe(Dataframe original, Configuration configuration, AtomicInteger closedCounter, boolean failing) {
+            super(configuration);
+            for(Map.Entry<Integer, Record> e : original.entries()) {
+                set(e.getKey(), e.getValue());
+            }
+            this.closedCounter = closedCounter;
+            this.failing = failing;
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public Stream<Record> stream() {
+            assertNotFailing();
+            return super.stream();
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public Iterable<Map.Entry<Integer, Record>> entries() {
+            assertNotFailing();
+            return super.entries();
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public Iterable<Record> values() {
+            assertNotFailing();
+            return super.values();
+        }
+        
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            super.close();
+            closedCounter.incrementAndGet();
+        }
+        
+        private void assertNotFailing() {
+            if(failing) {
+                throw new IllegalStateException(FAILURE_MESSAGE);
+            }
+        }
+    }
+    
+}
@@ -95,6 +95,66 @@ public class CollaborativeFilteringTest extends AbstractTest {
         trainingData.close();
         validationData.close();
     }
+    
+    /**
+     * Test of predict method, of class CollaborativeFiltering, with a limited
+     * number of neighbours.
+     */
+    @Test
+    public void testPredictWithMaxNeighbours() {
+        logger.info("testPredictWithMaxNeighbours");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.recommenderSystemFood(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+        
+        
+        String storageName = this.getClass().getSimpleName() + "MaxNeighbours";
+        
+        CollaborativeFiltering.TrainingParameters param = new CollaborativeFiltering.TrainingParameters();
+        param.setSimilarityMethod(CollaborativeFiltering.TrainingParameters.SimilarityMeasure.PEARSONS_CORRELATION);
+        param.setMaxNeighbours(4);
+        param.setSimilarityThreshold(0.5);
+
+        CollaborativeFiltering instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        instance.save(storageName);
+        
+        instance.close();
+
+        instance = MLBuilder.load(CollaborativeFiltering.class, storageName, configuration);
+
+        instance.predict(validationData);
+        RecommendationMetrics vm = new RecommendationMetrics(validationData);
+        
+        Map<Object, Double> expResult = new HashMap<>();
+        expResult.put("potato", 5.0);
+        expResult.put("beer", 5.0);
+        expResult.put("pizza", 4.722642061216245);
+        expResult.put("pitta", 4.717705393420382);
+        expResult.put("burger", 4.5);
+        expResult.put("chocolate", 4.5);
+        expResult.put("tea", 0.5);
+        expResult.put("salad", 0.5);
+        expResult.put("rise", 0.5);
+        expResult.put("risecookie", 0.5);
+        
+        AssociativeArray result = validationData.iterator().next().getYPredictedProbabilities();
+        assertEquals(expResult.size(), result.size());
+        for(Map.Entry<Object, Object> entry : result.entrySet()) {
+            assertEquals(expResult.get(entry.getKey()), TypeInference.toDouble(entry.getValue()), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        
+        assertEquals(vm.getRMSE(), 0.12854245397613218, Constants.DOUBLE_ACCURACY_HIGH);
+        
+        instance.delete();
+        
+        trainingData.close();
+        validationData.close();
+    }
 
     
 }
@@ -20,6 +20,7 @@ import com.datumbox.framework.core.common.dataobjects.Dataframe;
 import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
+import com.datumbox.framework.core.machinelearning.common.interfaces.PredictParallelizable.Prediction;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.LinearRegressionMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
@@ -30,6 +31,8 @@ import com.datumbox.framework.core.Datasets;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
+import java.util.Iterator;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -93,6 +96,36 @@ public class MatrixLinearRegressionTest extends AbstractTest {
     }
 
 
+    /**
+     * Test of predict method with an Iterator of x values, of class MatrixLinearRegression.
+     */
+    @Test
+    public void testPredictIterator() {
+        logger.info("testPredictIterator");
+
+        Configuration configuration = getConfiguration();
+
+        Dataframe[] data = Datasets.regressionNumeric(configuration);
+
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        MatrixLinearRegression instance = MLBuilder.create(new MatrixLinearRegression.TrainingParameters(), configuration);
+        instance.fit(trainingData);
+
+        Iterator<Prediction> it = instance.predict(validationData.stream().map(Record::getX).iterator(), 3);
+        for(Record r : validationData) {
+            assertEquals(TypeInference.toDouble(r.getY()), TypeInference.toDouble(it.next().getYPredicted()), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        assertEquals(false, it.hasNext());
+
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
+
     /**
      * Test of validate method, of class MatrixLinearRegression.
      */
@@ -130,6 +163,13 @@ public class MatrixLinearRegressionTest extends AbstractTest {
         double result = vm.getRSquare();
         assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
 
+        //the folds are executed concurrently
+        Validator<LinearRegressionMetrics> parallelValidator = new Validator<>(LinearRegressionMetrics.class, configuration);
+        parallelValidator.setMaxParallelFolds(k);
+        LinearRegressionMetrics parallelVm = parallelValidator.validate(new KFoldSplitter(k).split(trainingData), param);
+
+        assertEquals(expResult, parallelVm.getRSquare(), Constants.DOUBLE_ACCURACY_HIGH);
+
         numericalScaler.close();
         categoricalEncoder.close();
         
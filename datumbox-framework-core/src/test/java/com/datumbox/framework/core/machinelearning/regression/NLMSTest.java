@@ -21,6 +21,7 @@ import com.datumbox.framework.core.common.dataobjects.Record;
 import com.datumbox.framework.common.dataobjects.TypeInference;
 import com.datumbox.framework.core.machinelearning.MLBuilder;
 import com.datumbox.framework.core.machinelearning.featureselection.PCA;
+import com.datumbox.framework.core.mathematics.optimization.LearningRateSchedule;
 import com.datumbox.framework.core.machinelearning.modelselection.metrics.LinearRegressionMetrics;
 import com.datumbox.framework.core.machinelearning.modelselection.Validator;
 import com.datumbox.framework.core.machinelearning.modelselection.splitters.KFoldSplitter;
@@ -109,6 +110,45 @@ public class NLMSTest extends AbstractTest {
     }
 
 
+    /**
+     * Test of fit method with mini-batches, of class NLMS.
+     */
+    @Test
+    public void testMiniBatch() {
+        logger.info("testMiniBatch");
+        
+        Configuration configuration = getConfiguration();
+        
+        Dataframe[] data = Datasets.regressionNumeric(configuration);
+        
+        Dataframe trainingData = data[0];
+        Dataframe validationData = data[1];
+
+        StandardScaler numericalScaler = MLBuilder.create(new StandardScaler.TrainingParameters(), configuration);
+        numericalScaler.fit_transform(trainingData);
+        numericalScaler.transform(validationData);
+        
+        NLMS.TrainingParameters param = new NLMS.TrainingParameters();
+        param.setTotalIterations(200);
+        param.setBatchSize(5);
+        param.setLearningRateSchedule(LearningRateSchedule.INVERSE_SCALING);
+        param.setLearningRateDecay(0.0001);
+
+        NLMS instance = MLBuilder.create(param, configuration);
+        instance.fit(trainingData);
+        instance.predict(validationData);
+
+        for(Record r : validationData) {
+            assertEquals(TypeInference.toDouble(r.getY()), TypeInference.toDouble(r.getYPredicted()), Constants.DOUBLE_ACCURACY_HIGH);
+        }
+
+        numericalScaler.close();
+        instance.close();
+
+        trainingData.close();
+        validationData.close();
+    }
+
     /**
      * Test of validate method, of class NLMS.
      */
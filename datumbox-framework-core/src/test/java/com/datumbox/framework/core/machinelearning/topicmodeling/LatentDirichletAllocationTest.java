@@ -100,5 +100,128 @@ public class LatentDirichletAllocationTest extends AbstractTest {
         trainingData.close();
     }
 
+    /**
+     * Test of predict method, of class LatentDirichletAllocation, using the sparse sampler.
+     */
+    @Test
+    public void testPredictSparse() {
+        logger.info("testPredictSparse");
+        
+        Configuration configuration = getConfiguration();
+        
+        
+        String storageName = this.getClass().getSimpleName() + "Sparse";
+
+
+        Map<Object, URI> dataset = Datasets.sentimentAnalysis();
+        
+        UniqueWordSequenceExtractor wsExtractor = new UniqueWordSequenceExtractor(new UniqueWordSequenceExtractor.Parameters());
+        
+        Dataframe trainingData = Dataframe.Builder.parseTextFiles(dataset, wsExtractor, configuration);
+
+
+        LatentDirichletAllocation.TrainingParameters trainingParameters = new LatentDirichletAllocation.TrainingParameters();
+        trainingParameters.setMaxIterations(15);
+        trainingParameters.setAlpha(0.01);
+        trainingParameters.setBeta(0.01);
+        trainingParameters.setK(25);
+        trainingParameters.setSampler(LatentDirichletAllocation.TrainingParameters.Sampler.SPARSE);
+
+        LatentDirichletAllocation lda = MLBuilder.create(trainingParameters, configuration);
+        
+        lda.fit(trainingData);
+        lda.save(storageName);
+
+        lda.close();
+        lda = MLBuilder.load(LatentDirichletAllocation.class, storageName, configuration);
+
+        lda.predict(trainingData);
+        
+        Dataframe reducedTrainingData = new Dataframe(configuration);
+        for(Record r : trainingData) {
+            //take the topic assignments and convert them into a new Record
+            reducedTrainingData.add(new Record(r.getYPredictedProbabilities(), r.getY()));
+        }
+
+        SoftMaxRegression.TrainingParameters tp = new SoftMaxRegression.TrainingParameters();
+        tp.setLearningRate(1.0);
+        tp.setTotalIterations(50);
+
+        ClassificationMetrics vm = new Validator<>(ClassificationMetrics.class, configuration)
+                .validate(new KFoldSplitter(1).split(reducedTrainingData), tp);
+        
+        double expResult = 0.6861538461538461;
+        double result = vm.getMacroF1();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+
+        lda.delete();
+        reducedTrainingData.close();
+        
+        trainingData.close();
+    }
+
+    /**
+     * Test of predict method, of class LatentDirichletAllocation, using the parallel sparse sampler.
+     */
+    @Test
+    public void testPredictSparseParallel() {
+        logger.info("testPredictSparseParallel");
+        
+        Configuration configuration = getConfiguration();
+        configuration.getConcurrencyConfiguration().setParallelized(true);
+        configuration.getConcurrencyConfiguration().setMaxNumberOfThreadsPerTask(2);
+        
+        
+        String storageName = this.getClass().getSimpleName() + "SparseParallel";
+
+
+        Map<Object, URI> dataset = Datasets.sentimentAnalysis();
+        
+        UniqueWordSequenceExtractor wsExtractor = new UniqueWordSequenceExtractor(new UniqueWordSequenceExtractor.Parameters());
+        
+        Dataframe trainingData = Dataframe.Builder.parseTextFiles(dataset, wsExtractor, configuration);
+
+
+        LatentDirichletAllocation.TrainingParameters trainingParameters = new LatentDirichletAllocation.TrainingParameters();
+        trainingParameters.setMaxIterations(15);
+        trainingParameters.setAlpha(0.01);
+        trainingParameters.setBeta(0.01);
+        trainingParameters.setK(25);
+        trainingParameters.setSampler(LatentDirichletAllocation.TrainingParameters.Sampler.SPARSE);
+
+        LatentDirichletAllocation lda = MLBuilder.create(trainingParameters, configuration);
+        lda.setParallelized(true);
+        
+        lda.fit(trainingData);
+        lda.save(storageName);
+
+        lda.close();
+        lda = MLBuilder.load(LatentDirichletAllocation.class, storageName, configuration);
+
+        lda.predict(trainingData);
+        
+        Dataframe reducedTrainingData = new Dataframe(configuration);
+        for(Record r : trainingData) {
+            //take the topic assignments and convert them into a new Record
+            reducedTrainingData.add(new Record(r.getYPredictedProbabilities(), r.getY()));
+        }
+
+        SoftMaxRegression.TrainingParameters tp = new SoftMaxRegression.TrainingParameters();
+        tp.setLearningRate(1.0);
+        tp.setTotalIterations(50);
+
+        ClassificationMetrics vm = new Validator<>(ClassificationMetrics.class, configuration)
+                .validate(new KFoldSplitter(1).split(reducedTrainingData), tp);
+        
+        double expResult = 0.7076531848836807;
+        double result = vm.getMacroF1();
+        assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
+
+        lda.delete();
+        reducedTrainingData.close();
+        
+        trainingData.close();
+    }
+
     
 }
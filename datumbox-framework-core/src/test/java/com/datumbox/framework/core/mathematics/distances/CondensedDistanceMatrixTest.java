@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.distances;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for CondensedDistanceMatrix.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CondensedDistanceMatrixTest extends AbstractTest {
+    
+    /**
+     * Test of get and set methods, of class CondensedDistanceMatrix.
+     */
+    @Test
+    public void testGetSet() {
+        logger.info("testGetSet");
+        
+        for(boolean memoryMapped : new boolean[]{false, true}) {
+            int n = 50;
+            try(CondensedDistanceMatrix instance = new CondensedDistanceMatrix(n, memoryMapped)) {
+                assertEquals(n, instance.size());
+                
+                for(int i=0;i<n;i++) {
+                    for(int j=i+1;j<n;j++) {
+                        instance.set(j, i, i*n+j);
+                    }
+                }
+                
+                for(int i=0;i<n;i++) {
+                    for(int j=0;j<n;j++) {
+                        if(i!=j) {
+                            double expResult = Math.min(i, j)*n+Math.max(i, j);
+                            assertEquals(expResult, instance.get(i, j), Constants.DOUBLE_ACCURACY_HIGH);
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Test of get method, of class CondensedDistanceMatrix, for the diagonal.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDiagonal() {
+        logger.info("testGetDiagonal");
+        
+        try(CondensedDistanceMatrix instance = new CondensedDistanceMatrix(3, false)) {
+            instance.get(1, 1);
+        }
+    }
+    
+}
@@ -16,6 +16,7 @@
 package com.datumbox.framework.core.mathematics.distances;
 
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
+import com.datumbox.framework.common.dataobjects.NumericMap;
 import com.datumbox.framework.tests.Constants;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Assert;
@@ -132,5 +133,35 @@ public class DistanceTest extends AbstractTest {
         double result = Distance.maximum(a1, a2);
         assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
     }
+
+    /**
+     * Test of the distances of Associative Arrays backed by NumericMaps, of class Distance.
+     */
+    @Test
+    public void testNumericMaps() {
+        logger.info("numericMaps");
+        Map<Object, Object> map1 = new HashMap<>();
+        map1.put(0, 1.0);
+        map1.put(2, 1.0);
+        map1.put(3, 7.0);
+        map1.put(5, -2.0);
+
+        Map<Object, Object> map2 = new HashMap<>();
+        map2.put(0, 3.0);
+        map2.put(3, 3.0);
+        map2.put(4, 2.5);
+
+        AssociativeArray a1 = new AssociativeArray(map1);
+        AssociativeArray a2 = new AssociativeArray(map2);
+        AssociativeArray n1 = new AssociativeArray(new NumericMap(map1));
+        AssociativeArray n2 = new AssociativeArray(new NumericMap(map2));
+        Map<Object, Double> columnWeights = getWeights();
+
+        assertEquals(Distance.euclidean(a1, a2), Distance.euclidean(n1, n2), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(Distance.euclideanWeighted(a1, a2, columnWeights), Distance.euclideanWeighted(n1, n2, columnWeights), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(Distance.manhattan(a1, a2), Distance.manhattan(n1, n2), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(Distance.manhattanWeighted(a1, a2, columnWeights), Distance.manhattanWeighted(n1, n2, columnWeights), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(Distance.maximum(a1, a2), Distance.maximum(n1, n2), Constants.DOUBLE_ACCURACY_HIGH);
+    }
     
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.linearalgebra;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for CrossProductAccumulator.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class CrossProductAccumulatorTest extends AbstractTest {
+    
+    private final double[][] data = {
+        {1.0, 2.0, 3.0},
+        {0.0, 5.0, 6.0},
+        {7.0, 8.0, 0.0},
+        {10.0, 0.0, 12.0},
+        {13.0, 14.0, 15.0}
+    };
+    
+    /**
+     * Test of getCovariance method, of class CrossProductAccumulator.
+     */
+    @Test
+    public void testGetCovariance() {
+        logger.info("testGetCovariance");
+        
+        CrossProductAccumulator instance = new CrossProductAccumulator(3, true);
+        for(double[] row : data) {
+            instance.add(new int[]{0, 1, 2}, row, 3);
+        }
+        
+        double[][] expResult = {
+            {31.7, 15.05, 23.7},
+            {15.05, 30.2, 9.3},
+            {23.7, 9.3, 38.7}
+        };
+        double[][] result = instance.getCovariance();
+        for(int i=0;i<3;i++) {
+            assertArrayEquals(expResult[i], result[i], Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        assertArrayEquals(new double[]{31.7, 30.2, 38.7}, instance.getVariances(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(new double[]{6.2, 5.8, 7.2}, instance.getMeans(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+    /**
+     * Test of merge method, of class CrossProductAccumulator.
+     */
+    @Test
+    public void testMerge() {
+        logger.info("testMerge");
+        
+        CrossProductAccumulator expResult = new CrossProductAccumulator(3, true);
+        CrossProductAccumulator instance = new CrossProductAccumulator(3, true);
+        CrossProductAccumulator other = new CrossProductAccumulator(3, true);
+        for(int i=0;i<data.length;i++) {
+            expResult.add(new int[]{0, 1, 2}, data[i], 3);
+            if(i%2==0) {
+                instance.add(new int[]{0, 1, 2}, data[i], 3);
+            }
+            else {
+                other.add(new int[]{0, 1, 2}, data[i], 3);
+            }
+        }
+        instance.merge(other);
+        
+        assertEquals(expResult.getCount(), instance.getCount());
+        assertArrayEquals(expResult.getSums(), instance.getSums(), Constants.DOUBLE_ACCURACY_HIGH);
+        double[][] expCrossProducts = expResult.getCrossProducts();
+        double[][] crossProducts = instance.getCrossProducts();
+        for(int i=0;i<3;i++) {
+            assertArrayEquals(expCrossProducts[i], crossProducts[i], Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+    
+    /**
+     * Test of getCovariance method, of class CrossProductAccumulator, on data with
+     * a large offset which are accumulated by multiple merged accumulators.
+     */
+    @Test
+    public void testGetCovarianceLargeOffset() {
+        logger.info("testGetCovarianceLargeOffset");
+        
+        double offset = 1e9;
+        CrossProductAccumulator instance = new CrossProductAccumulator(3, true);
+        CrossProductAccumulator other = new CrossProductAccumulator(3, true);
+        for(int i=0;i<data.length;i++) {
+            double[] row = new double[3];
+            for(int j=0;j<3;j++) {
+                row[j] = data[i][j] + offset;
+            }
+            if(i<2) {
+                instance.add(new int[]{0, 1, 2}, row, 3);
+            }
+            else {
+                other.add(new int[]{0, 1, 2}, row, 3);
+            }
+        }
+        instance.merge(other);
+        
+        double[][] expResult = {
+            {31.7, 15.05, 23.7},
+            {15.05, 30.2, 9.3},
+            {23.7, 9.3, 38.7}
+        };
+        double[][] result = instance.getCovariance();
+        for(int i=0;i<3;i++) {
+            assertArrayEquals(expResult[i], result[i], Constants.DOUBLE_ACCURACY_HIGH);
+        }
+        assertArrayEquals(new double[]{31.7, 30.2, 38.7}, instance.getVariances(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(new double[]{offset+6.2, offset+5.8, offset+7.2}, instance.getMeans(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+    /**
+     * Test of add method, of class CrossProductAccumulator, with sparse vectors.
+     */
+    @Test
+    public void testAddSparse() {
+        logger.info("testAddSparse");
+        
+        CrossProductAccumulator expResult = new CrossProductAccumulator(3, true);
+        CrossProductAccumulator instance = new CrossProductAccumulator(3, true);
+        for(double[] row : data) {
+            expResult.add(new int[]{0, 1, 2}, row, 3);
+            
+            int[] indices = new int[3];
+            double[] values = new double[3];
+            int length = 0;
+            for(int j=2;j>=0;j--) {
+                if(row[j]!=0.0) {
+                    indices[length] = j;
+                    values[length++] = row[j];
+                }
+            }
+            instance.add(indices, values, length);
+        }
+        
+        assertArrayEquals(expResult.getSums(), instance.getSums(), Constants.DOUBLE_ACCURACY_HIGH);
+        double[][] expCovariance = expResult.getCovariance();
+        double[][] covariance = instance.getCovariance();
+        double[][] expCrossProducts = expResult.getCrossProducts();
+        double[][] crossProducts = instance.getCrossProducts();
+        for(int i=0;i<3;i++) {
+            assertArrayEquals(expCovariance[i], covariance[i], Constants.DOUBLE_ACCURACY_HIGH);
+            assertArrayEquals(expCrossProducts[i], crossProducts[i], Constants.DOUBLE_ACCURACY_HIGH);
+        }
+    }
+    
+}
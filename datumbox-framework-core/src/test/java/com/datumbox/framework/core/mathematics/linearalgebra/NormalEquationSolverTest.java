@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.linearalgebra;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for NormalEquationSolver.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class NormalEquationSolverTest extends AbstractTest {
+    
+    //the first column is the constant and the last column is the y
+    private final double[][] data = {
+        {1.0, 1.0, 2.0, 3.0, 10.0},
+        {1.0, 0.0, 5.0, 6.0, 21.0},
+        {1.0, 7.0, 8.0, 0.0, 20.0},
+        {1.0, 10.0, 0.0, 12.0, 33.0},
+        {1.0, 13.0, 14.0, 15.0, 59.5},
+        {1.0, 4.0, 9.0, 1.0, 18.0},
+        {1.0, 2.0, 3.0, 8.0, 24.0}
+    };
+    
+    /**
+     * Builds the solver from the selected columns of the data.
+     * 
+     * @param columns
+     * @return 
+     */
+    private NormalEquationSolver buildSolver(int[] columns) {
+        int d = columns.length;
+        int yColumn = data[0].length-1;
+        double[][] XtX = new double[d][d];
+        double[] Xty = new double[d];
+        double yty = 0.0;
+        for(double[] row : data) {
+            for(int i=0;i<d;i++) {
+                for(int j=0;j<d;j++) {
+                    XtX[i][j] += row[columns[i]]*row[columns[j]];
+                }
+                Xty[i] += row[columns[i]]*row[yColumn];
+            }
+            yty += row[yColumn]*row[yColumn];
+        }
+        return new NormalEquationSolver(XtX, Xty, yty, data.length);
+    }
+    
+    /**
+     * Test of getCoefficients method, of class NormalEquationSolver.
+     */
+    @Test
+    public void testGetCoefficients() {
+        logger.info("testGetCoefficients");
+        
+        NormalEquationSolver instance = buildSolver(new int[]{0, 1, 2, 3});
+        
+        //verify that X'(y - X*b) = 0
+        double[] b = instance.getCoefficients();
+        double SSE = 0.0;
+        double[] gradient = new double[b.length];
+        for(double[] row : data) {
+            double error = row[4];
+            for(int i=0;i<b.length;i++) {
+                error -= b[i]*row[i];
+            }
+            for(int i=0;i<b.length;i++) {
+                gradient[i] += row[i]*error;
+            }
+            SSE += error*error;
+        }
+        assertArrayEquals(new double[b.length], gradient, Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(SSE, instance.getSSE(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+    /**
+     * Test of removeColumn method, of class NormalEquationSolver.
+     */
+    @Test
+    public void testRemoveColumn() {
+        logger.info("testRemoveColumn");
+        
+        NormalEquationSolver instance = buildSolver(new int[]{0, 1, 2, 3});
+        instance.removeColumn(2);
+        NormalEquationSolver expResult = buildSolver(new int[]{0, 1, 3});
+        
+        assertArrayEquals(new int[]{0, 1, 3}, instance.getColumns());
+        assertArrayEquals(expResult.getCoefficients(), instance.getCoefficients(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(expResult.getInverseDiagonal(), instance.getInverseDiagonal(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getSSE(), instance.getSSE(), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        instance.removeColumn(0);
+        expResult = buildSolver(new int[]{1, 3});
+        
+        assertArrayEquals(new int[]{1, 3}, instance.getColumns());
+        assertArrayEquals(expResult.getCoefficients(), instance.getCoefficients(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(expResult.getInverseDiagonal(), instance.getInverseDiagonal(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.mathematics.optimization;
+
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for LBFGS.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class LBFGSTest extends AbstractTest {
+    
+    /**
+     * Test of minimize method, of class LBFGS, on a quadratic function.
+     */
+    @Test
+    public void testMinimizeQuadratic() {
+        logger.info("testMinimizeQuadratic");
+        
+        LBFGS.DifferentiableFunction function = (point, gradient) -> {
+            gradient[0] = 2.0*(point[0]-1.0);
+            gradient[1] = 20.0*(point[1]+2.0);
+            return (point[0]-1.0)*(point[0]-1.0) + 10.0*(point[1]+2.0)*(point[1]+2.0);
+        };
+        
+        double[] point = {3.0, -4.0};
+        int iterations = new LBFGS(5, 100, 1e-12).minimize(function, point);
+        
+        assertArrayEquals(new double[]{1.0, -2.0}, point, Constants.DOUBLE_ACCURACY_HIGH);
+        assertTrue(iterations < 20);
+    }
+    
+    /**
+     * Test of minimize method, of class LBFGS, on the Rosenbrock function.
+     */
+    @Test
+    public void testMinimizeRosenbrock() {
+        logger.info("testMinimizeRosenbrock");
+        
+        LBFGS.DifferentiableFunction function = (point, gradient) -> {
+            Arrays.fill(gradient, 0.0);
+            double value = 0.0;
+            for(int i=0;i<point.length-1;i++) {
+                double t1 = point[i+1] - point[i]*point[i];
+                double t2 = 1.0 - point[i];
+                value += 100.0*t1*t1 + t2*t2;
+                gradient[i] += -400.0*point[i]*t1 - 2.0*t2;
+                gradient[i+1] += 200.0*t1;
+            }
+            return value;
+        };
+        
+        double[] point = new double[10];
+        Arrays.fill(point, -1.2);
+        new LBFGS(10, 1000, 1e-12).minimize(function, point);
+        
+        double[] expResult = new double[10];
+        Arrays.fill(expResult, 1.0);
+        assertArrayEquals(expResult, point, Constants.DOUBLE_ACCURACY_MEDIUM);
+    }
+    
+}
@@ -26,6 +26,8 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -105,6 +107,34 @@ public class DescriptivesTest extends AbstractTest {
         assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
     }
 
+    /**
+     * Test of median method, of class Descriptives, on large samples with few
+     * distinct values.
+     */
+    @Test(timeout = 10000)
+    public void testMedianTies() {
+        logger.info("medianTies");
+        int n = 1000001;
+        
+        //all the values are equal
+        List<Object> values = new ArrayList<>(Collections.nCopies(n, 7.0));
+        assertEquals(7.0, Descriptives.median(new FlatDataCollection(values)), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        //binary flags with a majority of ones
+        values = new ArrayList<>(n);
+        for(int i=0;i<n;i++) {
+            values.add((i%5<3)?1.0:0.0);
+        }
+        assertEquals(1.0, Descriptives.median(new FlatDataCollection(values)), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        //binary flags with as many zeros as ones
+        values.remove(n-1);
+        for(int i=0;i<values.size();i++) {
+            values.set(i, (i%2==0)?1.0:0.0);
+        }
+        assertEquals(0.5, Descriptives.median(new FlatDataCollection(values)), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+
     /**
      * Test of min method, of class Descriptives.
      */
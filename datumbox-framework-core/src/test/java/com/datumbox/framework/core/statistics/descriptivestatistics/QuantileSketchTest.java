@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.descriptivestatistics;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for QuantileSketch.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class QuantileSketchTest extends AbstractTest {
+
+    /**
+     * Test of getQuantile method, of class QuantileSketch.
+     */
+    @Test
+    public void testGetQuantile() {
+        logger.info("getQuantile");
+        
+        int n = 100000;
+        Random random = RandomGenerator.getThreadLocalRandom();
+        QuantileSketch instance = new QuantileSketch();
+        for(int i=0;i<n;i++) {
+            instance.add(random.nextDouble());
+        }
+        
+        assertEquals(n, instance.getCount());
+        assertTrue(instance.getRetained()<n/10);
+        
+        //the values are uniform, so the quantile is equal to its probability
+        for(double p=0.1;p<1.0;p+=0.1) {
+            assertEquals(p, instance.getQuantile(p), 0.02);
+        }
+        assertEquals(instance.getMin(), instance.getQuantile(0.0), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(instance.getMax(), instance.getQuantile(1.0), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+
+    /**
+     * Test of merge method, of class QuantileSketch.
+     */
+    @Test
+    public void testMerge() {
+        logger.info("merge");
+        
+        int n = 100000;
+        QuantileSketch instance = new QuantileSketch();
+        QuantileSketch other = new QuantileSketch();
+        for(int i=0;i<n;i++) {
+            if(i%2==0) {
+                instance.add(i);
+            }
+            else {
+                other.add(i);
+            }
+        }
+        instance.merge(other);
+        
+        assertEquals(n, instance.getCount());
+        assertEquals(n/2.0, instance.getMedian(), 0.02*n);
+        assertEquals(0.0, instance.getMin(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(n-1.0, instance.getMax(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+}
@@ -17,12 +17,14 @@ package com.datumbox.framework.core.statistics.descriptivestatistics;
 
 import com.datumbox.framework.common.dataobjects.AssociativeArray;
 import com.datumbox.framework.common.dataobjects.FlatDataList;
+import com.datumbox.framework.tests.Constants;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
 import java.util.Arrays;
 import java.util.HashMap;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -46,5 +48,21 @@ public class RanksTest extends AbstractTest {
         assertEquals(expResult, flatDataCollection);
         assertEquals(expResult2, tiesCounter);
     }
+
+    /**
+     * Test of getRanks method, of class Ranks.
+     */
+    @Test
+    public void testGetRanks() {
+        logger.info("getRanks");
+        double[] values = {50.0, 10.0, 30.0, 10.0, 40.0, 30.0, 10.0};
+        double[] expResult = {7.0, 2.0, 4.5, 2.0, 6.0, 4.5, 2.0};
+        double expResult2 = (3.0*3.0-1.0)*3.0 + (2.0*2.0-1.0)*2.0;
+        double[] ranks = new double[values.length];
+        double tieCorrection = Ranks.getRanks(values, ranks);
+        assertArrayEquals(expResult, ranks, Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult2, tieCorrection, Constants.DOUBLE_ACCURACY_HIGH);
+        assertArrayEquals(new double[]{50.0, 10.0, 30.0, 10.0, 40.0, 30.0, 10.0}, values, 0.0);
+    }
     
 }
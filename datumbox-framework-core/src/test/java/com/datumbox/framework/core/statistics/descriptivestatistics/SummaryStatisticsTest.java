@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.descriptivestatistics;
+
+import com.datumbox.framework.common.dataobjects.FlatDataCollection;
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for SummaryStatistics.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class SummaryStatisticsTest extends AbstractTest {
+
+    private final Object[] values = { -12.76, 9.07, 3.11, 0.99, -36.40, -34.18, 2.07, 50.85, 5.34, 2.08, 1.49, -19.01, 45.68, -11.80, -1.19, -34.63, -28.10,
+            35.33, 28.38, 24.60, 10.36, -12.01, 47.92, 3.34, 9.63, 44.09, 4.65, 2.04, 27.39, -14.52, 9.91, 36.45, -24.62, 2.99, -9.49, 2.14, -18.48, 38.69, 43.87, -20.56, null };
+    
+    /**
+     * Test of addAll method, of class SummaryStatistics.
+     */
+    @Test
+    public void testAddAll() {
+        logger.info("addAll");
+        
+        SummaryStatistics instance = new SummaryStatistics(true);
+        instance.addAll(new FlatDataCollection(new ArrayList<>(Arrays.asList(values))));
+        
+        assertEquals(40, instance.getCount());
+        assertEquals(214.71, instance.getSum(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(5.36775, instance.getMean(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(3.8698920757412, instance.getMeanSE(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(-36.4, instance.getMin(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(50.85, instance.getMax(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(9.7666088743776, instance.getHarmonicMean(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(599.04258711538, instance.getVariance(true), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(24.475346516758, instance.getStd(true), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(3484.6106601128, instance.getMoment(3), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(-0.74454696650836, instance.getKurtosis(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(0.24686572127408, instance.getSkewness(), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        //the sketch is exact when no compaction takes place
+        assertEquals(2.14, instance.getMedian(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(24.6, instance.getQuantile(0.75), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+
+    /**
+     * Test of merge method, of class SummaryStatistics.
+     */
+    @Test
+    public void testMerge() {
+        logger.info("merge");
+        
+        SummaryStatistics expResult = new SummaryStatistics(true);
+        SummaryStatistics instance = new SummaryStatistics(true);
+        SummaryStatistics other = new SummaryStatistics(true);
+        for(int i=0;i<values.length;i++) {
+            if(values[i]==null) {
+                continue;
+            }
+            double value = (Double)values[i];
+            expResult.add(value);
+            if(i%3==0) {
+                instance.add(value);
+            }
+            else {
+                other.add(value);
+            }
+        }
+        instance.merge(other);
+        
+        assertEquals(expResult.getCount(), instance.getCount());
+        assertEquals(expResult.getMean(), instance.getMean(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getVariance(false), instance.getVariance(false), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getMoment(3), instance.getMoment(3), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getMoment(4), instance.getMoment(4), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getMin(), instance.getMin(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getMax(), instance.getMax(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(expResult.getMedian(), instance.getMedian(), Constants.DOUBLE_ACCURACY_HIGH);
+    }
+    
+}
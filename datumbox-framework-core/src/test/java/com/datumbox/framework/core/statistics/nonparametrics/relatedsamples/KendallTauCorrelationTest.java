@@ -17,10 +17,16 @@ package com.datumbox.framework.core.statistics.nonparametrics.relatedsamples;
 
 import com.datumbox.framework.common.dataobjects.FlatDataList;
 import com.datumbox.framework.common.dataobjects.TransposeDataList;
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.core.statistics.distributions.ContinuousDistributions;
+import com.datumbox.framework.tests.Constants;
 import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -50,4 +56,85 @@ public class KendallTauCorrelationTest extends AbstractTest {
         assertEquals(expResult, result);
     }
     
+    /**
+     * Test of calculateCorrelation method, of class KendallTauCorrelation, on 
+     * samples with many ties, against the pairwise comparison of all pairs.
+     */
+    @Test
+    public void testCalculateCorrelationTies() {
+        logger.info("calculateCorrelationTies");
+        Random random = RandomGenerator.getThreadLocalRandom();
+        
+        double[] aLevels = {0.001, 0.01, 0.05, 0.1, 0.5};
+        int[] sizes = {2, 3, 10, 57, 200};
+        int[] distinctValues = {1, 2, 3, 10};
+        for(int n : sizes) {
+            for(int kx : distinctValues) {
+                for(int ky : distinctValues) {
+                    List<Object> x = new ArrayList<>(n);
+                    List<Object> y = new ArrayList<>(n);
+                    for(int i=0;i<n;i++) {
+                        int xi = random.nextInt(kx);
+                        x.add(xi);
+                        y.add((random.nextBoolean())?xi%ky:random.nextInt(ky)); //correlated with x
+                    }
+                    TransposeDataList transposeDataList = new TransposeDataList();
+                    transposeDataList.put(0, new FlatDataList(x));
+                    transposeDataList.put(1, new FlatDataList(y));
+                    
+                    double expTau = pairwiseCorrelation(transposeDataList);
+                    double tau = KendallTauCorrelation.calculateCorrelation(transposeDataList);
+                    assertEquals(expTau, tau, Constants.DOUBLE_ACCURACY_HIGH);
+                    
+                    if(n>=10) {
+                        assertEquals(zScore(expTau, n), zScore(tau, n), Constants.DOUBLE_ACCURACY_HIGH);
+                        double pvalue = ContinuousDistributions.gaussCdf(zScore(expTau, n));
+                        for(double aLevel : aLevels) {
+                            boolean expResult = pvalue<=aLevel/2 || pvalue>=1-aLevel/2;
+                            assertEquals(expResult, KendallTauCorrelation.test(transposeDataList, true, aLevel));
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Estimates the correlation by comparing all the pairs.
+     * 
+     * @param transposeDataList
+     * @return 
+     */
+    private double pairwiseCorrelation(TransposeDataList transposeDataList) {
+        FlatDataList x = transposeDataList.get(0);
+        FlatDataList y = transposeDataList.get(1);
+        int n = x.size();
+        
+        long concordant = 0;
+        long discordant = 0;
+        for(int i=0;i<n;i++) {
+            for(int j=i+1;j<n;j++) {
+                double sign = (x.getDouble(i)-x.getDouble(j))*(y.getDouble(i)-y.getDouble(j));
+                if(sign>0) {
+                    concordant++;
+                }
+                else if(sign<0) {
+                    discordant++;
+                }
+            }
+        }
+        return (concordant-discordant)/(n*(n-1.0)/2.0);
+    }
+    
+    /**
+     * Estimates the z score of the correlation.
+     * 
+     * @param tau
+     * @param n
+     * @return 
+     */
+    private double zScore(double tau, int n) {
+        return tau/Math.sqrt(2.0*(2.0*n+5.0)/(9.0*n*(n-1.0)));
+    }
+    
 }
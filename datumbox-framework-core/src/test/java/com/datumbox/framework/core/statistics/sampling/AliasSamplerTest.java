@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for AliasSampler.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class AliasSamplerTest extends AbstractTest {
+
+    /**
+     * Test of sample method, of class AliasSampler.
+     */
+    @Test
+    public void testSample() {
+        logger.info("sample");
+        
+        double[] weights = {10.0, 0.0, 30.0, 60.0};
+        AliasSampler instance = new AliasSampler(weights);
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        int n = 100000;
+        int[] counts = new int[weights.length];
+        for(int position : instance.sample(n, random)) {
+            counts[position]++;
+        }
+        
+        assertEquals(0.1, counts[0]/(double)n, 0.01);
+        assertEquals(0, counts[1]);
+        assertEquals(0.3, counts[2]/(double)n, 0.01);
+        assertEquals(0.6, counts[3]/(double)n, 0.01);
+    }
+
+    /**
+     * Test of the constructor of class AliasSampler with zero weights.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroWeights() {
+        logger.info("testZeroWeights");
+        
+        new AliasSampler(new double[]{0.0, 0.0});
+    }
+    
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.tests.Constants;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test cases for FenwickSampler.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class FenwickSamplerTest extends AbstractTest {
+
+    /**
+     * Test of find method, of class FenwickSampler.
+     */
+    @Test
+    public void testFind() {
+        logger.info("find");
+        
+        double[] weights = {1.0, 2.0, 0.0, 3.0, 4.0};
+        FenwickSampler instance = new FenwickSampler(weights);
+        
+        assertEquals(10.0, instance.getTotal(), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        //the results must match a linear scan over the cumulative weights
+        for(double target=0.0;target<10.0;target+=0.25) {
+            int expResult = 0;
+            double cumulative = 0.0;
+            for(int i=0;i<weights.length;i++) {
+                cumulative += weights[i];
+                if(cumulative>=target) {
+                    expResult = i;
+                    break;
+                }
+            }
+            assertEquals(expResult, instance.find(target));
+        }
+    }
+
+    /**
+     * Test of setWeight method, of class FenwickSampler.
+     */
+    @Test
+    public void testSetWeight() {
+        logger.info("setWeight");
+        
+        FenwickSampler instance = new FenwickSampler(new double[]{5.0, 5.0, 5.0});
+        instance.setWeight(0, 0.0);
+        instance.setWeight(1, 0.0);
+        
+        assertEquals(5.0, instance.getTotal(), Constants.DOUBLE_ACCURACY_HIGH);
+        assertEquals(0.0, instance.getWeight(1), Constants.DOUBLE_ACCURACY_HIGH);
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        for(int i=0;i<100;i++) {
+            assertEquals(2, instance.sample(random));
+        }
+    }
+    
+}
@@ -23,6 +23,7 @@ import com.datumbox.framework.tests.abstracts.AbstractTest;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
 
 import static org.junit.Assert.assertEquals;
 
@@ -79,6 +80,25 @@ public class SimpleRandomSamplingTest extends AbstractTest {
         assertEquals(expResult, result, Constants.DOUBLE_ACCURACY_HIGH);
     }
 
+    /**
+     * Test of weightedSampling method, of class SimpleRandomSampling, without replacement.
+     */
+    @Test
+    public void testWeightedSamplingWithoutReplacement() {
+        logger.info("testWeightedSamplingWithoutReplacement");
+        AssociativeArray frequencyTable = new AssociativeArray();
+        frequencyTable.put(1, 10);
+        frequencyTable.put(2, 20);
+        frequencyTable.put(3, 30);
+        frequencyTable.put(4, 40);
+
+        int n = 3;
+        boolean withReplacement = false;
+        FlatDataCollection sampledIds = SimpleRandomSampling.weightedSampling(frequencyTable, n, withReplacement);
+        assertEquals(n, sampledIds.size());
+        assertEquals(n, new HashSet<>(sampledIds).size());
+    }
+
     /**
      * Test of randomSampling method, of class SimpleRandomSampling.
      */
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.core.statistics.sampling;
+
+import com.datumbox.framework.common.utilities.RandomGenerator;
+import com.datumbox.framework.tests.abstracts.AbstractTest;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for WeightedReservoirSampling.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class WeightedReservoirSamplingTest extends AbstractTest {
+
+    /**
+     * Test of sample method, of class WeightedReservoirSampling.
+     */
+    @Test
+    public void testSample() {
+        logger.info("sample");
+        
+        double[] weights = {1.0, 0.0, 2.0, 3.0, 4.0, 5.0};
+        int n = 3;
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        int[] result = WeightedReservoirSampling.sample(weights, n, random);
+        
+        assertEquals(n, result.length);
+        Set<Integer> unique = new HashSet<>();
+        for(int position : result) {
+            assertTrue(weights[position]>0.0);
+            unique.add(position);
+        }
+        assertEquals(n, unique.size());
+        
+        //only the indexes with positive weight can be selected
+        assertEquals(5, WeightedReservoirSampling.sample(weights, 10, random).length);
+    }
+
+    /**
+     * Test of sample method, of class WeightedReservoirSampling, when a single
+     * index is drawn.
+     */
+    @Test
+    public void testSampleFrequencies() {
+        logger.info("testSampleFrequencies");
+        
+        double[] weights = {1.0, 3.0};
+        
+        Random random = RandomGenerator.getThreadLocalRandom();
+        int n = 100000;
+        int count = 0;
+        for(int i=0;i<n;i++) {
+            if(WeightedReservoirSampling.sample(weights, 1, random)[0]==1) {
+                count++;
+            }
+        }
+        
+        assertEquals(0.75, count/(double)n, 0.01);
+    }
+    
+}
@@ -16,15 +16,22 @@
 package com.datumbox.framework.storage.inmemory;
 
 
+import com.datumbox.framework.common.storage.interfaces.Serializer;
+import com.datumbox.framework.common.storage.serializers.BinarySerializer;
+
 import java.io.*;
+import java.nio.channels.Channels;
 
 /**
- * Creates a Deep Copy of an object by serializing and deserializing it.
+ * Creates a Deep Copy of an object by serializing and deserializing it with
+ * the BinarySerializer.
  * 
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
 public class DeepCopy {
     
+    private static final Serializer SERIALIZER = new BinarySerializer();
+    
     /**
      * Serialized the Object to byte array.
      * 
@@ -32,14 +39,9 @@ public class DeepCopy {
      * @return 
      */
     public static byte[] serialize(Object obj) {
-        try(ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-            oos.writeObject(obj);
-            return bos.toByteArray();
-        } 
-        catch (IOException ex) {
-            throw new UncheckedIOException(ex);
-        }
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        SERIALIZER.serialize(obj, Channels.newChannel(bos));
+        return bos.toByteArray();
     }
     
     /**
@@ -49,16 +51,7 @@ public class DeepCopy {
      * @return 
      */
     public static Object deserialize(byte[] arr) {
-        try (InputStream bis = new ByteArrayInputStream(arr);
-             ObjectInputStream ois = new ObjectInputStream(bis)) {
-            return ois.readObject();
-        } 
-        catch (IOException ex) {
-            throw new UncheckedIOException(ex);
-        }
-        catch (ClassNotFoundException ex) {
-            throw new RuntimeException(ex);
-        }
+        return SERIALIZER.deserialize(Channels.newChannel(new ByteArrayInputStream(arr)));
     }
     
     /**
@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.lang.ref.WeakReference;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,7 +33,8 @@ import java.util.concurrent.ConcurrentSkipListMap;
 /**
  * The InMemoryEngine is responsible for saving and loading data in memory,
  * creating BigMaps and storing data. The InMemoryEngine loads all the
- * data in memory and stores all data in serialized files.
+ * data in memory and stores all data in serialized files. The objects are
+ * streamed to and from the files by the Serializer of the configuration.
  *
  * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
  */
@@ -95,7 +95,7 @@ public class InMemoryEngine extends AbstractFileStorageEngine<InMemoryConfigurat
             createDirectoryIfNotExists(rootPath);
 
             Path objectPath = new File(rootPath.toFile(), name).toPath();
-            Files.write(objectPath, DeepCopy.serialize(serializableObject));
+            serializeToFile(serializableObject, objectPath);
         } 
         catch (IOException ex) {
             throw new UncheckedIOException(ex);
@@ -116,7 +116,7 @@ public class InMemoryEngine extends AbstractFileStorageEngine<InMemoryConfigurat
         T obj;
         try {
             Path objectPath = new File(getRootPath(storageName).toFile(), name).toPath();
-            Object serializableObject = DeepCopy.deserialize(Files.readAllBytes(objectPath));
+            Object serializableObject = deserializeFromFile(objectPath);
             obj = klass.cast(serializableObject);
         }
         catch (IOException ex) {
@@ -0,0 +1,424 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.storage.mmap;
+
+import com.datumbox.framework.common.storage.interfaces.Serializer;
+import com.datumbox.framework.common.storage.interfaces.StorageEngine.MapType;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The MMapBigMap is a Map view over an MMapLog. The values are serialized by the
+ * Serializer of the engine and appended in the log while the keys and the offsets of their values are kept in
+ * an in-memory index. Replacing or removing a value leaves an obsolete entry in
+ * the log which is reclaimed by the compaction. The index is written in a file
+ * when the map is persisted, so reopening the map does not require reading the
+ * log. The map is not Serializable; it is stored by the MMapEngine.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ * @param <K>
+ * @param <V>
+ */
+class MMapBigMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * The version of the format of the index file.
+     */
+    private static final int INDEX_VERSION = 1;
+
+    /**
+     * The name of the index file.
+     */
+    private static final String INDEX_FILE = "index";
+
+    private final Path directory;
+
+    private final Class<K> keyClass;
+
+    private final Map<K, Long> index;
+
+    private final MMapLog log;
+
+    private final Serializer serializer;
+
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Package-private constructor which opens the map stored in the directory or
+     * creates a new one if the directory is empty.
+     *
+     * @param directory
+     * @param keyClass
+     * @param type
+     * @param isConcurrent
+     * @param segmentSize
+     * @param serializer
+     */
+    MMapBigMap(Path directory, Class<K> keyClass, MapType type, boolean isConcurrent, int segmentSize, Serializer serializer) {
+        this.directory = directory;
+        this.keyClass = keyClass;
+        this.serializer = serializer;
+
+        if(MapType.HASHMAP.equals(type)) {
+            index = isConcurrent?new ConcurrentHashMap<>():new HashMap<>();
+        }
+        else if(MapType.TREEMAP.equals(type)) {
+            index = isConcurrent?new ConcurrentSkipListMap<>():new TreeMap<>();
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported MapType.");
+        }
+
+        log = new MMapLog(directory, segmentSize);
+
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if(Files.exists(indexFile)) {
+            readIndex(indexFile);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(Object key) {
+        return index.containsKey(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V get(Object key) {
+        Long previousOffset = null;
+        Long offset;
+        while((offset = index.get(key)) != null && !offset.equals(previousOffset)) {
+            byte[] data = log.read(offset);
+            if(data != null) {
+                return deserialize(data);
+            }
+            //the segment was removed by a concurrent compaction; look up the new offset
+            previousOffset = offset;
+        }
+        return null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V put(K key, V value) {
+        Long previousOffset = index.put(key, log.append(serialize(value)));
+        return (previousOffset != null)?discard(previousOffset):null;
+    }
+
+    /**
+     * Stores the values without reading back the previous ones. Unlike put(), the
+     * replaced values are not deserialized; their entries are only marked as obsolete.
+     *
+     * @param m
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for(Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+            Long previousOffset = index.put(e.getKey(), log.append(serialize(e.getValue())));
+            if(previousOffset != null) {
+                log.markObsolete(previousOffset);
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V remove(Object key) {
+        Long previousOffset = index.remove(key);
+        return (previousOffset != null)?discard(previousOffset):null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        index.clear();
+        log.reset();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if(entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    Iterator<Map.Entry<K, Long>> it = index.entrySet().iterator();
+                    return new Iterator<Map.Entry<K, V>>() {
+                        private Map.Entry<K, Long> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<K, V> next() {
+                            current = it.next();
+                            return new LazyEntry(current.getKey(), current.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            it.remove();
+                            log.markObsolete(current.getValue());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return index.size();
+                }
+
+                @Override
+                public void clear() {
+                    MMapBigMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Writes the changes to the disk and stores the index. If the ratio of the
+     * obsolete bytes exceeds the threshold, the log is compacted first.
+     *
+     * @param compactionThreshold
+     */
+    void persist(double compactionThreshold) {
+        if(log.getObsoleteRatio() > compactionThreshold) {
+            compact();
+        }
+        log.flush();
+        writeIndex(directory.resolve(INDEX_FILE));
+    }
+
+    /**
+     * Releases the resources of the map. The map can not be used afterwards.
+     */
+    void close() {
+        log.close();
+    }
+
+    /**
+     * Removes all the files of the map. The map can not be used afterwards.
+     */
+    void delete() {
+        clear();
+        log.close();
+        try {
+            Files.deleteIfExists(directory.resolve(INDEX_FILE));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        try {
+            Files.deleteIfExists(directory);
+        }
+        catch (IOException ex) {
+            //the directory still contains segment files which are mapped
+            directory.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * Copies the live values in a new generation of segments and removes the old ones.
+     */
+    private void compact() {
+        int firstSegment = log.startGeneration();
+        index.replaceAll((k, offset) -> {
+            byte[] data = log.read(offset);
+            return (data != null)?log.append(data):offset;
+        });
+        log.removeSegmentsBefore(firstSegment);
+    }
+
+    private V discard(long offset) {
+        V previous = read(offset);
+        log.markObsolete(offset);
+        return previous;
+    }
+
+    private V read(long offset) {
+        byte[] data = log.read(offset);
+        return (data != null)?deserialize(data):null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V deserialize(byte[] data) {
+        return (V) serializer.deserialize(Channels.newChannel(new ByteArrayInputStream(data)));
+    }
+
+    private byte[] serialize(V value) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        serializer.serialize(value, Channels.newChannel(bos));
+        return bos.toByteArray();
+    }
+
+    /**
+     * Writes the index and the state of the log in a temporary file and moves
+     * it atomically in place.
+     *
+     * @param indexFile
+     */
+    private void writeIndex(Path indexFile) {
+        Path tmpFile = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            oos.writeInt(INDEX_VERSION);
+            for(long v : log.getState()) {
+                oos.writeLong(v);
+            }
+            oos.writeInt(index.size());
+            for(Map.Entry<K, Long> e : index.entrySet()) {
+                writeKey(oos, e.getKey());
+                oos.writeLong(e.getValue());
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        try {
+            Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the index and the state of the log from the file.
+     *
+     * @param indexFile
+     */
+    private void readIndex(Path indexFile) {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            int version = ois.readInt();
+            if(version != INDEX_VERSION) {
+                throw new IllegalStateException("Unsupported index version " + version + ".");
+            }
+            long[] state = new long[4];
+            for(int i=0;i<state.length;i++) {
+                state[i] = ois.readLong();
+            }
+            log.setState(state);
+
+            int size = ois.readInt();
+            for(int i=0;i<size;i++) {
+                K key = readKey(ois);
+                index.put(key, ois.readLong());
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        catch (ClassNotFoundException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private void writeKey(ObjectOutputStream oos, K key) throws IOException {
+        if(keyClass == Integer.class) {
+            oos.writeInt((Integer) key);
+        }
+        else if(keyClass == Long.class) {
+            oos.writeLong((Long) key);
+        }
+        else if(keyClass == String.class) {
+            oos.writeUTF((String) key);
+        }
+        else {
+            oos.writeObject(key);
+        }
+    }
+
+    private K readKey(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        if(keyClass == Integer.class) {
+            return keyClass.cast(ois.readInt());
+        }
+        else if(keyClass == Long.class) {
+            return keyClass.cast(ois.readLong());
+        }
+        else if(keyClass == String.class) {
+            return keyClass.cast(ois.readUTF());
+        }
+        else {
+            return keyClass.cast(ois.readObject());
+        }
+    }
+
+    /**
+     * Entry of the map which reads its value lazily from the log.
+     */
+    private class LazyEntry implements Map.Entry<K, V> {
+        private final K key;
+        private final long offset;
+
+        private LazyEntry(K key, long offset) {
+            this.key = key;
+            this.offset = offset;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public V getValue() {
+            byte[] data = log.read(offset);
+            return (data != null)?deserialize(data):get(key);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public V setValue(V value) {
+            return put(key, value);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.storage.mmap;
+
+import com.datumbox.framework.common.storage.abstracts.AbstractFileStorageConfiguration;
+import com.datumbox.framework.common.storage.interfaces.StorageEngine;
+
+import java.util.Properties;
+
+/**
+ * The MMapConfiguration class is used to configure the MMap storage
+ * and generate new storage engines. MMap storage keeps the values of the
+ * BigMaps in append-only logs of memory-mapped segment files and only the
+ * offset index in memory. Thus it does not load all the data in the heap.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class MMapConfiguration extends AbstractFileStorageConfiguration {
+
+    /**
+     * The maximum size of the segment files in MB.
+     */
+    static final int MAX_SEGMENT_SIZE = (int) ((Integer.MAX_VALUE + 1L) / (1024*1024)) - 1;
+
+    private int segmentSize = 64;
+
+    private double compactionThreshold = 0.5;
+
+    private boolean hybridized = true;
+
+    /** {@inheritDoc} */
+    @Override
+    public StorageEngine createStorageEngine(String storageName) {
+        return new MMapEngine(storageName, this);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void load(Properties properties) {
+        directory = properties.getProperty("mMapConfiguration.directory");
+        setSegmentSize(Integer.parseInt(properties.getProperty("mMapConfiguration.segmentSize")));
+        compactionThreshold = Double.parseDouble(properties.getProperty("mMapConfiguration.compactionThreshold"));
+        hybridized = "true".equalsIgnoreCase(properties.getProperty("mMapConfiguration.hybridized"));
+    }
+
+    /**
+     * Getter for the size of the segment files in MB.
+     *
+     * @return
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Setter for the size of the segment files in MB. Every log grows by one
+     * segment at a time. A segment is mapped in a single buffer, so its size
+     * must be between 1 and 2047 MB.
+     *
+     * @param segmentSize
+     */
+    public void setSegmentSize(int segmentSize) {
+        if(segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("The segment size must be between 1 and " + MAX_SEGMENT_SIZE + " MB.");
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Getter for the compaction threshold.
+     *
+     * @return
+     */
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Setter for the compaction threshold. When a log is persisted and the ratio
+     * of its obsolete bytes is above the threshold, the live values are rewritten
+     * in new segments. Set it to 1.0 to disable compaction.
+     *
+     * @param compactionThreshold
+     */
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Getter for the Hybridized option.
+     *
+     * @return
+     */
+    public boolean isHybridized() {
+        return hybridized;
+    }
+
+    /**
+     * Setter for the Hybridized option. If turned on, the BigMaps with the
+     * IN_MEMORY storage hint are kept in the heap instead of the memory-mapped
+     * files. This leads to improved speed but also higher memory utilization.
+     *
+     * @param hybridized
+     */
+    public void setHybridized(boolean hybridized) {
+        this.hybridized = hybridized;
+    }
+
+}
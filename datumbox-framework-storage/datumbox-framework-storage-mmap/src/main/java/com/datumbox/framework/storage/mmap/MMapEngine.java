@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.storage.mmap;
+
+import com.datumbox.framework.common.storage.abstracts.AbstractFileStorageEngine;
+import com.datumbox.framework.common.storage.abstracts.AbstractStorageEngine;
+import com.datumbox.framework.common.storage.interfaces.StorageConfiguration;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+/**
+ * The MMapEngine is responsible for saving and loading data from memory-mapped
+ * files, creating BigMaps which are backed by files and storing data. The values
+ * of the BigMaps are stored in append-only logs of page-aligned segment files which
+ * are mapped in memory, while only their offset index is kept in the heap. Thus
+ * large BigMaps do not put pressure on the heap and reopening them only requires
+ * loading their index.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+public class MMapEngine extends AbstractFileStorageEngine<MMapConfiguration> {
+
+    /**
+     * The directory of the root path where the objects are stored.
+     */
+    private static final String OBJECTS_DIRECTORY = "objects";
+
+    /**
+     * The directory of the root path where the BigMaps are stored.
+     */
+    private static final String MAPS_DIRECTORY = "maps";
+
+    /**
+     * The BigMaps which are currently open, indexed by their names. The BigMaps
+     * can be requested concurrently by the algorithms, so the map is thread-safe.
+     */
+    private final Map<String, MMapBigMap<?, ?>> openMaps = new ConcurrentHashMap<>();
+
+    /**
+     * The names of the open BigMaps which are temporary.
+     */
+    private final Set<String> temporaryMaps = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The directory where the temporary BigMaps are stored. It is created lazily.
+     */
+    private volatile Path temporaryPath = null;
+
+    /**
+     * @param storageName
+     * @param storageConfiguration
+     * @see AbstractStorageEngine#AbstractStorageEngine(String, StorageConfiguration)
+     */
+    protected MMapEngine(String storageName, MMapConfiguration storageConfiguration) {
+        super(storageName, storageConfiguration);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean rename(String newStorageName) {
+        assertConnectionOpen();
+        if(storageName.equals(newStorageName)) {
+            return false;
+        }
+
+        closeMaps(false);
+
+        try {
+            moveDirectory(getRootPath(storageName), getRootPath(newStorageName));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        logger.trace("Renamed storage {} to {}", storageName, newStorageName);
+        storageName = newStorageName;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean existsObject(String name) {
+        assertConnectionOpen();
+        return Files.exists(getObjectsPath().resolve(name));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T extends Serializable> void saveObject(String name, T serializableObject) {
+        assertConnectionOpen();
+
+        Map<String, Object> objRefs = preSerializer(serializableObject);
+        try {
+            Path objectsPath = getObjectsPath();
+            createDirectoryIfNotExists(objectsPath);
+
+            serializeToFile(serializableObject, objectsPath.resolve(name));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        finally {
+            postSerializer(serializableObject, objRefs);
+        }
+
+        //make sure the BigMaps referenced by the object are also persisted
+        persistMaps();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T extends Serializable> T loadObject(String name, Class<T> klass) throws NoSuchElementException {
+        assertConnectionOpen();
+
+        if(!existsObject(name)) {
+            throw new NoSuchElementException("Can't find any object with name '"+name+"'");
+        }
+
+        T serializableObject;
+        try {
+            serializableObject = klass.cast(deserializeFromFile(getObjectsPath().resolve(name)));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        postDeserializer(serializableObject);
+
+        return serializableObject;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close() {
+        if(isClosed()){
+            return;
+        }
+        super.close();
+
+        closeMaps(false);
+        logger.trace("Closed storage {}", storageName);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        assertConnectionOpen();
+
+        closeMaps(true);
+
+        try {
+            deleteDirectory(getRootPath(storageName), true);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K,V> Map<K,V> getBigMap(String name, Class<K> keyClass, Class<V> valueClass, MapType type, StorageHint storageHint, boolean isConcurrent, boolean isTemporary) {
+        assertConnectionOpen();
+
+        if(storageHint == StorageHint.IN_MEMORY && storageConfiguration.isHybridized()) {
+            //store in memory
+            if(MapType.HASHMAP.equals(type)) {
+                return isConcurrent?new ConcurrentHashMap<>():new HashMap<>();
+            }
+            else if(MapType.TREEMAP.equals(type)) {
+                return isConcurrent?new ConcurrentSkipListMap<>():new TreeMap<>();
+            }
+            else {
+                throw new IllegalArgumentException("Unsupported MapType.");
+            }
+        }
+
+        MMapBigMap<?, ?> map = openMaps.computeIfAbsent(name, n -> {
+            Path directory;
+            try {
+                if(isTemporary) {
+                    directory = getTemporaryPath().resolve(n);
+                    temporaryMaps.add(n);
+                }
+                else {
+                    directory = getRootPath(storageName).resolve(MAPS_DIRECTORY).resolve(n);
+                }
+                createDirectoryIfNotExists(directory);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+
+            return new MMapBigMap<>(directory, keyClass, type, isConcurrent, getSegmentSizeInBytes(), serializer);
+        });
+        return (Map<K,V>) map;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public <T extends Map> void dropBigMap(String name, T map) {
+        assertConnectionOpen();
+
+        MMapBigMap<?, ?> mmap = openMaps.remove(name);
+        temporaryMaps.remove(name);
+        if(mmap != null) {
+            mmap.delete();
+        }
+        else {
+            //the map was stored in memory
+            map.clear();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Set<Class> nonSerializableBigMaps() {
+        return Collections.singleton(MMapBigMap.class);
+    }
+
+    /**
+     * Returns the path where the objects are stored.
+     *
+     * @return
+     */
+    private Path getObjectsPath() {
+        return getRootPath(storageName).resolve(OBJECTS_DIRECTORY);
+    }
+
+    /**
+     * Returns the size of the segments in bytes.
+     *
+     * @return
+     */
+    private int getSegmentSizeInBytes() {
+        long segmentSize = storageConfiguration.getSegmentSize()*1024L*1024L;
+        if(segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid segment size.");
+        }
+        return (int) segmentSize;
+    }
+
+    /**
+     * Returns the directory of the temporary BigMaps and creates it if necessary.
+     *
+     * @return
+     * @throws IOException
+     */
+    private synchronized Path getTemporaryPath() throws IOException {
+        if(temporaryPath == null) {
+            temporaryPath = Files.createTempDirectory("mmap");
+        }
+        return temporaryPath;
+    }
+
+    /**
+     * Persists all the open BigMaps which are not temporary.
+     */
+    private void persistMaps() {
+        for(Map.Entry<String, MMapBigMap<?, ?>> e : openMaps.entrySet()) {
+            if(!temporaryMaps.contains(e.getKey())) {
+                e.getValue().persist(storageConfiguration.getCompactionThreshold());
+            }
+        }
+    }
+
+    /**
+     * Closes all the open BigMaps. The temporary maps are always deleted; the rest
+     * are persisted unless the deleteAll flag is set.
+     *
+     * @param deleteAll
+     */
+    private void closeMaps(boolean deleteAll) {
+        for(Map.Entry<String, MMapBigMap<?, ?>> e : openMaps.entrySet()) {
+            MMapBigMap<?, ?> map = e.getValue();
+            if(deleteAll || temporaryMaps.contains(e.getKey())) {
+                map.delete();
+            }
+            else {
+                map.persist(storageConfiguration.getCompactionThreshold());
+                map.close();
+            }
+        }
+        openMaps.clear();
+        temporaryMaps.clear();
+
+        if(temporaryPath != null) {
+            try {
+                deleteIfExistsRecursively(temporaryPath);
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            temporaryPath = null;
+        }
+    }
+
+}
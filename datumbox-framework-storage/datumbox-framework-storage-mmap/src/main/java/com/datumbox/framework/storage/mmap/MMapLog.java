@@ -0,0 +1,368 @@
+/**
+ * Copyright (C) 2013-2019 Vasilis Vryniotis <bbriniotis@datumbox.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datumbox.framework.storage.mmap;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The MMapLog is an append-only log of byte arrays which is stored in page-aligned
+ * memory-mapped segment files. Every entry is written as its length followed by
+ * its bytes and it is addressed by a long offset which encodes the segment id in
+ * the high 32 bits and the position within the segment in the low 32 bits. The
+ * reads are lock-free; the appends are synchronized.
+ *
+ * @author Vasilis Vryniotis <bbriniotis@datumbox.com>
+ */
+class MMapLog {
+
+    /**
+     * The size of the pages of the segments.
+     */
+    private static final int PAGE_SIZE = 4096;
+
+    /**
+     * The prefix of the names of the segment files.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    /**
+     * The directory of the segment files.
+     */
+    private final Path directory;
+
+    /**
+     * The default size of the segments in bytes.
+     */
+    private final int segmentSize;
+
+    /**
+     * The mapped segments indexed by their id. Removed segments are null.
+     */
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    /**
+     * The id of the segment where new entries are appended or -1 if no segment accepts new entries.
+     */
+    private int writeSegment = -1;
+
+    /**
+     * The position in the write segment where the next entry is appended.
+     */
+    private int writePosition = 0;
+
+    /**
+     * The total number of bytes written in the log.
+     */
+    private long totalBytes = 0L;
+
+    /**
+     * The number of bytes occupied by entries which are no longer referenced.
+     */
+    private long obsoleteBytes = 0L;
+
+    /**
+     * The files of the removed segments which could not be deleted because they
+     * were still mapped. Their deletion is retried when the log is closed.
+     */
+    private final List<Path> pendingDeletes = new ArrayList<>();
+
+    /**
+     * Package-private constructor which opens the log and maps any existing segments.
+     *
+     * @param directory
+     * @param segmentSize
+     */
+    MMapLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = pageAlign(segmentSize);
+
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+                for (Path file : stream) {
+                    int segmentId = Integer.parseInt(file.getFileName().toString().substring(SEGMENT_PREFIX.length()));
+                    MappedByteBuffer[] s = ensureCapacity(segmentId + 1);
+                    s[segmentId] = map(file, Files.size(file));
+                    segments = s;
+                }
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Appends the data in the log and returns their offset.
+     *
+     * @param data
+     * @return
+     */
+    synchronized long append(byte[] data) {
+        int entrySize = Integer.BYTES + data.length;
+        if(writeSegment < 0 || segments[writeSegment].capacity() - writePosition < entrySize) {
+            newSegment(entrySize);
+        }
+
+        ByteBuffer buffer = segments[writeSegment].duplicate();
+        buffer.position(writePosition);
+        buffer.putInt(data.length);
+        buffer.put(data);
+
+        long offset = ((long) writeSegment << 32) | writePosition;
+        writePosition += entrySize;
+        totalBytes += entrySize;
+        return offset;
+    }
+
+    /**
+     * Reads the data stored at the provided offset. If the segment of the offset
+     * was removed by a compaction or a reset, null is returned and the caller
+     * should look up the new offset of the entry.
+     *
+     * @param offset
+     * @return
+     */
+    byte[] read(long offset) {
+        MappedByteBuffer segment = getSegment(offset);
+        if(segment == null) {
+            return null;
+        }
+        ByteBuffer buffer = segment.duplicate();
+        buffer.position((int) offset);
+        byte[] data = new byte[buffer.getInt()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Marks the entry at the provided offset as obsolete.
+     *
+     * @param offset
+     */
+    synchronized void markObsolete(long offset) {
+        MappedByteBuffer segment = getSegment(offset);
+        if(segment != null) {
+            obsoleteBytes += Integer.BYTES + segment.getInt((int) offset);
+        }
+    }
+
+    /**
+     * Returns the ratio of the bytes of the log which are occupied by obsolete entries.
+     *
+     * @return
+     */
+    synchronized double getObsoleteRatio() {
+        return totalBytes > 0 ? (double) obsoleteBytes / totalBytes : 0.0;
+    }
+
+    /**
+     * Returns the state of the log which must be restored when the log is reopened.
+     *
+     * @return
+     */
+    synchronized long[] getState() {
+        return new long[]{writeSegment, writePosition, totalBytes, obsoleteBytes};
+    }
+
+    /**
+     * Restores the state of the log which was returned by getState().
+     *
+     * @param state
+     */
+    synchronized void setState(long[] state) {
+        writeSegment = (int) state[0];
+        writePosition = (int) state[1];
+        totalBytes = state[2];
+        obsoleteBytes = state[3];
+    }
+
+    /**
+     * Starts a new generation of segments and returns the id of its first segment.
+     * All the entries appended afterwards are stored in new segments, so the
+     * segments of the previous generation can be removed once their live entries
+     * have been copied.
+     *
+     * @return
+     */
+    synchronized int startGeneration() {
+        writeSegment = -1;
+        return segments.length;
+    }
+
+    /**
+     * Removes all the segments which have an id lower than the provided one.
+     *
+     * @param segmentId
+     */
+    synchronized void removeSegmentsBefore(int segmentId) {
+        MappedByteBuffer[] s = Arrays.copyOf(segments, segments.length);
+        for(int i=0;i<segmentId;i++) {
+            if(s[i] != null) {
+                s[i] = null;
+                deleteSegmentFile(i);
+            }
+        }
+        segments = s;
+
+        //recalculate the totals from the remaining segments
+        totalBytes = 0L;
+        for(int i=segmentId;i<s.length;i++) {
+            if(s[i] != null) {
+                totalBytes += (i == writeSegment) ? writePosition : s[i].capacity();
+            }
+        }
+        obsoleteBytes = 0L;
+    }
+
+    /**
+     * Forces the changes of all segments to the disk.
+     */
+    synchronized void flush() {
+        for(MappedByteBuffer segment : segments) {
+            if(segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries and segments of the log.
+     */
+    synchronized void reset() {
+        removeSegmentsBefore(segments.length);
+        segments = new MappedByteBuffer[0];
+        writeSegment = -1;
+        writePosition = 0;
+        totalBytes = 0L;
+        obsoleteBytes = 0L;
+    }
+
+    /**
+     * Releases the mapped segments. The memory is released when the buffers are
+     * garbage collected. The files of the removed segments which could not be
+     * deleted earlier are deleted now or when the JVM exits.
+     */
+    synchronized void close() {
+        segments = new MappedByteBuffer[0];
+        writeSegment = -1;
+
+        for(Path file : pendingDeletes) {
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException ex) {
+                //the buffers are unmapped only when they are garbage collected
+                file.toFile().deleteOnExit();
+            }
+        }
+        pendingDeletes.clear();
+    }
+
+    /**
+     * Creates a new segment which can hold at least the provided number of bytes
+     * and makes it the write segment.
+     *
+     * @param minSize
+     */
+    private void newSegment(int minSize) {
+        int segmentId = segments.length;
+        long size = Math.max(segmentSize, pageAlign(minSize));
+        try {
+            MappedByteBuffer[] s = ensureCapacity(segmentId + 1);
+            s[segmentId] = map(directory.resolve(segmentFileName(segmentId)), size);
+            segments = s;
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        if(writeSegment >= 0) {
+            //the unused space at the end of the previous segment is obsolete
+            obsoleteBytes += segments[writeSegment].capacity() - writePosition;
+            totalBytes += segments[writeSegment].capacity() - writePosition;
+        }
+        writeSegment = segmentId;
+        writePosition = 0;
+    }
+
+    /**
+     * Returns the segment of the offset or null if it has been removed.
+     *
+     * @param offset
+     * @return
+     */
+    private MappedByteBuffer getSegment(long offset) {
+        MappedByteBuffer[] s = segments;
+        int segmentId = (int) (offset >>> 32);
+        return (segmentId < s.length)?s[segmentId]:null;
+    }
+
+    /**
+     * Maps the file in memory, growing it to the provided size if necessary.
+     *
+     * @param file
+     * @param size
+     * @return
+     * @throws IOException
+     */
+    private MappedByteBuffer map(Path file, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw"); FileChannel channel = raf.getChannel()) {
+            if(raf.length() < size) {
+                raf.setLength(size);
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private MappedByteBuffer[] ensureCapacity(int length) {
+        return (segments.length >= length) ? Arrays.copyOf(segments, segments.length) : Arrays.copyOf(segments, length);
+    }
+
+    private void deleteSegmentFile(int segmentId) {
+        Path file = directory.resolve(segmentFileName(segmentId));
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException ex) {
+            //the file can't be deleted while it is mapped on some platforms
+            pendingDeletes.add(file);
+        }
+    }
+
+    private static String segmentFileName(int segmentId) {
+        return String.format("%s%08d", SEGMENT_PREFIX, segmentId);
+    }
+
+    private static int pageAlign(long size) {
+        long aligned = ((size + PAGE_SIZE - 1) / PAGE_SIZE) * PAGE_SIZE;
+        if(aligned > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The entry is too large for a memory-mapped segment.");
+        }
+        return (int) aligned;
+    }
+}
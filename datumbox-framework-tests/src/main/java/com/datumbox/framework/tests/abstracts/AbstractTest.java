@@ -72,6 +72,9 @@ public abstract class AbstractTest {
             else if("MapDB".equals(storageEngine)) {
                 p.setProperty("configuration.storageConfiguration", "com.datumbox.framework.storage.mapdb.MapDBConfiguration");
             }
+            else if("MMap".equals(storageEngine)) {
+                p.setProperty("configuration.storageConfiguration", "com.datumbox.framework.storage.mmap.MMapConfiguration");
+            }
             else {
                 throw new IllegalArgumentException("Unsupported option.");
             }